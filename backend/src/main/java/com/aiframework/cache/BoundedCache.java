@@ -0,0 +1,253 @@
+package com.aiframework.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-aware in-memory cache with per-entry expiry, least-recently-used eviction
+ * and single-flight loading.
+ *
+ * Entries are weighed (approximately, in bytes) when inserted. Once the total weight
+ * exceeds the configured maximum, expired entries are dropped first and then the least
+ * recently used ones. Concurrent misses for the same key share a single load.
+ */
+public class BoundedCache<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedCache.class);
+
+    private final String name;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<? super V> weigher;
+
+    // Access-ordered, guarded by this
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    public BoundedCache(String name, long maxWeight, Duration ttl, ToLongFunction<? super V> weigher) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be positive");
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+    }
+
+    /**
+     * Return the cached value, or load it once no matter how many callers miss concurrently
+     */
+    public CompletableFuture<V> get(K key, Function<? super K, CompletableFuture<V>> loader) {
+        V cached = lookup(key, true);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return existing;
+        }
+
+        // A load for this key may have finished between the lookup and claiming the slot
+        V raced = lookup(key, false);
+        if (raced != null) {
+            inFlight.remove(key, promise);
+            promise.complete(raced);
+            return promise;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+
+        load.whenComplete((value, error) -> {
+            totalLoadNanos.add(System.nanoTime() - start);
+            if (error == null && value != null) {
+                loads.increment();
+                put(key, value);
+            } else {
+                loadFailures.increment();
+            }
+            // Publish to the cache before releasing the in-flight slot so no caller reloads
+            inFlight.remove(key, promise);
+            if (error != null) {
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(value);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Cached value if present and not expired; counts towards hit/miss statistics
+     */
+    public V getIfPresent(K key) {
+        return lookup(key, true);
+    }
+
+    public void put(K key, V value) {
+        long weight = Math.max(weigher.applyAsLong(value), 1);
+        if (weight > maxWeight) {
+            logger.warn("Cache {}: entry {} ({} bytes) exceeds the cache limit and was not stored", name, key, weight);
+            return;
+        }
+
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime() + ttlNanos));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+
+            if (totalWeight > maxWeight) {
+                purgeExpiredLocked();
+            }
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (totalWeight > maxWeight && eldest.hasNext()) {
+                Map.Entry<K, Entry<V>> candidate = eldest.next();
+                if (candidate.getKey().equals(key)) continue;
+                totalWeight -= candidate.getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * Drop every entry whose key matches
+     */
+    public synchronized void invalidateIf(Predicate<? super K> filter) {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> candidate = it.next();
+            if (filter.test(candidate.getKey())) {
+                totalWeight -= candidate.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * Drop all expired entries; returns how many were removed
+     */
+    public synchronized int purgeExpired() {
+        return purgeExpiredLocked();
+    }
+
+    private int purgeExpiredLocked() {
+        long now = System.nanoTime();
+        int removed = 0;
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (entry.isExpired(now)) {
+                totalWeight -= entry.weight;
+                it.remove();
+                expirations.increment();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private V lookup(K key, boolean record) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                totalWeight -= entry.weight;
+                expirations.increment();
+                entry = null;
+            }
+            if (record) {
+                (entry != null ? hits : misses).increment();
+            }
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum() + loadFailures.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("weightBytes", totalWeight);
+        }
+        stats.put("maxWeightBytes", maxWeight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("loads", loads.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("coalescedLoads", coalescedLoads.sum());
+        stats.put("inFlightLoads", inFlight.size());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("averageLoadMillis", loadCount == 0 ? 0.0 : totalLoadNanos.sum() / 1_000_000.0 / loadCount);
+        return stats;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAtNanos;
+
+        Entry(V value, long weight, long expiresAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.aiframework.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * String cache in a fixed-size memory-mapped file that survives restarts.
+ *
+ * The file is split into a few segments written as append-only logs. Records carry a
+ * 128-bit fingerprint of their key and an expiry time; an in-memory index maps each
+ * fingerprint to its latest record and is rebuilt by scanning the segments on open. When
+ * the active segment is full the oldest one is cleared and reused, so the file never grows
+ * and the oldest quarter of the entries is evicted at a time. Invalidating a key appends an
+ * already-expired tombstone record, so the entry stays gone after a restart.
+ */
+public class MappedFileCache implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileCache.class);
+
+    private static final long MAGIC = 0x4D46434143484531L;
+    private static final int SEGMENTS = 4;
+    private static final int FILE_HEADER = 16;
+    // Segment header: long generation, int write offset, int reserved
+    private static final int SEGMENT_HEADER = 16;
+    // Record: int length, long fingerprint high, long fingerprint low, long expiry, int value length
+    private static final int RECORD_HEADER = 32;
+
+    private final Path path;
+    private final int segmentBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Guarded by this
+    private final Map<Fingerprint, Integer> index = new HashMap<>();
+    private int active;
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long writes;
+    private long rotations;
+
+    private record Fingerprint(long high, long low) { }
+
+    public MappedFileCache(Path path, long maxBytes) throws IOException {
+        this.path = path;
+        this.segmentBytes = (int) (Math.min(Math.max(maxBytes, 64 * 1024), Integer.MAX_VALUE - FILE_HEADER) / SEGMENTS);
+        long fileBytes = FILE_HEADER + (long) segmentBytes * SEGMENTS;
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = channel.size() == fileBytes;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+
+        if (reusable && buffer.getLong(0) == MAGIC && buffer.getInt(8) == segmentBytes) {
+            load();
+        } else {
+            format();
+        }
+    }
+
+    public synchronized String get(String key) {
+        Fingerprint fingerprint = fingerprint(key);
+        Integer offset = index.get(fingerprint);
+        if (offset == null) {
+            misses++;
+            return null;
+        }
+        if (buffer.getLong(offset + 4) != fingerprint.high() || buffer.getLong(offset + 12) != fingerprint.low()
+                || buffer.getLong(offset + 20) <= System.currentTimeMillis()) {
+            index.remove(fingerprint);
+            misses++;
+            return null;
+        }
+        byte[] value = new byte[buffer.getInt(offset + 28)];
+        buffer.get(offset + RECORD_HEADER, value);
+        hits++;
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Store a value; returns false if it is too large to ever fit in a segment
+     */
+    public synchronized boolean put(String key, String value, long ttlMillis) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (RECORD_HEADER + bytes.length > segmentBytes - SEGMENT_HEADER) {
+            return false;
+        }
+        Fingerprint fingerprint = fingerprint(key);
+        index.put(fingerprint, append(fingerprint, System.currentTimeMillis() + ttlMillis, bytes));
+        writes++;
+        return true;
+    }
+
+    public synchronized void invalidate(String key) {
+        Fingerprint fingerprint = fingerprint(key);
+        if (index.remove(fingerprint) != null) {
+            // Loading treats the expired record as removing the key's earlier ones
+            append(fingerprint, 0L, new byte[0]);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        index.clear();
+        format();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long used = 0;
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            used += buffer.getInt(segmentBase(segment) + 8) - SEGMENT_HEADER;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("path", path.toString());
+        stats.put("entries", index.size());
+        stats.put("usedBytes", used);
+        stats.put("maxBytes", (long) segmentBytes * SEGMENTS);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("writes", writes);
+        stats.put("rotations", rotations);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Write a record to the active segment, rotating first if it does not fit; returns its
+     * offset. The caller has checked that it fits in an empty segment.
+     */
+    private int append(Fingerprint fingerprint, long expiresAt, byte[] bytes) {
+        int length = RECORD_HEADER + bytes.length;
+        int base = segmentBase(active);
+        int writeOffset = buffer.getInt(base + 8);
+        if (writeOffset + length > segmentBytes) {
+            rotate();
+            base = segmentBase(active);
+            writeOffset = SEGMENT_HEADER;
+        }
+
+        int offset = base + writeOffset;
+        buffer.putInt(offset, length);
+        buffer.putLong(offset + 4, fingerprint.high());
+        buffer.putLong(offset + 12, fingerprint.low());
+        buffer.putLong(offset + 20, expiresAt);
+        buffer.putInt(offset + 28, bytes.length);
+        buffer.put(offset + RECORD_HEADER, bytes);
+        // Publish the record only once it is complete
+        buffer.putInt(base + 8, writeOffset + length);
+        return offset;
+    }
+
+    private void rotate() {
+        active = (active + 1) % SEGMENTS;
+        int base = segmentBase(active);
+        // Everything in the reused segment is evicted
+        Iterator<Integer> offsets = index.values().iterator();
+        while (offsets.hasNext()) {
+            int offset = offsets.next();
+            if (offset >= base && offset < base + segmentBytes) {
+                offsets.remove();
+            }
+        }
+        buffer.putLong(base, ++generation);
+        buffer.putInt(base + 8, SEGMENT_HEADER);
+        rotations++;
+    }
+
+    private void format() {
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(8, segmentBytes);
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            buffer.putLong(segmentBase(segment), 0);
+            buffer.putInt(segmentBase(segment) + 8, SEGMENT_HEADER);
+        }
+        active = 0;
+        generation = 1;
+        buffer.putLong(segmentBase(0), generation);
+    }
+
+    private void load() {
+        Integer[] order = new Integer[SEGMENTS];
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            order[segment] = segment;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(buffer.getLong(segmentBase(a)), buffer.getLong(segmentBase(b))));
+
+        long now = System.currentTimeMillis();
+        for (int segment : order) {
+            int base = segmentBase(segment);
+            long segmentGeneration = buffer.getLong(base);
+            int end = buffer.getInt(base + 8);
+            if (segmentGeneration == 0 || end < SEGMENT_HEADER || end > segmentBytes) {
+                continue;
+            }
+            // Older segments first, so a newer record for the same key wins
+            int position = SEGMENT_HEADER;
+            while (position + RECORD_HEADER <= end) {
+                int offset = base + position;
+                int length = buffer.getInt(offset);
+                if (length < RECORD_HEADER || position + length > end) {
+                    logger.warn("Stopped loading cache segment {} of {} at a damaged record", segment, path);
+                    break;
+                }
+                Fingerprint fingerprint = new Fingerprint(buffer.getLong(offset + 4), buffer.getLong(offset + 12));
+                if (buffer.getLong(offset + 20) > now) {
+                    index.put(fingerprint, offset);
+                } else {
+                    index.remove(fingerprint);
+                }
+                position += length;
+            }
+            if (segmentGeneration >= generation) {
+                generation = segmentGeneration;
+                active = segment;
+            }
+        }
+        logger.info("Loaded {} cached entries from {}", index.size(), path);
+    }
+
+    private int segmentBase(int segment) {
+        return FILE_HEADER + segment * segmentBytes;
+    }
+
+    private static Fingerprint fingerprint(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (digest[i] & 0xFF);
+                low = (low << 8) | (digest[i + 8] & 0xFF);
+            }
+            return new Fingerprint(high, low);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
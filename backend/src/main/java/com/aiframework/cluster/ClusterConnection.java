@@ -0,0 +1,72 @@
+package com.aiframework.cluster;
+
+import com.aiframework.core.AgentResult;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * One socket to a peer node, shared by every agent and request to that node.
+ *
+ * Any thread may queue frames; only the transport's I/O thread writes them, so requests are
+ * pipelined without waiting for earlier responses, which are matched back by correlation id.
+ * A connection is not ready, and carries nothing but the handshake, until the peer has
+ * proved it holds the cluster's shared secret.
+ */
+class ClusterConnection {
+    final SocketChannel channel;
+    // Set for connections this node dialed, so they can be redialed when lost
+    final InetSocketAddress dialedAddress;
+    SelectionKey key;
+    ByteBuffer readBuffer;
+
+    final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean writeScheduled = new AtomicBoolean();
+    final Map<Long, CompletableFuture<AgentResult>> pending = new ConcurrentHashMap<>();
+
+    volatile String nodeId;
+    volatile Set<String> agents = Collections.emptySet();
+    volatile Set<String> taskTypes = Collections.emptySet();
+    volatile long lastReadMillis = System.currentTimeMillis();
+    volatile long roundTripNanos = -1;
+
+    long framesIn;
+    long framesOut;
+    long bytesIn;
+    long bytesOut;
+
+    // Handshake state, only touched by the I/O thread
+    final long challenge;
+    FrameCodec.Advertisement hello;
+
+    ClusterConnection(SocketChannel channel, InetSocketAddress dialedAddress, int readBufferBytes, long challenge) {
+        this.channel = channel;
+        this.dialedAddress = dialedAddress;
+        this.readBuffer = ByteBuffer.allocate(readBufferBytes);
+        this.challenge = challenge;
+    }
+
+    void advertise(FrameCodec.Advertisement advertisement) {
+        this.agents = Set.copyOf(advertisement.agents.keySet());
+        this.taskTypes = advertisement.agents.values().stream()
+            .flatMap(types -> types.stream())
+            .map(type -> type.toUpperCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** Set once the peer has authenticated */
+    boolean isReady() {
+        return nodeId != null && channel.isOpen();
+    }
+}
@@ -0,0 +1,777 @@
+package com.aiframework.cluster;
+
+import com.aiframework.communication.AgentMessageBus;
+import com.aiframework.core.Agent;
+import com.aiframework.core.AgentContext;
+import com.aiframework.core.AgentResult;
+import com.aiframework.core.Task;
+import com.aiframework.manager.AgentManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Connects this node's agents to agents on other JVMs.
+ *
+ * Every node listens on cluster.port and dials the nodes listed in cluster.peers. All
+ * traffic to a node is multiplexed over one non-blocking socket served by a single I/O
+ * thread: agent messages, task requests and their responses, and heartbeats. Requests are
+ * pipelined, so many tasks can be in flight on a connection and complete in any order.
+ * Nodes advertise their agents and task types on connect and whenever they change, which
+ * lets the orchestrator route a task no local agent can handle to a node that can, and
+ * lets the communication protocol deliver a message to an agent living on another node.
+ *
+ * The listener binds to loopback unless cluster.bind-address says otherwise. Every
+ * connection starts with a challenge-response handshake over cluster.shared-secret: each
+ * side's HELLO carries a random challenge, the other answers with an HMAC of it, and until
+ * that answer checks out the connection is not ready and every other frame is dropped.
+ * Incoming agent messages are handed to the local bus on a separate delivery thread, so
+ * a full mailbox never stalls cluster I/O.
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterTransport {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterTransport.class);
+
+    private static final int WRITE_BATCH = 64;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final String nodeId;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private final long requestTimeoutMs;
+    private final long heartbeatIntervalMs;
+    private final long reconnectIntervalMs;
+    private final int maxFrameBytes;
+
+    private final AgentManager agentManager;
+    private final AgentMessageBus messageBus;
+    private final Executor taskExecutor;
+    private final ThreadPoolExecutor deliveryExecutor;
+    private final FrameCodec codec;
+    private final SecretKeySpec sharedSecret;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread ioThread;
+    private volatile boolean running = true;
+
+    private final Set<ClusterConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, ClusterConnection> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ClusterConnection> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextCorrelationId = new AtomicLong();
+    private volatile BiFunction<Task, AgentContext, AgentResult> taskHandler;
+
+    // Only touched by the I/O thread
+    private final Map<InetSocketAddress, Long> redialAt = new HashMap<>();
+    private final Set<InetSocketAddress> selfAddresses = new HashSet<>();
+    private Map<String, List<String>> advertised = Map.of();
+
+    private final LongAdder tasksSent = new LongAdder();
+    private final LongAdder tasksReceived = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder messagesDropped = new LongAdder();
+    private final LongAdder unauthenticatedFrames = new LongAdder();
+    private final LongAdder authenticationFailures = new LongAdder();
+
+    public ClusterTransport(@Value("${cluster.node-id:}") String nodeId,
+                            @Value("${cluster.bind-address:127.0.0.1}") String bindAddress,
+                            @Value("${cluster.port:7700}") int port,
+                            @Value("${cluster.shared-secret:}") String sharedSecret,
+                            @Value("${cluster.peers:}") List<String> peers,
+                            @Value("${cluster.request-timeout-ms:30000}") long requestTimeoutMs,
+                            @Value("${cluster.heartbeat-interval-ms:2000}") long heartbeatIntervalMs,
+                            @Value("${cluster.reconnect-interval-ms:2000}") long reconnectIntervalMs,
+                            @Value("${cluster.max-frame-bytes:16777216}") int maxFrameBytes,
+                            @Value("${cluster.delivery-queue-capacity:10000}") int deliveryQueueCapacity,
+                            AgentManager agentManager,
+                            AgentMessageBus messageBus,
+                            @Qualifier("taskExecutor") Executor taskExecutor,
+                            ObjectMapper objectMapper) {
+        if (sharedSecret == null || sharedSecret.isBlank()) {
+            throw new IllegalStateException("cluster.shared-secret must be set when cluster.enabled=true");
+        }
+        this.sharedSecret = new SecretKeySpec(sharedSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId(port) : nodeId.trim();
+        this.port = port;
+        this.peers = new ArrayList<>();
+        for (String peer : peers) {
+            if (!peer.isBlank()) {
+                this.peers.add(parseAddress(peer.trim()));
+            }
+        }
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.heartbeatIntervalMs = Math.max(heartbeatIntervalMs, 100);
+        this.reconnectIntervalMs = Math.max(reconnectIntervalMs, 100);
+        this.maxFrameBytes = maxFrameBytes;
+        this.agentManager = agentManager;
+        this.messageBus = messageBus;
+        this.taskExecutor = taskExecutor;
+        this.codec = new FrameCodec(objectMapper);
+        // One thread keeps messages from a node in order; a full queue drops rather than blocking I/O
+        this.deliveryExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(deliveryQueueCapacity, 1)), runnable -> {
+                Thread thread = new Thread(runnable, "ClusterTransport-delivery");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        try {
+            this.selector = Selector.open();
+            this.server = ServerSocketChannel.open();
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            server.bind(new InetSocketAddress(bindAddress, port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for cluster connections on port " + port, e);
+        }
+
+        this.ioThread = new Thread(this::run, "ClusterTransport-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        logger.info("Cluster node {} listening on {}:{} with peers {}", this.nodeId, bindAddress, port, this.peers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deliveryExecutor.shutdown();
+    }
+
+    /**
+     * Set the function that runs tasks sent to this node by other nodes
+     */
+    public void setTaskHandler(BiFunction<Task, AgentContext, AgentResult> taskHandler) {
+        this.taskHandler = taskHandler;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The connected node advertising the task type with the fewest requests in flight
+     */
+    public Optional<String> findNodeForTaskType(String taskType) {
+        if (taskType == null) {
+            return Optional.empty();
+        }
+        String normalized = taskType.toUpperCase(Locale.ROOT);
+        return nodes.values().stream()
+            .filter(connection -> connection.isReady() && connection.taskTypes.contains(normalized))
+            .min(Comparator.comparingInt(connection -> connection.pending.size()))
+            .map(connection -> connection.nodeId);
+    }
+
+    /**
+     * The connected node hosting the agent, if it is not hosted here
+     */
+    public Optional<String> findNodeForAgent(String agentName) {
+        if (agentName == null || agentManager.getAgent(agentName).isPresent()) {
+            return Optional.empty();
+        }
+        return nodes.values().stream()
+            .filter(connection -> connection.isReady() && connection.agents.contains(agentName))
+            .findFirst()
+            .map(connection -> connection.nodeId);
+    }
+
+    /**
+     * Run a task on another node; completes exceptionally if the node is not connected,
+     * the connection drops or no response arrives within the request timeout. Completion
+     * happens on the task executor, so callers may compose on it without running on the
+     * I/O thread.
+     */
+    public CompletableFuture<AgentResult> executeRemote(String targetNode, Task task, AgentContext context) {
+        ClusterConnection connection = nodes.get(targetNode);
+        if (connection == null || !connection.isReady()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Node " + targetNode + " is not connected"));
+        }
+        long correlationId = nextCorrelationId.incrementAndGet();
+        CompletableFuture<AgentResult> response = new CompletableFuture<>();
+        connection.pending.put(correlationId, response);
+        response.orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((result, error) -> connection.pending.remove(correlationId));
+        if (!connection.channel.isOpen()) {
+            // Closed after the lookup; the close may already have failed the pending requests
+            response.completeExceptionally(new IOException("Connection to node " + targetNode + " closed"));
+            return response;
+        }
+        tasksSent.increment();
+        try {
+            enqueue(connection, codec.taskRequest(correlationId, task, context));
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response.whenCompleteAsync((result, error) -> { }, taskExecutor);
+    }
+
+    /**
+     * Deliver a message to an agent on another node; returns false if the agent is local or
+     * unknown to the cluster, so the caller can deliver it locally
+     */
+    public boolean sendMessage(String fromAgent, String toAgent, Object payload) {
+        Optional<String> node = findNodeForAgent(toAgent);
+        if (node.isEmpty()) {
+            return false;
+        }
+        ClusterConnection connection = nodes.get(node.get());
+        if (connection == null) {
+            return false;
+        }
+        enqueue(connection, codec.message(new FrameCodec.Message(FrameCodec.SEND, fromAgent, toAgent, null, payload)));
+        messagesSent.increment();
+        return true;
+    }
+
+    /**
+     * Publish on every other node; returns the number of nodes reached
+     */
+    public int publish(String fromAgent, String topic, Object payload) {
+        return sendToAll(new FrameCodec.Message(FrameCodec.PUBLISH, fromAgent, null, topic, payload));
+    }
+
+    /**
+     * Broadcast to the agents of every other node; returns the number of nodes reached
+     */
+    public int broadcast(String fromAgent, Object payload) {
+        return sendToAll(new FrameCodec.Message(FrameCodec.BROADCAST, fromAgent, null, null, payload));
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> connectionStats = new ArrayList<>();
+        for (ClusterConnection connection : connections) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("node", connection.nodeId);
+            stats.put("dialed", connection.dialedAddress != null);
+            stats.put("remoteAddress", remoteAddress(connection));
+            stats.put("agents", connection.agents);
+            stats.put("taskTypes", connection.taskTypes);
+            stats.put("pendingRequests", connection.pending.size());
+            stats.put("queuedFrames", connection.outbound.size());
+            stats.put("roundTripMicros", connection.roundTripNanos < 0 ? null : connection.roundTripNanos / 1000);
+            stats.put("framesIn", connection.framesIn);
+            stats.put("framesOut", connection.framesOut);
+            stats.put("bytesIn", connection.bytesIn);
+            stats.put("bytesOut", connection.bytesOut);
+            connectionStats.add(stats);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("port", port);
+        stats.put("peers", peers.stream().map(peer -> peer.getHostString() + ":" + peer.getPort()).toList());
+        stats.put("nodes", new ArrayList<>(nodes.keySet()));
+        stats.put("connections", connectionStats);
+        stats.put("tasksSent", tasksSent.sum());
+        stats.put("tasksReceived", tasksReceived.sum());
+        stats.put("messagesSent", messagesSent.sum());
+        stats.put("messagesReceived", messagesReceived.sum());
+        stats.put("messagesDropped", messagesDropped.sum());
+        stats.put("deliveryQueued", deliveryExecutor.getQueue().size());
+        stats.put("unauthenticatedFrames", unauthenticatedFrames.sum());
+        stats.put("authenticationFailures", authenticationFailures.sum());
+        return stats;
+    }
+
+    private int sendToAll(FrameCodec.Message message) {
+        List<ClusterConnection> targets = nodes.values().stream().filter(ClusterConnection::isReady).toList();
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        ByteBuffer frame = codec.message(message);
+        for (ClusterConnection connection : targets) {
+            enqueue(connection, frame.duplicate());
+        }
+        messagesSent.add(targets.size());
+        return targets.size();
+    }
+
+    /**
+     * Queue a frame and make sure the I/O thread will write it; callable from any thread
+     */
+    private void enqueue(ClusterConnection connection, ByteBuffer frame) {
+        connection.outbound.add(frame);
+        if (connection.writeScheduled.compareAndSet(false, true)) {
+            writeQueue.add(connection);
+            if (Thread.currentThread() != ioThread) {
+                selector.wakeup();
+            }
+        }
+    }
+
+    private void run() {
+        for (InetSocketAddress peer : peers) {
+            redialAt.put(peer, 0L);
+        }
+        long nextHeartbeat = 0;
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextHeartbeat) {
+                    heartbeat(now);
+                    nextHeartbeat = now + heartbeatIntervalMs;
+                }
+                dialDuePeers(now);
+                selector.select(Math.max(1, Math.min(nextHeartbeat, nextRedial()) - System.currentTimeMillis()));
+
+                ClusterConnection flushable;
+                while ((flushable = writeQueue.poll()) != null) {
+                    try {
+                        flush(flushable);
+                    } catch (IOException e) {
+                        close(flushable, e.getMessage());
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    ClusterConnection connection = (ClusterConnection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable()) {
+                            connection.channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                            connected(connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        close(connection, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Cluster I/O loop failed", e);
+            }
+        }
+
+        for (ClusterConnection connection : new ArrayList<>(connections)) {
+            close(connection, "node shutting down");
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Error closing cluster listener", e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        ClusterConnection connection = new ClusterConnection(channel, null, READ_BUFFER_BYTES, random.nextLong());
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connected(connection);
+    }
+
+    private void dialDuePeers(long now) {
+        Iterator<Map.Entry<InetSocketAddress, Long>> due = redialAt.entrySet().iterator();
+        List<InetSocketAddress> dialing = new ArrayList<>();
+        while (due.hasNext()) {
+            Map.Entry<InetSocketAddress, Long> entry = due.next();
+            if (entry.getValue() <= now) {
+                dialing.add(entry.getKey());
+                due.remove();
+            }
+        }
+        for (InetSocketAddress address : dialing) {
+            SocketChannel channel = null;
+            try {
+                InetSocketAddress resolved = new InetSocketAddress(address.getHostString(), address.getPort());
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ClusterConnection connection = new ClusterConnection(channel, address, READ_BUFFER_BYTES, random.nextLong());
+                if (channel.connect(resolved)) {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connected(connection);
+                } else {
+                    connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                    connections.add(connection);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Cannot dial cluster peer {}: {}", address, e.getMessage());
+                closeQuietly(channel);
+                redialAt.put(address, now + reconnectIntervalMs);
+            }
+        }
+    }
+
+    private long nextRedial() {
+        long next = Long.MAX_VALUE;
+        for (long at : redialAt.values()) {
+            next = Math.min(next, at);
+        }
+        return next;
+    }
+
+    private void connected(ClusterConnection connection) {
+        connections.add(connection);
+        connection.lastReadMillis = System.currentTimeMillis();
+        enqueue(connection, codec.advertisement(FrameCodec.HELLO, connection.challenge,
+            new FrameCodec.Advertisement(nodeId, localAgents())));
+    }
+
+    private void heartbeat(long now) {
+        Map<String, List<String>> agents = localAgents();
+        boolean changed = !agents.equals(advertised);
+        advertised = agents;
+        ByteBuffer advertisement = changed
+            ? codec.advertisement(FrameCodec.AGENTS, 0, new FrameCodec.Advertisement(nodeId, agents)) : null;
+
+        for (ClusterConnection connection : new ArrayList<>(connections)) {
+            if (connection.nodeId == null) {
+                // Still connecting or waiting for the peer's hello and proof
+                if (now - connection.lastReadMillis > 3 * heartbeatIntervalMs) {
+                    close(connection, "no hello within " + 3 * heartbeatIntervalMs + "ms");
+                }
+                continue;
+            }
+            if (now - connection.lastReadMillis > 3 * heartbeatIntervalMs) {
+                close(connection, "no traffic for " + (now - connection.lastReadMillis) + "ms");
+                continue;
+            }
+            if (advertisement != null) {
+                enqueue(connection, advertisement.duplicate());
+            }
+            enqueue(connection, codec.control(FrameCodec.PING, System.nanoTime()));
+        }
+    }
+
+    private Map<String, List<String>> localAgents() {
+        Map<String, List<String>> agents = new LinkedHashMap<>();
+        for (Agent agent : agentManager.getAllAgents()) {
+            agents.put(agent.getName(), new ArrayList<>(agent.getSupportedTaskTypes()));
+        }
+        return agents;
+    }
+
+    private void read(ClusterConnection connection) throws IOException {
+        int count = connection.channel.read(connection.readBuffer);
+        if (count < 0) {
+            throw new EOFException("peer closed the connection");
+        }
+        connection.bytesIn += count;
+        connection.lastReadMillis = System.currentTimeMillis();
+
+        ByteBuffer buffer = connection.readBuffer;
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length < FrameCodec.HEADER_BYTES - 4 || length > maxFrameBytes) {
+                throw new IOException("invalid frame length " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                if (buffer.capacity() < 4 + length) {
+                    // Frame larger than the buffer; grow it and wait for the rest
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, 4 + length));
+                    larger.put(buffer);
+                    connection.readBuffer = larger;
+                    return;
+                }
+                break;
+            }
+            ByteBuffer frame = buffer.duplicate();
+            frame.limit(start + 4 + length).position(start + 4);
+            buffer.position(start + 4 + length);
+            connection.framesIn++;
+            byte type = frame.get();
+            long correlationId = frame.getLong();
+            dispatch(connection, type, correlationId, new FrameCodec.Reader(frame));
+        }
+        buffer.compact();
+    }
+
+    private void dispatch(ClusterConnection connection, byte type, long correlationId, FrameCodec.Reader in)
+            throws IOException {
+        if (connection.nodeId == null && type != FrameCodec.HELLO && type != FrameCodec.AUTH) {
+            // Nothing but the handshake until the peer has authenticated
+            unauthenticatedFrames.increment();
+            logger.debug("Dropped frame type {} from unauthenticated connection {}", type, remoteAddress(connection));
+            return;
+        }
+        switch (type) {
+            case FrameCodec.HELLO -> {
+                FrameCodec.Advertisement hello = codec.readAdvertisement(in);
+                if (connection.hello != null || connection.nodeId != null || hello.nodeId == null) {
+                    throw new IOException("unexpected hello");
+                }
+                if (nodeId.equals(hello.nodeId)) {
+                    if (connection.dialedAddress != null) {
+                        selfAddresses.add(connection.dialedAddress);
+                    }
+                    throw new IOException("connected to itself");
+                }
+                // Held until the peer answers our challenge; meanwhile prove ourselves
+                connection.hello = hello;
+                enqueue(connection, codec.auth(proof(correlationId, nodeId)));
+            }
+            case FrameCodec.AUTH -> {
+                FrameCodec.Advertisement hello = connection.hello;
+                if (hello == null || connection.nodeId != null) {
+                    throw new IOException("unexpected authentication");
+                }
+                if (!MessageDigest.isEqual(codec.readAuth(in), proof(connection.challenge, hello.nodeId))) {
+                    authenticationFailures.increment();
+                    throw new IOException("node " + hello.nodeId + " failed authentication");
+                }
+                connection.hello = null;
+                connection.advertise(hello);
+                connection.nodeId = hello.nodeId;
+                // Two nodes that list each other end up with two connections; either will do
+                nodes.put(hello.nodeId, connection);
+                logger.info("Connected to cluster node {} at {} with agents {}",
+                    hello.nodeId, remoteAddress(connection), connection.agents);
+            }
+            case FrameCodec.AGENTS -> connection.advertise(codec.readAdvertisement(in));
+            case FrameCodec.PING -> enqueue(connection, codec.control(FrameCodec.PONG, correlationId));
+            case FrameCodec.PONG -> connection.roundTripNanos = System.nanoTime() - correlationId;
+            case FrameCodec.MESSAGE -> deliver(codec.readMessage(in));
+            case FrameCodec.TASK_REQUEST -> runTask(connection, correlationId, codec.readTaskRequest(in));
+            case FrameCodec.TASK_RESPONSE -> {
+                AgentResult result = codec.readTaskResponse(in);
+                CompletableFuture<AgentResult> response = connection.pending.remove(correlationId);
+                if (response != null) {
+                    response.complete(result);
+                }
+            }
+            default -> throw new IOException("unknown frame type " + type);
+        }
+    }
+
+    /**
+     * HMAC of a challenge and the answering node's id under the shared secret
+     */
+    private byte[] proof(long challenge, String answeringNode) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(sharedSecret);
+            mac.update(ByteBuffer.allocate(Long.BYTES).putLong(challenge).array());
+            mac.update(answeringNode.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Hand a remote message to the local bus on the delivery thread, so backpressure from a
+     * full mailbox (including the BLOCK policy) never holds up the I/O thread
+     */
+    private void deliver(FrameCodec.Message message) {
+        messagesReceived.increment();
+        try {
+            deliveryExecutor.execute(() -> {
+                switch (message.kind) {
+                    case FrameCodec.SEND -> messageBus.send(message.fromAgent, message.toAgent, message.payload);
+                    case FrameCodec.PUBLISH -> messageBus.publish(message.fromAgent, message.topic, message.payload);
+                    case FrameCodec.BROADCAST -> messageBus.broadcast(message.fromAgent, message.payload);
+                    default -> logger.warn("Ignoring cluster message of unknown kind {}", message.kind);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            messagesDropped.increment();
+            logger.debug("Cluster delivery queue full; dropped message from {}", message.fromAgent);
+        }
+    }
+
+    private void runTask(ClusterConnection connection, long correlationId, FrameCodec.TaskRequest request) {
+        tasksReceived.increment();
+        Task task = request.task;
+        try {
+            taskExecutor.execute(() -> {
+                AgentResult result;
+                BiFunction<Task, AgentContext, AgentResult> handler = taskHandler;
+                try {
+                    result = handler != null ? handler.apply(task, request.context)
+                        : AgentResult.failure(task.getId(), nodeId, "Node " + nodeId + " is not accepting tasks yet");
+                } catch (RuntimeException e) {
+                    logger.error("Remote task {} from node {} failed", task.getId(), connection.nodeId, e);
+                    result = AgentResult.failure(task.getId(), nodeId, "Error processing task: " + e.getMessage());
+                }
+                if (result == null) {
+                    result = AgentResult.failure(task.getId(), nodeId, "Node " + nodeId + " returned no result");
+                }
+                enqueue(connection, codec.taskResponse(correlationId, result));
+            });
+        } catch (RejectedExecutionException e) {
+            enqueue(connection, codec.taskResponse(correlationId,
+                AgentResult.failure(task.getId(), nodeId, "Node " + nodeId + " is saturated")));
+        }
+    }
+
+    private void flush(ClusterConnection connection) throws IOException {
+        if (!connection.channel.isConnected()) {
+            // Connect still pending; the frames go out once it completes
+            connection.writeScheduled.set(false);
+            return;
+        }
+        ByteBuffer[] batch = new ByteBuffer[WRITE_BATCH];
+        while (true) {
+            int count = 0;
+            for (ByteBuffer frame : connection.outbound) {
+                batch[count++] = frame;
+                if (count == batch.length) {
+                    break;
+                }
+            }
+            if (count == 0) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+                connection.writeScheduled.set(false);
+                // A frame queued after the scan and before the flag was cleared is ours to write
+                if (connection.outbound.isEmpty() || !connection.writeScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            connection.bytesOut += connection.channel.write(batch, 0, count);
+            ByteBuffer head;
+            while ((head = connection.outbound.peek()) != null && !head.hasRemaining()) {
+                connection.outbound.poll();
+                connection.framesOut++;
+            }
+            if (batch[count - 1].hasRemaining()) {
+                // Socket buffer is full; resume when the peer has drained it
+                connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    private void close(ClusterConnection connection, String reason) {
+        if (!connections.remove(connection)) {
+            return;
+        }
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        closeQuietly(connection.channel);
+        connection.outbound.clear();
+
+        String peerNode = connection.nodeId;
+        if (peerNode != null && nodes.remove(peerNode, connection)) {
+            connections.stream()
+                .filter(other -> peerNode.equals(other.nodeId) && other.isReady())
+                .findFirst()
+                .ifPresent(other -> nodes.putIfAbsent(peerNode, other));
+        }
+        IOException failure = new IOException("Connection to node " + peerNode + " closed: " + reason);
+        connection.pending.values().forEach(response -> response.completeExceptionally(failure));
+        connection.pending.clear();
+
+        if (connection.dialedAddress != null && running && !selfAddresses.contains(connection.dialedAddress)) {
+            redialAt.put(connection.dialedAddress, System.currentTimeMillis() + reconnectIntervalMs);
+        }
+        if (peerNode != null) {
+            logger.warn("Lost cluster node {}: {}", peerNode, reason);
+        } else {
+            logger.debug("Cluster connection to {} closed: {}", remoteAddress(connection), reason);
+        }
+    }
+
+    private static String remoteAddress(ClusterConnection connection) {
+        if (connection.dialedAddress != null) {
+            return connection.dialedAddress.getHostString() + ":" + connection.dialedAddress.getPort();
+        }
+        try {
+            return String.valueOf(connection.channel.getRemoteAddress());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Error closing cluster connection", e);
+        }
+    }
+
+    private static InetSocketAddress parseAddress(String peer) {
+        int colon = peer.lastIndexOf(':');
+        if (colon <= 0 || colon == peer.length() - 1) {
+            throw new IllegalArgumentException("Cluster peer must be host:port, got " + peer);
+        }
+        return InetSocketAddress.createUnresolved(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1)));
+    }
+
+    private static String defaultNodeId(int port) {
+        try {
+            return InetAddress.getLocalHost().getHostName() + ":" + port;
+        } catch (IOException e) {
+            return "node-" + port;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.aiframework.cluster;
+
+import com.aiframework.core.AgentContext;
+import com.aiframework.core.AgentResult;
+import com.aiframework.core.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary framing for the cluster transport.
+ *
+ * A frame is [int length][byte type][long correlation id][body], where length counts
+ * everything after itself. Bodies use varints for lengths and integers and a one-byte tag
+ * per dynamic value; values without a native encoding are first converted to maps, lists
+ * and scalars by Jackson. Both ends are assumed to run the same build.
+ */
+class FrameCodec {
+    static final int HEADER_BYTES = 4 + 1 + 8;
+
+    static final byte HELLO = 1;
+    static final byte AGENTS = 2;
+    static final byte PING = 3;
+    static final byte PONG = 4;
+    static final byte MESSAGE = 5;
+    static final byte TASK_REQUEST = 6;
+    static final byte TASK_RESPONSE = 7;
+    static final byte AUTH = 8;
+
+    static final byte SEND = 0;
+    static final byte PUBLISH = 1;
+    static final byte BROADCAST = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte MAP = 7;
+    private static final byte LIST = 8;
+    private static final byte DATE_TIME = 9;
+
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+
+    private final ObjectMapper objectMapper;
+
+    FrameCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** A node's identity and the agents it hosts, keyed by name with their task types */
+    static final class Advertisement {
+        final String nodeId;
+        final Map<String, List<String>> agents;
+
+        Advertisement(String nodeId, Map<String, List<String>> agents) {
+            this.nodeId = nodeId;
+            this.agents = agents;
+        }
+    }
+
+    /** One-way agent message; toAgent is null unless kind is SEND, topic unless PUBLISH */
+    static final class Message {
+        final byte kind;
+        final String fromAgent;
+        final String toAgent;
+        final String topic;
+        final Object payload;
+
+        Message(byte kind, String fromAgent, String toAgent, String topic, Object payload) {
+            this.kind = kind;
+            this.fromAgent = fromAgent;
+            this.toAgent = toAgent;
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+
+    /** Task request together with the caller's context */
+    static final class TaskRequest {
+        final Task task;
+        final AgentContext context;
+
+        TaskRequest(Task task, AgentContext context) {
+            this.task = task;
+            this.context = context;
+        }
+    }
+
+    /** HELLO carries the sender's challenge in its correlation id; AGENTS uses 0 */
+    ByteBuffer advertisement(byte type, long correlationId, Advertisement advertisement) {
+        Writer out = new Writer(type, correlationId);
+        out.writeString(advertisement.nodeId);
+        out.writeVarint(advertisement.agents.size());
+        for (Map.Entry<String, List<String>> agent : advertisement.agents.entrySet()) {
+            out.writeString(agent.getKey());
+            out.writeVarint(agent.getValue().size());
+            for (String taskType : agent.getValue()) {
+                out.writeString(taskType);
+            }
+        }
+        return out.finish();
+    }
+
+    Advertisement readAdvertisement(Reader in) {
+        String nodeId = in.readString();
+        int count = in.readVarint();
+        Map<String, List<String>> agents = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readString();
+            int types = in.readVarint();
+            List<String> taskTypes = new ArrayList<>(types);
+            for (int j = 0; j < types; j++) {
+                taskTypes.add(in.readString());
+            }
+            agents.put(name, taskTypes);
+        }
+        return new Advertisement(nodeId, agents);
+    }
+
+    /** Answer to the peer's HELLO challenge */
+    ByteBuffer auth(byte[] proof) {
+        Writer out = new Writer(AUTH, 0);
+        out.writeString(Base64.getEncoder().encodeToString(proof));
+        return out.finish();
+    }
+
+    byte[] readAuth(Reader in) {
+        String proof = in.readString();
+        return proof == null ? new byte[0] : Base64.getDecoder().decode(proof);
+    }
+
+    ByteBuffer control(byte type, long correlationId) {
+        return new Writer(type, correlationId).finish();
+    }
+
+    ByteBuffer message(Message message) {
+        Writer out = new Writer(MESSAGE, 0);
+        out.writeByte(message.kind);
+        out.writeString(message.fromAgent);
+        out.writeString(message.toAgent);
+        out.writeString(message.topic);
+        out.writeValue(message.payload);
+        return out.finish();
+    }
+
+    Message readMessage(Reader in) {
+        return new Message(in.readByte(), in.readString(), in.readString(), in.readString(), in.readValue());
+    }
+
+    ByteBuffer taskRequest(long correlationId, Task task, AgentContext context) {
+        Writer out = new Writer(TASK_REQUEST, correlationId);
+        out.writeString(task.getId());
+        out.writeString(task.getType());
+        out.writeString(task.getDescription());
+        out.writeByte((byte) (task.getPriority() == null ? -1 : task.getPriority().ordinal()));
+        out.writeDateTime(task.getCreatedAt());
+        out.writeString(task.getUserId());
+        out.writeValue(task.getParameters());
+        out.writeString(context == null ? null : context.getSessionId());
+        out.writeString(context == null ? null : context.getUserId());
+        out.writeValue(context == null ? null : context.getSharedData());
+        return out.finish();
+    }
+
+    @SuppressWarnings("unchecked")
+    TaskRequest readTaskRequest(Reader in) {
+        Task task = new Task();
+        task.setId(in.readString());
+        task.setType(in.readString());
+        task.setDescription(in.readString());
+        byte priority = in.readByte();
+        task.setPriority(priority < 0 ? null : PRIORITIES[priority]);
+        task.setCreatedAt(in.readDateTime());
+        task.setUserId(in.readString());
+        Map<String, Object> parameters = (Map<String, Object>) in.readValue();
+        if (parameters != null) {
+            task.setParameters(parameters);
+        }
+        AgentContext context = new AgentContext(in.readString(), in.readString());
+        Map<String, Object> sharedData = (Map<String, Object>) in.readValue();
+        if (sharedData != null) {
+            sharedData.forEach(context::put);
+        }
+        return new TaskRequest(task, context);
+    }
+
+    ByteBuffer taskResponse(long correlationId, AgentResult result) {
+        Writer out = new Writer(TASK_RESPONSE, correlationId);
+        out.writeString(result.getTaskId());
+        out.writeString(result.getAgentName());
+        out.writeByte((byte) (result.isSuccess() ? 1 : 0));
+        out.writeValue(result.getData());
+        out.writeString(result.getMessage());
+        out.writeValue(result.getMetadata());
+        out.writeDateTime(result.getCompletedAt());
+        out.writeLong(result.getExecutionTimeMs());
+        return out.finish();
+    }
+
+    @SuppressWarnings("unchecked")
+    AgentResult readTaskResponse(Reader in) {
+        AgentResult result = new AgentResult();
+        result.setTaskId(in.readString());
+        result.setAgentName(in.readString());
+        result.setSuccess(in.readByte() == 1);
+        result.setData(in.readValue());
+        result.setMessage(in.readString());
+        result.setMetadata((Map<String, Object>) in.readValue());
+        result.setCompletedAt(in.readDateTime());
+        result.setExecutionTimeMs(in.readLong());
+        return result;
+    }
+
+    /**
+     * Growable output buffer for one frame; the header is reserved up front and the
+     * length is filled in by finish()
+     */
+    final class Writer {
+        private byte[] bytes = new byte[256];
+        private int position;
+
+        Writer(byte type, long correlationId) {
+            position = 4;
+            writeByte(type);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (correlationId >>> shift);
+            }
+        }
+
+        ByteBuffer finish() {
+            int length = position - 4;
+            bytes[0] = (byte) (length >>> 24);
+            bytes[1] = (byte) (length >>> 16);
+            bytes[2] = (byte) (length >>> 8);
+            bytes[3] = (byte) length;
+            return ByteBuffer.wrap(bytes, 0, position);
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            bytes[position++] = value;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeLong(long value) {
+            // Zig-zag so small negative numbers stay short
+            writeVarlong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        /** Null-safe: length 0 is null and a string of n bytes is written as n + 1 */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            position += utf8.length;
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            if (value == null) {
+                writeByte(NULL);
+                return;
+            }
+            writeByte(DATE_TIME);
+            writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarint(value.getNano());
+        }
+
+        void writeValue(Object value) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String string) {
+                writeByte(STRING);
+                writeString(string);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeByte(INT);
+                writeLong(((Number) value).intValue());
+            } else if (value instanceof Long longValue) {
+                writeByte(LONG);
+                writeLong(longValue);
+            } else if (value instanceof Double || value instanceof Float) {
+                writeByte(DOUBLE);
+                long bits = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                ensure(8);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    bytes[position++] = (byte) (bits >>> shift);
+                }
+            } else if (value instanceof Boolean flag) {
+                writeByte(flag ? TRUE : FALSE);
+            } else if (value instanceof Map<?, ?> map) {
+                writeByte(MAP);
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof Collection<?> collection) {
+                writeByte(LIST);
+                writeVarint(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Object[] array) {
+                writeValue(Arrays.asList(array));
+            } else if (value instanceof Enum<?> constant) {
+                writeByte(STRING);
+                writeString(constant.name());
+            } else if (value instanceof LocalDateTime dateTime) {
+                writeDateTime(dateTime);
+            } else if (value instanceof CharSequence || value instanceof Character) {
+                writeByte(STRING);
+                writeString(value.toString());
+            } else {
+                Object converted = objectMapper.convertValue(value, Object.class);
+                if (converted == null || converted.getClass() == value.getClass()) {
+                    writeByte(STRING);
+                    writeString(value.toString());
+                } else {
+                    writeValue(converted);
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads one frame body; the buffer is positioned just after the header
+     */
+    static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer.get();
+        }
+
+        int readVarint() {
+            return (int) readVarlong();
+        }
+
+        long readLong() {
+            long raw = readVarlong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        private long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new IllegalArgumentException("String length " + length + " exceeds frame");
+            }
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        LocalDateTime readDateTime() {
+            byte tag = buffer.get();
+            return tag == NULL ? null : readDateTimeBody();
+        }
+
+        private LocalDateTime readDateTimeBody() {
+            long seconds = readLong();
+            return LocalDateTime.ofEpochSecond(seconds, readVarint(), ZoneOffset.UTC);
+        }
+
+        Object readValue() {
+            byte tag = buffer.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INT:
+                    return (int) readLong();
+                case LONG:
+                    return readLong();
+                case DOUBLE:
+                    return Double.longBitsToDouble(buffer.getLong());
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case MAP: {
+                    int size = readVarint();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readString(), readValue());
+                    }
+                    return map;
+                }
+                case LIST: {
+                    int size = readVarint();
+                    List<Object> list = new ArrayList<>(Math.min(size, buffer.remaining()));
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case DATE_TIME:
+                    return readDateTimeBody();
+                default:
+                    throw new IllegalArgumentException("Unknown value tag " + tag);
+            }
+        }
+    }
+}
@@ -26,4 +26,9 @@ public interface AgentCommunicationProtocol {
      * Broadcast a message to all agents
      */
     void broadcastMessage(String fromAgent, Object message);
+
+    /**
+     * Publish a message to every agent subscribed to a matching topic pattern
+     */
+    void publish(String fromAgent, String topic, Object message);
 }
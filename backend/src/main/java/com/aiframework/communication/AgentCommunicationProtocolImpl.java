@@ -1,40 +1,82 @@
 package com.aiframework.communication;
 
+import com.aiframework.cluster.ClusterTransport;
 import com.aiframework.core.AgentResult;
 import com.aiframework.core.Task;
+import com.aiframework.manager.AgentManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 /**
- * Simple implementation of Agent Communication Protocol
+ * Agent Communication Protocol backed by the in-process message bus.
+ *
+ * Task lifecycle events are published on the topics task.started.TYPE and
+ * task.completed.TYPE, so agents can subscribe to e.g. "task.completed.#". When the
+ * cluster transport is enabled, messages to agents hosted on another node are forwarded
+ * there, and broadcasts and topic publications reach every node; task lifecycle events
+ * stay on the node that ran the task.
  */
 @Service
 public class AgentCommunicationProtocolImpl implements AgentCommunicationProtocol {
     private static final Logger logger = LoggerFactory.getLogger(AgentCommunicationProtocolImpl.class);
 
+    private static final String ORCHESTRATOR = "orchestrator";
+
+    private final AgentMessageBus messageBus;
+    private final ObjectProvider<ClusterTransport> cluster;
+    private final AgentManager agentManager;
+
+    public AgentCommunicationProtocolImpl(AgentMessageBus messageBus, ObjectProvider<ClusterTransport> cluster,
+                                          AgentManager agentManager) {
+        this.messageBus = messageBus;
+        this.agentManager = agentManager;
+        this.cluster = cluster;
+    }
+
     @Override
     public void notifyTaskStarted(Task task) {
-        logger.info("ACP: Task started - ID: {}, Type: {}", task.getId(), task.getType());
-        // TODO: Implement actual message routing/queuing
+        logger.debug("ACP: Task started - ID: {}, Type: {}", task.getId(), task.getType());
+        messageBus.publish(ORCHESTRATOR, "task.started." + task.getType(), task);
     }
 
     @Override
     public void notifyTaskCompleted(Task task, AgentResult result) {
-        logger.info("ACP: Task completed - ID: {}, Agent: {}, Success: {}", 
+        logger.debug("ACP: Task completed - ID: {}, Agent: {}, Success: {}",
             task.getId(), result.getAgentName(), result.isSuccess());
-        // TODO: Implement actual message routing/queuing
+        messageBus.publish(ORCHESTRATOR, "task.completed." + task.getType(), result);
     }
 
     @Override
     public void sendMessage(String fromAgent, String toAgent, Object message) {
-        logger.info("ACP: Message from {} to {}: {}", fromAgent, toAgent, message);
-        // TODO: Implement actual message routing
+        ClusterTransport transport = cluster.getIfAvailable();
+        if (transport != null && transport.sendMessage(fromAgent, toAgent, message)) {
+            return;
+        }
+        // The bus only delivers to existing mailboxes; registered agents get one on first use
+        if (agentManager.getAgent(toAgent).isPresent()) {
+            messageBus.open(toAgent);
+        }
+        if (!messageBus.send(fromAgent, toAgent, message)) {
+            logger.warn("ACP: Dropped message from {} to {}: mailbox full or unknown agent", fromAgent, toAgent);
+        }
     }
 
     @Override
     public void broadcastMessage(String fromAgent, Object message) {
-        logger.info("ACP: Broadcast from {}: {}", fromAgent, message);
-        // TODO: Implement actual broadcast mechanism
+        int delivered = messageBus.broadcast(fromAgent, message);
+        ClusterTransport transport = cluster.getIfAvailable();
+        int nodes = transport != null ? transport.broadcast(fromAgent, message) : 0;
+        logger.debug("ACP: Broadcast from {} reached {} mailboxes and {} other nodes", fromAgent, delivered, nodes);
+    }
+
+    @Override
+    public void publish(String fromAgent, String topic, Object message) {
+        messageBus.publish(fromAgent, topic, message);
+        ClusterTransport transport = cluster.getIfAvailable();
+        if (transport != null) {
+            transport.publish(fromAgent, topic, message);
+        }
     }
 }
@@ -0,0 +1,515 @@
+package com.aiframework.communication;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process message bus with one bounded mailbox per agent.
+ *
+ * Mailboxes are lock-free ring buffers drained in batches by a small pool of consumer
+ * threads; each mailbox belongs to one consumer so its messages are handled in order.
+ * Agents without a registered handler keep their messages until polled. Topics are
+ * dot-separated, and subscriptions may use '*' for one segment and '#' for any number of
+ * trailing segments. When a mailbox is full the producer blocks for up to the block
+ * timeout, drops the message, or spills it to an unbounded overflow queue, depending on
+ * the backpressure policy. Mailboxes are created only by register, subscribe and open;
+ * messages for any other agent are counted as unroutable. Sending to an existing mailbox
+ * allocates nothing.
+ */
+@Component
+public class AgentMessageBus {
+    private static final Logger logger = LoggerFactory.getLogger(AgentMessageBus.class);
+
+    private static final int MAX_CACHED_ROUTES = 4096;
+    private static final Mailbox[] NO_MAILBOXES = new Mailbox[0];
+
+    public enum Backpressure { BLOCK, DROP, SPILL }
+
+    private final int capacity;
+    private final Backpressure backpressure;
+    private final long blockTimeoutNanos;
+    private final int batchSize;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private volatile Mailbox[] allMailboxes = NO_MAILBOXES;
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    // Topic to matching mailboxes; cleared whenever subscriptions change
+    private final Map<String, Mailbox[]> routes = new ConcurrentHashMap<>();
+    // Bumped before each clear so a route resolved against older subscriptions is not kept
+    private final AtomicLong routesGeneration = new AtomicLong();
+    private final Consumer[] consumers;
+    private final AtomicInteger nextConsumer = new AtomicInteger();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder unroutable = new LongAdder();
+    private final LatencyHistogram handOffLatency = new LatencyHistogram();
+
+    public AgentMessageBus(@Value("${communication.mailbox.capacity:1024}") int capacity,
+                           @Value("${communication.backpressure:SPILL}") Backpressure backpressure,
+                           @Value("${communication.block-timeout-ms:1000}") long blockTimeoutMs,
+                           @Value("${communication.consumer-threads:2}") int consumerThreads,
+                           @Value("${communication.batch-size:64}") int batchSize) {
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.batchSize = Math.max(batchSize, 1);
+        this.consumers = new Consumer[Math.max(consumerThreads, 1)];
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = new Consumer("AgentMessageConsumer-" + (i + 1));
+            consumers[i].thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Consumer consumer : consumers) {
+            consumer.running = false;
+            LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    /**
+     * Deliver an agent's messages to a handler on the consumer threads
+     */
+    public void register(String agentId, MessageHandler handler) {
+        Mailbox mailbox = mailbox(agentId);
+        mailbox.handler = handler;
+        mailbox.consumer.wake();
+    }
+
+    /**
+     * Stop handing messages to the agent's handler; later messages wait to be polled
+     */
+    public void unregister(String agentId) {
+        Mailbox mailbox = mailboxes.get(agentId);
+        if (mailbox != null) {
+            mailbox.handler = null;
+        }
+    }
+
+    /**
+     * Create the agent's mailbox if it has none, so messages wait for it to poll
+     */
+    public void open(String agentId) {
+        mailbox(agentId);
+    }
+
+    public void subscribe(String agentId, String topicPattern) {
+        mailbox(agentId);
+        subscriptions.computeIfAbsent(topicPattern, pattern -> ConcurrentHashMap.newKeySet()).add(agentId);
+        invalidateRoutes();
+    }
+
+    public void unsubscribe(String agentId, String topicPattern) {
+        subscriptions.computeIfPresent(topicPattern, (pattern, agents) -> {
+            agents.remove(agentId);
+            return agents.isEmpty() ? null : agents;
+        });
+        invalidateRoutes();
+    }
+
+    /**
+     * Point-to-point; returns false if the message was dropped or the agent has no mailbox
+     */
+    public boolean send(String fromAgent, String toAgent, Object payload) {
+        sent.increment();
+        Mailbox mailbox = mailboxes.get(toAgent);
+        if (mailbox == null) {
+            unroutable.increment();
+            return false;
+        }
+        return mailbox.offer(fromAgent, toAgent, null, payload);
+    }
+
+    /**
+     * Deliver to every agent subscribed to a pattern matching the topic; returns the number of mailboxes reached
+     */
+    public int publish(String fromAgent, String topic, Object payload) {
+        published.increment();
+        Mailbox[] targets = routes.get(topic);
+        if (targets == null) {
+            long generation = routesGeneration.get();
+            targets = resolve(topic);
+            if (routes.size() < MAX_CACHED_ROUTES) {
+                routes.put(topic, targets);
+                // Subscriptions changed while resolving; the clear may have run before our put
+                if (routesGeneration.get() != generation) {
+                    routes.remove(topic, targets);
+                }
+            }
+        }
+        if (targets.length == 0) {
+            unroutable.increment();
+            return 0;
+        }
+        int delivered = 0;
+        for (Mailbox mailbox : targets) {
+            if (mailbox.offer(fromAgent, mailbox.agentId, topic, payload)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Deliver to every mailbox except the sender's
+     */
+    public int broadcast(String fromAgent, Object payload) {
+        published.increment();
+        int delivered = 0;
+        for (Mailbox mailbox : allMailboxes) {
+            if (!mailbox.agentId.equals(fromAgent) && mailbox.offer(fromAgent, mailbox.agentId, null, payload)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Take up to max waiting messages from an agent that has no registered handler
+     */
+    public List<Map<String, Object>> poll(String agentId, int max) {
+        Mailbox mailbox = mailboxes.get(agentId);
+        List<Map<String, Object>> messages = new ArrayList<>();
+        if (mailbox == null || mailbox.handler != null) {
+            return messages;
+        }
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        mailbox.drain((fromAgent, toAgent, topic, payload, sentNanos) -> {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("fromAgent", fromAgent);
+            message.put("toAgent", toAgent);
+            message.put("topic", topic);
+            message.put("payload", payload);
+            message.put("sentAt", Instant.ofEpochMilli(nowMillis - TimeUnit.NANOSECONDS.toMillis(nowNanos - sentNanos)).toString());
+            messages.add(message);
+        }, max);
+        return messages;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> agents = new TreeMap<>();
+        mailboxes.forEach((agentId, mailbox) -> agents.put(agentId, mailbox.getStats()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backpressure", backpressure.name());
+        stats.put("mailboxCapacity", allMailboxes.length > 0 ? allMailboxes[0].ring.capacity() : capacity);
+        stats.put("consumerThreads", consumers.length);
+        stats.put("batchSize", batchSize);
+        stats.put("sent", sent.sum());
+        stats.put("published", published.sum());
+        stats.put("unroutable", unroutable.sum());
+        stats.put("subscriptions", subscriptions.size());
+        stats.put("handOffLatencyMicros", handOffLatency.getPercentiles());
+        stats.put("mailboxes", agents);
+        return stats;
+    }
+
+    private Mailbox mailbox(String agentId) {
+        Mailbox mailbox = mailboxes.get(agentId);
+        if (mailbox != null) {
+            return mailbox;
+        }
+        synchronized (mailboxes) {
+            mailbox = mailboxes.get(agentId);
+            if (mailbox == null) {
+                Consumer consumer = consumers[Math.floorMod(nextConsumer.getAndIncrement(), consumers.length)];
+                mailbox = new Mailbox(agentId, consumer);
+                mailboxes.put(agentId, mailbox);
+                Mailbox[] all = Arrays.copyOf(allMailboxes, allMailboxes.length + 1);
+                all[all.length - 1] = mailbox;
+                allMailboxes = all;
+                consumer.add(mailbox);
+            }
+            return mailbox;
+        }
+    }
+
+    private void invalidateRoutes() {
+        routesGeneration.incrementAndGet();
+        routes.clear();
+    }
+
+    private Mailbox[] resolve(String topic) {
+        String[] topicSegments = topic.split("\\.");
+        Set<String> agents = new LinkedHashSet<>();
+        subscriptions.forEach((pattern, subscribers) -> {
+            if (matches(pattern.split("\\."), 0, topicSegments, 0)) {
+                agents.addAll(subscribers);
+            }
+        });
+        List<Mailbox> targets = new ArrayList<>();
+        for (String agentId : agents) {
+            Mailbox mailbox = mailboxes.get(agentId);
+            if (mailbox != null) targets.add(mailbox);
+        }
+        return targets.toArray(NO_MAILBOXES);
+    }
+
+    static boolean matches(String[] pattern, int p, String[] topic, int t) {
+        if (p == pattern.length) {
+            return t == topic.length;
+        }
+        if ("#".equals(pattern[p])) {
+            // Zero or more segments
+            for (int skip = t; skip <= topic.length; skip++) {
+                if (matches(pattern, p + 1, topic, skip)) return true;
+            }
+            return false;
+        }
+        if (t == topic.length) {
+            return false;
+        }
+        return ("*".equals(pattern[p]) || pattern[p].equals(topic[t])) && matches(pattern, p + 1, topic, t + 1);
+    }
+
+    private final class Mailbox {
+        private final String agentId;
+        private final Consumer consumer;
+        private final MessageRing ring = new MessageRing(capacity);
+        private final ConcurrentLinkedQueue<MessageRing.Slot> spill = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger spillSize = new AtomicInteger();
+        private volatile MessageHandler handler;
+
+        private final LongAdder enqueued = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder spilled = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Mailbox(String agentId, Consumer consumer) {
+            this.agentId = agentId;
+            this.consumer = consumer;
+        }
+
+        boolean offer(String fromAgent, String toAgent, String topic, Object payload) {
+            long now = System.nanoTime();
+            // Once anything has spilled, later messages follow it so order is kept
+            if (spillSize.get() == 0 && ring.offer(fromAgent, toAgent, topic, payload, now)) {
+                enqueued.increment();
+                consumer.wake();
+                return true;
+            }
+            return overflow(fromAgent, toAgent, topic, payload, now);
+        }
+
+        private boolean overflow(String fromAgent, String toAgent, String topic, Object payload, long now) {
+            Backpressure policy = backpressure;
+            // A consumer blocking on a mailbox it drains itself would never get space
+            if (policy == Backpressure.BLOCK && Thread.currentThread() == consumer.thread) {
+                policy = Backpressure.SPILL;
+            }
+            // Nothing drains an unhandled mailbox until it is polled, so never let it grow without bound
+            if (policy == Backpressure.SPILL && handler == null) {
+                policy = Backpressure.DROP;
+            }
+            switch (policy) {
+                case BLOCK -> {
+                    long deadline = now + blockTimeoutNanos;
+                    boolean waited = false;
+                    while (true) {
+                        // Wait out the spill as well as a full ring, so this cannot overtake spilled messages
+                        if (spillSize.get() == 0 && ring.offer(fromAgent, toAgent, topic, payload, now)) {
+                            enqueued.increment();
+                            consumer.wake();
+                            return true;
+                        }
+                        if (System.nanoTime() >= deadline) {
+                            break;
+                        }
+                        if (!waited) {
+                            blocked.increment();
+                            waited = true;
+                        }
+                        consumer.wake();
+                        LockSupport.parkNanos(50_000);
+                    }
+                    dropped.increment();
+                    return false;
+                }
+                case SPILL -> {
+                    MessageRing.Slot slot = new MessageRing.Slot();
+                    slot.fromAgent = fromAgent;
+                    slot.toAgent = toAgent;
+                    slot.topic = topic;
+                    slot.payload = payload;
+                    slot.sentNanos = now;
+                    spillSize.incrementAndGet();
+                    spill.add(slot);
+                    spilled.increment();
+                    enqueued.increment();
+                    consumer.wake();
+                    return true;
+                }
+                default -> {
+                    dropped.increment();
+                    return false;
+                }
+            }
+        }
+
+        boolean hasWork() {
+            return handler != null && (!ring.isEmpty() || spillSize.get() > 0);
+        }
+
+        /** Single consumer at a time: the owning consumer thread, or a poll when there is no handler */
+        synchronized int drain(MessageHandler target, int max) {
+            int count = ring.drain(target, max);
+            // The ring holds older messages than the spill queue, so the spill waits until it is empty
+            while (count < max && ring.isEmpty() && spillSize.get() > 0) {
+                MessageRing.Slot slot = spill.poll();
+                if (slot == null) break;
+                spillSize.decrementAndGet();
+                target.onMessage(slot.fromAgent, slot.toAgent, slot.topic, slot.payload, slot.sentNanos);
+                count++;
+            }
+            delivered.add(count);
+            return count;
+        }
+
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("handler", handler != null);
+            stats.put("queued", ring.size() + spillSize.get());
+            stats.put("spillQueued", spillSize.get());
+            stats.put("enqueued", enqueued.sum());
+            stats.put("delivered", delivered.sum());
+            stats.put("dropped", dropped.sum());
+            stats.put("spilled", spilled.sum());
+            stats.put("blocked", blocked.sum());
+            stats.put("failures", failures.sum());
+            return stats;
+        }
+    }
+
+    /**
+     * Drains the mailboxes assigned to it in batches; parks when they are all empty
+     */
+    private final class Consumer implements Runnable, MessageHandler {
+        private final Thread thread;
+        private volatile Mailbox[] owned = NO_MAILBOXES;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        private Mailbox current;
+        private MessageHandler currentHandler;
+
+        Consumer(String name) {
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        synchronized void add(Mailbox mailbox) {
+            Mailbox[] next = Arrays.copyOf(owned, owned.length + 1);
+            next[next.length - 1] = mailbox;
+            owned = next;
+        }
+
+        void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int handled = 0;
+                Mailbox[] mailboxes = owned;
+                for (int i = 0; i < mailboxes.length; i++) {
+                    Mailbox mailbox = mailboxes[i];
+                    MessageHandler handler = mailbox.handler;
+                    if (handler == null) continue;
+                    current = mailbox;
+                    currentHandler = handler;
+                    int count = mailbox.drain(this, batchSize);
+                    if (count > 0) {
+                        handled += count;
+                        try {
+                            handler.onBatchEnd(count);
+                        } catch (RuntimeException e) {
+                            logger.warn("Batch callback for {} failed: {}", mailbox.agentId, e.getMessage());
+                        }
+                    }
+                }
+                if (handled == 0) {
+                    // Announce the park before the final check so a producer cannot slip between them
+                    parked = true;
+                    if (!hasWork(mailboxes)) {
+                        LockSupport.parkNanos(100_000_000L);
+                    }
+                    parked = false;
+                }
+            }
+        }
+
+        private boolean hasWork(Mailbox[] mailboxes) {
+            for (Mailbox mailbox : mailboxes) {
+                if (mailbox.hasWork()) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onMessage(String fromAgent, String toAgent, String topic, Object payload, long sentNanos) {
+            handOffLatency.record(System.nanoTime() - sentNanos);
+            try {
+                currentHandler.onMessage(fromAgent, toAgent, topic, payload, sentNanos);
+            } catch (RuntimeException e) {
+                current.failures.increment();
+                logger.warn("Message handler for {} failed: {}", current.agentId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Power-of-two latency buckets; allocation-free to record
+     */
+    static final class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        void record(long nanos) {
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(nanos, 1)));
+        }
+
+        /** Upper bound of the bucket holding each percentile */
+        Map<String, Object> getPercentiles() {
+            long total = 0;
+            for (int i = 0; i < 64; i++) total += buckets.get(i);
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            percentiles.put("count", total);
+            percentiles.put("p50", percentile(total, 0.5));
+            percentiles.put("p99", percentile(total, 0.99));
+            percentiles.put("p999", percentile(total, 0.999));
+            return percentiles;
+        }
+
+        private long percentile(long total, double percentile) {
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < 64 && total > 0; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return (2L << i) / 1000;
+                }
+            }
+            return 0;
+        }
+    }
+}
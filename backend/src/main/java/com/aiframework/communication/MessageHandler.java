@@ -0,0 +1,20 @@
+package com.aiframework.communication;
+
+/**
+ * Consumer of an agent's mailbox.
+ *
+ * Called on a message bus consumer thread, one message at a time and in mailbox order.
+ * The arguments are only valid for the duration of the call.
+ */
+public interface MessageHandler {
+    /**
+     * Handle one message; topic is null for point-to-point messages
+     */
+    void onMessage(String fromAgent, String toAgent, String topic, Object payload, long sentNanos);
+
+    /**
+     * Called after each batch taken from the mailbox
+     */
+    default void onBatchEnd(int count) {
+    }
+}
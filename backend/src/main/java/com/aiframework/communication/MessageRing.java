@@ -0,0 +1,97 @@
+package com.aiframework.communication;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated message slots.
+ *
+ * Each slot carries a sequence number that tells producers and the consumer whose turn it
+ * is: a producer claims a position with a CAS, fills the slot's fields and then publishes
+ * it by advancing the slot's sequence; the consumer reads published slots in order and
+ * hands them back by advancing the sequence a lap ahead. Nothing is allocated per message.
+ */
+class MessageRing {
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the single consumer
+    private long head;
+
+    static final class Slot {
+        private volatile long sequence;
+        String fromAgent;
+        String toAgent;
+        String topic;
+        Object payload;
+        long sentNanos;
+    }
+
+    MessageRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+    }
+
+    /**
+     * Append a message; returns false without waiting when the ring is full
+     */
+    boolean offer(String fromAgent, String toAgent, String topic, Object payload, long sentNanos) {
+        while (true) {
+            long position = tail.get();
+            Slot slot = slots[(int) (position & mask)];
+            long lap = slot.sequence - position;
+            if (lap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.fromAgent = fromAgent;
+                    slot.toAgent = toAgent;
+                    slot.topic = topic;
+                    slot.payload = payload;
+                    slot.sentNanos = sentNanos;
+                    slot.sequence = position + 1;
+                    return true;
+                }
+            } else if (lap < 0) {
+                return false;
+            }
+            // Another producer claimed this position first; retry with the new tail
+        }
+    }
+
+    /**
+     * Hand up to max published messages to the handler; single consumer only
+     */
+    int drain(MessageHandler handler, int max) {
+        int drained = 0;
+        while (drained < max) {
+            Slot slot = slots[(int) (head & mask)];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            try {
+                handler.onMessage(slot.fromAgent, slot.toAgent, slot.topic, slot.payload, slot.sentNanos);
+            } finally {
+                slot.payload = null;
+                slot.sequence = head + slots.length;
+                head++;
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return slots[(int) (head & mask)].sequence != head + 1;
+    }
+
+    int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, slots.length));
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -17,11 +17,30 @@ public class AsyncConfig {
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
+        // Core equals max so all threads are used before queueing; agent work itself is
+        // dispatched by PriorityTaskScheduler
+        executor.setCorePoolSize(10);
         executor.setMaxPoolSize(10);
+        executor.setAllowCoreThreadTimeOut(true);
         executor.setQueueCapacity(500);
         executor.setThreadNamePrefix("AgentTask-");
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Writes to server-sent event streams. Kept apart from the task executor so slow
+     * subscribers cannot hold up agent work, nor a busy task queue delay the streams.
+     */
+    @Bean(name = "sseExecutor")
+    public Executor sseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("SseSend-");
+        executor.initialize();
+        return executor;
+    }
 }
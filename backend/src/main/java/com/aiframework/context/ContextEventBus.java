@@ -0,0 +1,250 @@
+package com.aiframework.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish/subscribe delivery of context changes to subscribed agents.
+ *
+ * Subscriber sets are copy-on-write, so publishing never locks against subscribe calls.
+ * Each subscriber has its own bounded mailbox, drained by a shared dispatcher pool with
+ * at most one drain per mailbox in flight, which keeps delivery to a subscriber in order
+ * and stops a slow subscriber from holding up publishers or other subscribers. A full
+ * mailbox either drops its oldest event or, when coalescing, replaces a pending event for
+ * the same context key with the newer one.
+ */
+class ContextEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(ContextEventBus.class);
+
+    private static final int DRAIN_BATCH = 32;
+
+    enum Overflow { DROP_OLDEST, COALESCE_BY_KEY }
+
+    /** A published change; delivered to every subscriber of its key */
+    static final class Event {
+        final String contextKey;
+        final Object data;
+        final long publishedNanos;
+
+        Event(String contextKey, Object data, long publishedNanos) {
+            this.contextKey = contextKey;
+            this.data = data;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+
+    interface Handler {
+        void deliver(String subscriber, Event event);
+    }
+
+    private final Map<String, Set<String>> subscribersByKey = new ConcurrentHashMap<>();
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Handler handler;
+    private final int capacity;
+    private final Overflow overflow;
+    private final int dispatcherThreads;
+    private final ExecutorService dispatcher;
+    private final AtomicLong published = new AtomicLong();
+
+    ContextEventBus(Handler handler, int dispatcherThreads, int capacity, Overflow overflow) {
+        this.handler = handler;
+        this.capacity = Math.max(capacity, 1);
+        this.overflow = overflow;
+        this.dispatcherThreads = Math.max(dispatcherThreads, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(this.dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ContextEventDispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void subscribe(String subscriber, String contextKey) {
+        if (subscribersByKey.computeIfAbsent(contextKey, key -> new CopyOnWriteArraySet<>()).add(subscriber)) {
+            // Counted under the map's lock so a concurrent unsubscribe cannot drop a mailbox still in use
+            mailboxes.compute(subscriber, (id, mailbox) -> {
+                Mailbox target = mailbox != null ? mailbox : new Mailbox(id);
+                target.subscriptions.incrementAndGet();
+                return target;
+            });
+        }
+    }
+
+    void unsubscribe(String subscriber, String contextKey) {
+        boolean[] removed = new boolean[1];
+        subscribersByKey.computeIfPresent(contextKey, (key, subscribers) -> {
+            removed[0] = subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (removed[0]) {
+            // A mailbox with no subscriptions left still drains whatever it already holds
+            mailboxes.computeIfPresent(subscriber, (id, mailbox) ->
+                    mailbox.subscriptions.decrementAndGet() > 0 ? mailbox : null);
+        }
+    }
+
+    List<String> getSubscribers(String contextKey) {
+        return new ArrayList<>(subscribersByKey.getOrDefault(contextKey, Collections.emptySet()));
+    }
+
+    Map<String, List<String>> getSubscriptions() {
+        Map<String, List<String>> copy = new HashMap<>();
+        subscribersByKey.forEach((key, subscribers) -> copy.put(key, new ArrayList<>(subscribers)));
+        return copy;
+    }
+
+    /**
+     * Queue an event for every subscriber of the key; never blocks on delivery
+     */
+    void publish(String contextKey, Object data) {
+        Set<String> subscribers = subscribersByKey.get(contextKey);
+        if (subscribers == null) {
+            return;
+        }
+        published.incrementAndGet();
+        Event event = new Event(contextKey, data, System.nanoTime());
+        for (String subscriber : subscribers) {
+            Mailbox mailbox = mailboxes.get(subscriber);
+            if (mailbox != null) {
+                mailbox.offer(event);
+            }
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> subscribers = new TreeMap<>();
+        mailboxes.forEach((subscriber, mailbox) -> subscribers.put(subscriber, mailbox.getStats()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overflow", overflow.name());
+        stats.put("queueCapacity", capacity);
+        stats.put("dispatcherThreads", dispatcherThreads);
+        stats.put("contextKeys", subscribersByKey.size());
+        stats.put("published", published.get());
+        stats.put("subscribers", subscribers);
+        return stats;
+    }
+
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private final class Mailbox {
+        private final String subscriber;
+        private final AtomicInteger subscriptions = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Keyed by context key when coalescing, otherwise by arrival sequence; guarded by this
+        private final LinkedHashMap<Object, Event> pending = new LinkedHashMap<>();
+        private long sequence;
+        private long enqueued;
+        private long delivered;
+        private long dropped;
+        private long coalesced;
+        private long failures;
+        private long lastLagNanos;
+        private long maxLagNanos;
+
+        Mailbox(String subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(Event event) {
+            synchronized (this) {
+                enqueued++;
+                if (overflow == Overflow.COALESCE_BY_KEY) {
+                    Event replaced = pending.get(event.contextKey);
+                    if (replaced != null) {
+                        // Keep the older publish time so lag reflects how long the key has waited
+                        pending.put(event.contextKey, new Event(event.contextKey, event.data, replaced.publishedNanos));
+                        coalesced++;
+                        return;
+                    }
+                }
+                if (pending.size() >= capacity) {
+                    Iterator<Event> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped++;
+                }
+                pending.put(overflow == Overflow.COALESCE_BY_KEY ? event.contextKey : sequence++, event);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private synchronized Event poll() {
+            Iterator<Event> it = pending.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            Event event = it.next();
+            it.remove();
+            return event;
+        }
+
+        private void drain() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Event event = poll();
+                if (event == null) break;
+                try {
+                    handler.deliver(subscriber, event);
+                    long lag = System.nanoTime() - event.publishedNanos;
+                    synchronized (this) {
+                        delivered++;
+                        lastLagNanos = lag;
+                        maxLagNanos = Math.max(maxLagNanos, lag);
+                    }
+                } catch (Exception e) {
+                    synchronized (this) {
+                        failures++;
+                    }
+                    logger.warn("Context event delivery to {} failed for {}: {}", subscriber, event.contextKey, e.getMessage());
+                }
+            }
+            // Yield the thread between batches so one busy subscriber cannot monopolise it
+            scheduled.set(false);
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty();
+            }
+            if (more) {
+                schedule();
+            }
+        }
+
+        synchronized Map<String, Object> getStats() {
+            long now = System.nanoTime();
+            Iterator<Event> it = pending.values().iterator();
+            long oldestPendingNanos = it.hasNext() ? now - it.next().publishedNanos : 0;
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("subscriptions", subscriptions.get());
+            stats.put("queued", pending.size());
+            stats.put("enqueued", enqueued);
+            stats.put("delivered", delivered);
+            stats.put("dropped", dropped);
+            stats.put("coalesced", coalesced);
+            stats.put("failures", failures);
+            stats.put("lagMs", TimeUnit.NANOSECONDS.toMillis(oldestPendingNanos));
+            stats.put("lastDeliveryLagMs", TimeUnit.NANOSECONDS.toMillis(lastLagNanos));
+            stats.put("maxDeliveryLagMs", TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.aiframework.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Generational on-disk log for the persistent context store.
+ *
+ * snapshot-N.snap holds the compacted state as of the start of journal-N.log; recovery
+ * loads the newest snapshot and replays every journal from its generation onwards. Each
+ * record is framed as [length][crc32][op][body]. Snapshots are written to a temporary file
+ * and renamed into place, then memory-mapped read-only, which makes recovery a sequential
+ * scan of mapped memory. A torn or corrupt record at the end of the last journal is cut off.
+ */
+class ContextJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ContextJournal.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x43545853;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER = 8;
+    private static final int RECORD_HEADER = 9;
+    private static final int MAX_RECORD = 256 * 1024 * 1024;
+
+    /** Position of one record, for reading cold contexts back */
+    static final class Location {
+        final long generation;
+        final boolean snapshot;
+        final long offset;
+
+        Location(long generation, boolean snapshot, long offset) {
+            this.generation = generation;
+            this.snapshot = snapshot;
+            this.offset = offset;
+        }
+    }
+
+    interface RecordHandler {
+        void accept(byte op, byte[] body, Location location) throws IOException;
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private long generation;
+    private FileChannel journal;
+    private final Map<Long, FileChannel> readers = new HashMap<>();
+    private MappedByteBuffer snapshotBuffer;
+    private long snapshotGeneration = -1;
+
+    ContextJournal(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Replay the newest snapshot and the journals after it, then open the journal for appends
+     */
+    synchronized long recover(RecordHandler handler) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path leftover : files.filter(p -> p.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        long[] records = new long[1];
+        OptionalLong latestSnapshot = generations("snapshot-", ".snap").stream().mapToLong(Long::longValue).max();
+        long base = latestSnapshot.orElse(0L);
+        if (latestSnapshot.isPresent()) {
+            mapSnapshot(base);
+            scan(snapshotBuffer, SNAPSHOT_HEADER, base, true, handler, records);
+        }
+
+        List<Long> journals = new ArrayList<>(generations("journal-", ".log"));
+        journals.removeIf(gen -> gen < base);
+        Collections.sort(journals);
+        for (int i = 0; i < journals.size(); i++) {
+            long gen = journals.get(i);
+            long end = reader(gen).size();
+            if (end > Integer.MAX_VALUE) {
+                throw new IOException("Journal " + journalPath(gen) + " exceeds the 2GB mapping limit");
+            }
+            MappedByteBuffer buffer = reader(gen).map(FileChannel.MapMode.READ_ONLY, 0, end);
+            long valid = scan(buffer, 0, gen, false, handler, records);
+            if (valid < end) {
+                if (i == journals.size() - 1) {
+                    logger.warn("Truncating torn tail of {} at offset {} ({} bytes)", journalPath(gen), valid, end - valid);
+                    try (FileChannel truncate = FileChannel.open(journalPath(gen), StandardOpenOption.WRITE)) {
+                        truncate.truncate(valid);
+                    }
+                } else {
+                    logger.warn("Corrupt record in {} at offset {}; later records in it were skipped", journalPath(gen), valid);
+                }
+            }
+        }
+
+        generation = journals.isEmpty() ? base : journals.get(journals.size() - 1);
+        journal = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return records[0];
+    }
+
+    /** Hand every valid record to the handler; returns the offset after the last valid one */
+    private long scan(ByteBuffer buffer, int start, long gen, boolean snapshot, RecordHandler handler, long[] records)
+            throws IOException {
+        int position = start;
+        CRC32 crc = new CRC32();
+        while (buffer.limit() - position >= RECORD_HEADER) {
+            int length = buffer.getInt(position);
+            int checksum = buffer.getInt(position + 4);
+            if (length < 1 || length > MAX_RECORD || buffer.limit() - position - 8 < length) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + 8, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            handler.accept(payload[0], Arrays.copyOfRange(payload, 1, length), new Location(gen, snapshot, position));
+            records[0]++;
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    synchronized Location append(byte op, byte[] body) throws IOException {
+        long offset = journal.size();
+        writeRecord(journal, op, body);
+        if (fsync) {
+            journal.force(false);
+        }
+        return new Location(generation, false, offset);
+    }
+
+    /**
+     * Read the body of the record at a location
+     */
+    synchronized byte[] read(Location location) throws IOException {
+        ByteBuffer source;
+        int position;
+        if (location.snapshot) {
+            if (location.generation != snapshotGeneration) {
+                throw new IOException("Snapshot generation " + location.generation + " is no longer mapped");
+            }
+            source = snapshotBuffer;
+            position = (int) location.offset;
+        } else {
+            FileChannel reader = reader(location.generation);
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(reader, header, location.offset);
+            int length = header.getInt(0);
+            source = ByteBuffer.allocate(8 + length);
+            readFully(reader, source, location.offset);
+            position = 0;
+        }
+        int length = source.getInt(position);
+        byte[] payload = new byte[length];
+        source.get(position + 8, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != source.getInt(position + 4)) {
+            throw new IOException("Checksum mismatch reading record at " + location.offset);
+        }
+        return Arrays.copyOfRange(payload, 1, length);
+    }
+
+    /**
+     * Start a new journal generation; a snapshot of the current state belongs to it
+     */
+    synchronized long rotate() throws IOException {
+        if (fsync) {
+            journal.force(false);
+        }
+        journal.close();
+        generation++;
+        journal = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return generation;
+    }
+
+    SnapshotWriter newSnapshot(long gen) throws IOException {
+        return new SnapshotWriter(gen, directory.resolve("snapshot-" + gen + ".snap.tmp"));
+    }
+
+    /**
+     * Make a written snapshot current and delete the files it supersedes
+     */
+    synchronized void install(SnapshotWriter writer) throws IOException {
+        Files.move(writer.path, snapshotPath(writer.generation),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        mapSnapshot(writer.generation);
+
+        for (long gen : generations("snapshot-", ".snap")) {
+            if (gen < writer.generation) Files.deleteIfExists(snapshotPath(gen));
+        }
+        for (long gen : generations("journal-", ".log")) {
+            if (gen < writer.generation) {
+                FileChannel reader = readers.remove(gen);
+                if (reader != null) reader.close();
+                Files.deleteIfExists(journalPath(gen));
+            }
+        }
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    synchronized long getJournalBytes() throws IOException {
+        return journal.size();
+    }
+
+    synchronized long getSnapshotBytes() {
+        return snapshotBuffer != null ? snapshotBuffer.capacity() : 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            if (fsync) journal.force(false);
+            journal.close();
+        }
+        for (FileChannel reader : readers.values()) {
+            reader.close();
+        }
+        readers.clear();
+    }
+
+    private void mapSnapshot(long gen) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath(gen), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + snapshotPath(gen) + " exceeds the 2GB mapping limit");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < SNAPSHOT_HEADER || buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(4) != SNAPSHOT_VERSION) {
+                throw new IOException("Unrecognised snapshot format in " + snapshotPath(gen));
+            }
+            snapshotBuffer = buffer;
+            snapshotGeneration = gen;
+        }
+    }
+
+    private FileChannel reader(long gen) throws IOException {
+        FileChannel reader = readers.get(gen);
+        if (reader == null) {
+            reader = FileChannel.open(journalPath(gen), StandardOpenOption.READ);
+            readers.put(gen, reader);
+        }
+        return reader;
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        return generations;
+    }
+
+    private Path snapshotPath(long gen) {
+        return directory.resolve("snapshot-" + gen + ".snap");
+    }
+
+    private Path journalPath(long gen) {
+        return directory.resolve("journal-" + gen + ".log");
+    }
+
+    private static void writeRecord(FileChannel channel, byte op, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + body.length);
+        buffer.putInt(1 + body.length).putInt((int) crc.getValue()).put(op).put(body).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal at " + position);
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes a compacted snapshot to a temporary file
+     */
+    static final class SnapshotWriter implements AutoCloseable {
+        private final long generation;
+        private final Path path;
+        private final FileChannel channel;
+
+        private SnapshotWriter(long generation, Path path) throws IOException {
+            this.generation = generation;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER).putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+            header.flip();
+            channel.write(header);
+        }
+
+        Location write(byte op, byte[] body) throws IOException {
+            long offset = channel.position();
+            writeRecord(channel, op, body);
+            return new Location(generation, true, offset);
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        /** Flush to disk; the snapshot is not visible until installed */
+        void finish() throws IOException {
+            channel.force(true);
+            channel.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.aiframework.context;
 import java.util.Map;
 import java.util.Optional;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Enhanced Context Store interface for agent collaboration and data sharing
@@ -16,12 +17,21 @@ public interface ContextStore {
     void clearContext(String agentId);
     void clearAllContext();
 
+    // Size, TTL and eviction statistics by namespace
+    Map<String, Object> getStoreStats();
+
     // Enhanced collaborative features
     void storeSharedData(String dataKey, Object data, String sourceAgent, Map<String, Object> metadata);
     Optional<SharedDataEntry> getSharedData(String dataKey);
     Map<String, SharedDataEntry> getAllSharedData();
     void clearSharedData(String dataKey);
 
+    // Versioned shared data: every write or removal takes the next store-wide version
+    boolean compareAndSetSharedData(String dataKey, long expectedVersion, Object data, String sourceAgent,
+                                    Map<String, Object> metadata);
+    SharedDataChanges getSharedDataChanges(long sinceVersion);
+    CompletableFuture<Long> awaitSharedDataChange(long sinceVersion);
+
     // Agent subscriptions and notifications
     void subscribeToContext(String subscriberAgent, String contextKey);
     void unsubscribeFromContext(String subscriberAgent, String contextKey);
@@ -51,6 +61,7 @@ public interface ContextStore {
         private String timestamp;
         private Map<String, Object> metadata;
         private String dataType;
+        private long version;
 
         public SharedDataEntry(Object data, String sourceAgent, String timestamp,
                              Map<String, Object> metadata, String dataType) {
@@ -76,6 +87,39 @@ public interface ContextStore {
 
         public String getDataType() { return dataType; }
         public void setDataType(String dataType) { this.dataType = dataType; }
+
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
+    }
+
+    // Shared data changed after a given version
+    class SharedDataChanges {
+        private long version;
+        private boolean reset;
+        private Map<String, SharedDataEntry> changed;
+        private List<String> removed;
+
+        public SharedDataChanges(long version, boolean reset, Map<String, SharedDataEntry> changed,
+                                 List<String> removed) {
+            this.version = version;
+            this.reset = reset;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        // Getters and setters
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
+
+        // True when the requested version is too old; changed then holds every entry
+        public boolean isReset() { return reset; }
+        public void setReset(boolean reset) { this.reset = reset; }
+
+        public Map<String, SharedDataEntry> getChanged() { return changed; }
+        public void setChanged(Map<String, SharedDataEntry> changed) { this.changed = changed; }
+
+        public List<String> getRemoved() { return removed; }
+        public void setRemoved(List<String> removed) { this.removed = removed; }
     }
 
     // Workflow definition
@@ -121,7 +165,10 @@ public interface ContextStore {
         public void setStatus(WorkflowStatus status) { this.status = status; this.updatedAt = java.time.Instant.now().toString(); }
 
         public String getCreatedAt() { return createdAt; }
+        public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
         public String getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
     }
 
     // Agent recommendation
@@ -0,0 +1,26 @@
+package com.aiframework.context;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator view of context store size by namespace, at /actuator/contextstore
+ */
+@Component
+@Endpoint(id = "contextstore")
+public class ContextStoreEndpoint {
+
+    private final ContextStore contextStore;
+
+    public ContextStoreEndpoint(ContextStore contextStore) {
+        this.contextStore = contextStore;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return contextStore.getStoreStats();
+    }
+}
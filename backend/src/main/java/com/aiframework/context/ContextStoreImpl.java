@@ -1,8 +1,14 @@
 package com.aiframework.context;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.time.Instant;
 
@@ -10,12 +16,26 @@ import java.time.Instant;
  * Enhanced Context Store implementation with agent collaboration features
  */
 @Service
+@ConditionalOnProperty(name = "context.store.type", havingValue = "memory", matchIfMissing = true)
 public class ContextStoreImpl implements ContextStore {
 
+    // Context keys whose change affects an agent's recommendations
+    private static final Set<String> RECOMMENDATION_KEYS = Set.of("dataType");
+    private static final String DATA_TYPE = "dataType";
+    private static final int SHARED_DATA_LOG_SIZE = 4096;
+
+    // Data types whose shared data is relevant to an agent working with the key type
+    private static final Map<String, List<String>> COMPATIBLE_DATA_TYPES = Map.of(
+        "stock-analysis", Arrays.asList("financial-data", "time-series", "market-data"),
+        "financial-data", Arrays.asList("stock-analysis", "risk-data", "portfolio-data"),
+        "time-series", Arrays.asList("stock-analysis", "chart-data", "trend-data")
+    );
+
     // Core storage maps
-    private final Map<String, Map<String, Object>> agentContexts = new ConcurrentHashMap<>();
+    private final ContextTable agentContexts;
     private final Map<String, SharedDataEntry> sharedData = new ConcurrentHashMap<>();
-    private final Map<String, List<String>> contextSubscriptions = new ConcurrentHashMap<>();
+    // Versions shared data writes; writers hold its lock while updating sharedData
+    private final SharedDataLog sharedDataLog = new SharedDataLog(SHARED_DATA_LOG_SIZE);
     private final Map<String, WorkflowDefinition> workflows = new ConcurrentHashMap<>();
     private final Map<String, List<AgentRecommendation>> agentRecommendations = new ConcurrentHashMap<>();
 
@@ -23,9 +43,107 @@ public class ContextStoreImpl implements ContextStore {
     private final Map<String, String> agentTypes = new ConcurrentHashMap<>();
     private final Map<String, List<String>> agentCapabilities = new ConcurrentHashMap<>();
 
-    public ContextStoreImpl() {
+    // Secondary indexes, kept in step with every write so queries cost the size of their result
+    private final SecondaryIndex agentsByDataType = new SecondaryIndex();
+    private final SecondaryIndex sharedDataByDataType = new SecondaryIndex();
+    private final Map<String, Set<String>> agentsByCapabilityToken = new ConcurrentHashMap<>();
+
+    private final RecommendationPipeline recommendationPipeline;
+    private final ContextEventBus eventBus;
+    private volatile ContextTable.EvictionListener evictionListener;
+
+    public ContextStoreImpl(Environment environment,
+                            @Value("${context.recommendations.debounce-ms:250}") long recommendationDebounceMs,
+                            @Value("${context.memory.max-bytes:268435456}") long maxBytes,
+                            @Value("${context.ttl-ms:3600000}") long defaultTtlMs,
+                            @Value("${context.sweep-interval-ms:30000}") long sweepIntervalMs,
+                            @Value("${context.events.dispatcher-threads:2}") int dispatcherThreads,
+                            @Value("${context.events.queue-capacity:256}") int eventQueueCapacity,
+                            @Value("${context.events.overflow:COALESCE_BY_KEY}") ContextEventBus.Overflow eventOverflow) {
         // Initialize known agent types and capabilities
         initializeAgentCapabilities();
+        indexCapabilities();
+        this.recommendationPipeline = new RecommendationPipeline(this::refreshRecommendations, recommendationDebounceMs);
+        this.eventBus = new ContextEventBus((subscriber, event) ->
+            generateContextUpdateNotification(subscriber, event.contextKey, event.data),
+            dispatcherThreads, eventQueueCapacity, eventOverflow);
+        // TTL per namespace from context.ttl-ms.<namespace>; 0 disables expiry
+        this.agentContexts = new ContextTable(maxBytes,
+            namespace -> environment.getProperty("context.ttl-ms." + namespace, Long.class, defaultTtlMs),
+            sweepIntervalMs, this::onEviction);
+    }
+
+    private void onEviction(String agentId, Map<String, Object> values, boolean expired) {
+        agentRecommendations.remove(agentId);
+        reindexAgent(agentId);
+        ContextTable.EvictionListener listener = evictionListener;
+        if (listener != null) {
+            listener.onEviction(agentId, values, expired);
+        }
+    }
+
+    // Hooks for a persistent store layered over this one
+    void setEvictionListener(ContextTable.EvictionListener listener) {
+        this.evictionListener = listener;
+    }
+
+    /** Put context values back without triggering recommendation updates */
+    void restoreContext(String agentId, Map<String, Object> values) {
+        values.forEach((key, value) -> agentContexts.put(agentId, key, value));
+        if (values.containsKey(DATA_TYPE)) {
+            reindexAgent(agentId);
+        }
+    }
+
+    void restoreSharedData(String dataKey, SharedDataEntry entry) {
+        synchronized (sharedDataLog) {
+            sharedData.put(dataKey, entry);
+            sharedDataLog.reset(entry.getVersion());
+        }
+        reindexSharedData(dataKey);
+    }
+
+    long getSharedDataVersion() {
+        return sharedDataLog.getVersion();
+    }
+
+    /** Continue version numbering after a recovered write */
+    void advanceSharedDataVersion(long version) {
+        sharedDataLog.advanceTo(version);
+    }
+
+    /** Resume at a recovered version with no change history before it */
+    void restoreSharedDataVersion(long version) {
+        sharedDataLog.reset(version);
+    }
+
+    boolean hasContext(String agentId) {
+        return agentContexts.contains(agentId);
+    }
+
+    void forEachContext(BiConsumer<String, Map<String, Object>> visitor) {
+        agentContexts.forEach(visitor);
+    }
+
+    Map<String, List<String>> getSubscriptions() {
+        return eventBus.getSubscriptions();
+    }
+
+    Map<String, WorkflowDefinition> getWorkflows() {
+        return new HashMap<>(workflows);
+    }
+
+    Map<String, List<AgentRecommendation>> getRecommendations() {
+        Map<String, List<AgentRecommendation>> copy = new HashMap<>();
+        agentRecommendations.forEach((agentId, recommendations) -> copy.put(agentId, new ArrayList<>(recommendations)));
+        return copy;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recommendationPipeline.shutdown();
+        eventBus.shutdown();
+        agentContexts.shutdown();
     }
 
     private void initializeAgentCapabilities() {
@@ -55,52 +173,131 @@ public class ContextStoreImpl implements ContextStore {
         ));
     }
 
+    /**
+     * Index each capability under every run of its '-'-separated tokens, so "time-series-viz"
+     * answers "time", "series", "viz", "time-series", "series-viz" and "time-series-viz"
+     */
+    private void indexCapabilities() {
+        agentCapabilities.forEach((agent, capabilities) -> {
+            for (String capability : capabilities) {
+                String[] tokens = capability.split("-");
+                for (int from = 0; from < tokens.length; from++) {
+                    for (int to = from + 1; to <= tokens.length; to++) {
+                        String run = String.join("-", Arrays.copyOfRange(tokens, from, to));
+                        agentsByCapabilityToken.computeIfAbsent(run, k -> ConcurrentHashMap.newKeySet()).add(agent);
+                    }
+                }
+            }
+        });
+    }
+
+    private void reindexAgent(String agentId) {
+        agentsByDataType.reindex(agentId, id -> agentContexts.peek(id, DATA_TYPE));
+    }
+
+    private void reindexSharedData(String dataKey) {
+        sharedDataByDataType.reindex(dataKey, key -> {
+            SharedDataEntry entry = sharedData.get(key);
+            return entry != null ? entry.getDataType() : null;
+        });
+    }
+
     // Basic context operations
     @Override
     public void storeContext(String agentId, String key, Object value) {
-        agentContexts.computeIfAbsent(agentId, k -> new ConcurrentHashMap<>()).put(key, value);
+        Object previous = agentContexts.put(agentId, key, value);
+        if (DATA_TYPE.equals(key)) {
+            reindexAgent(agentId);
+        }
 
-        // Auto-generate recommendations when context changes
-        generateContextBasedRecommendations(agentId);
+        // Recommendations are regenerated in the background, and only when a key they depend on changes
+        if (RECOMMENDATION_KEYS.contains(key) && !Objects.equals(previous, value)) {
+            recommendationPipeline.markDirty(agentId);
+        }
     }
 
     @Override
     public Optional<Object> getContext(String agentId, String key) {
-        Map<String, Object> context = agentContexts.get(agentId);
-        return context != null ? Optional.ofNullable(context.get(key)) : Optional.empty();
+        return Optional.ofNullable(agentContexts.get(agentId, key));
     }
 
     @Override
     public Map<String, Object> getAllContext(String agentId) {
-        return new HashMap<>(agentContexts.getOrDefault(agentId, Collections.emptyMap()));
+        return agentContexts.copy(agentId);
     }
 
     @Override
     public void clearContext(String agentId) {
         agentContexts.remove(agentId);
+        reindexAgent(agentId);
         agentRecommendations.remove(agentId);
     }
 
     @Override
     public void clearAllContext() {
         agentContexts.clear();
+        agentsByDataType.reindexAll(id -> agentContexts.peek(id, DATA_TYPE));
         agentRecommendations.clear();
     }
 
+    @Override
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(agentContexts.getStats());
+        stats.put("sharedDataEntries", sharedData.size());
+        stats.put("sharedDataVersion", sharedDataLog.getVersion());
+        stats.put("indexedAgentDataTypes", agentsByDataType.size());
+        stats.put("indexedSharedDataTypes", sharedDataByDataType.size());
+        stats.put("capabilityTokens", agentsByCapabilityToken.size());
+        stats.put("recommendationPipeline", recommendationPipeline.getStats());
+        stats.put("events", eventBus.getStats());
+        return stats;
+    }
+
     // Enhanced shared data operations
     @Override
     public void storeSharedData(String dataKey, Object data, String sourceAgent, Map<String, Object> metadata) {
-        String dataType = extractDataType(metadata);
-        SharedDataEntry entry = new SharedDataEntry(
-            data, sourceAgent, Instant.now().toString(), metadata, dataType
-        );
+        SharedDataEntry entry = newSharedDataEntry(data, sourceAgent, metadata);
+        synchronized (sharedDataLog) {
+            putSharedData(dataKey, entry);
+        }
+        afterSharedDataWrite(dataKey, entry);
+    }
+
+    @Override
+    public boolean compareAndSetSharedData(String dataKey, long expectedVersion, Object data, String sourceAgent,
+                                           Map<String, Object> metadata) {
+        SharedDataEntry entry = newSharedDataEntry(data, sourceAgent, metadata);
+        synchronized (sharedDataLog) {
+            // Version 0 means the key must not exist yet
+            SharedDataEntry current = sharedData.get(dataKey);
+            if ((current != null ? current.getVersion() : 0) != expectedVersion) {
+                return false;
+            }
+            putSharedData(dataKey, entry);
+        }
+        afterSharedDataWrite(dataKey, entry);
+        return true;
+    }
+
+    private SharedDataEntry newSharedDataEntry(Object data, String sourceAgent, Map<String, Object> metadata) {
+        return new SharedDataEntry(data, sourceAgent, Instant.now().toString(), metadata, extractDataType(metadata));
+    }
+
+    // Caller holds the sharedDataLog lock
+    private void putSharedData(String dataKey, SharedDataEntry entry) {
+        entry.setVersion(sharedDataLog.append(dataKey, false));
         sharedData.put(dataKey, entry);
+    }
+
+    private void afterSharedDataWrite(String dataKey, SharedDataEntry entry) {
+        sharedDataLog.signal();
+        reindexSharedData(dataKey);
 
         // Notify subscribers
-        notifySubscribers(dataKey, data);
+        notifySubscribers(dataKey, entry.getData());
 
         // Generate collaborative recommendations
-        generateCollaborativeRecommendations(dataKey, data, sourceAgent, dataType);
+        generateCollaborativeRecommendations(dataKey, entry.getData(), entry.getSourceAgent(), entry.getDataType());
     }
 
     private String extractDataType(Map<String, Object> metadata) {
@@ -119,38 +316,62 @@ public class ContextStoreImpl implements ContextStore {
 
     @Override
     public void clearSharedData(String dataKey) {
-        sharedData.remove(dataKey);
+        synchronized (sharedDataLog) {
+            if (sharedData.remove(dataKey) == null) {
+                return;
+            }
+            sharedDataLog.append(dataKey, true);
+        }
+        sharedDataLog.signal();
+        reindexSharedData(dataKey);
+    }
+
+    @Override
+    public SharedDataChanges getSharedDataChanges(long sinceVersion) {
+        synchronized (sharedDataLog) {
+            SharedDataLog.Delta delta = sharedDataLog.since(sinceVersion);
+            if (delta.reset) {
+                return new SharedDataChanges(delta.version, true, new HashMap<>(sharedData), new ArrayList<>());
+            }
+            Map<String, SharedDataEntry> changed = new LinkedHashMap<>();
+            List<String> removed = new ArrayList<>();
+            delta.keys.forEach((dataKey, wasRemoved) -> {
+                SharedDataEntry entry = sharedData.get(dataKey);
+                if (wasRemoved || entry == null) {
+                    removed.add(dataKey);
+                } else {
+                    changed.put(dataKey, entry);
+                }
+            });
+            return new SharedDataChanges(delta.version, false, changed, removed);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> awaitSharedDataChange(long sinceVersion) {
+        return sharedDataLog.await(sinceVersion);
     }
 
     // Subscription management
     @Override
     public void subscribeToContext(String subscriberAgent, String contextKey) {
-        contextSubscriptions.computeIfAbsent(contextKey, k -> new ArrayList<>()).add(subscriberAgent);
+        eventBus.subscribe(subscriberAgent, contextKey);
     }
 
     @Override
     public void unsubscribeFromContext(String subscriberAgent, String contextKey) {
-        List<String> subscribers = contextSubscriptions.get(contextKey);
-        if (subscribers != null) {
-            subscribers.remove(subscriberAgent);
-            if (subscribers.isEmpty()) {
-                contextSubscriptions.remove(contextKey);
-            }
-        }
+        eventBus.unsubscribe(subscriberAgent, contextKey);
     }
 
     @Override
     public List<String> getSubscribers(String contextKey) {
-        return new ArrayList<>(contextSubscriptions.getOrDefault(contextKey, Collections.emptyList()));
+        return eventBus.getSubscribers(contextKey);
     }
 
     @Override
     public void notifySubscribers(String contextKey, Object data) {
-        List<String> subscribers = getSubscribers(contextKey);
-        for (String subscriber : subscribers) {
-            // Generate notifications for each subscriber
-            generateContextUpdateNotification(subscriber, contextKey, data);
-        }
+        // Delivered to each subscriber on the event dispatcher, never on the caller's thread
+        eventBus.publish(contextKey, data);
     }
 
     // Workflow management
@@ -198,23 +419,14 @@ public class ContextStoreImpl implements ContextStore {
     // Advanced querying and analysis
     @Override
     public List<String> findAgentsWithDataType(String dataType) {
-        return agentContexts.entrySet().stream()
-            .filter(entry -> {
-                Object contextDataType = entry.getValue().get("dataType");
-                return dataType.equals(contextDataType);
-            })
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        return agentsByDataType.get(dataType);
     }
 
     @Override
     public List<String> findCompatibleAgents(String sourceAgent, String dataType) {
-        return agentCapabilities.entrySet().stream()
-            .filter(entry -> !entry.getKey().equals(sourceAgent))
-            .filter(entry -> entry.getValue().contains(dataType) ||
-                           entry.getValue().stream().anyMatch(cap -> cap.contains(dataType)))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        List<String> agents = new ArrayList<>(agentsByCapabilityToken.getOrDefault(dataType, Collections.emptySet()));
+        agents.remove(sourceAgent);
+        return agents;
     }
 
     @Override
@@ -222,8 +434,8 @@ public class ContextStoreImpl implements ContextStore {
         Map<String, Object> suggestions = new HashMap<>();
 
         // Get agent's current context
-        Map<String, Object> context = getAllContext(agentId);
-        String dataType = (String) context.get("dataType");
+        Object type = agentContexts.get(agentId, DATA_TYPE);
+        String dataType = type instanceof String text ? text : null;
 
         if (dataType != null) {
             // Find compatible agents
@@ -231,11 +443,10 @@ public class ContextStoreImpl implements ContextStore {
             suggestions.put("compatibleAgents", compatibleAgents);
 
             // Find relevant shared data
-            List<String> relevantData = sharedData.entrySet().stream()
-                .filter(entry -> dataType.equals(entry.getValue().getDataType()) ||
-                               isDataTypeCompatible(dataType, entry.getValue().getDataType()))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+            List<String> relevantData = sharedDataByDataType.get(dataType);
+            for (String compatibleType : COMPATIBLE_DATA_TYPES.getOrDefault(dataType, Collections.emptyList())) {
+                relevantData.addAll(sharedDataByDataType.get(compatibleType));
+            }
             suggestions.put("relevantSharedData", relevantData);
 
             // Generate workflow suggestions
@@ -246,12 +457,12 @@ public class ContextStoreImpl implements ContextStore {
     }
 
     // Helper methods for intelligent recommendations
-    private void generateContextBasedRecommendations(String agentId) {
-        Map<String, Object> context = getAllContext(agentId);
-        String dataType = (String) context.get("dataType");
+    private void refreshRecommendations(String agentId) {
+        // Reads the single key it needs rather than copying the whole context
+        Object dataType = agentContexts.get(agentId, "dataType");
 
-        if (dataType != null) {
-            List<AgentRecommendation> recommendations = createRecommendationsForDataType(agentId, dataType);
+        if (dataType instanceof String type) {
+            List<AgentRecommendation> recommendations = createRecommendationsForDataType(agentId, type);
             if (!recommendations.isEmpty()) {
                 setAgentRecommendations(agentId, recommendations);
             }
@@ -267,9 +478,7 @@ public class ContextStoreImpl implements ContextStore {
             );
 
             if (!recommendations.isEmpty()) {
-                List<AgentRecommendation> existing = getAgentRecommendations(targetAgent);
-                existing.addAll(recommendations);
-                setAgentRecommendations(targetAgent, existing);
+                addRecommendations(targetAgent, recommendations);
             }
         }
     }
@@ -359,9 +568,16 @@ public class ContextStoreImpl implements ContextStore {
             Map.of("updateType", "context-change", "contextKey", contextKey)
         );
 
-        List<AgentRecommendation> existing = getAgentRecommendations(subscriberAgent);
-        existing.add(notification);
-        setAgentRecommendations(subscriberAgent, existing);
+        addRecommendations(subscriberAgent, List.of(notification));
+    }
+
+    /** Append atomically; writers on the event dispatcher and request threads can overlap */
+    private void addRecommendations(String agentId, List<AgentRecommendation> recommendations) {
+        agentRecommendations.merge(agentId, new ArrayList<>(recommendations), (existing, added) -> {
+            List<AgentRecommendation> merged = new ArrayList<>(existing);
+            merged.addAll(added);
+            return merged;
+        });
     }
 
     private List<Map<String, Object>> generateWorkflowSuggestions(String agentId, String dataType) {
@@ -385,15 +601,4 @@ public class ContextStoreImpl implements ContextStore {
 
         return suggestions;
     }
-
-    private boolean isDataTypeCompatible(String dataType1, String dataType2) {
-        // Define compatibility matrix
-        Map<String, List<String>> compatibility = Map.of(
-            "stock-analysis", Arrays.asList("financial-data", "time-series", "market-data"),
-            "financial-data", Arrays.asList("stock-analysis", "risk-data", "portfolio-data"),
-            "time-series", Arrays.asList("stock-analysis", "chart-data", "trend-data")
-        );
-
-        return compatibility.getOrDefault(dataType1, Collections.emptyList()).contains(dataType2);
-    }
 }
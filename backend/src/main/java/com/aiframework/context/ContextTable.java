@@ -0,0 +1,285 @@
+package com.aiframework.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Memory-bounded storage for per-agent context maps.
+ *
+ * Every agent ID belongs to a namespace: the prefix before ':' when there is one, "task"
+ * for task IDs (UUIDs) and "agent" otherwise. Each namespace has its own idle TTL. Values
+ * are charged an estimated retained size when written; when the total passes the memory
+ * cap, the least recently used contexts are evicted down to the low watermark. A
+ * background sweeper expires idle contexts and enforces the cap; writes only trigger it.
+ */
+class ContextTable {
+    private static final Logger logger = LoggerFactory.getLogger(ContextTable.class);
+
+    static final String TASK_NAMESPACE = "task";
+    static final String AGENT_NAMESPACE = "agent";
+
+    private static final long ENTRY_OVERHEAD = 160;
+    private static final double LOW_WATERMARK = 0.9;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final long maxBytes;
+    private final ToLongFunction<String> ttlByNamespace;
+    private final Map<String, Long> ttlCache = new ConcurrentHashMap<>();
+    private final EvictionListener evictionListener;
+
+    private final Map<String, LongAdder> expiredByNamespace = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> evictedByNamespace = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private volatile long lastSweepMs;
+
+    /** Told about every context removed by the sweeper, with the values it held */
+    interface EvictionListener {
+        void onEviction(String agentId, Map<String, Object> values, boolean expired);
+    }
+
+    ContextTable(long maxBytes, ToLongFunction<String> ttlByNamespace, long sweepIntervalMs,
+                 EvictionListener evictionListener) {
+        this.maxBytes = maxBytes;
+        this.ttlByNamespace = ttlByNamespace;
+        this.evictionListener = evictionListener;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ContextSweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(sweepIntervalMs, 100);
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    static String namespaceOf(String agentId) {
+        int separator = agentId.indexOf(':');
+        if (separator > 0) {
+            return agentId.substring(0, separator);
+        }
+        return isUuid(agentId) ? TASK_NAMESPACE : AGENT_NAMESPACE;
+    }
+
+    private static boolean isUuid(String id) {
+        return id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-'
+                && id.charAt(18) == '-' && id.charAt(23) == '-';
+    }
+
+    /**
+     * Store a value and return the previous one
+     */
+    Object put(String agentId, String key, Object value) {
+        long size = SizeEstimator.estimate(key) + SizeEstimator.estimate(value);
+        while (true) {
+            Entry entry = entries.computeIfAbsent(agentId, this::newEntry);
+            Object previous;
+            long delta;
+            synchronized (entry) {
+                // Lost a race with eviction; the entry is no longer in the table
+                if (entry.removed) continue;
+                previous = entry.values.put(key, value);
+                delta = size - (previous != null ? SizeEstimator.estimate(key) + SizeEstimator.estimate(previous) : 0);
+                entry.bytes += delta;
+            }
+            entry.touch();
+            if (retainedBytes.addAndGet(delta) > maxBytes) {
+                requestSweep();
+            }
+            return previous;
+        }
+    }
+
+    Object get(String agentId, String key) {
+        Entry entry = entries.get(agentId);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.values.get(key);
+    }
+
+    /** Read a value without counting it as an access */
+    Object peek(String agentId, String key) {
+        Entry entry = entries.get(agentId);
+        return entry != null ? entry.values.get(key) : null;
+    }
+
+    Map<String, Object> copy(String agentId) {
+        Entry entry = entries.get(agentId);
+        if (entry == null) {
+            return new HashMap<>();
+        }
+        entry.touch();
+        return new HashMap<>(entry.values);
+    }
+
+    boolean contains(String agentId) {
+        return entries.containsKey(agentId);
+    }
+
+    /**
+     * Visit every context without counting it as an access
+     */
+    void forEach(BiConsumer<String, Map<String, Object>> visitor) {
+        entries.forEach((agentId, entry) -> visitor.accept(agentId, entry.values));
+    }
+
+    boolean remove(String agentId) {
+        Entry entry = entries.remove(agentId);
+        if (entry == null) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+
+    void clear() {
+        for (String agentId : new ArrayList<>(entries.keySet())) {
+            remove(agentId);
+        }
+    }
+
+    private Entry newEntry(String agentId) {
+        retainedBytes.addAndGet(ENTRY_OVERHEAD + SizeEstimator.estimate(agentId));
+        return new Entry(namespaceOf(agentId), ENTRY_OVERHEAD + SizeEstimator.estimate(agentId));
+    }
+
+    private void release(Entry entry) {
+        synchronized (entry) {
+            entry.removed = true;
+            retainedBytes.addAndGet(-entry.bytes);
+        }
+    }
+
+    private void requestSweep() {
+        if (sweepRequested.compareAndSet(false, true)) {
+            try {
+                sweeper.execute(this::sweep);
+            } catch (RejectedExecutionException e) {
+                sweepRequested.set(false);
+            }
+        }
+    }
+
+    /** Expire idle contexts, then evict least recently used ones while over the cap */
+    void sweep() {
+        sweepRequested.set(false);
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                Entry entry = candidate.getValue();
+                long ttl = ttlFor(entry.namespace);
+                if (ttl > 0 && now - entry.lastAccess > ttl && evict(candidate.getKey(), entry, true)) {
+                    expiredByNamespace.computeIfAbsent(entry.namespace, ns -> new LongAdder()).increment();
+                }
+            }
+
+            if (retainedBytes.get() > maxBytes) {
+                evictLeastRecentlyUsed();
+            }
+            lastSweepMs = now;
+        } catch (Exception e) {
+            logger.error("Context sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // Sort a snapshot of access times; the live ones keep changing under concurrent reads,
+        // which would break the sort's ordering contract
+        List<Candidate> byAge = new ArrayList<>(entries.size());
+        entries.forEach((agentId, entry) -> byAge.add(new Candidate(agentId, entry, entry.lastAccess)));
+        byAge.sort(Comparator.comparingLong(Candidate::lastAccess));
+
+        long target = (long) (maxBytes * LOW_WATERMARK);
+        int evicted = 0;
+        for (Candidate candidate : byAge) {
+            if (retainedBytes.get() <= target) break;
+            if (evict(candidate.agentId(), candidate.entry(), false)) {
+                evictedByNamespace.computeIfAbsent(candidate.entry().namespace, ns -> new LongAdder()).increment();
+                evicted++;
+            }
+        }
+        logger.info("Context store over its {} byte cap; evicted {} least recently used contexts", maxBytes, evicted);
+    }
+
+    private boolean evict(String agentId, Entry entry, boolean expired) {
+        if (!entries.remove(agentId, entry)) {
+            return false;
+        }
+        release(entry);
+        evictionListener.onEviction(agentId, entry.values, expired);
+        return true;
+    }
+
+    private long ttlFor(String namespace) {
+        return ttlCache.computeIfAbsent(namespace, ttlByNamespace::applyAsLong);
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Map<String, Object>> namespaces = new TreeMap<>();
+        entries.forEach((agentId, entry) -> {
+            Map<String, Object> stats = namespaces.computeIfAbsent(entry.namespace, this::namespaceStats);
+            stats.merge("contexts", 1L, (a, b) -> (Long) a + (Long) b);
+            stats.merge("keys", (long) entry.values.size(), (a, b) -> (Long) a + (Long) b);
+            stats.merge("retainedBytes", entry.bytes, (a, b) -> (Long) a + (Long) b);
+        });
+        expiredByNamespace.keySet().forEach(ns -> namespaces.computeIfAbsent(ns, this::namespaceStats));
+        evictedByNamespace.keySet().forEach(ns -> namespaces.computeIfAbsent(ns, this::namespaceStats));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("contexts", entries.size());
+        stats.put("retainedBytes", retainedBytes.get());
+        stats.put("maxBytes", maxBytes);
+        stats.put("lastSweepMs", lastSweepMs);
+        stats.put("namespaces", namespaces);
+        return stats;
+    }
+
+    private Map<String, Object> namespaceStats(String namespace) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("contexts", 0L);
+        stats.put("keys", 0L);
+        stats.put("retainedBytes", 0L);
+        stats.put("ttlMs", ttlFor(namespace));
+        stats.put("expired", sum(expiredByNamespace.get(namespace)));
+        stats.put("evicted", sum(evictedByNamespace.get(namespace)));
+        return stats;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private record Candidate(String agentId, Entry entry, long lastAccess) { }
+
+    private static final class Entry {
+        private final String namespace;
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+        // Guarded by this
+        private long bytes;
+        private boolean removed;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(String namespace, long overhead) {
+            this.namespace = namespace;
+            this.bytes = overhead;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,711 @@
+package com.aiframework.context;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Context store that survives restarts, enabled with context.store.type=persistent.
+ *
+ * Hot state lives in an in-memory ContextStoreImpl. Every mutation is appended to the
+ * context journal before it is applied, and the journal is periodically compacted into a
+ * snapshot, which recovery memory-maps and scans. Contexts evicted from memory for capacity
+ * are written to the journal as cold records and read back on their next access, so the
+ * heap only holds a small index entry for them. Values are persisted as JSON and come back
+ * as maps, lists and scalars.
+ */
+@Service
+@ConditionalOnProperty(name = "context.store.type", havingValue = "persistent")
+public class PersistentContextStore implements ContextStore {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentContextStore.class);
+
+    private static final byte PUT_CONTEXT = 1;
+    private static final byte CLEAR_CONTEXT = 2;
+    private static final byte CLEAR_ALL_CONTEXT = 3;
+    private static final byte CONTEXT = 4;
+    private static final byte COLD_CONTEXT = 5;
+    private static final byte PUT_SHARED_DATA = 6;
+    private static final byte CLEAR_SHARED_DATA = 7;
+    private static final byte SUBSCRIBE = 8;
+    private static final byte UNSUBSCRIBE = 9;
+    private static final byte PUT_WORKFLOW = 10;
+    private static final byte WORKFLOW_STATUS = 11;
+    private static final byte SET_RECOMMENDATIONS = 12;
+    private static final byte CLEAR_RECOMMENDATIONS = 13;
+    private static final byte SHARED_DATA_VERSION = 14;
+
+    private static final TypeReference<Map<String, Object>> RECORD = new TypeReference<>() {};
+
+    private final ContextStoreImpl memory;
+    private final ContextJournal journal;
+    private final ObjectMapper objectMapper;
+    private final long snapshotThresholdBytes;
+
+    // Orders journal appends with the mutations they describe
+    private final Object writeLock = new Object();
+    private final Map<String, ColdContext> cold = new ConcurrentHashMap<>();
+    private final SecondaryIndex coldByDataType = new SecondaryIndex();
+
+    private final ScheduledExecutorService snapshotter;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong coldLoads = new AtomicLong();
+    private final AtomicLong journalFailures = new AtomicLong();
+    private final AtomicLong evictionsLost = new AtomicLong();
+    private volatile long lastSnapshotMs;
+    private final long recoveryMs;
+    private final long recordsReplayed;
+
+    public PersistentContextStore(Environment environment,
+                                  @Value("${context.recommendations.debounce-ms:250}") long recommendationDebounceMs,
+                                  @Value("${context.memory.max-bytes:268435456}") long maxBytes,
+                                  @Value("${context.ttl-ms:3600000}") long defaultTtlMs,
+                                  @Value("${context.sweep-interval-ms:30000}") long sweepIntervalMs,
+                                  @Value("${context.events.dispatcher-threads:2}") int dispatcherThreads,
+                                  @Value("${context.events.queue-capacity:256}") int eventQueueCapacity,
+                                  @Value("${context.events.overflow:COALESCE_BY_KEY}") ContextEventBus.Overflow eventOverflow,
+                                  @Value("${context.persistent.dir:data/context}") String directory,
+                                  @Value("${context.persistent.fsync:false}") boolean fsync,
+                                  @Value("${context.persistent.snapshot-interval-ms:300000}") long snapshotIntervalMs,
+                                  @Value("${context.persistent.snapshot-threshold-bytes:67108864}") long snapshotThresholdBytes) {
+        this.memory = new ContextStoreImpl(environment, recommendationDebounceMs, maxBytes, defaultTtlMs, sweepIntervalMs,
+                dispatcherThreads, eventQueueCapacity, eventOverflow);
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ContextSnapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Installed before replay so contexts evicted while recovering are paged out, not dropped;
+        // the sweeper that evicts them waits on the write lock until the journal is open
+        memory.setEvictionListener(this::onEviction);
+
+        long start = System.currentTimeMillis();
+        try {
+            this.journal = new ContextJournal(Paths.get(directory), fsync);
+            synchronized (writeLock) {
+                this.recordsReplayed = journal.recover(this::apply);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover context store from " + directory, e);
+        }
+        this.recoveryMs = System.currentTimeMillis() - start;
+        logger.info("Recovered context store from {} in {}ms: {} records, {} cold contexts",
+                directory, recoveryMs, recordsReplayed, cold.size());
+
+        long interval = Math.max(snapshotIntervalMs, 1000);
+        snapshotter.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotter.shutdownNow();
+        memory.shutdown();
+        synchronized (writeLock) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("Error closing context journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Basic context operations
+    @Override
+    public void storeContext(String agentId, String key, Object value) {
+        synchronized (writeLock) {
+            loadCold(agentId);
+            journal(PUT_CONTEXT, record("agentId", agentId, "key", key, "value", toJson(value)));
+            memory.storeContext(agentId, key, value);
+        }
+    }
+
+    @Override
+    public Optional<Object> getContext(String agentId, String key) {
+        Optional<Object> value = memory.getContext(agentId, key);
+        if (value.isEmpty() && cold.containsKey(agentId)) {
+            synchronized (writeLock) {
+                loadCold(agentId);
+            }
+            value = memory.getContext(agentId, key);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> getAllContext(String agentId) {
+        if (cold.containsKey(agentId)) {
+            synchronized (writeLock) {
+                loadCold(agentId);
+            }
+        }
+        return memory.getAllContext(agentId);
+    }
+
+    @Override
+    public void clearContext(String agentId) {
+        synchronized (writeLock) {
+            journal(CLEAR_CONTEXT, record("agentId", agentId));
+            removeCold(agentId);
+            memory.clearContext(agentId);
+        }
+    }
+
+    @Override
+    public void clearAllContext() {
+        synchronized (writeLock) {
+            journal(CLEAR_ALL_CONTEXT, record());
+            clearCold();
+            memory.clearAllContext();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(memory.getStoreStats());
+        Map<String, Object> persistence = new LinkedHashMap<>();
+        persistence.put("generation", journal.getGeneration());
+        try {
+            persistence.put("journalBytes", journal.getJournalBytes());
+        } catch (IOException e) {
+            persistence.put("journalBytes", -1);
+        }
+        persistence.put("snapshotBytes", journal.getSnapshotBytes());
+        persistence.put("snapshots", snapshots.get());
+        persistence.put("lastSnapshotMs", lastSnapshotMs);
+        persistence.put("coldContexts", cold.size());
+        persistence.put("coldLoads", coldLoads.get());
+        persistence.put("journalFailures", journalFailures.get());
+        persistence.put("evictionsLost", evictionsLost.get());
+        persistence.put("recoveryMs", recoveryMs);
+        persistence.put("recordsReplayed", recordsReplayed);
+        stats.put("persistence", persistence);
+        return stats;
+    }
+
+    // Enhanced shared data operations
+    @Override
+    public void storeSharedData(String dataKey, Object data, String sourceAgent, Map<String, Object> metadata) {
+        synchronized (writeLock) {
+            writeSharedData(dataKey, data, sourceAgent, metadata);
+        }
+    }
+
+    @Override
+    public boolean compareAndSetSharedData(String dataKey, long expectedVersion, Object data, String sourceAgent,
+                                           Map<String, Object> metadata) {
+        // Every shared data write goes through the write lock, so the check cannot go stale before the write
+        synchronized (writeLock) {
+            long currentVersion = memory.getSharedData(dataKey).map(SharedDataEntry::getVersion).orElse(0L);
+            if (currentVersion != expectedVersion) {
+                return false;
+            }
+            writeSharedData(dataKey, data, sourceAgent, metadata);
+            return true;
+        }
+    }
+
+    // Caller holds the write lock; the journaled version is the one the write will take
+    private void writeSharedData(String dataKey, Object data, String sourceAgent, Map<String, Object> metadata) {
+        String timestamp = Instant.now().toString();
+        journal(PUT_SHARED_DATA, record("dataKey", dataKey, "data", toJson(data), "sourceAgent", sourceAgent,
+                "metadata", toJson(metadata), "timestamp", timestamp, "version", memory.getSharedDataVersion() + 1));
+        memory.storeSharedData(dataKey, data, sourceAgent, metadata);
+        memory.getSharedData(dataKey).ifPresent(entry -> entry.setTimestamp(timestamp));
+    }
+
+    @Override
+    public Optional<SharedDataEntry> getSharedData(String dataKey) {
+        return memory.getSharedData(dataKey);
+    }
+
+    @Override
+    public Map<String, SharedDataEntry> getAllSharedData() {
+        return memory.getAllSharedData();
+    }
+
+    @Override
+    public void clearSharedData(String dataKey) {
+        synchronized (writeLock) {
+            journal(CLEAR_SHARED_DATA, record("dataKey", dataKey, "version", memory.getSharedDataVersion() + 1));
+            memory.clearSharedData(dataKey);
+        }
+    }
+
+    @Override
+    public SharedDataChanges getSharedDataChanges(long sinceVersion) {
+        return memory.getSharedDataChanges(sinceVersion);
+    }
+
+    @Override
+    public CompletableFuture<Long> awaitSharedDataChange(long sinceVersion) {
+        return memory.awaitSharedDataChange(sinceVersion);
+    }
+
+    // Subscription management
+    @Override
+    public void subscribeToContext(String subscriberAgent, String contextKey) {
+        synchronized (writeLock) {
+            journal(SUBSCRIBE, record("subscriber", subscriberAgent, "contextKey", contextKey));
+            memory.subscribeToContext(subscriberAgent, contextKey);
+        }
+    }
+
+    @Override
+    public void unsubscribeFromContext(String subscriberAgent, String contextKey) {
+        synchronized (writeLock) {
+            journal(UNSUBSCRIBE, record("subscriber", subscriberAgent, "contextKey", contextKey));
+            memory.unsubscribeFromContext(subscriberAgent, contextKey);
+        }
+    }
+
+    @Override
+    public List<String> getSubscribers(String contextKey) {
+        return memory.getSubscribers(contextKey);
+    }
+
+    @Override
+    public void notifySubscribers(String contextKey, Object data) {
+        memory.notifySubscribers(contextKey, data);
+    }
+
+    // Workflow management
+    @Override
+    public void createWorkflow(String workflowId, WorkflowDefinition workflow) {
+        synchronized (writeLock) {
+            journal(PUT_WORKFLOW, workflowRecord(workflowId, workflow));
+            memory.createWorkflow(workflowId, workflow);
+        }
+    }
+
+    @Override
+    public Optional<WorkflowDefinition> getWorkflow(String workflowId) {
+        return memory.getWorkflow(workflowId);
+    }
+
+    @Override
+    public List<WorkflowDefinition> getActiveWorkflows() {
+        return memory.getActiveWorkflows();
+    }
+
+    @Override
+    public void updateWorkflowStatus(String workflowId, WorkflowStatus status) {
+        synchronized (writeLock) {
+            String updatedAt = Instant.now().toString();
+            journal(WORKFLOW_STATUS, record("workflowId", workflowId, "status", status.name(), "updatedAt", updatedAt));
+            memory.updateWorkflowStatus(workflowId, status);
+            memory.getWorkflow(workflowId).ifPresent(workflow -> workflow.setUpdatedAt(updatedAt));
+        }
+    }
+
+    // Agent recommendations
+    @Override
+    public void setAgentRecommendations(String agentId, List<AgentRecommendation> recommendations) {
+        synchronized (writeLock) {
+            journal(SET_RECOMMENDATIONS, record("agentId", agentId, "recommendations", toJson(recommendations)));
+            memory.setAgentRecommendations(agentId, recommendations);
+        }
+    }
+
+    @Override
+    public List<AgentRecommendation> getAgentRecommendations(String agentId) {
+        return memory.getAgentRecommendations(agentId);
+    }
+
+    @Override
+    public void clearAgentRecommendations(String agentId) {
+        synchronized (writeLock) {
+            journal(CLEAR_RECOMMENDATIONS, record("agentId", agentId));
+            memory.clearAgentRecommendations(agentId);
+        }
+    }
+
+    // Advanced querying and analysis
+    @Override
+    public List<String> findAgentsWithDataType(String dataType) {
+        Set<String> agents = new LinkedHashSet<>(memory.findAgentsWithDataType(dataType));
+        agents.addAll(coldByDataType.get(dataType));
+        return new ArrayList<>(agents);
+    }
+
+    @Override
+    public List<String> findCompatibleAgents(String sourceAgent, String dataType) {
+        return memory.findCompatibleAgents(sourceAgent, dataType);
+    }
+
+    @Override
+    public Map<String, Object> generateCollaborationSuggestions(String agentId) {
+        if (cold.containsKey(agentId)) {
+            synchronized (writeLock) {
+                loadCold(agentId);
+            }
+        }
+        return memory.generateCollaborationSuggestions(agentId);
+    }
+
+    // Cold contexts
+
+    private void putCold(String agentId, ColdContext context) {
+        cold.put(agentId, context);
+        coldByDataType.reindex(agentId, this::coldDataType);
+    }
+
+    private ColdContext removeCold(String agentId) {
+        ColdContext context = cold.remove(agentId);
+        coldByDataType.reindex(agentId, this::coldDataType);
+        return context;
+    }
+
+    private void clearCold() {
+        cold.clear();
+        coldByDataType.reindexAll(this::coldDataType);
+    }
+
+    private Object coldDataType(String agentId) {
+        ColdContext context = cold.get(agentId);
+        return context != null ? context.dataType : null;
+    }
+
+    /** Bring a cold context back into memory; caller holds the write lock */
+    private void loadCold(String agentId) {
+        ColdContext context = removeCold(agentId);
+        if (context == null) {
+            return;
+        }
+        try {
+            Map<String, Object> record = objectMapper.readValue(journal.read(context.location), RECORD);
+            memory.restoreContext(agentId, values(record));
+            coldLoads.incrementAndGet();
+        } catch (IOException e) {
+            logger.error("Could not load cold context for {}: {}", agentId, e.getMessage());
+        }
+    }
+
+    private void onEviction(String agentId, Map<String, Object> values, boolean expired) {
+        synchronized (writeLock) {
+            if (memory.hasContext(agentId)) {
+                // A write re-created the context after it was evicted; the evicted values are older
+                if (expired) {
+                    journal(CLEAR_CONTEXT, record("agentId", agentId));
+                    memory.getAllContext(agentId).forEach((key, value) ->
+                            journal(PUT_CONTEXT, record("agentId", agentId, "key", key, "value", toJson(value))));
+                } else {
+                    Map<String, Object> current = memory.getAllContext(agentId);
+                    Map<String, Object> older = new HashMap<>(values);
+                    older.keySet().removeAll(current.keySet());
+                    memory.restoreContext(agentId, older);
+                }
+                return;
+            }
+
+            if (expired) {
+                journal(CLEAR_CONTEXT, record("agentId", agentId));
+                return;
+            }
+            ContextJournal.Location location = journal(COLD_CONTEXT, contextRecord(agentId, values));
+            if (location != null) {
+                putCold(agentId, new ColdContext(location, values.get("dataType")));
+            } else {
+                // Already out of memory and not on disk: the values are gone until rewritten
+                evictionsLost.incrementAndGet();
+                logger.error("Context {} was evicted but could not be paged out; lost {} values", agentId, values.size());
+            }
+        }
+    }
+
+    // Journal and recovery
+
+    private ContextJournal.Location journal(byte op, Map<String, Object> record) {
+        try {
+            ContextJournal.Location location = journal.append(op, objectMapper.writeValueAsBytes(record));
+            if (location.offset > snapshotThresholdBytes) {
+                requestSnapshot();
+            }
+            return location;
+        } catch (IOException e) {
+            journalFailures.incrementAndGet();
+            logger.error("Could not journal context mutation {}: {}", op, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Apply one recovered record; caller holds the write lock */
+    private void apply(byte op, byte[] body, ContextJournal.Location location) throws IOException {
+        Map<String, Object> record = objectMapper.readValue(body, RECORD);
+        String agentId = (String) record.get("agentId");
+        switch (op) {
+            case PUT_CONTEXT -> {
+                loadCold(agentId);
+                memory.storeContext(agentId, (String) record.get("key"), record.get("value"));
+            }
+            case CONTEXT -> memory.restoreContext(agentId, values(record));
+            case COLD_CONTEXT -> {
+                memory.clearContext(agentId);
+                putCold(agentId, new ColdContext(location, values(record).get("dataType")));
+            }
+            case CLEAR_CONTEXT -> {
+                removeCold(agentId);
+                memory.clearContext(agentId);
+            }
+            case CLEAR_ALL_CONTEXT -> {
+                clearCold();
+                memory.clearAllContext();
+            }
+            case PUT_SHARED_DATA -> {
+                String dataKey = (String) record.get("dataKey");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> metadata = (Map<String, Object>) record.get("metadata");
+                String sourceAgent = (String) record.get("sourceAgent");
+                String timestamp = (String) record.get("timestamp");
+                if (location.snapshot) {
+                    // Snapshots carry derived recommendations separately
+                    SharedDataEntry entry = new SharedDataEntry(record.get("data"), sourceAgent, timestamp,
+                            metadata, (String) record.get("dataType"));
+                    entry.setVersion(version(record));
+                    memory.restoreSharedData(dataKey, entry);
+                } else {
+                    // Number the replayed write as it was numbered originally
+                    memory.advanceSharedDataVersion(version(record) - 1);
+                    memory.storeSharedData(dataKey, record.get("data"), sourceAgent, metadata);
+                    memory.getSharedData(dataKey).ifPresent(entry -> entry.setTimestamp(timestamp));
+                }
+            }
+            case CLEAR_SHARED_DATA -> {
+                memory.advanceSharedDataVersion(version(record) - 1);
+                memory.clearSharedData((String) record.get("dataKey"));
+            }
+            case SHARED_DATA_VERSION -> memory.restoreSharedDataVersion(version(record));
+            case SUBSCRIBE -> memory.subscribeToContext((String) record.get("subscriber"), (String) record.get("contextKey"));
+            case UNSUBSCRIBE -> memory.unsubscribeFromContext((String) record.get("subscriber"), (String) record.get("contextKey"));
+            case PUT_WORKFLOW -> {
+                WorkflowDefinition workflow = objectMapper.convertValue(record.get("workflow"), WorkflowSnapshot.class).toWorkflow();
+                memory.createWorkflow((String) record.get("workflowId"), workflow);
+            }
+            case WORKFLOW_STATUS -> {
+                String workflowId = (String) record.get("workflowId");
+                memory.updateWorkflowStatus(workflowId, WorkflowStatus.valueOf((String) record.get("status")));
+                memory.getWorkflow(workflowId).ifPresent(workflow -> workflow.setUpdatedAt((String) record.get("updatedAt")));
+            }
+            case SET_RECOMMENDATIONS -> {
+                List<AgentRecommendation> recommendations = new ArrayList<>();
+                for (Object item : (List<?>) record.get("recommendations")) {
+                    recommendations.add(objectMapper.convertValue(item, RecommendationSnapshot.class).toRecommendation());
+                }
+                memory.setAgentRecommendations(agentId, recommendations);
+            }
+            case CLEAR_RECOMMENDATIONS -> memory.clearAgentRecommendations(agentId);
+            default -> logger.warn("Skipping unknown context journal record type {}", op);
+        }
+    }
+
+    private void requestSnapshot() {
+        if (!snapshotRunning.get()) {
+            try {
+                snapshotter.execute(this::snapshot);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down
+            }
+        }
+    }
+
+    /**
+     * Compact the current state into a new snapshot and drop the journals it replaces
+     */
+    void snapshot() {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long generation;
+            Map<String, Map<String, Object>> contexts = new HashMap<>();
+            Map<String, ColdContext> coldContexts;
+            Map<String, SharedDataEntry> sharedData;
+            long sharedDataVersion;
+            Map<String, List<String>> subscriptions;
+            Map<String, WorkflowDefinition> workflows;
+            Map<String, List<AgentRecommendation>> recommendations;
+
+            // Capture a consistent cut; everything after it goes to the new journal
+            synchronized (writeLock) {
+                if (journal.getJournalBytes() == 0) {
+                    return;
+                }
+                generation = journal.rotate();
+                memory.forEachContext((agentId, values) -> contexts.put(agentId, new HashMap<>(values)));
+                coldContexts = new HashMap<>(cold);
+                sharedData = memory.getAllSharedData();
+                sharedDataVersion = memory.getSharedDataVersion();
+                subscriptions = memory.getSubscriptions();
+                workflows = memory.getWorkflows();
+                recommendations = memory.getRecommendations();
+            }
+
+            Map<String, ContextJournal.Location> relocated = new HashMap<>();
+            try (ContextJournal.SnapshotWriter writer = journal.newSnapshot(generation)) {
+                for (Map.Entry<String, Map<String, Object>> context : contexts.entrySet()) {
+                    writer.write(CONTEXT, objectMapper.writeValueAsBytes(contextRecord(context.getKey(), context.getValue())));
+                }
+                for (Map.Entry<String, ColdContext> context : coldContexts.entrySet()) {
+                    relocated.put(context.getKey(), writer.write(COLD_CONTEXT, journal.read(context.getValue().location)));
+                }
+                for (Map.Entry<String, List<String>> subscription : subscriptions.entrySet()) {
+                    for (String subscriber : subscription.getValue()) {
+                        writer.write(SUBSCRIBE, objectMapper.writeValueAsBytes(
+                                record("subscriber", subscriber, "contextKey", subscription.getKey())));
+                    }
+                }
+                for (Map.Entry<String, WorkflowDefinition> workflow : workflows.entrySet()) {
+                    writer.write(PUT_WORKFLOW, objectMapper.writeValueAsBytes(workflowRecord(workflow.getKey(), workflow.getValue())));
+                }
+                for (Map.Entry<String, SharedDataEntry> shared : sharedData.entrySet()) {
+                    SharedDataEntry entry = shared.getValue();
+                    writer.write(PUT_SHARED_DATA, objectMapper.writeValueAsBytes(record("dataKey", shared.getKey(),
+                            "data", toJson(entry.getData()), "sourceAgent", entry.getSourceAgent(),
+                            "metadata", toJson(entry.getMetadata()), "timestamp", entry.getTimestamp(),
+                            "dataType", entry.getDataType(), "version", entry.getVersion())));
+                }
+                writer.write(SHARED_DATA_VERSION, objectMapper.writeValueAsBytes(record("version", sharedDataVersion)));
+                // Last, so they replace anything derived while loading the records above
+                for (Map.Entry<String, List<AgentRecommendation>> agent : recommendations.entrySet()) {
+                    writer.write(SET_RECOMMENDATIONS, objectMapper.writeValueAsBytes(
+                            record("agentId", agent.getKey(), "recommendations", toJson(agent.getValue()))));
+                }
+                writer.finish();
+
+                synchronized (writeLock) {
+                    journal.install(writer);
+                    // Contexts loaded or cleared since the cut are no longer cold
+                    relocated.forEach((agentId, location) -> {
+                        ColdContext captured = coldContexts.get(agentId);
+                        cold.replace(agentId, captured, new ColdContext(location, captured.dataType));
+                    });
+                }
+            }
+            snapshots.incrementAndGet();
+            lastSnapshotMs = System.currentTimeMillis();
+            logger.info("Wrote context snapshot {} in {}ms: {} hot and {} cold contexts",
+                    generation, lastSnapshotMs - start, contexts.size(), coldContexts.size());
+        } catch (IOException e) {
+            logger.error("Context snapshot failed: {}", e.getMessage(), e);
+        } finally {
+            snapshotRunning.set(false);
+        }
+    }
+
+    // Record encoding
+
+    private static Map<String, Object> record(Object... fields) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (int i = 0; i < fields.length; i += 2) {
+            record.put((String) fields[i], fields[i + 1]);
+        }
+        return record;
+    }
+
+    private Map<String, Object> contextRecord(String agentId, Map<String, Object> values) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        values.forEach((key, value) -> json.put(key, toJson(value)));
+        return record("agentId", agentId, "values", json);
+    }
+
+    /** Version carried by a record; 0 for records written before versioning */
+    private static long version(Map<String, Object> record) {
+        Object version = record.get("version");
+        return version instanceof Number number ? number.longValue() : 0L;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> values(Map<String, Object> record) {
+        Object values = record.get("values");
+        return values instanceof Map ? (Map<String, Object>) values : new HashMap<>();
+    }
+
+    private Map<String, Object> workflowRecord(String workflowId, WorkflowDefinition workflow) {
+        return record("workflowId", workflowId, "workflow", toJson(workflow));
+    }
+
+    /** Values that cannot be written as JSON are kept as their string form */
+    private JsonNode toJson(Object value) {
+        try {
+            return objectMapper.valueToTree(value);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Persisting {} as text: {}", value.getClass().getName(), e.getMessage());
+            return TextNode.valueOf(String.valueOf(value));
+        }
+    }
+
+    private static final class ColdContext {
+        private final ContextJournal.Location location;
+        private final Object dataType;
+
+        ColdContext(ContextJournal.Location location, Object dataType) {
+            this.location = location;
+            this.dataType = dataType;
+        }
+    }
+
+    // Shapes for reading back objects that have no default constructor
+    private static final class WorkflowSnapshot {
+        public String id;
+        public String name;
+        public String description;
+        public List<String> participatingAgents;
+        public Map<String, Object> dataFlow;
+        public WorkflowStatus status;
+        public String createdAt;
+        public String updatedAt;
+
+        WorkflowDefinition toWorkflow() {
+            WorkflowDefinition workflow = new WorkflowDefinition(id, name, description, participatingAgents, dataFlow);
+            if (status != null) workflow.setStatus(status);
+            workflow.setCreatedAt(createdAt);
+            workflow.setUpdatedAt(updatedAt);
+            return workflow;
+        }
+    }
+
+    private static final class RecommendationSnapshot {
+        public String id;
+        public String type;
+        public String title;
+        public String description;
+        public String suggestedAgent;
+        public String action;
+        public String priority;
+        public List<String> dataKeys;
+        public Map<String, Object> parameters;
+
+        AgentRecommendation toRecommendation() {
+            return new AgentRecommendation(id, type, title, description, suggestedAgent, action, priority,
+                    dataKeys, parameters);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.aiframework.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Background recomputation of per-agent recommendations.
+ *
+ * Marking an agent dirty schedules one recomputation after the debounce delay; further
+ * changes for that agent within the window are folded into the same run. Recomputation
+ * for a given agent never runs concurrently with itself since a single thread drains work.
+ */
+class RecommendationPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationPipeline.class);
+
+    private final Consumer<String> recompute;
+    private final long debounceMs;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong recomputed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    RecommendationPipeline(Consumer<String> recompute, long debounceMs) {
+        this.recompute = recompute;
+        this.debounceMs = Math.max(debounceMs, 0);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ContextRecommendations");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void markDirty(String agentId) {
+        requested.incrementAndGet();
+        if (pending.putIfAbsent(agentId, Boolean.TRUE) != null) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        try {
+            executor.schedule(() -> run(agentId), debounceMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.remove(agentId);
+        }
+    }
+
+    private void run(String agentId) {
+        // Cleared before recomputing so a change made during the run schedules another one
+        pending.remove(agentId);
+        try {
+            recompute.accept(agentId);
+            recomputed.incrementAndGet();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Recommendation update failed for agent {}: {}", agentId, e.getMessage());
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requested", requested.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("recomputed", recomputed.get());
+        stats.put("failures", failures.get());
+        stats.put("pending", pending.size());
+        stats.put("debounceMs", debounceMs);
+        return stats;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,59 @@
+package com.aiframework.context;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Incrementally maintained value-to-ids index over some primary map.
+ *
+ * After changing an id in the primary map, call reindex with a function that reads the
+ * id's current value back from it. Reindexing runs under a per-id lock and always reads
+ * the latest value, so concurrent writers to the same id leave the index matching the
+ * primary map whatever order their updates land in.
+ */
+class SecondaryIndex {
+    private final Map<String, Set<String>> idsByValue = new ConcurrentHashMap<>();
+    private final Map<String, String> valueById = new ConcurrentHashMap<>();
+
+    void reindex(String id, Function<String, Object> currentValue) {
+        valueById.compute(id, (key, previous) -> {
+            Object current = currentValue.apply(id);
+            String value = current instanceof String text ? text : null;
+            if (Objects.equals(previous, value)) {
+                return previous;
+            }
+            if (previous != null) {
+                idsByValue.computeIfPresent(previous, (v, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if (value != null) {
+                // Add inside compute so a concurrent removal of the last id cannot drop the set first
+                idsByValue.compute(value, (v, ids) -> {
+                    if (ids == null) ids = ConcurrentHashMap.newKeySet();
+                    ids.add(id);
+                    return ids;
+                });
+            }
+            return value;
+        });
+    }
+
+    List<String> get(String value) {
+        Set<String> ids = idsByValue.get(value);
+        return ids != null ? new ArrayList<>(ids) : new ArrayList<>();
+    }
+
+    int size() {
+        return valueById.size();
+    }
+
+    /** Re-read every indexed id, e.g. after the primary map was cleared */
+    void reindexAll(Function<String, Object> currentValue) {
+        for (String id : new ArrayList<>(valueById.keySet())) {
+            reindex(id, currentValue);
+        }
+    }
+}
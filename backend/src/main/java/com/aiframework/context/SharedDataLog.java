@@ -0,0 +1,130 @@
+package com.aiframework.context;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Version counter and bounded change log for shared data.
+ *
+ * Every write or removal of a shared data key takes the next version. The most recent
+ * changes are kept in a ring so a reader can ask for everything after a version it has
+ * seen; a reader that has fallen behind the ring is told to reset and reload. Callers
+ * that need the map and the log to move together synchronize on this object.
+ */
+class SharedDataLog {
+    private final long[] versions;
+    private final String[] keys;
+    private final boolean[] removals;
+    private int head;
+    private int size;
+
+    private long version;
+    // Every change after this version is still in the ring
+    private long floor;
+    // One future per waiter, so a waiter that gives up can be dropped along with its callbacks
+    private final Set<CompletableFuture<Long>> waiters = new LinkedHashSet<>();
+
+    /** Keys changed after a version, each with whether its latest change was a removal */
+    static final class Delta {
+        final long version;
+        final boolean reset;
+        final Map<String, Boolean> keys;
+
+        Delta(long version, boolean reset, Map<String, Boolean> keys) {
+            this.version = version;
+            this.reset = reset;
+            this.keys = keys;
+        }
+    }
+
+    SharedDataLog(int capacity) {
+        this.versions = new long[capacity];
+        this.keys = new String[capacity];
+        this.removals = new boolean[capacity];
+    }
+
+    synchronized long append(String key, boolean removed) {
+        int slot = (head + size) % versions.length;
+        if (size == versions.length) {
+            floor = versions[head];
+            head = (head + 1) % versions.length;
+        } else {
+            size++;
+        }
+        versions[slot] = ++version;
+        keys[slot] = key;
+        removals[slot] = removed;
+        return version;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    synchronized Delta since(long sinceVersion) {
+        if (sinceVersion < floor) {
+            return new Delta(version, true, Map.of());
+        }
+        Map<String, Boolean> changed = new LinkedHashMap<>();
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = (head + i) % versions.length;
+            if (versions[slot] <= sinceVersion) break;
+            changed.putIfAbsent(keys[slot], removals[slot]);
+        }
+        return new Delta(version, false, changed);
+    }
+
+    /**
+     * Completes with the current version once it is past the given one. Cancelling the
+     * future stops waiting and releases whatever was chained onto it.
+     */
+    synchronized CompletableFuture<Long> await(long sinceVersion) {
+        if (version > sinceVersion) {
+            return CompletableFuture.completedFuture(version);
+        }
+        CompletableFuture<Long> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        waiter.whenComplete((current, error) -> {
+            if (waiter.isCancelled()) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /** Wake waiters; call after the change is visible, outside any lock */
+    void signal() {
+        List<CompletableFuture<Long>> waiting;
+        long current;
+        synchronized (this) {
+            if (waiters.isEmpty()) return;
+            waiting = new ArrayList<>(waiters);
+            waiters.clear();
+            current = version;
+        }
+        for (CompletableFuture<Long> waiter : waiting) {
+            waiter.complete(current);
+        }
+    }
+
+
+    /** Continue numbering from a recovered version, keeping the changes logged so far */
+    synchronized void advanceTo(long recovered) {
+        version = Math.max(version, recovered);
+    }
+
+    /** Start over from a recovered version with an empty log */
+    synchronized void reset(long recovered) {
+        version = Math.max(version, recovered);
+        floor = version;
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.aiframework.context;
+
+import com.aiframework.core.AgentContext;
+import com.aiframework.core.AgentResult;
+
+import java.lang.reflect.Array;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Rough retained-size estimate for context values, used for memory accounting.
+ *
+ * Walks maps, collections, arrays and the framework's own value types to a bounded depth.
+ * Large containers are sampled and extrapolated, and unknown objects count as a fixed
+ * size, so the cost of an estimate stays bounded regardless of the value.
+ */
+final class SizeEstimator {
+    private static final int MAX_DEPTH = 6;
+    private static final int SAMPLE = 32;
+    private static final long OBJECT = 16;
+    private static final long REFERENCE = 8;
+    private static final long OPAQUE = 64;
+
+    private SizeEstimator() {}
+
+    static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + 2L * text.length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            return 24;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OPAQUE;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return 64 + sampled(map.entrySet(), map.size(), depth, true);
+        }
+        if (value instanceof Collection<?> collection) {
+            return 40 + sampled(collection, collection.size(), depth, false);
+        }
+        if (value.getClass().isArray()) {
+            return array(value, depth);
+        }
+        if (value instanceof AgentResult result) {
+            return 96 + estimate(result.getTaskId(), depth + 1) + estimate(result.getAgentName(), depth + 1)
+                    + estimate(result.getMessage(), depth + 1) + estimate(result.getData(), depth + 1)
+                    + estimate(result.getMetadata(), depth + 1);
+        }
+        if (value instanceof AgentContext context) {
+            return 48 + estimate(context.getSessionId(), depth + 1) + estimate(context.getUserId(), depth + 1)
+                    + estimate(context.getSharedData(), depth + 1) + estimate(context.getConfiguration(), depth + 1);
+        }
+        return OPAQUE;
+    }
+
+    private static long sampled(Collection<?> items, int size, int depth, boolean entries) {
+        long sampledBytes = 0;
+        int sampled = 0;
+        Iterator<?> it = items.iterator();
+        while (sampled < SAMPLE && it.hasNext()) {
+            Object item = it.next();
+            if (entries) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+                sampledBytes += 32 + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            } else {
+                sampledBytes += REFERENCE + estimate(item, depth + 1);
+            }
+            sampled++;
+        }
+        return sampled == 0 ? 0 : sampledBytes * size / sampled;
+    }
+
+    private static long array(Object array, int depth) {
+        int length = Array.getLength(array);
+        Class<?> component = array.getClass().getComponentType();
+        if (component.isPrimitive()) {
+            long width = component == long.class || component == double.class ? 8
+                    : component == int.class || component == float.class ? 4
+                    : component == short.class || component == char.class ? 2 : 1;
+            return OBJECT + width * length;
+        }
+        long sampledBytes = 0;
+        int sampled = Math.min(length, SAMPLE);
+        for (int i = 0; i < sampled; i++) {
+            sampledBytes += REFERENCE + estimate(Array.get(array, i), depth + 1);
+        }
+        return OBJECT + (sampled == 0 ? 0 : sampledBytes * length / sampled);
+    }
+}
@@ -1,14 +1,17 @@
 package com.aiframework.controller;
 
+import com.aiframework.communication.AgentMessageBus;
 import com.aiframework.core.Agent;
 import com.aiframework.dto.AgentInfo;
 import com.aiframework.manager.AgentManager;
+import com.aiframework.orchestrator.AgentLoadBalancer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -21,9 +24,13 @@ public class AgentController {
     private static final Logger logger = LoggerFactory.getLogger(AgentController.class);
 
     private final AgentManager agentManager;
+    private final AgentLoadBalancer loadBalancer;
+    private final AgentMessageBus messageBus;
 
-    public AgentController(AgentManager agentManager) {
+    public AgentController(AgentManager agentManager, AgentLoadBalancer loadBalancer, AgentMessageBus messageBus) {
         this.agentManager = agentManager;
+        this.loadBalancer = loadBalancer;
+        this.messageBus = messageBus;
     }
 
     /**
@@ -71,6 +78,31 @@ public class AgentController {
         return ResponseEntity.ok(agentInfos);
     }
 
+    /**
+     * Per-agent load, latency and error-rate statistics used for agent selection
+     */
+    @GetMapping("/load")
+    public ResponseEntity<Map<String, Object>> getLoadMetrics() {
+        return ResponseEntity.ok(loadBalancer.getMetrics());
+    }
+
+    /**
+     * Take waiting messages from an agent's mailbox (agents without a registered handler)
+     */
+    @GetMapping("/{name}/messages")
+    public ResponseEntity<List<Map<String, Object>>> pollMessages(@PathVariable String name,
+                                                                  @RequestParam(defaultValue = "100") int max) {
+        return ResponseEntity.ok(messageBus.poll(name, Math.max(1, Math.min(max, 1000))));
+    }
+
+    /**
+     * Mailbox depth, drops, spills and hand-off latency of the agent message bus
+     */
+    @GetMapping("/messages/stats")
+    public ResponseEntity<Map<String, Object>> getMessageStats() {
+        return ResponseEntity.ok(messageBus.getStats());
+    }
+
     /**
      * Reload all agents (useful for plugin updates)
      */
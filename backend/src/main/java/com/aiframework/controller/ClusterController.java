@@ -0,0 +1,80 @@
+package com.aiframework.controller;
+
+import com.aiframework.cluster.ClusterTransport;
+import com.aiframework.communication.AgentCommunicationProtocol;
+import com.aiframework.core.AgentContext;
+import com.aiframework.core.Task;
+import com.aiframework.dto.TaskRequest;
+import com.aiframework.dto.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * REST controller for the cluster transport
+ */
+@RestController
+@RequestMapping("/api/cluster")
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterController {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterController.class);
+
+    private final ClusterTransport clusterTransport;
+    private final AgentCommunicationProtocol communicationProtocol;
+
+    public ClusterController(ClusterTransport clusterTransport, AgentCommunicationProtocol communicationProtocol) {
+        this.clusterTransport = clusterTransport;
+        this.communicationProtocol = communicationProtocol;
+    }
+
+    /**
+     * This node, the connected nodes with their agents, and per-connection traffic
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(clusterTransport.getStats());
+    }
+
+    /**
+     * Run a task on a specific node
+     */
+    @PostMapping("/nodes/{nodeId}/tasks")
+    public CompletableFuture<ResponseEntity<TaskResult>> executeOnNode(@PathVariable String nodeId,
+                                                                      @RequestBody TaskRequest request) {
+        logger.info("Routing task of type {} to cluster node {}", request.getType(), nodeId);
+
+        Task task = request.toTask();
+        AgentContext context = new AgentContext(request.getSessionId(), request.getUserId());
+
+        return clusterTransport.executeRemote(nodeId, task, context)
+            .thenApply(result -> ResponseEntity.ok(new TaskResult(result)))
+            .exceptionally(throwable -> {
+                logger.warn("Task {} on cluster node {} failed: {}", task.getId(), nodeId, throwable.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+            });
+    }
+
+    /**
+     * Send a message to an agent, on whichever node hosts it, or publish it when a topic is given
+     */
+    @PostMapping("/messages")
+    public ResponseEntity<Void> sendMessage(@RequestParam String fromAgent,
+                                            @RequestParam(required = false) String toAgent,
+                                            @RequestParam(required = false) String topic,
+                                            @RequestBody Object payload) {
+        if (topic != null) {
+            communicationProtocol.publish(fromAgent, topic, payload);
+        } else if (toAgent != null) {
+            communicationProtocol.sendMessage(fromAgent, toAgent, payload);
+        } else {
+            communicationProtocol.broadcastMessage(fromAgent, payload);
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -5,13 +5,23 @@ import com.aiframework.context.ContextStore.SharedDataEntry;
 import com.aiframework.context.ContextStore.WorkflowDefinition;
 import com.aiframework.context.ContextStore.AgentRecommendation;
 import com.aiframework.context.ContextStore.WorkflowStatus;
+import com.aiframework.context.ContextStore.SharedDataChanges;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * REST Controller for Agent Context Management and Collaboration
@@ -24,6 +34,10 @@ public class ContextController {
     @Autowired
     private ContextStore contextStore;
 
+    @Autowired
+    @Qualifier("sseExecutor")
+    private Executor sseExecutor;
+
     // Basic Context Operations
     @PostMapping("/agent/{agentId}/context")
     public ResponseEntity<String> setAgentContext(@PathVariable String agentId,
@@ -72,6 +86,90 @@ public class ContextController {
                   .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Write only if the entry is still at the expected version (0 = must not exist yet)
+     */
+    @PutMapping("/shared-data/{dataKey}")
+    public ResponseEntity<Object> compareAndSetSharedData(@PathVariable String dataKey,
+                                                          @RequestParam long expectedVersion,
+                                                          @RequestBody Map<String, Object> request) {
+        Object data = request.get("data");
+        String sourceAgent = (String) request.get("sourceAgent");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> metadata = (Map<String, Object>) request.getOrDefault("metadata", Map.of());
+
+        if (contextStore.compareAndSetSharedData(dataKey, expectedVersion, data, sourceAgent, metadata)) {
+            return ResponseEntity.ok(contextStore.getSharedData(dataKey).orElse(null));
+        }
+        // Return the current entry so the caller can merge and retry
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("dataKey", dataKey, "expectedVersion", expectedVersion,
+                         "current", contextStore.getSharedData(dataKey).map(Object.class::cast).orElse(Map.of())));
+    }
+
+    /**
+     * Shared data written or removed after the given version
+     */
+    @GetMapping("/shared-data/changes")
+    public ResponseEntity<SharedDataChanges> getSharedDataChanges(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(contextStore.getSharedDataChanges(since));
+    }
+
+    /**
+     * Stream shared data changes: one "changes" event with everything after the given version,
+     * then one per change as it happens; bursts are folded into a single event
+     */
+    @GetMapping(value = "/shared-data/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSharedDataChanges(@RequestParam(defaultValue = "0") long since,
+                                              @RequestParam(defaultValue = "600000") long timeoutMs) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        AtomicBoolean open = new AtomicBoolean(true);
+        AtomicReference<CompletableFuture<Long>> waiting = new AtomicReference<>();
+        // Stop waiting as soon as the stream closes, so the store does not keep the emitter
+        Runnable close = () -> {
+            open.set(false);
+            CompletableFuture<Long> pending = waiting.get();
+            if (pending != null) pending.cancel(false);
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+
+        sendSharedDataChanges(emitter, open, waiting, since);
+        return emitter;
+    }
+
+    private void sendSharedDataChanges(SseEmitter emitter, AtomicBoolean open,
+                                       AtomicReference<CompletableFuture<Long>> waiting, long since) {
+        long next = since;
+        try {
+            SharedDataChanges changes = contextStore.getSharedDataChanges(since);
+            if (changes.isReset() || !changes.getChanged().isEmpty() || !changes.getRemoved().isEmpty()) {
+                emitter.send(SseEmitter.event().id(String.valueOf(changes.getVersion())).name("changes").data(changes));
+            }
+            next = changes.getVersion();
+        } catch (IOException | IllegalStateException e) {
+            open.set(false);
+            emitter.completeWithError(e);
+            return;
+        }
+
+        long version = next;
+        CompletableFuture<Long> change = contextStore.awaitSharedDataChange(version);
+        waiting.set(change);
+        if (!open.get()) {
+            // Closed while we were sending
+            change.cancel(false);
+            return;
+        }
+        // Sends happen on the SSE executor, never on the thread that wrote the data
+        change.thenRunAsync(() -> {
+            if (open.get()) {
+                sendSharedDataChanges(emitter, open, waiting, version);
+            }
+        }, sseExecutor);
+    }
+
     @GetMapping("/shared-data")
     public ResponseEntity<Map<String, SharedDataEntry>> getAllSharedData() {
         Map<String, SharedDataEntry> allData = contextStore.getAllSharedData();
@@ -109,6 +207,12 @@ public class ContextController {
         return ResponseEntity.ok(subscribers);
     }
 
+    @GetMapping("/subscriptions/metrics")
+    public ResponseEntity<Object> getSubscriptionMetrics() {
+        // Queue depth, drops and delivery lag per subscriber
+        return ResponseEntity.ok(contextStore.getStoreStats().get("events"));
+    }
+
     // Workflow Management
     @PostMapping("/workflows")
     public ResponseEntity<String> createWorkflow(@RequestBody Map<String, Object> request) {
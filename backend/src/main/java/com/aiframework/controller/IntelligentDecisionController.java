@@ -4,9 +4,12 @@ import com.aiframework.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import com.aiframework.dto.*;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -47,6 +50,23 @@ public class IntelligentDecisionController {
             });
     }
 
+    /**
+     * Stream the decision text as server-sent "token" events, then a "decision" event with
+     * the parsed decision
+     */
+    @PostMapping(value = "/decision/investment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamInvestmentDecision(@RequestBody Map<String, Object> request) {
+        String symbol = (String) request.get("symbol");
+        Map<String, Object> marketData = (Map<String, Object>) request.get("marketData");
+
+        return TokenStreams.toEvents(decisionEngine.streamInvestmentDecision(symbol, marketData),
+            "decision", response -> Map.<String, Object>of(
+                "decision", decisionEngine.parseDecision(response, "INVESTMENT"),
+                "timestamp", new Date(),
+                "type", "INVESTMENT_DECISION"
+            ));
+    }
+
     @PostMapping("/decision/risk-assessment")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> assessRisk(@RequestBody Map<String, Object> request) {
         String symbol = (String) request.get("symbol");
@@ -67,6 +87,19 @@ public class IntelligentDecisionController {
             });
     }
 
+    @PostMapping(value = "/decision/risk-assessment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamRiskAssessment(@RequestBody Map<String, Object> request) {
+        String symbol = (String) request.get("symbol");
+        Map<String, Object> indicators = (Map<String, Object>) request.get("indicators");
+
+        return TokenStreams.toEvents(decisionEngine.streamRiskAssessment(symbol, indicators),
+            "riskAssessment", response -> Map.<String, Object>of(
+                "riskAssessment", decisionEngine.parseDecision(response, "RISK_ASSESSMENT"),
+                "timestamp", new Date(),
+                "type", "RISK_ASSESSMENT"
+            ));
+    }
+
     @PostMapping("/support/stock-alert")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> handleStockAlert(@RequestBody Map<String, Object> request) {
         String symbol = (String) request.get("symbol");
@@ -160,6 +193,32 @@ public class IntelligentDecisionController {
         ));
     }
 
+    /**
+     * Page through an agent's conversation history, newest first. from and to are epoch
+     * millis; pass the returned nextBefore as before to get the next page.
+     */
+    @GetMapping("/agents/{agentId}/history")
+    public ResponseEntity<ConversationHistory.Page> getConversationHistory(@PathVariable String agentId,
+                                                                          @RequestParam(required = false) Long from,
+                                                                          @RequestParam(required = false) Long to,
+                                                                          @RequestParam(required = false) Long before,
+                                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(communicationHub.getConversationHistory(agentId, from, to, before, limit));
+    }
+
+    /**
+     * How often agents were chosen by the keyword index, from cached decisions, or by the LLM
+     */
+    @GetMapping("/agents/routing/stats")
+    public ResponseEntity<Map<String, Object>> getRoutingStats() {
+        return ResponseEntity.ok(communicationHub.getRoutingStats());
+    }
+
+    @GetMapping("/agents/history/stats")
+    public ResponseEntity<Map<String, Object>> getConversationHistoryStats() {
+        return ResponseEntity.ok(communicationHub.getConversationHistoryStats());
+    }
+
     @PostMapping("/decision/comprehensive")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> makeComprehensiveDecision(@RequestBody Map<String, Object> request) {
         String symbol = (String) request.get("symbol");
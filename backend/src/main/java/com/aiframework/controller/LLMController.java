@@ -1,15 +1,20 @@
 package com.aiframework.controller;
 
+import com.aiframework.service.LLMDispatcher;
 import com.aiframework.service.LocalLLMService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 @RestController
 @RequestMapping("/api/llm")
@@ -21,6 +26,9 @@ public class LLMController {
     @Autowired
     private LocalLLMService localLLMService;
 
+    @Autowired
+    private LLMDispatcher llmDispatcher;
+
     @PostMapping("/generate")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> generateResponse(@RequestBody Map<String, Object> request) {
         String prompt = (String) request.get("prompt");
@@ -33,7 +41,7 @@ public class LLMController {
             );
         }
 
-        return localLLMService.generateResponse(prompt, maxTokens, temperature.floatValue())
+        return localLLMService.generateResponse(prompt, maxTokens, temperature.floatValue(), LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> ResponseEntity.ok(Map.<String, Object>of(
                 "response", response,
                 "model", "GPT4All",
@@ -48,6 +56,25 @@ public class LLMController {
             });
     }
 
+    /**
+     * Stream the response as server-sent "token" events, then a "response" event with the
+     * full text
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamResponse(@RequestBody Map<String, Object> request) {
+        String prompt = (String) request.get("prompt");
+        Integer maxTokens = (Integer) request.getOrDefault("maxTokens", 1024);
+        Double temperature = (Double) request.getOrDefault("temperature", 0.7);
+
+        if (prompt == null || prompt.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(TokenStreams.toEvents(
+            localLLMService.streamResponse(prompt, maxTokens, temperature.floatValue()),
+            "response", response -> Map.<String, Object>of("response", response, "model", "GPT4All", "status", "success")));
+    }
+
     @PostMapping("/analyze-stock")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> analyzeStock(@RequestBody Map<String, String> request) {
         String symbol = request.get("symbol");
@@ -75,6 +102,28 @@ public class LLMController {
             });
     }
 
+    /**
+     * Stream the analysis as server-sent "token" events, then an "analysis" event
+     */
+    @PostMapping(value = "/analyze-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamStockAnalysis(@RequestBody Map<String, String> request) {
+        String symbol = request.get("symbol");
+        String marketData = request.get("marketData");
+        String technicalIndicators = request.get("technicalIndicators");
+
+        if (symbol == null || marketData == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(TokenStreams.toEvents(
+            localLLMService.streamStockAnalysis(symbol, marketData, technicalIndicators),
+            "analysis", analysis -> Map.<String, Object>of(
+                "analysis", analysis,
+                "symbol", symbol,
+                "timestamp", System.currentTimeMillis()
+            )));
+    }
+
     @PostMapping("/trading-insight")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> getTradingInsight(@RequestBody Map<String, String> request) {
         String symbol = request.get("symbol");
@@ -117,12 +166,40 @@ public class LLMController {
             });
     }
 
+    /**
+     * Dispatcher queue depth, shed and dropped requests, and queue wait times per lane
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueueMetrics() {
+        return ResponseEntity.ok(llmDispatcher.getMetrics());
+    }
+
+    /**
+     * Share of generation requests that joined an identical one already in progress
+     */
+    @GetMapping("/dedup")
+    public ResponseEntity<Map<String, Object>> getDedupStats() {
+        return ResponseEntity.ok(localLLMService.getDedupStats());
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(localLLMService.getCacheStats());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> clearCache() {
+        localLLMService.clearCache();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Model status from the background health probe, with the circuit breaker state
+     */
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
-        return ResponseEntity.ok(Map.of(
-            "status", localLLMService.getModelStatus(),
-            "available", localLLMService.isAvailable(),
-            "model", "GPT4All Llama 3.2 3B Instruct"
-        ));
+        Map<String, Object> status = new LinkedHashMap<>(localLLMService.getHealth());
+        status.put("model", "GPT4All Llama 3.2 3B Instruct");
+        return ResponseEntity.ok(status);
     }
 }
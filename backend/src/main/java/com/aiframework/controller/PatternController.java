@@ -1,11 +1,11 @@
 package com.aiframework.controller;
 
+import com.aiframework.dto.BarSeries;
 import com.aiframework.service.PatternRecognitionService;
 import com.aiframework.service.YahooFinanceService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,7 +26,7 @@ public class PatternController {
             @RequestParam(defaultValue = "3mo") String period) {
         
         try {
-            List<Map<String, Object>> historicalData = yahooFinanceService.getHistoricalData(symbol, period);
+            BarSeries historicalData = yahooFinanceService.getHistoricalBars(symbol, period);
             Map<String, Object> patterns = patternService.detectPatterns(historicalData);
             
             patterns.put("symbol", symbol);
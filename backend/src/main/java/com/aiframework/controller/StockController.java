@@ -1,5 +1,6 @@
 package com.aiframework.controller;
 
+import com.aiframework.dto.IndicatorSeries;
 import com.aiframework.dto.StockQuote;
 import com.aiframework.dto.TechnicalIndicators;
 import com.aiframework.dto.TradingSignal;
@@ -8,6 +9,7 @@ import com.aiframework.service.StockDataService;
 import com.aiframework.service.TechnicalPatternService;
 import com.aiframework.service.RiskAssessmentService;
 import com.aiframework.service.PricePredictionService;
+import com.aiframework.service.StockAnalysisPipeline;
 import com.aiframework.validation.ValidStockSymbol;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,20 +26,20 @@ public class StockController {
     
     private final StockDataService stockDataService;
     private final AdvancedStockAnalysisService advancedAnalysisService;
-    private final TechnicalPatternService patternService;
     private final RiskAssessmentService riskService;
     private final PricePredictionService predictionService;
+    private final StockAnalysisPipeline analysisPipeline;
 
     public StockController(StockDataService stockDataService,
                           AdvancedStockAnalysisService advancedAnalysisService,
-                          TechnicalPatternService patternService,
                           RiskAssessmentService riskService,
-                          PricePredictionService predictionService) {
+                          PricePredictionService predictionService,
+                          StockAnalysisPipeline analysisPipeline) {
         this.stockDataService = stockDataService;
         this.advancedAnalysisService = advancedAnalysisService;
-        this.patternService = patternService;
         this.riskService = riskService;
         this.predictionService = predictionService;
+        this.analysisPipeline = analysisPipeline;
     }
 
     @GetMapping("/{symbol}/quote")
@@ -76,6 +78,14 @@ public class StockController {
         return ResponseEntity.ok(indicators);
     }
 
+    @GetMapping("/{symbol}/indicators/series")
+    public ResponseEntity<List<IndicatorSeries>> getIndicatorSeries(
+            @PathVariable @ValidStockSymbol String symbol,
+            @RequestParam(defaultValue = "sma:20,ema:12,rsi,macd,bollinger") List<String> indicators) {
+        List<IndicatorSeries> series = advancedAnalysisService.getIndicatorSeries(symbol.toUpperCase(), indicators);
+        return ResponseEntity.ok(series);
+    }
+
     @GetMapping("/{symbol}/signal")
     public ResponseEntity<TradingSignal> getTradingSignal(
             @PathVariable @ValidStockSymbol String symbol) {
@@ -86,84 +96,32 @@ public class StockController {
     // NEW ADVANCED ENDPOINTS
 
     @GetMapping("/{symbol}/patterns")
-    public ResponseEntity<List<TechnicalPatternService.Pattern>> getTechnicalPatterns(
+    public CompletableFuture<ResponseEntity<List<TechnicalPatternService.Pattern>>> getTechnicalPatterns(
             @PathVariable @ValidStockSymbol String symbol) {
-        String upperSymbol = symbol.toUpperCase();
-        TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(upperSymbol);
-
-        return advancedAnalysisService.getHistoricalData(upperSymbol, "daily", "compact")
-                .thenApply(historicalData -> {
-                    List<TechnicalPatternService.Pattern> patterns = patternService.detectPatterns(historicalData, indicators);
-                    return ResponseEntity.ok(patterns);
-                }).join();
+        return analysisPipeline.analyze(symbol.toUpperCase()).patterns()
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{symbol}/risk")
     public CompletableFuture<ResponseEntity<RiskAssessmentService.RiskMetrics>> getRiskAssessment(
             @PathVariable @ValidStockSymbol String symbol) {
-        String upperSymbol = symbol.toUpperCase();
-
-        return advancedAnalysisService.getRealTimeQuote(upperSymbol)
-                .thenCompose(quote -> {
-                    TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(upperSymbol);
-                    TradingSignal signal = advancedAnalysisService.generateTradingSignal(upperSymbol);
-
-                    return advancedAnalysisService.getHistoricalData(upperSymbol, "daily", "compact")
-                            .thenApply(historicalData -> {
-                                RiskAssessmentService.RiskMetrics risk = riskService.assessRisk(
-                                    upperSymbol, quote, indicators, historicalData, signal);
-                                return ResponseEntity.ok(risk);
-                            });
-                });
+        return analysisPipeline.analyze(symbol.toUpperCase()).risk()
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{symbol}/prediction")
     public CompletableFuture<ResponseEntity<PricePredictionService.PricePrediction>> getPricePrediction(
             @PathVariable @ValidStockSymbol String symbol) {
-        String upperSymbol = symbol.toUpperCase();
-
-        return advancedAnalysisService.getRealTimeQuote(upperSymbol)
-                .thenCompose(quote -> {
-                    TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(upperSymbol);
-
-                    return advancedAnalysisService.getHistoricalData(upperSymbol, "daily", "compact")
-                            .thenApply(historicalData -> {
-                                PricePredictionService.PricePrediction prediction = predictionService.predictPrice(
-                                    upperSymbol, quote, indicators, historicalData);
-                                return ResponseEntity.ok(prediction);
-                            });
-                });
+        return analysisPipeline.analyze(symbol.toUpperCase()).prediction()
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{symbol}/analysis/complete")
     public CompletableFuture<ResponseEntity<Map<String, Object>>> getCompleteAnalysis(
             @PathVariable @ValidStockSymbol String symbol) {
-        String upperSymbol = symbol.toUpperCase();
-
-        return advancedAnalysisService.getRealTimeQuote(upperSymbol)
-                .thenCompose(quote -> {
-                    TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(upperSymbol);
-                    TradingSignal signal = advancedAnalysisService.generateTradingSignal(upperSymbol);
-
-                    return advancedAnalysisService.getHistoricalData(upperSymbol, "daily", "compact")
-                            .thenApply(historicalData -> {
-                                Map<String, Object> analysis = new HashMap<>();
-
-                                // Core data
-                                analysis.put("quote", quote);
-                                analysis.put("technicalIndicators", indicators);
-                                analysis.put("tradingSignal", signal);
-
-                                // Advanced analysis
-                                analysis.put("patterns", patternService.detectPatterns(historicalData, indicators));
-                                analysis.put("riskMetrics", riskService.assessRisk(upperSymbol, quote, indicators, historicalData, signal));
-                                analysis.put("pricePrediction", predictionService.predictPrice(upperSymbol, quote, indicators, historicalData));
-                                analysis.put("alerts", predictionService.checkAlerts(upperSymbol, quote, indicators));
-
-                                analysis.put("timestamp", System.currentTimeMillis());
-                                return ResponseEntity.ok(analysis);
-                            });
-                });
+        // Quote and history are fetched once, concurrently; all other stages derive from them
+        return analysisPipeline.analyze(symbol.toUpperCase()).complete()
+                .thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/{symbol}/alerts")
@@ -212,15 +170,15 @@ public class StockController {
         // Calculate risk metrics for each holding
         Map<String, RiskAssessmentService.RiskMetrics> stockRisks = new HashMap<>();
 
+        // Start every holding before waiting on any of them
+        Map<String, CompletableFuture<RiskAssessmentService.RiskMetrics>> pending = new HashMap<>();
         for (String symbol : holdings.keySet()) {
-            try {
-                StockQuote quote = advancedAnalysisService.getRealTimeQuote(symbol).join();
-                TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(symbol);
-                TradingSignal signal = advancedAnalysisService.generateTradingSignal(symbol);
-                List<Map<String, Object>> historicalData = advancedAnalysisService.getHistoricalData(symbol, "daily", "compact").join();
+            pending.put(symbol, analysisPipeline.analyze(symbol).risk());
+        }
 
-                RiskAssessmentService.RiskMetrics risk = riskService.assessRisk(symbol, quote, indicators, historicalData, signal);
-                stockRisks.put(symbol, risk);
+        for (Map.Entry<String, CompletableFuture<RiskAssessmentService.RiskMetrics>> entry : pending.entrySet()) {
+            try {
+                stockRisks.put(entry.getKey(), entry.getValue().join());
             } catch (Exception e) {
                 // Skip stocks that fail to load
                 continue;
@@ -267,21 +225,7 @@ public class StockController {
     }
 
     private CompletableFuture<Map<String, Object>> getSymbolComparisonData(String symbol) {
-        return advancedAnalysisService.getRealTimeQuote(symbol)
-                .thenCompose(quote -> {
-                    TechnicalIndicators indicators = advancedAnalysisService.calculateTechnicalIndicators(symbol);
-                    TradingSignal signal = advancedAnalysisService.generateTradingSignal(symbol);
-
-                    return advancedAnalysisService.getHistoricalData(symbol, "daily", "compact")
-                            .thenApply(historicalData -> {
-                                Map<String, Object> data = new HashMap<>();
-                                data.put("quote", quote);
-                                data.put("indicators", indicators);
-                                data.put("signal", signal);
-                                data.put("risk", riskService.assessRisk(symbol, quote, indicators, historicalData, signal));
-                                return data;
-                            });
-                });
+        return analysisPipeline.analyze(symbol).summary();
     }
 
     @GetMapping("/{symbol}/info")
@@ -299,6 +243,11 @@ public class StockController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(advancedAnalysisService.getCacheStats());
+    }
+
     @GetMapping("/market/status")
     public ResponseEntity<Map<String, Object>> getMarketStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -1,7 +1,9 @@
 package com.aiframework.controller;
 
 import com.aiframework.dto.StockQuote;
+import com.aiframework.dto.TechnicalIndicators;
 import com.aiframework.service.AdvancedStockAnalysisService;
+import com.aiframework.service.StreamingIndicatorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -19,12 +21,15 @@ public class StockWebSocketController {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final AdvancedStockAnalysisService analysisService;
+    private final StreamingIndicatorService streamingIndicators;
     private final Set<String> subscribedSymbols = ConcurrentHashMap.newKeySet();
 
     public StockWebSocketController(SimpMessagingTemplate messagingTemplate,
-                                   AdvancedStockAnalysisService analysisService) {
+                                   AdvancedStockAnalysisService analysisService,
+                                   StreamingIndicatorService streamingIndicators) {
         this.messagingTemplate = messagingTemplate;
         this.analysisService = analysisService;
+        this.streamingIndicators = streamingIndicators;
     }
 
     @MessageMapping("/subscribe")
@@ -50,6 +55,12 @@ public class StockWebSocketController {
                 analysisService.getRealTimeQuote(symbol)
                     .thenAccept(quote -> {
                         messagingTemplate.convertAndSend("/topic/quotes/" + symbol, quote);
+
+                        // The quote has already been applied to the streaming engine
+                        TechnicalIndicators indicators = streamingIndicators.getIndicators(symbol);
+                        if (indicators != null) {
+                            messagingTemplate.convertAndSend("/topic/indicators/" + symbol, indicators);
+                        }
                     })
                     .exceptionally(throwable -> {
                         logger.error("Failed to get quote for {}: {}", symbol, throwable.getMessage());
@@ -61,14 +72,17 @@ public class StockWebSocketController {
         }
     }
 
-    @Scheduled(fixedRate = 30000) // Update indicators every 30 seconds
+    @Scheduled(fixedRate = 30000) // Update signals every 30 seconds
     public void broadcastIndicatorUpdates() {
         for (String symbol : subscribedSymbols) {
             try {
-                var indicators = analysisService.calculateTechnicalIndicators(symbol);
-                var signal = analysisService.generateTradingSignal(symbol);
+                if (!streamingIndicators.isSeeded(symbol)) {
+                    // Loads history once; later indicator updates follow each quote tick
+                    var indicators = analysisService.calculateTechnicalIndicators(symbol);
+                    messagingTemplate.convertAndSend("/topic/indicators/" + symbol, indicators);
+                }
 
-                messagingTemplate.convertAndSend("/topic/indicators/" + symbol, indicators);
+                var signal = analysisService.generateTradingSignal(symbol);
                 messagingTemplate.convertAndSend("/topic/signals/" + symbol, signal);
             } catch (Exception e) {
                 logger.error("Error broadcasting indicators for {}: {}", symbol, e.getMessage());
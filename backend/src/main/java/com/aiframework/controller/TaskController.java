@@ -3,13 +3,25 @@ package com.aiframework.controller;
 import com.aiframework.core.AgentResult;
 import com.aiframework.core.Task;
 import com.aiframework.dto.*;
+import com.aiframework.jobs.Job;
+import com.aiframework.jobs.JobQueueService;
+import com.aiframework.orchestrator.BatchResult;
+import com.aiframework.orchestrator.PriorityTaskScheduler;
 import com.aiframework.service.TaskProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -22,9 +34,15 @@ public class TaskController {
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
 
     private final TaskProcessingService taskProcessingService;
+    private final PriorityTaskScheduler taskScheduler;
+    private final JobQueueService jobQueueService;
 
-    public TaskController(TaskProcessingService taskProcessingService) {
+    public TaskController(TaskProcessingService taskProcessingService,
+                          PriorityTaskScheduler taskScheduler,
+                          JobQueueService jobQueueService) {
         this.taskProcessingService = taskProcessingService;
+        this.taskScheduler = taskScheduler;
+        this.jobQueueService = jobQueueService;
     }
 
     /**
@@ -65,13 +83,17 @@ public class TaskController {
                 .map(TaskRequest::toTask)
                 .collect(Collectors.toList());
 
-            List<AgentResult> results = taskProcessingService.processTasks(tasks, request.getUserId());
+            BatchResult batch = taskProcessingService.processTasks(
+                tasks, request.getUserId(), request.toOptions(), result -> { });
 
-            List<TaskResult> taskResults = results.stream()
+            // Results are in completion order; callers correlate by taskId
+            List<TaskResult> taskResults = batch.getResults().stream()
                 .map(TaskResult::new)
                 .collect(Collectors.toList());
 
-            return ResponseEntity.ok(taskResults);
+            return ResponseEntity.ok()
+                .header("X-Batch-Complete", String.valueOf(batch.isComplete()))
+                .body(taskResults);
 
         } catch (Exception e) {
             logger.error("Error processing batch tasks", e);
@@ -80,22 +102,138 @@ public class TaskController {
     }
 
     /**
-     * Process a task asynchronously
+     * Process multiple tasks in batch, streaming each result as a server-sent event
+     * as soon as it completes
+     */
+    @PostMapping(value = "/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBatchTasks(@RequestBody BatchTaskRequest request) {
+        logger.info("Received streaming batch request: {} tasks, user={}",
+            request.getTasks().size(), request.getUserId());
+
+        List<Task> tasks = request.getTasks().stream()
+            .map(TaskRequest::toTask)
+            .collect(Collectors.toList());
+
+        // Emitter lifetime is bounded by the batch deadline itself
+        SseEmitter emitter = new SseEmitter(0L);
+
+        taskProcessingService.processTasksAsync(tasks, request.getUserId(), request.toOptions(), result -> {
+                try {
+                    emitter.send(SseEmitter.event().name("result").data(new TaskResult(result)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })
+            .whenComplete((batch, throwable) -> {
+                try {
+                    if (throwable != null) {
+                        logger.error("Error processing streaming batch", throwable);
+                        emitter.completeWithError(throwable);
+                        return;
+                    }
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("complete", batch.isComplete());
+                    summary.put("results", batch.getResults().size());
+                    summary.put("timedOutTasks", batch.getTimedOutTasks());
+                    summary.put("cancelledTasks", batch.getCancelledTasks());
+                    summary.put("elapsedMs", batch.getElapsedMs());
+                    emitter.send(SseEmitter.event().name("summary").data(summary));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            });
+
+        return emitter;
+    }
+
+    /**
+     * Process a task asynchronously. With mode=job the task is queued durably and
+     * a job ID is returned immediately instead of holding the request open.
      */
     @PostMapping("/async")
-    public CompletableFuture<ResponseEntity<TaskResult>> processTaskAsync(@RequestBody TaskRequest request) {
-        logger.info("Received async task request: type={}, user={}", request.getType(), request.getUserId());
+    public CompletableFuture<ResponseEntity<?>> processTaskAsync(@RequestBody TaskRequest request,
+                                                                 @RequestParam(required = false) String mode) {
+        logger.info("Received async task request: type={}, user={}, mode={}",
+            request.getType(), request.getUserId(), mode);
+
+        if ("job".equalsIgnoreCase(mode)) {
+            return CompletableFuture.completedFuture(submitJob(request));
+        }
 
         Task task = request.toTask();
 
         return taskProcessingService.processTaskAsync(task, request.getUserId())
-            .thenApply(result -> ResponseEntity.ok(new TaskResult(result)))
+            .<ResponseEntity<?>>thenApply(result -> ResponseEntity.ok(new TaskResult(result)))
             .exceptionally(throwable -> {
                 logger.error("Error processing async task", throwable);
                 return ResponseEntity.internalServerError().build();
             });
     }
 
+    /**
+     * Queue a task durably; poll GET /api/tasks/jobs/{jobId} or subscribe to its events
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<Job> submitJob(@RequestBody TaskRequest request) {
+        Job job = jobQueueService.submit(request);
+        logger.info("Queued job {} for task {}", job.getJobId(), job.getTaskId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header("Location", "/api/tasks/jobs/" + job.getJobId())
+            .body(job);
+    }
+
+    /**
+     * Get job status, and its result once finished
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Job> getJob(@PathVariable String jobId) {
+        return jobQueueService.getJob(jobId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Subscribe to a job: sends its current state, then the final state when it finishes
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToJob(@PathVariable String jobId,
+                                     @RequestParam(defaultValue = "600000") long timeoutMs) {
+        Job current = jobQueueService.getJob(jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown job: " + jobId));
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(current));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        jobQueueService.awaitJob(jobId).whenComplete((job, throwable) -> {
+            try {
+                if (throwable != null) {
+                    emitter.completeWithError(throwable);
+                    return;
+                }
+                emitter.send(SseEmitter.event().name("result").data(job));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Get job queue depth and log statistics
+     */
+    @GetMapping("/jobs/stats")
+    public ResponseEntity<Map<String, Object>> getJobStats() {
+        return ResponseEntity.ok(jobQueueService.getStats());
+    }
+
     /**
      * Get system metrics
      */
@@ -114,4 +252,12 @@ public class TaskController {
         
         return ResponseEntity.ok(metrics);
     }
+
+    /**
+     * Get scheduler queue depth and wait time metrics
+     */
+    @GetMapping("/scheduler/metrics")
+    public ResponseEntity<Map<String, Object>> getSchedulerMetrics() {
+        return ResponseEntity.ok(taskScheduler.getMetrics());
+    }
 }
@@ -0,0 +1,39 @@
+package com.aiframework.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Server-sent events for a streamed LLM completion: a "token" event per text fragment, then
+ * one event carrying the result built from the complete text, or an "error" event.
+ *
+ * Fragments are sent as {"text": ...} rather than bare strings, since SSE clients strip the
+ * leading space that most tokens start with.
+ */
+final class TokenStreams {
+
+    private TokenStreams() {
+    }
+
+    static Flux<ServerSentEvent<Object>> toEvents(Flux<String> tokens, String resultEvent,
+                                                 Function<String, Object> result) {
+        return Flux.defer(() -> {
+            StringBuilder text = new StringBuilder();
+            return tokens
+                .doOnNext(text::append)
+                .map(token -> event("token", Map.of("text", token)))
+                .concatWith(Mono.fromSupplier(() -> event(resultEvent, result.apply(text.toString().trim()))))
+                .onErrorResume(throwable -> Mono.just(event("error", Map.of(
+                    "error", "Failed to generate response",
+                    "message", String.valueOf(throwable.getMessage())))));
+        });
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.<Object>builder(data).event(name).build();
+    }
+}
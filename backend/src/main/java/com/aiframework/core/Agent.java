@@ -1,5 +1,8 @@
 package com.aiframework.core;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Base interface for all AI agents in the framework
  */
@@ -19,6 +22,22 @@ public interface Agent {
      */
     boolean canHandle(Task task);
 
+    /**
+     * Task types this agent handles by exact (case-insensitive) name.
+     * Declared types are indexed at registration so dispatch does not need to call canHandle.
+     */
+    default Set<String> getSupportedTaskTypes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Whether canHandle depends on state other than the task type, so its answer for a
+     * given type cannot be cached. Agents that declare no task types are treated as dynamic.
+     */
+    default boolean hasDynamicCapabilities() {
+        return getSupportedTaskTypes().isEmpty();
+    }
+
     /**
      * Execute the task with the given context
      */
@@ -0,0 +1,238 @@
+package com.aiframework.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Columnar OHLCV price history backed by parallel primitive arrays.
+ * Bars are kept in ascending timestamp order (epoch seconds, oldest first).
+ * Instances are not thread-safe; treat a series as read-only once it has been published.
+ */
+public class BarSeries {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final String symbol;
+    private long[] timestamps;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] volume;
+    private int size;
+
+    public BarSeries(String symbol) {
+        this(symbol, DEFAULT_CAPACITY);
+    }
+
+    public BarSeries(String symbol, int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.symbol = symbol;
+        this.timestamps = new long[initial];
+        this.open = new double[initial];
+        this.high = new double[initial];
+        this.low = new double[initial];
+        this.close = new double[initial];
+        this.volume = new double[initial];
+    }
+
+    /**
+     * Append a bar. Bars should be appended oldest first; call {@link #sortByTime()}
+     * after loading from a source that does not guarantee ordering.
+     */
+    public void add(long timestamp, double open, double high, double low, double close, double volume) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        this.timestamps[size] = timestamp;
+        this.open[size] = open;
+        this.high[size] = high;
+        this.low[size] = low;
+        this.close[size] = close;
+        this.volume[size] = volume;
+        size++;
+    }
+
+    /**
+     * Re-order bars by ascending timestamp if they are not already in order
+     */
+    public void sortByTime() {
+        boolean ordered = true;
+        for (int i = 1; i < size && ordered; i++) {
+            ordered = timestamps[i - 1] <= timestamps[i];
+        }
+        if (ordered) return;
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> timestamps[i]));
+
+        long[] t = new long[timestamps.length];
+        double[] o = new double[open.length];
+        double[] h = new double[high.length];
+        double[] l = new double[low.length];
+        double[] c = new double[close.length];
+        double[] v = new double[volume.length];
+        for (int i = 0; i < size; i++) {
+            int src = order[i];
+            t[i] = timestamps[src];
+            o[i] = open[src];
+            h[i] = high[src];
+            l[i] = low[src];
+            c[i] = close[src];
+            v[i] = volume[src];
+        }
+        timestamps = t;
+        open = o;
+        high = h;
+        low = l;
+        close = c;
+        volume = v;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+    }
+
+    // Accessors
+    public String getSymbol() { return symbol; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public long getTimestamp(int index) { return timestamps[index]; }
+    public double getOpen(int index) { return open[index]; }
+    public double getHigh(int index) { return high[index]; }
+    public double getLow(int index) { return low[index]; }
+    public double getClose(int index) { return close[index]; }
+    public double getVolume(int index) { return volume[index]; }
+
+    public double getLastClose() { return close[size - 1]; }
+
+    /**
+     * Population standard deviation of close-to-close daily returns; 0 with fewer than two bars
+     */
+    public double getReturnStandardDeviation() {
+        int n = size - 1;
+        if (n <= 0) return 0.0;
+
+        // Two passes over daily returns without materialising them
+        double mean = 0.0;
+        for (int i = 1; i < size; i++) {
+            mean += (close[i] - close[i - 1]) / close[i - 1];
+        }
+        mean /= n;
+
+        double variance = 0.0;
+        for (int i = 1; i < size; i++) {
+            double dailyReturn = (close[i] - close[i - 1]) / close[i - 1];
+            variance += (dailyReturn - mean) * (dailyReturn - mean);
+        }
+
+        return Math.sqrt(variance / n);
+    }
+
+    /**
+     * Approximate heap footprint in bytes (six primitive columns plus object headers)
+     */
+    public long getRetainedBytes() {
+        return 6L * timestamps.length * Long.BYTES + 6L * 16 + 64;
+    }
+
+    // Trimmed column copies for callers that need a whole column at once
+    public long[] getTimestamps() { return Arrays.copyOf(timestamps, size); }
+    public double[] getOpens() { return Arrays.copyOf(open, size); }
+    public double[] getHighs() { return Arrays.copyOf(high, size); }
+    public double[] getLows() { return Arrays.copyOf(low, size); }
+    public double[] getCloses() { return Arrays.copyOf(close, size); }
+    public double[] getVolumes() { return Arrays.copyOf(volume, size); }
+
+    /**
+     * Convert legacy map-based bars (as produced by the REST clients) into a series.
+     * Rows without a parseable close are skipped; string and numeric values are both accepted.
+     */
+    public static BarSeries fromMaps(String symbol, List<Map<String, Object>> bars) {
+        BarSeries series = new BarSeries(symbol, bars != null ? bars.size() : 0);
+        if (bars == null) return series;
+
+        for (Map<String, Object> bar : bars) {
+            double closeValue = toDouble(bar.get("close"));
+            if (Double.isNaN(closeValue)) continue;
+
+            series.add(toTimestamp(bar),
+                    orDefault(toDouble(bar.get("open")), closeValue),
+                    orDefault(toDouble(bar.get("high")), closeValue),
+                    orDefault(toDouble(bar.get("low")), closeValue),
+                    closeValue,
+                    orDefault(toDouble(bar.get("volume")), 0.0));
+        }
+        series.sortByTime();
+        return series;
+    }
+
+    /**
+     * Render the series in the legacy map-per-bar shape used by the REST API
+     */
+    public List<Map<String, Object>> toMaps() {
+        List<Map<String, Object>> bars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> bar = new HashMap<>();
+            bar.put("timestamp", timestamps[i]);
+            bar.put("date", LocalDate.ofInstant(Instant.ofEpochSecond(timestamps[i]), ZoneOffset.UTC).toString());
+            bar.put("open", open[i]);
+            bar.put("high", high[i]);
+            bar.put("low", low[i]);
+            bar.put("close", close[i]);
+            bar.put("volume", (long) volume[i]);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    /**
+     * Parse an ISO date (yyyy-MM-dd) into epoch seconds at UTC midnight
+     */
+    public static long parseDate(String date) {
+        return LocalDate.parse(date.substring(0, 10)).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+    }
+
+    private static long toTimestamp(Map<String, Object> bar) {
+        Object timestamp = bar.get("timestamp");
+        if (timestamp instanceof Number) {
+            return ((Number) timestamp).longValue();
+        }
+        Object date = bar.get("date");
+        if (date != null) {
+            try {
+                return parseDate(date.toString());
+            } catch (Exception e) {
+                // Fall through - unparseable dates keep insertion order
+            }
+        }
+        return 0L;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double orDefault(double value, double fallback) {
+        return Double.isNaN(value) ? fallback : value;
+    }
+}
@@ -1,5 +1,7 @@
 package com.aiframework.dto;
 
+import com.aiframework.orchestrator.BatchOptions;
+
 import java.util.List;
 
 /**
@@ -10,8 +12,18 @@ public class BatchTaskRequest {
     private String userId;
     private String sessionId;
 
+    // Optional batch limits; server defaults apply when omitted
+    private Integer maxConcurrency;
+    private Long taskTimeoutMs;
+    private Long batchTimeoutMs;
+    private boolean partialResults;
+
     public BatchTaskRequest() {}
 
+    public BatchOptions toOptions() {
+        return new BatchOptions(maxConcurrency, taskTimeoutMs, batchTimeoutMs, partialResults);
+    }
+
     // Getters and Setters
     public List<TaskRequest> getTasks() { return tasks; }
     public void setTasks(List<TaskRequest> tasks) { this.tasks = tasks; }
@@ -21,4 +33,16 @@ public class BatchTaskRequest {
 
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public Integer getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(Integer maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+    public Long getTaskTimeoutMs() { return taskTimeoutMs; }
+    public void setTaskTimeoutMs(Long taskTimeoutMs) { this.taskTimeoutMs = taskTimeoutMs; }
+
+    public Long getBatchTimeoutMs() { return batchTimeoutMs; }
+    public void setBatchTimeoutMs(Long batchTimeoutMs) { this.batchTimeoutMs = batchTimeoutMs; }
+
+    public boolean isPartialResults() { return partialResults; }
+    public void setPartialResults(boolean partialResults) { this.partialResults = partialResults; }
 }
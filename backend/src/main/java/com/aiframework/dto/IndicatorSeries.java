@@ -0,0 +1,51 @@
+package com.aiframework.dto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full history of one technical indicator, aligned point-for-point with the bars it was
+ * computed from. Multi-line indicators (MACD, Bollinger Bands) expose one column per line.
+ * Points inside the warm-up period are null.
+ */
+public class IndicatorSeries {
+    private String symbol;
+    private String indicator;
+    private List<Integer> parameters;
+    private long[] timestamps;
+    private Map<String, Double[]> lines = new LinkedHashMap<>();
+
+    public IndicatorSeries() {}
+
+    public IndicatorSeries(String symbol, String indicator, List<Integer> parameters, long[] timestamps) {
+        this.symbol = symbol;
+        this.indicator = indicator;
+        this.parameters = parameters;
+        this.timestamps = timestamps;
+    }
+
+    public void addLine(String name, double[] values) {
+        Double[] boxed = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = Double.isNaN(values[i]) || Double.isInfinite(values[i]) ? null : values[i];
+        }
+        lines.put(name, boxed);
+    }
+
+    // Getters and setters
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getIndicator() { return indicator; }
+    public void setIndicator(String indicator) { this.indicator = indicator; }
+
+    public List<Integer> getParameters() { return parameters; }
+    public void setParameters(List<Integer> parameters) { this.parameters = parameters; }
+
+    public long[] getTimestamps() { return timestamps; }
+    public void setTimestamps(long[] timestamps) { this.timestamps = timestamps; }
+
+    public Map<String, Double[]> getLines() { return lines; }
+    public void setLines(Map<String, Double[]> lines) { this.lines = lines; }
+}
@@ -0,0 +1,86 @@
+package com.aiframework.jobs;
+
+import com.aiframework.dto.TaskRequest;
+import com.aiframework.dto.TaskResult;
+
+import java.time.Instant;
+
+/**
+ * A task submitted for detached execution. Every state change is written to the job log.
+ */
+public class Job {
+    private String jobId;
+    private String taskId;
+    private TaskRequest request;
+    private Status status;
+    private TaskResult result;
+    private String error;
+    private int attempts;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+
+    public Job() {}
+
+    public Job(String jobId, String taskId, TaskRequest request) {
+        this.jobId = jobId;
+        this.taskId = taskId;
+        this.request = request;
+        this.status = Status.QUEUED;
+        this.submittedAt = Instant.now();
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    Job copy() {
+        Job copy = new Job();
+        copy.jobId = jobId;
+        copy.taskId = taskId;
+        copy.request = request;
+        copy.status = status;
+        copy.result = result;
+        copy.error = error;
+        copy.attempts = attempts;
+        copy.submittedAt = submittedAt;
+        copy.startedAt = startedAt;
+        copy.completedAt = completedAt;
+        return copy;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getTaskId() { return taskId; }
+    public void setTaskId(String taskId) { this.taskId = taskId; }
+
+    public TaskRequest getRequest() { return request; }
+    public void setRequest(TaskRequest request) { this.request = request; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public TaskResult getResult() { return result; }
+    public void setResult(TaskResult result) { this.result = result; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(Instant submittedAt) { this.submittedAt = submittedAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
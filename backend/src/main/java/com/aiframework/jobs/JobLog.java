@@ -0,0 +1,170 @@
+package com.aiframework.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only write-ahead log of job states, one JSON record per line.
+ *
+ * Each record is the full state of one job, so replay keeps the last record per job ID.
+ * Compaction rewrites the log with a single record for every job still retained and
+ * atomically swaps it in. A torn record at the tail, left by a crash mid-write, is skipped.
+ */
+class JobLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JobLog.class);
+
+    private static final String LOG_FILE = "jobs.log";
+    private static final String COMPACT_FILE = "jobs.log.compact";
+
+    private final Path logPath;
+    private final Path compactPath;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private FileChannel channel;
+    private long records;
+
+    JobLog(Path directory, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.logPath = directory.resolve(LOG_FILE);
+        this.compactPath = directory.resolve(COMPACT_FILE);
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Read the latest state of every job in the log, then open the log for appending
+     */
+    synchronized Map<String, Job> replay() throws IOException {
+        // A leftover compaction file was never swapped in; the original log is authoritative
+        Files.deleteIfExists(compactPath);
+
+        Map<String, Job> jobs = new LinkedHashMap<>();
+        long skipped = 0;
+        records = 0;
+        if (Files.exists(logPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        Job job = objectMapper.readValue(line, Job.class);
+                        jobs.put(job.getJobId(), job);
+                        records++;
+                    } catch (IOException e) {
+                        skipped++;
+                    }
+                }
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("Skipped {} unreadable records in {}", skipped, logPath);
+        }
+        open();
+        return jobs;
+    }
+
+    synchronized void append(Job job) throws IOException {
+        ensureOpen();
+        write(channel, job);
+        if (fsync) {
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /**
+     * Replace the log with one record per retained job. The current log stays open until the
+     * compacted one has been swapped in, so a failed compaction leaves it appendable.
+     */
+    synchronized void compact(Collection<Job> retained) throws IOException {
+        try {
+            try (FileChannel out = FileChannel.open(compactPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Job job : retained) {
+                    write(out, job);
+                }
+                out.force(true);
+            }
+            // Renaming over the open log is fine; the old channel just keeps the replaced file
+            Files.move(compactPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compactPath);
+            throw e;
+        }
+
+        FileChannel replaced = channel;
+        try {
+            open();
+        } finally {
+            // Closed even if reopening failed, so appends retry the open rather than writing
+            // to the replaced file
+            replaced.close();
+        }
+        records = retained.size();
+        logger.info("Compacted job log to {} records", records);
+    }
+
+    synchronized long getRecords() {
+        return records;
+    }
+
+    synchronized long getSizeBytes() throws IOException {
+        ensureOpen();
+        return channel.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!channel.isOpen()) {
+            open();
+        }
+    }
+
+    private void open() throws IOException {
+        boolean tornTail = false;
+        if (Files.exists(logPath)) {
+            try (FileChannel reader = FileChannel.open(logPath, StandardOpenOption.READ)) {
+                long size = reader.size();
+                if (size > 0) {
+                    ByteBuffer last = ByteBuffer.allocate(1);
+                    reader.read(last, size - 1);
+                    tornTail = last.get(0) != '\n';
+                }
+            }
+        }
+
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        // Terminate a torn tail so the next record starts on its own line
+        if (tornTail) {
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+    }
+
+    private void write(FileChannel target, Job job) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(job);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.aiframework.jobs;
+
+import com.aiframework.core.AgentResult;
+import com.aiframework.core.Task;
+import com.aiframework.dto.TaskRequest;
+import com.aiframework.dto.TaskResult;
+import com.aiframework.service.TaskProcessingService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable queue for detached task execution.
+ *
+ * A submitted job is written to the job log before its ID is returned, then dispatched
+ * through the task processing service with at most maxInFlight jobs running at once;
+ * the rest wait in the queue, so bursts larger than the executor are absorbed here.
+ * On startup the log is replayed and every job that had not finished is queued again.
+ * Finished jobs are kept for the retention period so clients can poll for them.
+ */
+@Service
+public class JobQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(JobQueueService.class);
+
+    private final TaskProcessingService taskProcessingService;
+    private final String logDirectory;
+    private final boolean fsync;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long compactThreshold;
+    private final Duration retention;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Job>> completions = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private int inFlight;
+    private boolean dispatching;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long recovered;
+
+    private JobLog log;
+
+    public JobQueueService(TaskProcessingService taskProcessingService,
+                           @Value("${jobs.wal.dir:data/jobs}") String logDirectory,
+                           @Value("${jobs.wal.fsync:true}") boolean fsync,
+                           @Value("${jobs.max-in-flight:64}") int maxInFlight,
+                           @Value("${jobs.max-attempts:3}") int maxAttempts,
+                           @Value("${jobs.wal.compact-threshold:10000}") long compactThreshold,
+                           @Value("${jobs.retention-minutes:60}") long retentionMinutes) {
+        this.taskProcessingService = taskProcessingService;
+        this.logDirectory = logDirectory;
+        this.fsync = fsync;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.compactThreshold = Math.max(compactThreshold, 1);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    @PostConstruct
+    public synchronized void recover() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        log = new JobLog(Paths.get(logDirectory), objectMapper, fsync);
+
+        Map<String, Job> replayed = log.replay();
+        List<Job> unfinished = new ArrayList<>();
+        for (Job job : replayed.values()) {
+            jobs.put(job.getJobId(), job);
+            if (!job.isFinished()) {
+                unfinished.add(job);
+            }
+        }
+
+        // Resume in submission order; a job that was running has used up an attempt
+        unfinished.sort(Comparator.comparing(Job::getSubmittedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Job job : unfinished) {
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(Job.Status.FAILED);
+                job.setError("Abandoned after " + job.getAttempts() + " interrupted attempts");
+                job.setCompletedAt(Instant.now());
+                failed++;
+            } else {
+                job.setStatus(Job.Status.QUEUED);
+                queue.addLast(job.getJobId());
+                recovered++;
+            }
+        }
+
+        purgeExpired(Instant.now());
+        log.compact(jobs.values());
+        logger.info("Recovered job queue from {}: {} jobs, {} resumed", logDirectory, jobs.size(), recovered);
+        dispatch();
+    }
+
+    /**
+     * Persist a task and queue it; returns as soon as the job is durable
+     */
+    public Job submit(TaskRequest request) {
+        // Validate up front so a malformed request is rejected rather than failing later
+        Task task = request.toTask();
+
+        Job job = new Job(UUID.randomUUID().toString(), task.getId(), request);
+        synchronized (this) {
+            persist(job);
+            jobs.put(job.getJobId(), job);
+            queue.addLast(job.getJobId());
+            submitted++;
+            dispatch();
+            return job.copy();
+        }
+    }
+
+    public Optional<Job> getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return Optional.of(job.copy());
+        }
+    }
+
+    /**
+     * Completes when the job has finished; completes immediately for a finished job
+     */
+    public CompletableFuture<Job> awaitJob(String jobId) {
+        synchronized (this) {
+            Job job = jobs.get(jobId);
+            if (job == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown job: " + jobId));
+            }
+            if (job.isFinished()) {
+                return CompletableFuture.completedFuture(job.copy());
+            }
+            return completions.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+        }
+    }
+
+    /** Start queued jobs up to the in-flight limit; caller holds the lock */
+    private void dispatch() {
+        // A job that fails synchronously re-enters through finish; the outer loop carries on
+        if (dispatching) return;
+        dispatching = true;
+        try {
+            drainQueue();
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    private void drainQueue() {
+        while (inFlight < maxInFlight && !queue.isEmpty()) {
+            Job job = jobs.get(queue.pollFirst());
+            if (job == null || job.isFinished()) continue;
+
+            job.setStatus(Job.Status.RUNNING);
+            job.setStartedAt(Instant.now());
+            job.setAttempts(job.getAttempts() + 1);
+            persistQuietly(job);
+            inFlight++;
+
+            TaskRequest request = job.getRequest();
+            Task task = request.toTask();
+            task.setId(job.getTaskId());
+
+            CompletableFuture<AgentResult> execution;
+            try {
+                execution = request.getSessionId() != null
+                        ? taskProcessingService.processTaskAsync(task, request.getSessionId(), request.getUserId())
+                        : taskProcessingService.processTaskAsync(task, request.getUserId());
+            } catch (RuntimeException e) {
+                execution = CompletableFuture.failedFuture(e);
+            }
+            execution.whenComplete((result, throwable) -> finish(job, result, throwable));
+        }
+    }
+
+    private synchronized void finish(Job job, AgentResult result, Throwable throwable) {
+        inFlight--;
+        job.setCompletedAt(Instant.now());
+        if (throwable != null) {
+            Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+            job.setStatus(Job.Status.FAILED);
+            job.setError(cause.getMessage());
+            failed++;
+        } else {
+            job.setResult(new TaskResult(result));
+            job.setStatus(result.isSuccess() ? Job.Status.COMPLETED : Job.Status.FAILED);
+            if (!result.isSuccess()) {
+                job.setError(result.getMessage());
+            }
+            if (result.isSuccess()) completed++; else failed++;
+        }
+
+        if (!persistQuietly(job) && job.getResult() != null) {
+            // Agent output that cannot be serialized is dropped rather than losing the outcome
+            job.getResult().setData(null);
+            job.getResult().setMetadata(null);
+            persistQuietly(job);
+        }
+
+        CompletableFuture<Job> waiter = completions.remove(job.getJobId());
+        if (waiter != null) {
+            waiter.complete(job.copy());
+        }
+
+        maybeCompact();
+        dispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.cleanup-interval-ms:60000}")
+    public synchronized void cleanup() {
+        if (purgeExpired(Instant.now()) > 0) {
+            compactQuietly();
+        }
+    }
+
+    /** Drop finished jobs past the retention period; caller holds the lock */
+    private int purgeExpired(Instant now) {
+        Instant cutoff = now.minus(retention);
+        int removed = 0;
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            if (job.isFinished() && job.getCompletedAt() != null && job.getCompletedAt().isBefore(cutoff)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void maybeCompact() {
+        // Compact once superseded records outnumber live ones past the threshold
+        long records = log.getRecords();
+        if (records >= compactThreshold && records > 2L * jobs.size()) {
+            compactQuietly();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            log.compact(jobs.values());
+        } catch (IOException e) {
+            logger.error("Job log compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void persist(Job job) {
+        try {
+            log.append(job);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not persist job " + job.getJobId(), e);
+        }
+    }
+
+    private boolean persistQuietly(Job job) {
+        try {
+            log.append(job);
+            return true;
+        } catch (IOException e) {
+            logger.error("Could not persist state {} of job {}: {}", job.getStatus(), job.getJobId(), e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("running", inFlight);
+        stats.put("retained", jobs.size());
+        stats.put("submitted", submitted);
+        stats.put("completed", completed);
+        stats.put("failed", failed);
+        stats.put("recovered", recovered);
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("logRecords", log.getRecords());
+        try {
+            stats.put("logBytes", log.getSizeBytes());
+        } catch (IOException e) {
+            stats.put("logBytes", -1);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        // Running jobs stay RUNNING in the log and are resumed on the next start
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.warn("Error closing job log: {}", e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.aiframework.core.Agent;
 import com.aiframework.core.AgentConfig;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Interface for managing agents in the framework
@@ -19,6 +20,12 @@ public interface AgentManager {
      */
     void unregisterAgent(String agentName);
 
+    /**
+     * Be told the name of every agent that leaves the registry, whether unregistered,
+     * reloaded or shut down, so per-agent state held elsewhere can be released
+     */
+    void addUnregisterListener(Consumer<String> listener);
+
     /**
      * Get an agent by name
      */
@@ -7,7 +7,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Implementation of AgentManager
@@ -18,6 +19,8 @@ public class AgentManagerImpl implements AgentManager {
 
     private final Map<String, Agent> agents = new ConcurrentHashMap<>();
     private final Map<String, AgentConfig> agentConfigs = new ConcurrentHashMap<>();
+    private final CapabilityIndex capabilityIndex = new CapabilityIndex();
+    private final List<Consumer<String>> unregisterListeners = new CopyOnWriteArrayList<>();
     private final PluginManager pluginManager;
 
     public AgentManagerImpl(PluginManager pluginManager) {
@@ -29,6 +32,7 @@ public class AgentManagerImpl implements AgentManager {
     public void registerAgent(Agent agent) {
         logger.info("Registering agent: {}", agent.getName());
         agents.put(agent.getName(), agent);
+        capabilityIndex.add(agent);
 
         // Initialize with default config if not already configured
         if (!agentConfigs.containsKey(agent.getName())) {
@@ -42,12 +46,19 @@ public class AgentManagerImpl implements AgentManager {
     public void unregisterAgent(String agentName) {
         logger.info("Unregistering agent: {}", agentName);
         Agent agent = agents.remove(agentName);
+        capabilityIndex.remove(agentName);
         if (agent != null) {
             agent.shutdown();
+            notifyUnregistered(List.of(agentName));
         }
         agentConfigs.remove(agentName);
     }
 
+    @Override
+    public void addUnregisterListener(Consumer<String> listener) {
+        unregisterListeners.add(listener);
+    }
+
     @Override
     public Optional<Agent> getAgent(String agentName) {
         return Optional.ofNullable(agents.get(agentName));
@@ -60,12 +71,8 @@ public class AgentManagerImpl implements AgentManager {
 
     @Override
     public List<Agent> getCapableAgents(String taskType) {
-        Task dummyTask = new Task();
-        dummyTask.setType(taskType);
-
-        return agents.values().stream()
-                .filter(agent -> agent.canHandle(dummyTask))
-                .collect(Collectors.toList());
+        // Ranked: exact declared types first, then canHandle matches
+        return new ArrayList<>(capabilityIndex.lookup(taskType));
     }
 
     @Override
@@ -73,8 +80,11 @@ public class AgentManagerImpl implements AgentManager {
         logger.info("Reloading all agents");
 
         // Shutdown existing agents
+        List<String> removed = new ArrayList<>(agents.keySet());
         agents.values().forEach(Agent::shutdown);
         agents.clear();
+        capabilityIndex.clear();
+        notifyUnregistered(removed);
 
         // Reload plugins
         pluginManager.reloadPlugins();
@@ -93,9 +103,24 @@ public class AgentManagerImpl implements AgentManager {
     @Override
     public void shutdownAll() {
         logger.info("Shutting down all agents");
+        List<String> removed = new ArrayList<>(agents.keySet());
         agents.values().forEach(Agent::shutdown);
         agents.clear();
         agentConfigs.clear();
+        capabilityIndex.clear();
+        notifyUnregistered(removed);
+    }
+
+    private void notifyUnregistered(List<String> agentNames) {
+        for (Consumer<String> listener : unregisterListeners) {
+            for (String agentName : agentNames) {
+                try {
+                    listener.accept(agentName);
+                } catch (RuntimeException e) {
+                    logger.warn("Unregister listener failed for agent {}", agentName, e);
+                }
+            }
+        }
     }
 
     private void loadPluginAgents() {
@@ -0,0 +1,117 @@
+package com.aiframework.manager;
+
+import com.aiframework.core.Agent;
+import com.aiframework.core.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Task type to agent index used on the dispatch path.
+ *
+ * Lookups return agents ranked as: agents declaring the type exactly, then agents whose
+ * canHandle pattern matches the type, then dynamic agents whose canHandle is evaluated live.
+ * The first two groups are memoized per task type. The index is immutable between changes
+ * and is replaced wholesale on register/unregister, so lookups never take a lock.
+ */
+class CapabilityIndex {
+    private static final int MAX_CACHED_TYPES = 1024;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+
+    synchronized void add(Agent agent) {
+        List<Agent> agents = new ArrayList<>(snapshot.agents);
+        agents.removeIf(existing -> existing.getName().equals(agent.getName()));
+        agents.add(agent);
+        snapshot = new Snapshot(agents);
+    }
+
+    synchronized void remove(String agentName) {
+        List<Agent> agents = new ArrayList<>(snapshot.agents);
+        if (agents.removeIf(existing -> existing.getName().equals(agentName))) {
+            snapshot = new Snapshot(agents);
+        }
+    }
+
+    synchronized void clear() {
+        snapshot = new Snapshot(Collections.emptyList());
+    }
+
+    List<Agent> lookup(String taskType) {
+        Snapshot current = snapshot;
+        if (taskType == null) {
+            return current.match(null);
+        }
+
+        List<Agent> ranked = current.cache.get(taskType);
+        if (ranked == null) {
+            ranked = current.match(taskType);
+            if (current.cache.size() < MAX_CACHED_TYPES) {
+                current.cache.putIfAbsent(taskType, ranked);
+            }
+        }
+        if (current.dynamicAgents.isEmpty()) {
+            return ranked;
+        }
+
+        // Dynamic agents are consulted on every lookup, after the cached matches
+        List<Agent> result = null;
+        Task probe = probe(taskType);
+        for (Agent agent : current.dynamicAgents) {
+            if (!ranked.contains(agent) && agent.canHandle(probe)) {
+                if (result == null) result = new ArrayList<>(ranked);
+                result.add(agent);
+            }
+        }
+        return result != null ? Collections.unmodifiableList(result) : ranked;
+    }
+
+    private static String normalize(String taskType) {
+        return taskType.toUpperCase(Locale.ROOT);
+    }
+
+    private static Task probe(String taskType) {
+        Task probe = new Task();
+        probe.setType(taskType);
+        return probe;
+    }
+
+    private static final class Snapshot {
+        private final List<Agent> agents;
+        private final Map<String, List<Agent>> declared = new HashMap<>();
+        private final List<Agent> patternAgents = new ArrayList<>();
+        private final List<Agent> dynamicAgents = new ArrayList<>();
+        private final Map<String, List<Agent>> cache = new ConcurrentHashMap<>();
+
+        Snapshot(List<Agent> agents) {
+            this.agents = Collections.unmodifiableList(agents);
+            for (Agent agent : agents) {
+                for (String type : agent.getSupportedTaskTypes()) {
+                    declared.computeIfAbsent(normalize(type), k -> new ArrayList<>()).add(agent);
+                }
+                (agent.hasDynamicCapabilities() ? dynamicAgents : patternAgents).add(agent);
+            }
+        }
+
+        /** Declared and pattern matches for a type, without dynamic agents */
+        List<Agent> match(String taskType) {
+            List<Agent> ranked = new ArrayList<>();
+            if (taskType != null) {
+                ranked.addAll(declared.getOrDefault(normalize(taskType), Collections.emptyList()));
+            }
+
+            Task probe = probe(taskType);
+            for (Agent agent : patternAgents) {
+                if (!ranked.contains(agent) && agent.canHandle(probe)) {
+                    ranked.add(agent);
+                }
+            }
+            if (taskType == null) {
+                for (Agent agent : dynamicAgents) {
+                    if (agent.canHandle(probe)) ranked.add(agent);
+                }
+            }
+            return Collections.unmodifiableList(ranked);
+        }
+    }
+}
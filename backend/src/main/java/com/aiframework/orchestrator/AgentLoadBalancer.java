@@ -0,0 +1,259 @@
+package com.aiframework.orchestrator;
+
+import com.aiframework.core.Agent;
+import com.aiframework.core.AgentStatus;
+import com.aiframework.core.Task;
+import com.aiframework.manager.AgentManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load- and latency-aware agent selection.
+ *
+ * Tracks an EWMA of execution time and error rate plus the in-flight count per agent and
+ * scores each candidate as latency x (in-flight + 1) / success rate. Penalties decay while
+ * an agent is idle so a slow or failing agent is probed again once it has had time to recover.
+ * Balancing only happens within the best capability tier present (declared type, then
+ * canHandle pattern, then dynamic), so a generalist never takes traffic from a specialist.
+ * The policy is configured per task type with orchestrator.selection.policy.&lt;TASK_TYPE&gt;.
+ */
+@Component
+public class AgentLoadBalancer {
+    private static final Logger logger = LoggerFactory.getLogger(AgentLoadBalancer.class);
+
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    public enum Policy {
+        /** Sample two candidates at random and take the cheaper one */
+        POWER_OF_TWO_CHOICES,
+        /** Fewest in-flight requests weighted by success rate, ties broken by score */
+        LEAST_OUTSTANDING,
+        /** First READY agent in capability order */
+        FIRST_READY
+    }
+
+    private final Environment environment;
+    private final Policy defaultPolicy;
+    private final double alpha;
+    private final long decayNanos;
+
+    private final Map<String, AgentStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+
+    public AgentLoadBalancer(Environment environment,
+                             AgentManager agentManager,
+                             @Value("${orchestrator.selection.policy:POWER_OF_TWO_CHOICES}") Policy defaultPolicy,
+                             @Value("${orchestrator.selection.ewma-alpha:0.3}") double alpha,
+                             @Value("${orchestrator.selection.decay-ms:30000}") long decayMs) {
+        this.environment = environment;
+        this.defaultPolicy = defaultPolicy;
+        this.alpha = Math.min(Math.max(alpha, 0.01), 1.0);
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(decayMs, 1));
+        agentManager.addUnregisterListener(stats::remove);
+    }
+
+    public Agent select(List<Agent> capableAgents, Task task) {
+        if (capableAgents.size() == 1) {
+            return capableAgents.get(0);
+        }
+
+        List<Agent> candidates = new ArrayList<>(capableAgents.size());
+        for (Agent agent : capableAgents) {
+            if (agent.getStatus() == AgentStatus.READY) {
+                candidates.add(agent);
+            }
+        }
+        // Fall back to every capable agent when none reports READY
+        if (candidates.isEmpty()) {
+            candidates = capableAgents;
+        }
+        candidates = topTier(candidates, task.getType());
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        long now = System.nanoTime();
+        return switch (getPolicy(task.getType())) {
+            case FIRST_READY -> candidates.get(0);
+            case LEAST_OUTSTANDING -> leastOutstanding(candidates, now);
+            case POWER_OF_TWO_CHOICES -> powerOfTwoChoices(candidates, now);
+        };
+    }
+
+    /**
+     * Candidates in the best capability tier present, keeping their order
+     */
+    private static List<Agent> topTier(List<Agent> candidates, String taskType) {
+        int best = Integer.MAX_VALUE;
+        for (Agent agent : candidates) {
+            best = Math.min(best, tier(agent, taskType));
+        }
+        List<Agent> top = new ArrayList<>(candidates.size());
+        for (Agent agent : candidates) {
+            if (tier(agent, taskType) == best) {
+                top.add(agent);
+            }
+        }
+        return top;
+    }
+
+    /** 0 declares the type, 1 matches by pattern, 2 is dynamic; mirrors the CapabilityIndex ranking */
+    private static int tier(Agent agent, String taskType) {
+        if (taskType != null) {
+            for (String type : agent.getSupportedTaskTypes()) {
+                if (type.equalsIgnoreCase(taskType)) return 0;
+            }
+        }
+        return agent.hasDynamicCapabilities() ? 2 : 1;
+    }
+
+    private Agent powerOfTwoChoices(List<Agent> candidates, long now) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) second++;
+
+        Agent a = candidates.get(first);
+        Agent b = candidates.get(second);
+        return statsFor(a).score(now) <= statsFor(b).score(now) ? a : b;
+    }
+
+    private Agent leastOutstanding(List<Agent> candidates, long now) {
+        Agent best = null;
+        double bestOutstanding = Double.MAX_VALUE;
+        double bestScore = Double.MAX_VALUE;
+        for (Agent agent : candidates) {
+            AgentStats agentStats = statsFor(agent);
+            // Weighted by success rate so an agent that fails fast does not soak up traffic
+            double outstanding = (agentStats.inFlight.get() + 1) / agentStats.successRate(now);
+            double score = agentStats.score(now);
+            if (outstanding < bestOutstanding || (outstanding == bestOutstanding && score < bestScore)) {
+                best = agent;
+                bestOutstanding = outstanding;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Mark the start of an execution; returns the start time to pass to {@link #completed}
+     */
+    public long started(Agent agent) {
+        statsFor(agent).inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void completed(Agent agent, long startedAt, boolean success) {
+        // Gone if the agent was unregistered mid-execution; do not bring it back
+        AgentStats agentStats = stats.get(agent.getName());
+        if (agentStats != null) {
+            long now = System.nanoTime();
+            agentStats.record(now, TimeUnit.NANOSECONDS.toMicros(now - startedAt) / 1000.0, success);
+        }
+    }
+
+    public Policy getPolicy(String taskType) {
+        if (taskType == null) {
+            return defaultPolicy;
+        }
+        Policy policy = policies.get(taskType);
+        if (policy != null) {
+            return policy;
+        }
+        // Only configured types are remembered, so arbitrary task types cannot grow the map
+        String configured = environment.getProperty("orchestrator.selection.policy." + taskType);
+        if (configured == null) {
+            return defaultPolicy;
+        }
+        try {
+            policy = Policy.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown selection policy '{}' for task type {}, using {}", configured, taskType, defaultPolicy);
+            policy = defaultPolicy;
+        }
+        policies.putIfAbsent(taskType, policy);
+        return policy;
+    }
+
+    public void setPolicy(String taskType, Policy policy) {
+        policies.put(taskType, policy);
+    }
+
+    public Map<String, Object> getMetrics() {
+        long now = System.nanoTime();
+        Map<String, Object> perAgent = new TreeMap<>();
+        stats.forEach((name, agentStats) -> perAgent.put(name, agentStats.snapshot(now)));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("defaultPolicy", defaultPolicy);
+        metrics.put("policiesByTaskType", new TreeMap<>(policies));
+        metrics.put("agents", perAgent);
+        return metrics;
+    }
+
+    private AgentStats statsFor(Agent agent) {
+        return stats.computeIfAbsent(agent.getName(), name -> new AgentStats());
+    }
+
+    private final class AgentStats {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Guarded by this
+        private double latencyMs;
+        private double errorRate;
+        private long lastUpdate;
+        private long executions;
+        private long failures;
+
+        synchronized void record(long now, double elapsedMs, boolean success) {
+            inFlight.decrementAndGet();
+            if (executions == 0) {
+                latencyMs = elapsedMs;
+                errorRate = success ? 0.0 : 1.0;
+            } else {
+                latencyMs += alpha * (elapsedMs - latencyMs);
+                errorRate += alpha * ((success ? 0.0 : 1.0) - errorRate);
+            }
+            executions++;
+            if (!success) failures++;
+            lastUpdate = now;
+        }
+
+        /** Lower is better; unseen agents score zero so they are tried early */
+        synchronized double score(long now) {
+            if (executions == 0) {
+                return inFlight.get();
+            }
+            double latency = latencyMs * decay(now);
+            return (latency + 1.0) * (inFlight.get() + 1) / successRate(now);
+        }
+
+        synchronized double successRate(long now) {
+            return Math.max(1.0 - errorRate * decay(now), MIN_SUCCESS_RATE);
+        }
+
+        private double decay(long now) {
+            return executions == 0 ? 0.0 : Math.exp(-(double) (now - lastUpdate) / decayNanos);
+        }
+
+        synchronized Map<String, Object> snapshot(long now) {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("inFlight", inFlight.get());
+            snapshot.put("ewmaLatencyMs", latencyMs);
+            snapshot.put("ewmaErrorRate", errorRate);
+            snapshot.put("executions", executions);
+            snapshot.put("failures", failures);
+            snapshot.put("score", score(now));
+            return snapshot;
+        }
+    }
+}
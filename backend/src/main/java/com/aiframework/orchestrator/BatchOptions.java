@@ -0,0 +1,41 @@
+package com.aiframework.orchestrator;
+
+/**
+ * Limits for a batch run. Unset values fall back to the orchestrator.batch.* defaults.
+ */
+public class BatchOptions {
+    private Integer maxConcurrency;
+    private Long taskTimeoutMs;
+    private Long batchTimeoutMs;
+    private boolean partialResults;
+
+    public BatchOptions() {}
+
+    public BatchOptions(Integer maxConcurrency, Long taskTimeoutMs, Long batchTimeoutMs, boolean partialResults) {
+        this.maxConcurrency = maxConcurrency;
+        this.taskTimeoutMs = taskTimeoutMs;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.partialResults = partialResults;
+    }
+
+    public static BatchOptions defaults() {
+        return new BatchOptions();
+    }
+
+    // Getters and Setters
+    public Integer getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(Integer maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+    public Long getTaskTimeoutMs() { return taskTimeoutMs; }
+    public void setTaskTimeoutMs(Long taskTimeoutMs) { this.taskTimeoutMs = taskTimeoutMs; }
+
+    public Long getBatchTimeoutMs() { return batchTimeoutMs; }
+    public void setBatchTimeoutMs(Long batchTimeoutMs) { this.batchTimeoutMs = batchTimeoutMs; }
+
+    /**
+     * When true, a batch that hits its deadline returns only the results that completed.
+     * When false, every unfinished task is reported as a failed result.
+     */
+    public boolean isPartialResults() { return partialResults; }
+    public void setPartialResults(boolean partialResults) { this.partialResults = partialResults; }
+}
@@ -0,0 +1,33 @@
+package com.aiframework.orchestrator;
+
+import com.aiframework.core.AgentResult;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch run. Results are in completion order.
+ */
+public class BatchResult {
+    private final List<AgentResult> results;
+    private final boolean complete;
+    private final int timedOutTasks;
+    private final int cancelledTasks;
+    private final long elapsedMs;
+
+    public BatchResult(List<AgentResult> results, boolean complete, int timedOutTasks, int cancelledTasks, long elapsedMs) {
+        this.results = results;
+        this.complete = complete;
+        this.timedOutTasks = timedOutTasks;
+        this.cancelledTasks = cancelledTasks;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<AgentResult> getResults() { return results; }
+
+    /** False when the batch deadline expired before every task finished */
+    public boolean isComplete() { return complete; }
+
+    public int getTimedOutTasks() { return timedOutTasks; }
+    public int getCancelledTasks() { return cancelledTasks; }
+    public long getElapsedMs() { return elapsedMs; }
+}
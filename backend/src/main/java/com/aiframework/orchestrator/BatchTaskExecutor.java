@@ -0,0 +1,238 @@
+package com.aiframework.orchestrator;
+
+import com.aiframework.core.AgentResult;
+import com.aiframework.core.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a batch of tasks through the priority scheduler with a sliding concurrency window.
+ *
+ * At most maxConcurrency tasks of a batch run at once; a new task is started as soon as
+ * one finishes. A worker may return a result still in flight, such as a task sent to another
+ * node; its scheduler thread is released right away and the task keeps its slot until the
+ * result arrives. Tasks running longer than the task timeout are cancelled (interrupted)
+ * and reported as failures. When the batch deadline passes, everything still running or
+ * queued is cancelled. Results are delivered to the listener in completion order.
+ *
+ * The orchestrator.batch.* settings are both the defaults and the upper limits: a caller
+ * may ask for less concurrency or shorter timeouts, never more.
+ */
+@Component
+public class BatchTaskExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(BatchTaskExecutor.class);
+
+    private static final String ORCHESTRATOR = "orchestrator";
+
+    private final PriorityTaskScheduler scheduler;
+
+    @Value("${orchestrator.batch.max-concurrency:16}")
+    private int defaultMaxConcurrency;
+
+    @Value("${orchestrator.batch.task-timeout-ms:30000}")
+    private long defaultTaskTimeoutMs;
+
+    @Value("${orchestrator.batch.timeout-ms:120000}")
+    private long defaultBatchTimeoutMs;
+
+    public BatchTaskExecutor(PriorityTaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public BatchResult execute(List<Task> tasks, Function<Task, CompletableFuture<AgentResult>> worker,
+                               BatchOptions options, Consumer<AgentResult> listener) {
+        int limit = (int) clamp(options.getMaxConcurrency(), defaultMaxConcurrency);
+        long taskTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(clamp(options.getTaskTimeoutMs(), defaultTaskTimeoutMs));
+        long batchTimeoutMs = clamp(options.getBatchTimeoutMs(), defaultBatchTimeoutMs);
+
+        long start = System.nanoTime();
+        long batchDeadline = start + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+
+        BlockingQueue<Future<AgentResult>> completion = new LinkedBlockingQueue<>();
+        Map<Future<AgentResult>, RunningTask> running = new HashMap<>();
+        Iterator<Task> pending = tasks.iterator();
+        List<AgentResult> results = new ArrayList<>(tasks.size());
+        Consumer<AgentResult> emit = result -> {
+            results.add(result);
+            notifyListener(listener, result);
+        };
+
+        int timedOut = 0;
+        int cancelled = 0;
+        boolean complete = true;
+
+        fill(completion, running, pending, worker, limit, emit);
+
+        while (!running.isEmpty()) {
+            long now = System.nanoTime();
+            if (now - batchDeadline >= 0) {
+                complete = false;
+                break;
+            }
+
+            // Wake up no later than the earliest task or batch deadline
+            long wait = batchDeadline - now;
+            for (RunningTask task : running.values()) {
+                // Tasks still queued in the pool may start at any moment
+                long taskDeadline = task.startedAt != 0 ? task.startedAt + taskTimeoutNanos : now + taskTimeoutNanos;
+                wait = Math.min(wait, taskDeadline - now);
+            }
+
+            Future<AgentResult> done;
+            try {
+                done = completion.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+                break;
+            }
+
+            if (done != null) {
+                // Futures cancelled below are also queued; they are no longer tracked
+                RunningTask finished = running.remove(done);
+                if (finished != null) {
+                    emit.accept(resultOf(done, finished.task));
+                }
+            }
+
+            now = System.nanoTime();
+            Iterator<Map.Entry<Future<AgentResult>, RunningTask>> it = running.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Future<AgentResult>, RunningTask> entry = it.next();
+                RunningTask task = entry.getValue();
+                if (task.startedAt != 0 && now - (task.startedAt + taskTimeoutNanos) >= 0) {
+                    cancel(entry.getKey(), task);
+                    it.remove();
+                    timedOut++;
+                    logger.warn("Task {} exceeded its {}ms deadline and was cancelled",
+                            task.task.getId(), TimeUnit.NANOSECONDS.toMillis(taskTimeoutNanos));
+                    emit.accept(AgentResult.failure(task.task.getId(), ORCHESTRATOR,
+                            "Task timed out after " + TimeUnit.NANOSECONDS.toMillis(taskTimeoutNanos) + "ms"));
+                }
+            }
+
+            fill(completion, running, pending, worker, limit, emit);
+        }
+
+        if (!complete) {
+            logger.warn("Batch deadline of {}ms expired with {} tasks running and more queued",
+                    batchTimeoutMs, running.size());
+            for (Map.Entry<Future<AgentResult>, RunningTask> entry : running.entrySet()) {
+                cancel(entry.getKey(), entry.getValue());
+                cancelled++;
+                if (!options.isPartialResults()) {
+                    emit.accept(AgentResult.failure(entry.getValue().task.getId(), ORCHESTRATOR,
+                            "Batch deadline exceeded"));
+                }
+            }
+            running.clear();
+            while (pending.hasNext()) {
+                Task task = pending.next();
+                cancelled++;
+                if (!options.isPartialResults()) {
+                    emit.accept(AgentResult.failure(task.getId(), ORCHESTRATOR,
+                            "Batch deadline exceeded before the task started"));
+                }
+            }
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Batch of {} tasks finished in {}ms (complete={}, timedOut={}, cancelled={})",
+                tasks.size(), elapsedMs, complete, timedOut, cancelled);
+
+        return new BatchResult(results, complete, timedOut, cancelled, elapsedMs);
+    }
+
+    private void fill(BlockingQueue<Future<AgentResult>> completion, Map<Future<AgentResult>, RunningTask> running,
+                      Iterator<Task> pending, Function<Task, CompletableFuture<AgentResult>> worker, int limit,
+                      Consumer<AgentResult> emit) {
+        while (running.size() < limit && pending.hasNext()) {
+            RunningTask task = new RunningTask(pending.next());
+            CompletableFuture<AgentResult> result = new CompletableFuture<>();
+            // The scheduler thread only runs the worker; the result may complete later
+            task.run = new FutureTask<>(() -> {
+                task.startedAt = System.nanoTime();
+                return worker.apply(task.task);
+            }) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) return;
+                    try {
+                        get().whenComplete((value, error) -> {
+                            if (error != null) {
+                                result.completeExceptionally(error);
+                            } else {
+                                result.complete(value);
+                            }
+                        });
+                    } catch (ExecutionException e) {
+                        result.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            // All tasks share one completion queue, cancelled ones included
+            result.whenComplete((value, error) -> completion.add(result));
+            try {
+                // Each task is dispatched under its own priority and user
+                scheduler.execute(task.task, task.run);
+                running.put(result, task);
+            } catch (RejectedExecutionException e) {
+                logger.error("Scheduler rejected task {}", task.task.getId());
+                emit.accept(AgentResult.failure(task.task.getId(), ORCHESTRATOR, "Task rejected: " + e.getMessage()));
+            }
+        }
+    }
+
+    /** Interrupt the worker if it is still running and stop waiting for its result */
+    private static void cancel(Future<AgentResult> result, RunningTask task) {
+        task.run.cancel(true);
+        result.cancel(true);
+    }
+
+    private AgentResult resultOf(Future<AgentResult> future, Task task) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return AgentResult.failure(task.getId(), ORCHESTRATOR, "Error processing task: " + cause.getMessage());
+        } catch (InterruptedException | CancellationException e) {
+            return AgentResult.failure(task.getId(), ORCHESTRATOR, "Task was cancelled");
+        }
+    }
+
+    /**
+     * Caller-supplied limit, or the configured one when unset; never above the configured one
+     */
+    private static long clamp(Number requested, long configured) {
+        long max = Math.max(1, configured);
+        return requested == null ? max : Math.min(Math.max(1, requested.longValue()), max);
+    }
+
+    private void notifyListener(Consumer<AgentResult> listener, AgentResult result) {
+        try {
+            listener.accept(result);
+        } catch (Exception e) {
+            // A disconnected stream consumer must not stop the batch
+            logger.debug("Batch result listener failed for task {}: {}", result.getTaskId(), e.getMessage());
+        }
+    }
+
+    private static final class RunningTask {
+        private final Task task;
+        private volatile long startedAt;
+        private FutureTask<CompletableFuture<AgentResult>> run;
+
+        RunningTask(Task task) {
+            this.task = task;
+        }
+    }
+}
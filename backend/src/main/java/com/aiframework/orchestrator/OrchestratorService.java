@@ -6,6 +6,7 @@ import com.aiframework.core.Task;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Interface for orchestrating tasks across multiple agents
@@ -31,6 +32,19 @@ public interface OrchestratorService {
      */
     CompletableFuture<List<AgentResult>> processTasksAsync(List<Task> tasks, AgentContext context);
 
+    /**
+     * Process multiple tasks in parallel with explicit limits, passing each result to the
+     * listener as soon as it completes
+     */
+    BatchResult processTasks(List<Task> tasks, AgentContext context, BatchOptions options,
+                             Consumer<AgentResult> listener);
+
+    /**
+     * Asynchronous variant of the bounded batch run
+     */
+    CompletableFuture<BatchResult> processTasksAsync(List<Task> tasks, AgentContext context, BatchOptions options,
+                                                     Consumer<AgentResult> listener);
+
     /**
      * Decompose a complex task into subtasks (LLM integration point)
      */
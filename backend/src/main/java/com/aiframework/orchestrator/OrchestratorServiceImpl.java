@@ -1,18 +1,22 @@
 package com.aiframework.orchestrator;
 
+import com.aiframework.cluster.ClusterTransport;
 import com.aiframework.core.*;
 import com.aiframework.manager.AgentManager;
 import com.aiframework.communication.AgentCommunicationProtocol;
 import com.aiframework.context.ContextStore;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Implementation of OrchestratorService
@@ -24,17 +28,49 @@ public class OrchestratorServiceImpl implements OrchestratorService {
     private final AgentManager agentManager;
     private final AgentCommunicationProtocol communicationProtocol;
     private final ContextStore contextStore;
+    private final BatchTaskExecutor batchExecutor;
+    private final PriorityTaskScheduler scheduler;
+    private final AgentLoadBalancer loadBalancer;
+    private final ObjectProvider<ClusterTransport> clusterProvider;
+    private ClusterTransport cluster;
 
     public OrchestratorServiceImpl(AgentManager agentManager, 
                                  AgentCommunicationProtocol communicationProtocol,
-                                 ContextStore contextStore) {
+                                 ContextStore contextStore,
+                                 BatchTaskExecutor batchExecutor,
+                                 PriorityTaskScheduler scheduler,
+                                 AgentLoadBalancer loadBalancer,
+                                 ObjectProvider<ClusterTransport> clusterProvider) {
         this.agentManager = agentManager;
         this.communicationProtocol = communicationProtocol;
         this.contextStore = contextStore;
+        this.batchExecutor = batchExecutor;
+        this.scheduler = scheduler;
+        this.loadBalancer = loadBalancer;
+        this.clusterProvider = clusterProvider;
+    }
+
+    @PostConstruct
+    public void joinCluster() {
+        cluster = clusterProvider.getIfAvailable();
+        if (cluster != null) {
+            // Tasks routed here by other nodes only run on local agents, so they never bounce
+            cluster.setTaskHandler((task, context) -> dispatch(task, context, false).join());
+        }
     }
 
     @Override
     public AgentResult processTask(Task task, AgentContext context) {
+        // Synchronous callers wait for a remote result; worker threads compose on dispatch instead
+        return dispatch(task, context, cluster != null).join();
+    }
+
+    /**
+     * Run the task on a local agent, completing the future before returning, or send it to a
+     * node that can handle it and complete when the response arrives. The future never
+     * fails: errors are reported as failed results.
+     */
+    private CompletableFuture<AgentResult> dispatch(Task task, AgentContext context, boolean routeToCluster) {
         logger.info("Processing task: {} of type: {}", task.getId(), task.getType());
 
         long startTime = System.currentTimeMillis();
@@ -48,66 +84,89 @@ public class OrchestratorServiceImpl implements OrchestratorService {
             // Find capable agents
             List<Agent> capableAgents = agentManager.getCapableAgents(task.getType());
 
-            if (capableAgents.isEmpty()) {
+            Optional<String> remoteNode = capableAgents.isEmpty() && routeToCluster
+                ? cluster.findNodeForTaskType(task.getType()) : Optional.empty();
+
+            if (capableAgents.isEmpty() && remoteNode.isEmpty()) {
                 logger.warn("No agents found capable of handling task type: {}", task.getType());
-                return AgentResult.failure(task.getId(), "orchestrator", 
-                    "No agents found capable of handling task type: " + task.getType());
+                return CompletableFuture.completedFuture(AgentResult.failure(task.getId(), "orchestrator",
+                    "No agents found capable of handling task type: " + task.getType()));
+            }
+
+            if (remoteNode.isPresent()) {
+                // No local agent handles this type; run it on a node whose agents do, without
+                // holding this thread while it runs
+                String node = remoteNode.get();
+                return cluster.executeRemote(node, task, context)
+                    .thenApply(result -> completed(task, result, result.getAgentName() + "@" + node, startTime))
+                    .exceptionally(error -> failed(task,
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                        startTime));
             }
 
-            // Select the best agent (for now, just pick the first one)
+            // Select the best agent by load, latency and error rate
             Agent selectedAgent = selectBestAgent(capableAgents, task);
 
             // Execute the task
-            AgentResult result = selectedAgent.execute(task, context);
+            AgentResult result;
+            long startedAt = loadBalancer.started(selectedAgent);
+            boolean succeeded = false;
+            try {
+                result = selectedAgent.execute(task, context);
+                succeeded = result != null && result.isSuccess();
+            } finally {
+                loadBalancer.completed(selectedAgent, startedAt, succeeded);
+            }
+            return CompletableFuture.completedFuture(completed(task, result, selectedAgent.getName(), startTime));
 
-            // Update execution time
-            result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failed(task, e, startTime));
+        }
+    }
 
-            // Store result using the new ContextStore interface
-            contextStore.storeContext(task.getId(), "result", result);
-            contextStore.storeContext(task.getId(), "executedBy", selectedAgent.getName());
-            contextStore.storeContext(task.getId(), "status", "completed");
+    private AgentResult completed(Task task, AgentResult result, String executedBy, long startTime) {
+        // Update execution time
+        result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
 
-            // Send communication protocol message
-            communicationProtocol.notifyTaskCompleted(task, result);
+        // Store result using the new ContextStore interface
+        contextStore.storeContext(task.getId(), "result", result);
+        contextStore.storeContext(task.getId(), "executedBy", executedBy);
+        contextStore.storeContext(task.getId(), "status", "completed");
 
-            logger.info("Task {} completed by agent {} in {}ms", 
-                task.getId(), selectedAgent.getName(), result.getExecutionTimeMs());
+        // Send communication protocol message
+        communicationProtocol.notifyTaskCompleted(task, result);
 
-            return result;
+        logger.info("Task {} completed by agent {} in {}ms", 
+            task.getId(), executedBy, result.getExecutionTimeMs());
 
-        } catch (Exception e) {
-            logger.error("Error processing task: {}", task.getId(), e);
-            AgentResult errorResult = AgentResult.failure(task.getId(), "orchestrator", 
-                "Error processing task: " + e.getMessage());
-            errorResult.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+        return result;
+    }
 
-            // Store error result
-            contextStore.storeContext(task.getId(), "result", errorResult);
-            contextStore.storeContext(task.getId(), "status", "failed");
-            contextStore.storeContext(task.getId(), "error", e.getMessage());
+    private AgentResult failed(Task task, Throwable e, long startTime) {
+        logger.error("Error processing task: {}", task.getId(), e);
+        AgentResult errorResult = AgentResult.failure(task.getId(), "orchestrator", 
+            "Error processing task: " + e.getMessage());
+        errorResult.setExecutionTimeMs(System.currentTimeMillis() - startTime);
 
-            return errorResult;
-        }
+        // Store error result
+        contextStore.storeContext(task.getId(), "result", errorResult);
+        contextStore.storeContext(task.getId(), "status", "failed");
+        contextStore.storeContext(task.getId(), "error", e.getMessage());
+
+        return errorResult;
     }
 
     @Override
-    @Async
     public CompletableFuture<AgentResult> processTaskAsync(Task task, AgentContext context) {
-        return CompletableFuture.completedFuture(processTask(task, context));
+        // Dispatched by priority and user rather than FIFO on the shared async pool; a task sent
+        // to another node frees its worker as soon as the request is on the wire
+        return scheduler.submit(task, () -> dispatch(task, context, cluster != null))
+            .thenCompose(result -> result);
     }
 
     @Override
     public List<AgentResult> processTasks(List<Task> tasks, AgentContext context) {
-        logger.info("Processing {} tasks in parallel", tasks.size());
-
-        List<CompletableFuture<AgentResult>> futures = tasks.stream()
-            .map(task -> processTaskAsync(task, context))
-            .collect(Collectors.toList());
-
-        return futures.stream()
-            .map(CompletableFuture::join)
-            .collect(Collectors.toList());
+        return processTasks(tasks, context, BatchOptions.defaults(), result -> { }).getResults();
     }
 
     @Override
@@ -116,6 +175,22 @@ public class OrchestratorServiceImpl implements OrchestratorService {
         return CompletableFuture.completedFuture(processTasks(tasks, context));
     }
 
+    @Override
+    public BatchResult processTasks(List<Task> tasks, AgentContext context, BatchOptions options,
+                                    Consumer<AgentResult> listener) {
+        logger.info("Processing {} tasks in parallel", tasks.size());
+
+        // Calling processTaskAsync from here would bypass the @Async proxy and run serially
+        return batchExecutor.execute(tasks, task -> dispatch(task, context, cluster != null), options, listener);
+    }
+
+    @Override
+    @Async
+    public CompletableFuture<BatchResult> processTasksAsync(List<Task> tasks, AgentContext context, BatchOptions options,
+                                                            Consumer<AgentResult> listener) {
+        return CompletableFuture.completedFuture(processTasks(tasks, context, options, listener));
+    }
+
     @Override
     public List<Task> decomposeTask(Task complexTask, AgentContext context) {
         // TODO: Integrate with LLM for intelligent task decomposition
@@ -125,15 +200,9 @@ public class OrchestratorServiceImpl implements OrchestratorService {
     }
 
     private Agent selectBestAgent(List<Agent> capableAgents, Task task) {
-        // Simple selection strategy - could be enhanced with:
-        // - Agent load balancing
-        // - Agent performance metrics
+        // Could still be enhanced with:
         // - Task priority matching
         // - Agent specialization scoring
-
-        return capableAgents.stream()
-            .filter(agent -> agent.getStatus() == AgentStatus.READY)
-            .findFirst()
-            .orElse(capableAgents.get(0));
+        return loadBalancer.select(capableAgents, task);
     }
 }
@@ -0,0 +1,289 @@
+package com.aiframework.orchestrator;
+
+import com.aiframework.core.Task;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Priority- and fairness-aware dispatcher for agent work.
+ *
+ * Work is queued per user and per Task.Priority. Workers always take from the highest
+ * non-empty priority level and rotate round-robin between users within a level, so one
+ * user's bulk batch cannot hold back other users' work of the same or higher priority.
+ * Entries that wait longer than the aging interval are promoted one level at a time,
+ * which guarantees LOW work eventually runs even under sustained URGENT load.
+ */
+@Component
+public class PriorityTaskScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(PriorityTaskScheduler.class);
+
+    private static final Task.Priority[] LEVELS = Task.Priority.values();
+    private static final String ANONYMOUS = "anonymous";
+
+    private final long agingIntervalNanos;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // All guarded by lock
+    private final Map<String, UserQueue> users = new HashMap<>();
+    private final List<ArrayDeque<UserQueue>> rotation = new ArrayList<>();
+    private final int[] depthByLevel = new int[LEVELS.length];
+    private final long[] dispatchedByLevel = new long[LEVELS.length];
+    private final long[] totalWaitNanosByLevel = new long[LEVELS.length];
+    private final long[] maxWaitNanosByLevel = new long[LEVELS.length];
+    private long promotions;
+    private long lastAgingSweep;
+    private boolean shutdown;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    public PriorityTaskScheduler(@Value("${orchestrator.scheduler.workers:32}") int workerCount,
+                                 @Value("${orchestrator.scheduler.aging-interval-ms:5000}") long agingIntervalMs) {
+        this.agingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(agingIntervalMs, 1));
+        for (int i = 0; i < LEVELS.length; i++) {
+            rotation.add(new ArrayDeque<>());
+        }
+        for (int i = 0; i < Math.max(workerCount, 1); i++) {
+            Thread worker = new Thread(this::workLoop, "AgentScheduler-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queue work on behalf of a task; its priority and userId decide when it runs
+     */
+    public void execute(Task task, Runnable command) {
+        Task.Priority priority = task.getPriority() != null ? task.getPriority() : Task.Priority.MEDIUM;
+        String userId = task.getUserId() != null ? task.getUserId() : ANONYMOUS;
+        Entry entry = new Entry(command, priority.ordinal(), System.nanoTime());
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler has been shut down");
+            }
+            UserQueue queue = users.computeIfAbsent(userId, UserQueue::new);
+            enqueue(queue, entry);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Task task, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(task, () -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(work.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(UserQueue queue, Entry entry) {
+        ArrayDeque<Entry> level = queue.levels[entry.level];
+        if (level.isEmpty()) {
+            rotation.get(entry.level).addLast(queue);
+        }
+        level.addLast(entry);
+        depthByLevel[entry.level]++;
+    }
+
+    private void workLoop() {
+        while (true) {
+            Entry entry;
+            lock.lock();
+            try {
+                while ((entry = next()) == null) {
+                    if (shutdown) return;
+                    available.await(agingIntervalNanos, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                // A late cancellation interrupt must not retire the worker
+                if (shutdown) return;
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            activeWorkers.incrementAndGet();
+            try {
+                entry.command.run();
+            } catch (Throwable t) {
+                logger.error("Scheduled task failed: {}", t.getMessage(), t);
+            } finally {
+                activeWorkers.decrementAndGet();
+                // Drop a stale interrupt left by a cancelled task
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /** Pick the next entry; caller holds the lock */
+    private Entry next() {
+        long now = System.nanoTime();
+        if (now - lastAgingSweep >= agingIntervalNanos / 4) {
+            age(now);
+            lastAgingSweep = now;
+        }
+
+        for (int level = LEVELS.length - 1; level >= 0; level--) {
+            ArrayDeque<UserQueue> ring = rotation.get(level);
+            UserQueue queue = ring.pollFirst();
+            if (queue == null) continue;
+
+            ArrayDeque<Entry> entries = queue.levels[level];
+            Entry entry = entries.pollFirst();
+            if (!entries.isEmpty()) {
+                ring.addLast(queue);
+            }
+            depthByLevel[level]--;
+
+            long waited = now - entry.enqueuedAt;
+            int original = entry.originalLevel;
+            dispatchedByLevel[original]++;
+            totalWaitNanosByLevel[original] += waited;
+            maxWaitNanosByLevel[original] = Math.max(maxWaitNanosByLevel[original], waited);
+
+            if (queue.isEmpty()) {
+                users.remove(queue.userId);
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    /** Promote entries that have waited a full aging interval at their current level */
+    private void age(long now) {
+        for (int level = LEVELS.length - 2; level >= 0; level--) {
+            ArrayDeque<UserQueue> ring = rotation.get(level);
+            for (Iterator<UserQueue> it = ring.iterator(); it.hasNext(); ) {
+                UserQueue queue = it.next();
+                ArrayDeque<Entry> entries = queue.levels[level];
+                // Entries within a level are FIFO, so only the head run can be due
+                while (!entries.isEmpty() && now - entries.peekFirst().levelSince >= agingIntervalNanos) {
+                    Entry entry = entries.pollFirst();
+                    depthByLevel[level]--;
+                    entry.level = level + 1;
+                    entry.levelSince = now;
+                    enqueue(queue, entry);
+                    promotions++;
+                }
+                if (entries.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Map<String, Object> depth = new LinkedHashMap<>();
+        Map<String, Object> waits = new LinkedHashMap<>();
+        Map<String, Integer> perUser = new TreeMap<>();
+
+        lock.lock();
+        try {
+            int total = 0;
+            for (int level = LEVELS.length - 1; level >= 0; level--) {
+                depth.put(LEVELS[level].name(), depthByLevel[level]);
+                total += depthByLevel[level];
+
+                Map<String, Object> wait = new LinkedHashMap<>();
+                long dispatched = dispatchedByLevel[level];
+                wait.put("dispatched", dispatched);
+                wait.put("averageWaitMs", dispatched == 0 ? 0.0
+                        : totalWaitNanosByLevel[level] / 1_000_000.0 / dispatched);
+                wait.put("maxWaitMs", maxWaitNanosByLevel[level] / 1_000_000.0);
+                waits.put(LEVELS[level].name(), wait);
+            }
+            for (UserQueue queue : users.values()) {
+                perUser.put(queue.userId, queue.size());
+            }
+            metrics.put("queueDepth", total);
+            metrics.put("queueDepthByPriority", depth);
+            metrics.put("queueDepthByUser", perUser);
+            metrics.put("waitTimeByPriority", waits);
+            metrics.put("promotions", promotions);
+        } finally {
+            lock.unlock();
+        }
+        metrics.put("workers", workers.size());
+        metrics.put("activeWorkers", activeWorkers.get());
+        metrics.put("agingIntervalMs", TimeUnit.NANOSECONDS.toMillis(agingIntervalNanos));
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private static final class Entry {
+        private final Runnable command;
+        private final int originalLevel;
+        private final long enqueuedAt;
+        private int level;
+        private long levelSince;
+
+        Entry(Runnable command, int level, long enqueuedAt) {
+            this.command = command;
+            this.originalLevel = level;
+            this.level = level;
+            this.enqueuedAt = enqueuedAt;
+            this.levelSince = enqueuedAt;
+        }
+    }
+
+    private static final class UserQueue {
+        private final String userId;
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<Entry>[] levels = new ArrayDeque[LEVELS.length];
+
+        UserQueue(String userId) {
+            this.userId = userId;
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new ArrayDeque<>();
+            }
+        }
+
+        boolean isEmpty() {
+            for (ArrayDeque<Entry> level : levels) {
+                if (!level.isEmpty()) return false;
+            }
+            return true;
+        }
+
+        int size() {
+            int size = 0;
+            for (ArrayDeque<Entry> level : levels) size += level.size();
+            return size;
+        }
+    }
+}
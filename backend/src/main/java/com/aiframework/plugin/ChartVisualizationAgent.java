@@ -31,6 +31,11 @@ public class ChartVisualizationAgent implements Agent {
         return "Creates interactive charts and visualizations from stock data, sentiment analysis, and other data sources";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("CHART_CREATION", "VISUALIZATION");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
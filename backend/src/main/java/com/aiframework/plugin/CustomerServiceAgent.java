@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -37,6 +38,11 @@ public class CustomerServiceAgent implements Agent {
         return "Handles customer inquiries, complaints, and support requests";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("customer_service", "support", "inquiry", "complaint");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         return "customer_service".equalsIgnoreCase(task.getType()) ||
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -27,6 +28,11 @@ public class DataAnalysisAgent implements Agent {
         return "Analyzes data and provides insights, statistics, and visualizations";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("data_analysis", "statistics", "visualization");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         return "data_analysis".equalsIgnoreCase(task.getType()) ||
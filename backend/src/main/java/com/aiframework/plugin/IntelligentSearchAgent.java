@@ -70,6 +70,11 @@ public class IntelligentSearchAgent implements Agent {
         return "Advanced search agent providing comprehensive, real-time answers with source citations and location awareness";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("SEARCH", "WEB_SEARCH", "RESEARCH", "QUESTION_ANSWERING");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
@@ -36,6 +36,17 @@ public class InteractiveMapPlugin implements Agent {
         return "Interactive map visualization plugin that automatically displays maps based on search context and sentiment analysis";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("MAP_VISUALIZATION", "LOCATION_DISPLAY", "CHART_CREATION");
+    }
+
+    @Override
+    public boolean hasDynamicCapabilities() {
+        // canHandle also depends on shared location context
+        return true;
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
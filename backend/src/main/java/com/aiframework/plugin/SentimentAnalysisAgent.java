@@ -40,6 +40,11 @@ public class SentimentAnalysisAgent implements Agent {
         return "Analyzes market sentiment from news articles, social media, and financial reports";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("SENTIMENT_ANALYSIS", "MARKET_SENTIMENT");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
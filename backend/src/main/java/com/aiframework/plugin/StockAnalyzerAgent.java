@@ -2,6 +2,7 @@ package com.aiframework.plugin;
 
 import com.aiframework.core.*;
 import com.aiframework.context.ContextStore;
+import com.aiframework.dto.BarSeries;
 import com.aiframework.service.YahooFinanceService;
 import com.aiframework.service.TechnicalIndicatorService;
 import com.aiframework.service.PatternRecognitionService;
@@ -35,6 +36,11 @@ public class StockAnalyzerAgent implements Agent {
         return "Advanced stock analysis with technical indicators, sentiment analysis, and trading signals";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("STOCK_ANALYSIS", "FINANCIAL_ANALYSIS");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
@@ -242,7 +248,7 @@ public class StockAnalyzerAgent implements Agent {
     private Map<String, Object> performTechnicalAnalysis(String symbol, String indicators) {
         try {
             // Get real historical data
-            List<Map<String, Object>> historicalData = yahooFinanceService.getHistoricalData(symbol, "3mo");
+            BarSeries historicalData = yahooFinanceService.getHistoricalBars(symbol, "3mo");
             
             // Calculate real technical indicators
             Map<String, Object> technical = technicalIndicatorService.calculateIndicators(historicalData, indicators);
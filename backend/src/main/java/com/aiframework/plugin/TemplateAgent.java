@@ -42,6 +42,11 @@ public class TemplateAgent implements Agent {
         return "Template agent demonstrating plugin creation structure";
     }
 
+    @Override
+    public Set<String> getSupportedTaskTypes() {
+        return Set.of("TEMPLATE_TASK");
+    }
+
     @Override
     public boolean canHandle(Task task) {
         if (task.getType() == null) return false;
@@ -1,5 +1,8 @@
 package com.aiframework.service;
 
+import com.aiframework.cache.BoundedCache;
+import com.aiframework.dto.BarSeries;
+import com.aiframework.dto.IndicatorSeries;
 import com.aiframework.dto.StockQuote;
 import com.aiframework.dto.TechnicalIndicators;
 import com.aiframework.dto.TradingSignal;
@@ -12,6 +15,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -21,14 +25,23 @@ public class AdvancedStockAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(AdvancedStockAnalysisService.class);
 
     private final WebClient webClient;
-    private final Map<String, List<Map<String, Object>>> symbolToData = new HashMap<>();
+    private final StreamingIndicatorService streamingIndicators;
+    private final IndicatorSeriesService indicatorSeries;
+    private final BoundedCache<String, BarSeries> barCache;
 
     @Value("${stock.api.alpha-vantage.key:demo}")
     private String alphaVantageApiKey;
 
     private static final String ALPHA_VANTAGE_BASE_URL = "https://www.alphavantage.co/query";
 
-    public AdvancedStockAnalysisService() {
+    public AdvancedStockAnalysisService(StreamingIndicatorService streamingIndicators,
+                                        IndicatorSeriesService indicatorSeries,
+                                        @Value("${stock.cache.bars.max-bytes:33554432}") long barCacheMaxBytes,
+                                        @Value("${stock.cache.bars.ttl-seconds:300}") long barCacheTtlSeconds) {
+        this.streamingIndicators = streamingIndicators;
+        this.indicatorSeries = indicatorSeries;
+        this.barCache = new BoundedCache<>("historical-bars", barCacheMaxBytes,
+                Duration.ofSeconds(barCacheTtlSeconds), BarSeries::getRetainedBytes);
         this.webClient = WebClient.builder()
                 .baseUrl(ALPHA_VANTAGE_BASE_URL)
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
@@ -51,7 +64,11 @@ public class AdvancedStockAnalysisService {
                         .timeout(Duration.ofSeconds(10))
                         .block();
 
-                return parseQuoteResponse(symbol, response);
+                StockQuote quote = parseQuoteResponse(symbol, response);
+                if (!"MOCK".equals(quote.getMarketStatus())) {
+                    streamingIndicators.onQuote(quote); // Keep live indicators current
+                }
+                return quote;
             } catch (WebClientException e) {
                 logger.error("API call failed for symbol {}: {}", symbol, e.getMessage());
                 throw new StockDataException("Failed to fetch quote for " + symbol, e);
@@ -63,6 +80,18 @@ public class AdvancedStockAnalysisService {
     }
 
     public CompletableFuture<List<Map<String, Object>>> getHistoricalData(String symbol, String interval, String outputSize) {
+        return getHistoricalBars(symbol, interval, outputSize).thenApply(BarSeries::toMaps);
+    }
+
+    /**
+     * Daily bars for a symbol. Results are cached per (symbol, output size) and concurrent
+     * misses share one upstream request to stay within the Alpha Vantage quota.
+     */
+    public CompletableFuture<BarSeries> getHistoricalBars(String symbol, String interval, String outputSize) {
+        return barCache.get(symbol + "|" + outputSize, key -> fetchHistoricalBars(symbol, outputSize));
+    }
+
+    private CompletableFuture<BarSeries> fetchHistoricalBars(String symbol, String outputSize) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 @SuppressWarnings("unchecked")
@@ -78,32 +107,57 @@ public class AdvancedStockAnalysisService {
                         .timeout(Duration.ofSeconds(10))
                         .block();
 
-                List<Map<String, Object>> data = parseHistoricalData(symbol, response);
-                symbolToData.put(symbol, data); // Cache for technical analysis
+                BarSeries data = parseHistoricalData(symbol, response);
+                onBarsLoaded(data);
                 return data;
             } catch (Exception e) {
                 logger.error("Failed to fetch historical data for {}: {}", symbol, e.getMessage());
-                List<Map<String, Object>> mockData = createMockHistoricalData();
-                symbolToData.put(symbol, mockData);
+                BarSeries mockData = createMockHistoricalData(symbol);
+                onBarsLoaded(mockData);
                 return mockData;
             }
         });
     }
 
+    /**
+     * Cached daily bars for a symbol, loading them on first use
+     */
+    public BarSeries getBars(String symbol) {
+        return getHistoricalBars(symbol, "daily", "compact").join();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return barCache.getStats();
+    }
+
+    /**
+     * Full indicator curves for chart overlays, served from the memoized series cache
+     */
+    public List<IndicatorSeries> getIndicatorSeries(String symbol, List<String> specs) {
+        return indicatorSeries.getSeries(getBars(symbol), specs);
+    }
+
+    private void onBarsLoaded(BarSeries data) {
+        streamingIndicators.seed(data);
+        indicatorSeries.invalidate(data.getSymbol());
+    }
+
     public TechnicalIndicators calculateTechnicalIndicators(String symbol) {
-        List<Map<String, Object>> data = symbolToData.get(symbol);
+        BarSeries data = null;
 
-        // If no data exists, try to fetch it first
-        if (data == null) {
-            logger.info("No cached data for {}, attempting to fetch historical data", symbol);
-            try {
-                data = getHistoricalData(symbol, "daily", "compact").get();
-                symbolToData.put(symbol, data);
-            } catch (Exception e) {
-                logger.warn("Failed to fetch data for technical analysis of {}: {}", symbol, e.getMessage());
-            }
+        // Served from the bar cache; fetched on a miss
+        try {
+            data = getHistoricalBars(symbol, "daily", "compact").get();
+        } catch (Exception e) {
+            logger.warn("Failed to fetch data for technical analysis of {}: {}", symbol, e.getMessage());
         }
+        return calculateTechnicalIndicators(symbol, data);
+    }
 
+    /**
+     * Indicators for bars the caller has already loaded
+     */
+    public TechnicalIndicators calculateTechnicalIndicators(String symbol, BarSeries data) {
         // Check if we have sufficient data
         if (data == null || data.size() < 20) { // Reduced minimum from 50 to 20
             logger.warn("Insufficient data for technical analysis of {} (have: {} data points, need: 20)",
@@ -111,6 +165,12 @@ public class AdvancedStockAnalysisService {
             return createEnhancedMockTechnicalIndicators(symbol);
         }
 
+        // Seeded symbols are kept current incrementally, so this is a constant-time snapshot
+        TechnicalIndicators live = streamingIndicators.getIndicators(symbol);
+        if (live != null) {
+            return live;
+        }
+
         TechnicalIndicators indicators = new TechnicalIndicators(symbol);
 
         try {
@@ -125,9 +185,15 @@ public class AdvancedStockAnalysisService {
     }
 
     public TradingSignal generateTradingSignal(String symbol) {
+        CompletableFuture<StockQuote> quote = getRealTimeQuote(symbol);
         TechnicalIndicators indicators = calculateTechnicalIndicators(symbol);
-        StockQuote quote = getRealTimeQuote(symbol).join();
+        return generateTradingSignal(symbol, quote.join(), indicators);
+    }
 
+    /**
+     * Score a signal from a quote and indicators the caller has already computed
+     */
+    public TradingSignal generateTradingSignal(String symbol, StockQuote quote, TechnicalIndicators indicators) {
         TradingSignal signal = new TradingSignal(symbol, TradingSignal.SignalType.HOLD, TradingSignal.SignalStrength.WEAK, 0.5);
 
         List<String> reasons = new ArrayList<>();
@@ -209,41 +275,41 @@ public class AdvancedStockAnalysisService {
     }
 
     // Technical Analysis Helper Methods
-    private Double calculateSMA(List<Double> prices, int period) {
-        if (prices.size() < period) return null;
-        return prices.subList(prices.size() - period, prices.size())
-                .stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    private Double calculateSMA(double[] prices, int period) {
+        if (prices.length < period || period <= 0) return null;
+        double sum = 0;
+        for (int i = prices.length - period; i < prices.length; i++) {
+            sum += prices[i];
+        }
+        return sum / period;
     }
 
-    private Double calculateEMA(List<Double> prices, int period) {
-        if (prices.size() < period) return null;
+    private Double calculateEMA(double[] prices, int period) {
+        if (prices.length < period || prices.length == 0) return null;
 
         double multiplier = 2.0 / (period + 1);
-        double ema = prices.get(0);
+        double ema = prices[0];
 
-        for (int i = 1; i < prices.size(); i++) {
-            ema = (prices.get(i) * multiplier) + (ema * (1 - multiplier));
+        for (int i = 1; i < prices.length; i++) {
+            ema = (prices[i] * multiplier) + (ema * (1 - multiplier));
         }
 
         return ema;
     }
 
-    private Double calculateRSI(List<Double> prices, int period) {
-        if (prices.size() < period + 1) return null;
+    private Double calculateRSI(double[] prices, int period) {
+        if (prices.length < period + 1) return null;
 
-        List<Double> gains = new ArrayList<>();
-        List<Double> losses = new ArrayList<>();
-
-        for (int i = 1; i < prices.size(); i++) {
-            double change = prices.get(i) - prices.get(i - 1);
-            gains.add(change > 0 ? change : 0);
-            losses.add(change < 0 ? Math.abs(change) : 0);
+        // Simple average of the gains and losses over the last `period` changes
+        double avgGain = 0;
+        double avgLoss = 0;
+        for (int i = prices.length - period; i < prices.length; i++) {
+            double change = prices[i] - prices[i - 1];
+            if (change > 0) avgGain += change;
+            else avgLoss -= change;
         }
-
-        double avgGain = gains.subList(gains.size() - period, gains.size())
-                .stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double avgLoss = losses.subList(losses.size() - period, losses.size())
-                .stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        avgGain /= period;
+        avgLoss /= period;
 
         if (avgLoss == 0) return 100.0;
 
@@ -251,7 +317,7 @@ public class AdvancedStockAnalysisService {
         return 100 - (100 / (1 + rs));
     }
 
-    private double[] calculateMACD(List<Double> prices) {
+    private double[] calculateMACD(double[] prices) {
         Double ema12 = calculateEMA(prices, 12);
         Double ema26 = calculateEMA(prices, 26);
 
@@ -263,13 +329,17 @@ public class AdvancedStockAnalysisService {
         return new double[]{macd, signal};
     }
 
-    private double[] calculateStochastic(List<Double> closes, List<Double> highs, List<Double> lows, int period) {
-        if (closes.size() < period) return new double[]{50, 50};
+    private double[] calculateStochastic(double[] closes, double[] highs, double[] lows, int period) {
+        if (closes.length < period || period <= 0) return new double[]{50, 50};
 
-        int start = closes.size() - period;
-        double highestHigh = highs.subList(start, closes.size()).stream().mapToDouble(Double::doubleValue).max().orElse(0);
-        double lowestLow = lows.subList(start, closes.size()).stream().mapToDouble(Double::doubleValue).min().orElse(0);
-        double currentClose = closes.get(closes.size() - 1);
+        int start = closes.length - period;
+        double highestHigh = Double.NEGATIVE_INFINITY;
+        double lowestLow = Double.POSITIVE_INFINITY;
+        for (int i = start; i < closes.length; i++) {
+            highestHigh = Math.max(highestHigh, highs[i]);
+            lowestLow = Math.min(lowestLow, lows[i]);
+        }
+        double currentClose = closes[closes.length - 1];
 
         double k = ((currentClose - lowestLow) / (highestHigh - lowestLow)) * 100;
         double d = k; // Simplified - should be SMA of %K
@@ -277,15 +347,15 @@ public class AdvancedStockAnalysisService {
         return new double[]{k, d};
     }
 
-    private double[] calculateBollingerBands(List<Double> prices, int period, double stdDev) {
+    private double[] calculateBollingerBands(double[] prices, int period, double stdDev) {
         Double sma = calculateSMA(prices, period);
         if (sma == null) return new double[]{0, 0, 0};
 
-        List<Double> recentPrices = prices.subList(prices.size() - period, prices.size());
-        double variance = recentPrices.stream()
-                .mapToDouble(price -> Math.pow(price - sma, 2))
-                .average().orElse(0);
-        double stdDeviation = Math.sqrt(variance);
+        double variance = 0;
+        for (int i = prices.length - period; i < prices.length; i++) {
+            variance += (prices[i] - sma) * (prices[i] - sma);
+        }
+        double stdDeviation = Math.sqrt(variance / period);
 
         double upper = sma + (stdDeviation * stdDev);
         double lower = sma - (stdDeviation * stdDev);
@@ -293,18 +363,19 @@ public class AdvancedStockAnalysisService {
         return new double[]{upper, sma, lower};
     }
 
-    private Double calculateATR(List<Double> highs, List<Double> lows, List<Double> closes, int period) {
-        if (highs.size() < period + 1) return null;
+    private Double calculateATR(double[] highs, double[] lows, double[] closes, int period) {
+        if (highs.length < period + 1 || period <= 0) return null;
 
-        List<Double> trueRanges = new ArrayList<>();
-        for (int i = 1; i < highs.size(); i++) {
-            double tr1 = highs.get(i) - lows.get(i);
-            double tr2 = Math.abs(highs.get(i) - closes.get(i - 1));
-            double tr3 = Math.abs(lows.get(i) - closes.get(i - 1));
-            trueRanges.add(Math.max(tr1, Math.max(tr2, tr3)));
+        // Average of the true ranges for the last `period` bars
+        double sum = 0;
+        for (int i = highs.length - period; i < highs.length; i++) {
+            double tr1 = highs[i] - lows[i];
+            double tr2 = Math.abs(highs[i] - closes[i - 1]);
+            double tr3 = Math.abs(lows[i] - closes[i - 1]);
+            sum += Math.max(tr1, Math.max(tr2, tr3));
         }
 
-        return calculateSMA(trueRanges, period);
+        return sum / period;
     }
 
     private TechnicalIndicators createMockTechnicalIndicators(String symbol) {
@@ -365,6 +436,10 @@ public class AdvancedStockAnalysisService {
                 stockQuote.setPreviousClose(Double.parseDouble(quote.get("08. previous close").toString()));
                 stockQuote.setVolume(Double.parseDouble(quote.get("06. volume").toString()));
                 stockQuote.setMarketStatus("OPEN");
+                Object tradingDay = quote.get("07. latest trading day");
+                if (tradingDay != null) {
+                    stockQuote.setTimestamp(LocalDate.parse(tradingDay.toString()).atStartOfDay());
+                }
                 return stockQuote;
             }
         } catch (Exception e) {
@@ -373,30 +448,30 @@ public class AdvancedStockAnalysisService {
         return createMockQuote(symbol);
     }
 
-    private List<Map<String, Object>> parseHistoricalData(String symbol, Map<String, Object> response) {
-        List<Map<String, Object>> result = new ArrayList<>();
+    private BarSeries parseHistoricalData(String symbol, Map<String, Object> response) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> timeSeries = (Map<String, Object>) response.get("Time Series (Daily)");
+            BarSeries result = new BarSeries(symbol, timeSeries != null ? timeSeries.size() : 0);
             if (timeSeries != null) {
                 for (Map.Entry<String, Object> entry : timeSeries.entrySet()) {
                     @SuppressWarnings("unchecked")
                     Map<String, Object> dayData = (Map<String, Object>) entry.getValue();
-                    Map<String, Object> dataPoint = new HashMap<>();
-                    dataPoint.put("date", entry.getKey());
-                    dataPoint.put("open", dayData.get("1. open"));
-                    dataPoint.put("high", dayData.get("2. high"));
-                    dataPoint.put("low", dayData.get("3. low"));
-                    dataPoint.put("close", dayData.get("4. close"));
-                    dataPoint.put("volume", dayData.get("5. volume"));
-                    result.add(dataPoint);
+                    result.add(BarSeries.parseDate(entry.getKey()),
+                            Double.parseDouble(dayData.get("1. open").toString()),
+                            Double.parseDouble(dayData.get("2. high").toString()),
+                            Double.parseDouble(dayData.get("3. low").toString()),
+                            Double.parseDouble(dayData.get("4. close").toString()),
+                            Double.parseDouble(dayData.get("5. volume").toString()));
                 }
             }
+            // Alpha Vantage returns the newest day first
+            result.sortByTime();
+            return result;
         } catch (Exception e) {
             logger.error("Failed to parse historical data: {}", e.getMessage());
-            return createMockHistoricalData();
+            return createMockHistoricalData(symbol);
         }
-        return result;
     }
 
     private StockQuote createMockQuote(String symbol) {
@@ -414,68 +489,55 @@ public class AdvancedStockAnalysisService {
         return quote;
     }
 
-    private List<Map<String, Object>> createMockHistoricalData() {
-        List<Map<String, Object>> data = new ArrayList<>();
+    private BarSeries createMockHistoricalData(String symbol) {
+        BarSeries data = new BarSeries(symbol, 100);
         double basePrice = 150.0;
         LocalDateTime date = LocalDateTime.now().minusDays(100);
 
         for (int i = 0; i < 100; i++) {
-            Map<String, Object> dataPoint = new HashMap<>();
             double open = basePrice + (Math.random() - 0.5) * 10;
             double close = open + (Math.random() - 0.5) * 5;
             double high = Math.max(open, close) + Math.random() * 2;
             double low = Math.min(open, close) - Math.random() * 2;
 
-            dataPoint.put("date", date.plusDays(i).toString().substring(0, 10));
-            dataPoint.put("open", String.format("%.2f", open));
-            dataPoint.put("high", String.format("%.2f", high));
-            dataPoint.put("low", String.format("%.2f", low));
-            dataPoint.put("close", String.format("%.2f", close));
-            dataPoint.put("volume", String.valueOf((long)(1000000 + Math.random() * 5000000)));
-
-            data.add(dataPoint);
+            data.add(BarSeries.parseDate(date.plusDays(i).toString()),
+                    round2(open), round2(high), round2(low), round2(close),
+                    (long) (1000000 + Math.random() * 5000000));
             basePrice = close; // Use previous close as next base
         }
         return data;
     }
 
-    private TechnicalIndicators calculateRealTechnicalIndicators(String symbol, List<Map<String, Object>> data) {
-        TechnicalIndicators indicators = new TechnicalIndicators(symbol);
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
 
-        // Extract price data from historical data
-        List<Double> closes = new ArrayList<>();
-        List<Double> highs = new ArrayList<>();
-        List<Double> lows = new ArrayList<>();
-        List<Double> volumes = new ArrayList<>();
+    private TechnicalIndicators calculateRealTechnicalIndicators(String symbol, BarSeries data) {
+        TechnicalIndicators indicators = new TechnicalIndicators(symbol);
 
-        for (Map<String, Object> dataPoint : data) {
-            try {
-                closes.add(Double.parseDouble(dataPoint.get("close").toString()));
-                highs.add(Double.parseDouble(dataPoint.get("high").toString()));
-                lows.add(Double.parseDouble(dataPoint.get("low").toString()));
-                volumes.add(Double.parseDouble(dataPoint.get("volume").toString()));
-            } catch (Exception e) {
-                logger.warn("Failed to parse data point for {}: {}", symbol, e.getMessage());
-            }
-        }
+        // One primitive copy per column instead of boxing every data point
+        double[] closes = data.getCloses();
+        double[] highs = data.getHighs();
+        double[] lows = data.getLows();
+        double[] volumes = data.getVolumes();
 
-        if (closes.isEmpty()) {
+        if (closes.length == 0) {
             logger.warn("No valid price data extracted for {}", symbol);
             return createEnhancedMockTechnicalIndicators(symbol);
         }
 
         try {
             // Calculate Moving Averages (with available data)
-            indicators.setSma20(calculateSMA(closes, Math.min(20, closes.size())));
-            indicators.setSma50(calculateSMA(closes, Math.min(50, closes.size())));
-            indicators.setSma200(calculateSMA(closes, Math.min(200, closes.size())));
+            indicators.setSma20(calculateSMA(closes, Math.min(20, closes.length)));
+            indicators.setSma50(calculateSMA(closes, Math.min(50, closes.length)));
+            indicators.setSma200(calculateSMA(closes, Math.min(200, closes.length)));
 
             // Calculate EMAs
-            indicators.setEma12(calculateEMA(closes, Math.min(12, closes.size())));
-            indicators.setEma26(calculateEMA(closes, Math.min(26, closes.size())));
+            indicators.setEma12(calculateEMA(closes, Math.min(12, closes.length)));
+            indicators.setEma26(calculateEMA(closes, Math.min(26, closes.length)));
 
             // Calculate RSI
-            indicators.setRsi(calculateRSI(closes, Math.min(14, closes.size())));
+            indicators.setRsi(calculateRSI(closes, Math.min(14, closes.length)));
 
             // Calculate MACD
             double[] macd = calculateMACD(closes);
@@ -484,23 +546,23 @@ public class AdvancedStockAnalysisService {
             indicators.setMacdHistogram(macd[0] - macd[1]);
 
             // Calculate Stochastic
-            double[] stoch = calculateStochastic(closes, highs, lows, Math.min(14, closes.size()));
+            double[] stoch = calculateStochastic(closes, highs, lows, Math.min(14, closes.length));
             indicators.setStochasticK(stoch[0]);
             indicators.setStochasticD(stoch[1]);
 
             // Calculate Bollinger Bands
-            double[] bollinger = calculateBollingerBands(closes, Math.min(20, closes.size()), 2.0);
+            double[] bollinger = calculateBollingerBands(closes, Math.min(20, closes.length), 2.0);
             indicators.setBollingerUpper(bollinger[0]);
             indicators.setBollingerMiddle(bollinger[1]);
             indicators.setBollingerLower(bollinger[2]);
 
             // Calculate ATR
-            indicators.setAtr(calculateATR(highs, lows, closes, Math.min(14, closes.size())));
+            indicators.setAtr(calculateATR(highs, lows, closes, Math.min(14, closes.length)));
 
             // Calculate Volume MA
-            indicators.setVolumeMA(calculateSMA(volumes, Math.min(20, volumes.size())));
+            indicators.setVolumeMA(calculateSMA(volumes, Math.min(20, volumes.length)));
 
-            logger.debug("Calculated real technical indicators for {} with {} data points", symbol, closes.size());
+            logger.debug("Calculated real technical indicators for {} with {} data points", symbol, closes.length);
 
         } catch (Exception e) {
             logger.error("Error in technical indicator calculations for {}: {}", symbol, e.getMessage());
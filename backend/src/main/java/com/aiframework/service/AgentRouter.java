@@ -0,0 +1,314 @@
+package com.aiframework.service;
+
+import com.aiframework.cache.BoundedCache;
+import com.aiframework.dto.AgentCapability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses agents for a task before, and mostly instead of, asking the LLM.
+ *
+ * Registered capabilities are compiled into a keyword index: agent ids, capabilities,
+ * specializations and descriptions are split into words, stemmed to a short prefix and
+ * weighted by where they appear and how few agents share them. A task whose words are
+ * mostly covered by the index is routed from its scores alone. Otherwise the LLM decides,
+ * and its decision is cached under the task's normalized signature, so rephrasings of the
+ * same request and requests that differ only in numbers, or in the symbols named by their
+ * context, reuse it. A failed LLM decision falls back to the best guess and is not cached.
+ */
+@Component
+public class AgentRouter {
+    private static final Logger logger = LoggerFactory.getLogger(AgentRouter.class);
+
+    private static final Pattern WORD = Pattern.compile("[^\\p{Alnum}]+");
+    private static final List<String> SYMBOL_KEYS = List.of("symbol", "symbols", "ticker", "tickers");
+    private static final int STEM_LENGTH = 5;
+
+    private static final double CAPABILITY_WEIGHT = 3.0;
+    private static final double SPECIALIZATION_WEIGHT = 2.0;
+    private static final double AGENT_ID_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PHRASE_BONUS = 2.0;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "about", "all", "an", "and", "any", "are", "as", "at", "be", "by", "can", "could", "do",
+        "does", "for", "from", "get", "give", "given", "how", "i", "if", "in", "into", "is", "it",
+        "its", "me", "my", "now", "of", "on", "or", "our", "please", "should", "so", "some", "than",
+        "that", "the", "their", "then", "there", "these", "this", "to", "today", "us", "was", "we",
+        "what", "when", "which", "who", "why", "will", "with", "would", "you", "your");
+
+    private final boolean rulesEnabled;
+    private final double minConfidence;
+    private final int maxAgents;
+    private final BoundedCache<String, List<String>> decisions;
+
+    private final Map<String, AgentCapability> capabilities = new ConcurrentHashMap<>();
+    private volatile Index index = Index.build(Map.of());
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder ruleRouted = new LongAdder();
+    private final LongAdder cacheLookups = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private final LongAdder llmFailures = new LongAdder();
+    private final LongAdder llmNanos = new LongAdder();
+
+    /** Agents chosen for a task, with how confident the keyword index was */
+    public static final class RuleMatch {
+        private final List<String> agents;
+        private final double confidence;
+
+        RuleMatch(List<String> agents, double confidence) {
+            this.agents = agents;
+            this.confidence = confidence;
+        }
+
+        // Getters
+        public List<String> getAgents() { return agents; }
+        public double getConfidence() { return confidence; }
+    }
+
+    public AgentRouter(@Value("${routing.rules.enabled:true}") boolean rulesEnabled,
+                       @Value("${routing.rules.min-confidence:0.6}") double minConfidence,
+                       @Value("${routing.rules.max-agents:3}") int maxAgents,
+                       @Value("${routing.cache.max-bytes:1048576}") long cacheMaxBytes,
+                       @Value("${routing.cache.ttl-minutes:60}") long cacheTtlMinutes) {
+        this.rulesEnabled = rulesEnabled;
+        this.minConfidence = minConfidence;
+        this.maxAgents = Math.max(maxAgents, 1);
+        this.decisions = new BoundedCache<>("agent-routing", cacheMaxBytes, Duration.ofMinutes(cacheTtlMinutes),
+            agents -> 64 + agents.stream().mapToLong(agent -> 40 + 2L * agent.length()).sum());
+    }
+
+    /**
+     * Add or replace an agent; recompiles the index and forgets cached decisions, which
+     * were made without it
+     */
+    public void register(AgentCapability capability) {
+        capabilities.put(capability.getAgentId(), capability);
+        synchronized (this) {
+            index = Index.build(new HashMap<>(capabilities));
+        }
+        decisions.invalidateAll();
+    }
+
+    /**
+     * Agents for a task: from the keyword index when it is confident, else from the cached
+     * or freshly made LLM decision for the task's signature
+     */
+    public CompletableFuture<List<String>> route(String task, Map<String, Object> context,
+                                                 Supplier<CompletableFuture<List<String>>> llmRouter) {
+        requests.increment();
+        List<String> words = tokenize(task, symbols(context));
+
+        RuleMatch match = rulesEnabled ? index.match(words, maxAgents) : new RuleMatch(List.of(), 0.0);
+        if (!match.agents.isEmpty() && match.confidence >= minConfidence) {
+            ruleRouted.increment();
+            logger.debug("Routed by rules (confidence {}): {}", match.confidence, match.agents);
+            return CompletableFuture.completedFuture(match.agents);
+        }
+
+        cacheLookups.increment();
+        return decisions.get(signature(words, context), signature -> {
+            llmCalls.increment();
+            long start = System.nanoTime();
+            return llmRouter.get().whenComplete((agents, error) -> llmNanos.add(System.nanoTime() - start));
+        }).exceptionally(error -> {
+            llmFailures.increment();
+            List<String> fallback = !match.agents.isEmpty() ? match.agents : new ArrayList<>(capabilities.keySet());
+            logger.warn("LLM routing failed ({}); using {}", error.getMessage(), fallback);
+            return fallback;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long total = requests.sum();
+        long rules = ruleRouted.sum();
+        long lookups = cacheLookups.sum();
+        long calls = llmCalls.sum();
+        long cacheHits = Math.max(0, lookups - calls);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", total);
+        stats.put("ruleRouted", rules);
+        stats.put("cacheHits", cacheHits);
+        stats.put("llmCalls", calls);
+        stats.put("llmFailures", llmFailures.sum());
+        stats.put("ruleHitRate", total == 0 ? 0.0 : (double) rules / total);
+        stats.put("cacheHitRate", lookups == 0 ? 0.0 : (double) cacheHits / lookups);
+        stats.put("llmAvoidedRate", total == 0 ? 0.0 : (double) (rules + cacheHits) / total);
+        stats.put("averageLlmRoutingMillis", calls == 0 ? 0.0 : llmNanos.sum() / 1_000_000.0 / calls);
+        stats.put("indexedAgents", index.agentCount);
+        stats.put("indexedTerms", index.terms.size());
+        stats.put("cache", decisions.getStats());
+        return stats;
+    }
+
+    static List<String> tokenize(String text) {
+        return tokenize(text, Set.of());
+    }
+
+    /**
+     * Text words as stems; the given symbols, numbers and stop words are dropped. Other
+     * upper-case words are kept, since indicator names such as RSI or MACD look just like
+     * tickers and are what decides the agents.
+     */
+    static List<String> tokenize(String text, Set<String> symbols) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : WORD.split(text)) {
+            if (word.isEmpty() || Character.isDigit(word.charAt(0))) {
+                continue;
+            }
+            String lower = word.toLowerCase(Locale.ROOT);
+            if (!STOP_WORDS.contains(lower) && !symbols.contains(lower)) {
+                words.add(lower.length() > STEM_LENGTH ? lower.substring(0, STEM_LENGTH) : lower);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Lower-cased symbols the task's context names under a symbol or ticker key
+     */
+    static Set<String> symbols(Map<String, Object> context) {
+        if (context == null || context.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> symbols = new HashSet<>();
+        for (String key : SYMBOL_KEYS) {
+            Object value = context.get(key);
+            Collection<?> values = value instanceof Collection<?> list ? list
+                : value != null ? List.of(value) : List.of();
+            for (Object symbol : values) {
+                // Split the way task text is, so BRK.B matches the words BRK and B
+                for (String part : WORD.split(String.valueOf(symbol))) {
+                    if (!part.isEmpty()) {
+                        symbols.add(part.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * Distinct stems, sorted, plus the context keys; values such as symbols or prices do
+     * not change which agents a task needs
+     */
+    static String signature(List<String> words, Map<String, Object> context) {
+        StringBuilder signature = new StringBuilder();
+        for (String word : new TreeSet<>(words)) {
+            signature.append(word).append(' ');
+        }
+        if (context != null && !context.isEmpty()) {
+            signature.append('|');
+            for (String key : new TreeSet<>(context.keySet())) {
+                signature.append(' ').append(key);
+            }
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Immutable keyword index; rebuilt on registration
+     */
+    private static final class Index {
+        final Map<String, Map<String, Double>> terms;
+        final List<Phrase> phrases;
+        final int agentCount;
+
+        private Index(Map<String, Map<String, Double>> terms, List<Phrase> phrases, int agentCount) {
+            this.terms = terms;
+            this.phrases = phrases;
+            this.agentCount = agentCount;
+        }
+
+        private record Phrase(String agentId, Set<String> words) { }
+
+        static Index build(Map<String, AgentCapability> capabilities) {
+            Map<String, Map<String, Double>> raw = new HashMap<>();
+            List<Phrase> phrases = new ArrayList<>();
+            for (AgentCapability capability : capabilities.values()) {
+                String agentId = capability.getAgentId();
+                add(raw, agentId, agentId, AGENT_ID_WEIGHT);
+                add(raw, agentId, capability.getSpecialization(), SPECIALIZATION_WEIGHT);
+                add(raw, agentId, capability.getDescription(), DESCRIPTION_WEIGHT);
+                if (capability.getCapabilities() != null) {
+                    for (String name : capability.getCapabilities()) {
+                        add(raw, agentId, name, CAPABILITY_WEIGHT);
+                        Set<String> words = new HashSet<>(tokenize(name));
+                        if (words.size() > 1) {
+                            phrases.add(new Phrase(agentId, words));
+                        }
+                    }
+                }
+            }
+
+            // Words shared by many agents say little about which one a task needs
+            Map<String, Map<String, Double>> terms = new HashMap<>();
+            for (Map.Entry<String, Map<String, Double>> term : raw.entrySet()) {
+                double idf = Math.log(1.0 + (double) capabilities.size() / term.getValue().size());
+                Map<String, Double> weights = new HashMap<>();
+                term.getValue().forEach((agentId, weight) -> weights.put(agentId, weight * idf));
+                terms.put(term.getKey(), Map.copyOf(weights));
+            }
+            return new Index(Map.copyOf(terms), List.copyOf(phrases), capabilities.size());
+        }
+
+        private static void add(Map<String, Map<String, Double>> raw, String agentId, String text, double weight) {
+            // Each word counts once per field, however often it repeats
+            for (String word : new HashSet<>(tokenize(text))) {
+                raw.computeIfAbsent(word, w -> new HashMap<>()).merge(agentId, weight, Double::sum);
+            }
+        }
+
+        /**
+         * Score agents by the task's words; confidence is the share of those words the
+         * index knows about
+         */
+        RuleMatch match(List<String> words, int maxAgents) {
+            Set<String> distinct = new LinkedHashSet<>(words);
+            if (distinct.isEmpty()) {
+                return new RuleMatch(List.of(), 0.0);
+            }
+            Map<String, Double> scores = new HashMap<>();
+            int known = 0;
+            for (String word : distinct) {
+                Map<String, Double> weights = terms.get(word);
+                if (weights != null) {
+                    known++;
+                    weights.forEach((agentId, weight) -> scores.merge(agentId, weight, Double::sum));
+                }
+            }
+            if (scores.isEmpty()) {
+                return new RuleMatch(List.of(), 0.0);
+            }
+            for (Phrase phrase : phrases) {
+                if (distinct.containsAll(phrase.words())) {
+                    scores.merge(phrase.agentId(), PHRASE_BONUS * phrase.words().size(), Double::sum);
+                }
+            }
+
+            double best = Collections.max(scores.values());
+            List<String> agents = scores.entrySet().stream()
+                .filter(score -> score.getValue() >= best / 2)
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(maxAgents)
+                .map(Map.Entry::getKey)
+                .toList();
+            return new RuleMatch(agents, (double) known / distinct.size());
+        }
+    }
+}
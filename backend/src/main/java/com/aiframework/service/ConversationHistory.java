@@ -0,0 +1,266 @@
+package com.aiframework.service;
+
+import com.aiframework.dto.AgentMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-agent conversation history held in fixed-size ring buffers.
+ *
+ * Writers claim a sequence number and swap their entry into its slot without locking;
+ * the entry it replaces is the one evicted, and is optionally spilled to a compressed
+ * segment log on disk. Readers walk the ring from the newest sequence down and skip slots
+ * that have been overwritten. Sequences start from the node's start time, so they keep
+ * increasing across restarts and serve as paging cursors over memory and disk alike.
+ * Rings exist only for agents opened at registration; messages for any other agent id are
+ * not stored, so callers cannot grow the map with arbitrary ids.
+ */
+@Component
+public class ConversationHistory {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationHistory.class);
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final int capacity;
+    private final long firstSequence = System.currentTimeMillis() << 20;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final ConversationSegmentLog spill;
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** A stored message with its sequence number and the time it was stored */
+    public static final class Entry {
+        private final long sequence;
+        private final long timestamp;
+        private final AgentMessage message;
+
+        Entry(long sequence, long timestamp, AgentMessage message) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.message = message;
+        }
+
+        // Getters
+        public long getSequence() { return sequence; }
+        public long getTimestamp() { return timestamp; }
+        public AgentMessage getMessage() { return message; }
+    }
+
+    /** Entries newest first; nextBefore is the cursor for the next page, null on the last */
+    public static final class Page {
+        private final List<Entry> entries;
+        private final Long nextBefore;
+
+        Page(List<Entry> entries, Long nextBefore) {
+            this.entries = entries;
+            this.nextBefore = nextBefore;
+        }
+
+        // Getters
+        public List<Entry> getEntries() { return entries; }
+        public Long getNextBefore() { return nextBefore; }
+    }
+
+    public ConversationHistory(@Value("${conversation.history.capacity:128}") int capacity,
+                               @Value("${conversation.history.spill.enabled:false}") boolean spillEnabled,
+                               @Value("${conversation.history.spill.dir:data/conversations}") String spillDir,
+                               @Value("${conversation.history.spill.segment-bytes:8388608}") long segmentBytes,
+                               @Value("${conversation.history.spill.max-segments:16}") int maxSegments,
+                               @Value("${conversation.history.spill.queue-capacity:10000}") int queueCapacity,
+                               ObjectMapper objectMapper) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.spill = spillEnabled
+            ? new ConversationSegmentLog(Path.of(spillDir), segmentBytes, maxSegments, queueCapacity, objectMapper)
+            : null;
+        logger.info("Conversation history keeps {} messages per agent{}", this.capacity,
+            spillEnabled ? ", spilling older ones to " + spillDir : "");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Start keeping history for a registered agent
+     */
+    public void open(String agentId) {
+        rings.computeIfAbsent(agentId, id -> new Ring(capacity, firstSequence));
+    }
+
+    /**
+     * Store a message for an opened agent; returns false, storing nothing, for any other id
+     */
+    public boolean append(String agentId, AgentMessage message) {
+        Ring ring = rings.get(agentId);
+        if (ring == null) {
+            rejected.incrementAndGet();
+            logger.debug("Not keeping history for unregistered agent {}", agentId);
+            return false;
+        }
+        Entry displaced = ring.add(message, System.currentTimeMillis());
+        if (displaced != null) {
+            evicted.incrementAndGet();
+            if (spill != null) {
+                spill.append(agentId, displaced.sequence, displaced.timestamp, displaced.message);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Messages in memory for one agent, oldest first
+     */
+    public List<AgentMessage> getMessages(String agentId) {
+        Ring ring = rings.get(agentId);
+        if (ring == null) {
+            return List.of();
+        }
+        List<Entry> entries = ring.newestFirst(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, capacity);
+        List<AgentMessage> messages = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            messages.add(entries.get(i).message);
+        }
+        return messages;
+    }
+
+    public Map<String, List<AgentMessage>> getAllMessages() {
+        Map<String, List<AgentMessage>> all = new LinkedHashMap<>();
+        for (String agentId : rings.keySet()) {
+            all.put(agentId, getMessages(agentId));
+        }
+        return all;
+    }
+
+    /**
+     * One page of an agent's history, newest first, stored within [from, to] (epoch millis,
+     * either may be null) and with sequence below before (null for the newest). Continues
+     * into the spilled history once the messages in memory run out.
+     */
+    public Page query(String agentId, Long from, Long to, Long before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long fromMillis = from != null ? from : Long.MIN_VALUE;
+        long toMillis = to != null ? to : Long.MAX_VALUE;
+        long beforeSequence = before != null ? before : Long.MAX_VALUE;
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        // One extra entry tells whether there is another page
+        List<Entry> entries = new ArrayList<>();
+        Ring ring = rings.get(agentId);
+        if (ring != null) {
+            entries.addAll(ring.newestFirst(fromMillis, toMillis, beforeSequence, pageSize + 1));
+        }
+        if (spill != null && entries.size() <= pageSize) {
+            // Older than anything still in memory, and older than this page so far
+            long below = entries.isEmpty() ? beforeSequence : entries.get(entries.size() - 1).sequence;
+            long spilledBelow = ring != null ? Math.min(below, ring.oldestSequence()) : below;
+            List<ConversationSegmentLog.Record> spilled = spill.read(fromMillis,
+                record -> record.agentId.equals(agentId) && record.sequence < spilledBelow
+                    && record.timestamp >= fromMillis && record.timestamp <= toMillis,
+                pageSize + 1 - entries.size());
+            for (ConversationSegmentLog.Record record : spilled) {
+                entries.add(new Entry(record.sequence, record.timestamp, record.message));
+            }
+            entries.sort(Comparator.comparingLong(Entry::getSequence).reversed());
+        }
+
+        if (entries.size() > pageSize) {
+            List<Entry> page = new ArrayList<>(entries.subList(0, pageSize));
+            return new Page(page, page.get(page.size() - 1).sequence);
+        }
+        return new Page(entries, null);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("agents", rings.size());
+        stats.put("capacityPerAgent", capacity);
+        stats.put("messagesInMemory", rings.values().stream().mapToLong(Ring::size).sum());
+        stats.put("evicted", evicted.get());
+        stats.put("rejectedUnregistered", rejected.get());
+        stats.put("spillEnabled", spill != null);
+        if (spill != null) {
+            stats.put("spilled", spill.getWritten());
+            stats.put("spillQueued", spill.getQueued());
+            stats.put("spillDropped", spill.getDropped());
+            stats.put("spillSegments", spill.getSegmentCount());
+        }
+        return stats;
+    }
+
+    /**
+     * Lock-free ring of the most recent entries for one agent
+     */
+    static final class Ring {
+        private final AtomicReferenceArray<Entry> slots;
+        private final int mask;
+        private final long firstSequence;
+        private final AtomicLong next;
+
+        Ring(int capacity, long firstSequence) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.firstSequence = firstSequence;
+            this.next = new AtomicLong(firstSequence);
+        }
+
+        /**
+         * Store a message; returns the entry it displaced, if any
+         */
+        Entry add(AgentMessage message, long timestamp) {
+            long sequence = next.getAndIncrement();
+            Entry entry = new Entry(sequence, timestamp, message);
+            int index = (int) (sequence & mask);
+            while (true) {
+                Entry current = slots.get(index);
+                if (current != null && current.sequence > sequence) {
+                    // A writer a full lap ahead got here first, so this entry is already evicted
+                    return entry;
+                }
+                if (slots.compareAndSet(index, current, entry)) {
+                    return current;
+                }
+            }
+        }
+
+        List<Entry> newestFirst(long from, long to, long before, int limit) {
+            List<Entry> entries = new ArrayList<>(Math.min(limit, slots.length()));
+            long newest = Math.min(next.get(), before) - 1;
+            long oldest = Math.max(firstSequence, next.get() - slots.length());
+            for (long sequence = newest; sequence >= oldest && entries.size() < limit; sequence--) {
+                Entry entry = slots.get((int) (sequence & mask));
+                // Skip slots not yet written or already overwritten by a newer lap
+                if (entry != null && entry.sequence == sequence && entry.timestamp >= from && entry.timestamp <= to) {
+                    entries.add(entry);
+                }
+            }
+            return entries;
+        }
+
+        long oldestSequence() {
+            return Math.max(firstSequence, next.get() - slots.length());
+        }
+
+        long size() {
+            return Math.min(next.get() - firstSequence, slots.length());
+        }
+    }
+}
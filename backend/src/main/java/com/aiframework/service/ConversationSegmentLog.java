@@ -0,0 +1,255 @@
+package com.aiframework.service;
+
+import com.aiframework.dto.AgentMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed on-disk log of conversation messages evicted from memory.
+ *
+ * Evicted entries are queued and written by a background thread as JSON lines, one gzip
+ * member per batch, appended to the current segment; members concatenate into a valid
+ * gzip file, so a segment can be read while it is still being written. Segments roll over
+ * at a size limit and the oldest are deleted, so the log stays bounded too. When the
+ * queue is full the entry is dropped rather than holding up the agent that evicted it.
+ */
+class ConversationSegmentLog {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSegmentLog.class);
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log.gz";
+    private static final int BATCH = 512;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<Record> queue;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long nextSegment;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** One spilled message; also the JSON line written to disk */
+    static final class Record {
+        public String agentId;
+        public long sequence;
+        public long timestamp;
+        public AgentMessage message;
+
+        Record() {
+        }
+
+        Record(String agentId, long sequence, long timestamp, AgentMessage message) {
+            this.agentId = agentId;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.message = message;
+        }
+    }
+
+    private static final class Segment {
+        final Path path;
+        volatile long maxTimestamp;
+
+        Segment(Path path, long maxTimestamp) {
+            this.path = path;
+            this.maxTimestamp = maxTimestamp;
+        }
+    }
+
+    ConversationSegmentLog(Path directory, long segmentBytes, int maxSegments, int queueCapacity,
+                           ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(maxSegments, 1);
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.filter(ConversationSegmentLog::isSegment).sorted().toList()) {
+                    segments.add(new Segment(path, Files.getLastModifiedTime(path).toMillis()));
+                    nextSegment = Math.max(nextSegment, segmentNumber(path) + 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open conversation spill directory " + directory, e);
+        }
+
+        this.writer = new Thread(this::run, "ConversationSpill");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void close() {
+        // Not interrupted: that would close the segment's channel in the middle of a batch
+        running = false;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void append(String agentId, long sequence, long timestamp, AgentMessage message) {
+        if (!queue.offer(new Record(agentId, sequence, timestamp, message))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Spilled records matching the filter, newest first, stopping once limit are found;
+     * includes records still waiting to be written
+     */
+    List<Record> read(long fromTimestamp, Predicate<Record> filter, int limit) {
+        List<Record> matches = new ArrayList<>();
+        List<Record> queued = new ArrayList<>();
+        for (Record record : queue) {
+            if (filter.test(record)) {
+                queued.add(record);
+            }
+        }
+        for (int i = queued.size() - 1; i >= 0 && matches.size() < limit; i--) {
+            matches.add(queued.get(i));
+        }
+
+        List<Segment> snapshot = new ArrayList<>(segments);
+        for (int i = snapshot.size() - 1; i >= 0 && matches.size() < limit; i--) {
+            Segment segment = snapshot.get(i);
+            if (segment.maxTimestamp < fromTimestamp) {
+                // This and every older segment end before the window starts
+                break;
+            }
+            List<Record> found = readSegment(segment.path, filter);
+            for (int j = found.size() - 1; j >= 0 && matches.size() < limit; j--) {
+                matches.add(found.get(j));
+            }
+        }
+        return matches;
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    private List<Record> readSegment(Path path, Predicate<Record> filter) {
+        List<Record> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record = objectMapper.readValue(line, Record.class);
+                if (filter.test(record)) {
+                    records.add(record);
+                }
+            }
+        } catch (IOException e) {
+            // Deleted by rotation, or its last member is still being written
+            logger.debug("Stopped reading conversation segment {}: {}", path, e.getMessage());
+        }
+        return records;
+    }
+
+    private void run() {
+        List<Record> batch = new ArrayList<>(BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Record first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                dropped.addAndGet(batch.size());
+                logger.warn("Failed to spill {} conversation messages: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Record> batch) throws IOException {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || Files.size(segment.path) >= segmentBytes) {
+            segment = new Segment(directory.resolve(String.format("%s%010d%s", PREFIX, nextSegment++, SUFFIX)), 0);
+            segments.add(segment);
+            while (segments.size() > maxSegments) {
+                Files.deleteIfExists(segments.remove(0).path);
+            }
+        }
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                Files.newOutputStream(segment.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)),
+                StandardCharsets.UTF_8))) {
+            for (Record record : batch) {
+                out.write(objectMapper.writeValueAsString(record));
+                out.write('\n');
+            }
+        }
+        for (Record record : batch) {
+            segment.maxTimestamp = Math.max(segment.maxTimestamp, record.timestamp);
+        }
+        written.addAndGet(batch.size());
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.aiframework.service;
+
+import com.aiframework.cache.BoundedCache;
+import com.aiframework.dto.BarSeries;
+import com.aiframework.dto.IndicatorSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Full-history indicator curves for chart overlays.
+ *
+ * Each (symbol, indicator, parameters) series is computed lazily in a single linear pass
+ * and memoized against the bar series it was built from. A cached series is recomputed
+ * when bars have been appended to its source or the source has been replaced. The memo is
+ * bounded by an approximate byte budget and a per-entry TTL.
+ */
+@Service
+public class IndicatorSeriesService {
+    private static final Logger logger = LoggerFactory.getLogger(IndicatorSeriesService.class);
+
+    /** Default parameters per supported indicator */
+    private static final Map<String, List<Integer>> DEFAULT_PARAMETERS = Map.of(
+            "sma", List.of(20),
+            "ema", List.of(12),
+            "rsi", List.of(14),
+            "macd", List.of(12, 26, 9),
+            "bollinger", List.of(20, 2),
+            "stochastic", List.of(14, 3),
+            "atr", List.of(14)
+    );
+
+    /** Upper bound on any period, so a request cannot size the rolling windows */
+    static final int MAX_PERIOD = 1000;
+
+    private final BoundedCache<String, CachedSeries> cache;
+
+    public IndicatorSeriesService(@Value("${indicators.series.cache.max-bytes:16777216}") long cacheMaxBytes,
+                                  @Value("${indicators.series.cache.ttl-minutes:30}") long cacheTtlMinutes) {
+        this.cache = new BoundedCache<>("indicator-series", cacheMaxBytes, Duration.ofMinutes(cacheTtlMinutes),
+                CachedSeries::getRetainedBytes);
+    }
+
+    /**
+     * Resolve a list of specs such as "sma:50", "macd" or "bollinger:20:2" against the given bars
+     */
+    public List<IndicatorSeries> getSeries(BarSeries bars, List<String> specs) {
+        List<IndicatorSeries> result = new ArrayList<>(specs.size());
+        for (String spec : specs) {
+            String[] parts = spec.trim().toLowerCase().split(":");
+            List<Integer> parameters = new ArrayList<>();
+            for (int i = 1; i < parts.length; i++) {
+                try {
+                    parameters.add(Integer.parseInt(parts[i]));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid indicator parameter in '" + spec + "'");
+                }
+            }
+            result.add(getSeries(bars, parts[0], parameters));
+        }
+        return result;
+    }
+
+    /**
+     * Memoized series for one indicator. Missing trailing parameters take their defaults.
+     */
+    public IndicatorSeries getSeries(BarSeries bars, String indicator, List<Integer> parameters) {
+        List<Integer> resolved = resolveParameters(indicator, parameters);
+        String key = bars.getSymbol() + "|" + indicator + "|" + resolved;
+
+        CachedSeries existing = cache.getIfPresent(key);
+        if (existing != null && existing.isCurrent(bars)) {
+            return existing.series;
+        }
+
+        // Concurrent misses may both compute; the series are identical, so last put wins
+        long start = System.nanoTime();
+        IndicatorSeries series = compute(bars, indicator, resolved);
+        logger.debug("Computed {} over {} bars in {} us", key, bars.size(), (System.nanoTime() - start) / 1000);
+        cache.put(key, new CachedSeries(bars, bars.size(), series));
+        return series;
+    }
+
+    /**
+     * Drop every cached series for a symbol
+     */
+    public void invalidate(String symbol) {
+        String prefix = symbol + "|";
+        cache.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    public int getCachedSeriesCount() {
+        return cache.size();
+    }
+
+    private List<Integer> resolveParameters(String indicator, List<Integer> parameters) {
+        List<Integer> defaults = DEFAULT_PARAMETERS.get(indicator);
+        if (defaults == null) {
+            throw new IllegalArgumentException("Unsupported indicator: " + indicator
+                    + " (supported: " + new TreeSet<>(DEFAULT_PARAMETERS.keySet()) + ")");
+        }
+        if (parameters.size() > defaults.size()) {
+            throw new IllegalArgumentException("Too many parameters for " + indicator + ", expected " + defaults.size());
+        }
+
+        List<Integer> resolved = new ArrayList<>(defaults);
+        for (int i = 0; i < parameters.size(); i++) {
+            if (parameters.get(i) < 1 || parameters.get(i) > MAX_PERIOD) {
+                throw new IllegalArgumentException("Indicator parameters must be between 1 and " + MAX_PERIOD + ": "
+                        + indicator + parameters);
+            }
+            resolved.set(i, parameters.get(i));
+        }
+        return Collections.unmodifiableList(resolved);
+    }
+
+    private IndicatorSeries compute(BarSeries bars, String indicator, List<Integer> p) {
+        IndicatorSeries series = new IndicatorSeries(bars.getSymbol(), indicator, p, bars.getTimestamps());
+        switch (indicator) {
+            case "sma" -> series.addLine("sma", sma(bars.getCloses(), p.get(0)));
+            case "ema" -> series.addLine("ema", ema(bars.getCloses(), p.get(0)));
+            case "rsi" -> series.addLine("rsi", rsi(bars, p.get(0)));
+            case "macd" -> addMacd(series, bars, p.get(0), p.get(1), p.get(2));
+            case "bollinger" -> addBollinger(series, bars, p.get(0), p.get(1));
+            case "stochastic" -> addStochastic(series, bars, p.get(0), p.get(1));
+            case "atr" -> series.addLine("atr", atr(bars, p.get(0)));
+            default -> throw new IllegalArgumentException("Unsupported indicator: " + indicator);
+        }
+        return series;
+    }
+
+    // Single-pass calculations. They share the streaming engine's primitives so the last
+    // point of each curve agrees with the live IndicatorState snapshot.
+
+    private double[] sma(double[] values, int period) {
+        double[] out = new double[values.length];
+        IndicatorState.RollingWindow window = new IndicatorState.RollingWindow(period - 1);
+        for (int i = 0; i < values.length; i++) {
+            out[i] = window.mean(values[i]);
+            window.push(values[i]);
+        }
+        return out;
+    }
+
+    private double[] ema(double[] values, int period) {
+        double[] out = new double[values.length];
+        IndicatorState.SmoothedAverage ema = IndicatorState.SmoothedAverage.ema(period);
+        for (int i = 0; i < values.length; i++) {
+            out[i] = ema.peek(values[i]);
+            ema.commit(values[i]);
+        }
+        return out;
+    }
+
+    private double[] rsi(BarSeries bars, int period) {
+        double[] out = new double[bars.size()];
+        IndicatorState.SmoothedAverage gains = IndicatorState.SmoothedAverage.wilder(period);
+        IndicatorState.SmoothedAverage losses = IndicatorState.SmoothedAverage.wilder(period);
+        if (out.length > 0) out[0] = Double.NaN;
+
+        for (int i = 1; i < out.length; i++) {
+            double change = bars.getClose(i) - bars.getClose(i - 1);
+            double gain = gains.peek(Math.max(change, 0));
+            double loss = losses.peek(Math.max(-change, 0));
+            if (Double.isNaN(gain) || Double.isNaN(loss)) {
+                out[i] = Double.NaN;
+            } else {
+                out[i] = loss == 0 ? 100.0 : 100 - (100 / (1 + gain / loss));
+            }
+            gains.commit(Math.max(change, 0));
+            losses.commit(Math.max(-change, 0));
+        }
+        return out;
+    }
+
+    private void addMacd(IndicatorSeries series, BarSeries bars, int fast, int slow, int signalPeriod) {
+        int n = bars.size();
+        double[] macd = new double[n];
+        double[] signal = new double[n];
+        double[] histogram = new double[n];
+        IndicatorState.SmoothedAverage fastEma = IndicatorState.SmoothedAverage.ema(fast);
+        IndicatorState.SmoothedAverage slowEma = IndicatorState.SmoothedAverage.ema(slow);
+        IndicatorState.SmoothedAverage signalEma = IndicatorState.SmoothedAverage.ema(signalPeriod);
+
+        for (int i = 0; i < n; i++) {
+            double close = bars.getClose(i);
+            macd[i] = fastEma.peek(close) - slowEma.peek(close);
+            fastEma.commit(close);
+            slowEma.commit(close);
+            if (Double.isNaN(macd[i])) {
+                signal[i] = Double.NaN;
+            } else {
+                signal[i] = signalEma.peek(macd[i]);
+                signalEma.commit(macd[i]);
+            }
+            histogram[i] = macd[i] - signal[i];
+        }
+        series.addLine("macd", macd);
+        series.addLine("signal", signal);
+        series.addLine("histogram", histogram);
+    }
+
+    private void addBollinger(IndicatorSeries series, BarSeries bars, int period, int width) {
+        int n = bars.size();
+        double[] upper = new double[n];
+        double[] middle = new double[n];
+        double[] lower = new double[n];
+        IndicatorState.RollingWindow window = new IndicatorState.RollingWindow(period - 1);
+
+        for (int i = 0; i < n; i++) {
+            double close = bars.getClose(i);
+            double mean = window.mean(close);
+            double deviation = window.standardDeviation(close);
+            middle[i] = mean;
+            upper[i] = mean + width * deviation;
+            lower[i] = mean - width * deviation;
+            window.push(close);
+        }
+        series.addLine("upper", upper);
+        series.addLine("middle", middle);
+        series.addLine("lower", lower);
+    }
+
+    private void addStochastic(IndicatorSeries series, BarSeries bars, int period, int smoothing) {
+        int n = bars.size();
+        double[] k = new double[n];
+        double[] d = new double[n];
+        IndicatorState.ExtremaWindow highs = new IndicatorState.ExtremaWindow(period - 1, true);
+        IndicatorState.ExtremaWindow lows = new IndicatorState.ExtremaWindow(period - 1, false);
+        IndicatorState.RollingWindow kWindow = new IndicatorState.RollingWindow(smoothing - 1);
+
+        for (int i = 0; i < n; i++) {
+            double highest = highs.peek(bars.getHigh(i));
+            double lowest = lows.peek(bars.getLow(i));
+            if (Double.isNaN(highest) || Double.isNaN(lowest)) {
+                k[i] = Double.NaN;
+                d[i] = Double.NaN;
+            } else {
+                k[i] = highest == lowest ? 50.0 : (bars.getClose(i) - lowest) / (highest - lowest) * 100;
+                d[i] = kWindow.mean(k[i]);
+                kWindow.push(k[i]);
+            }
+            highs.push(bars.getHigh(i));
+            lows.push(bars.getLow(i));
+        }
+        series.addLine("k", k);
+        series.addLine("d", d);
+    }
+
+    private double[] atr(BarSeries bars, int period) {
+        double[] out = new double[bars.size()];
+        IndicatorState.SmoothedAverage average = IndicatorState.SmoothedAverage.wilder(period);
+        if (out.length > 0) out[0] = Double.NaN;
+
+        for (int i = 1; i < out.length; i++) {
+            double previousClose = bars.getClose(i - 1);
+            double trueRange = Math.max(bars.getHigh(i) - bars.getLow(i),
+                    Math.max(Math.abs(bars.getHigh(i) - previousClose), Math.abs(bars.getLow(i) - previousClose)));
+            out[i] = average.peek(trueRange);
+            average.commit(trueRange);
+        }
+        return out;
+    }
+
+    private static final class CachedSeries {
+        private final BarSeries source;
+        private final int size;
+        private final IndicatorSeries series;
+
+        CachedSeries(BarSeries source, int size, IndicatorSeries series) {
+            this.source = source;
+            this.size = size;
+            this.series = series;
+        }
+
+        boolean isCurrent(BarSeries bars) {
+            return source == bars && size == bars.size();
+        }
+
+        /**
+         * Approximate footprint of the computed lines; the source bars are owned by the bar cache
+         */
+        long getRetainedBytes() {
+            long points = (long) series.getLines().size() * size;
+            return 8L * size + 24L * points + 256;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.aiframework.service;
+
+import com.aiframework.dto.BarSeries;
+import com.aiframework.dto.TechnicalIndicators;
+
+/**
+ * Incrementally maintained technical indicators for a single symbol.
+ *
+ * Completed bars are folded into running sums, Wilder/EMA smoothing state and
+ * fixed-size windows that hold the previous (period - 1) bars. The bar that is
+ * still forming completes every window, so both a new bar and an intraday tick
+ * are applied in constant time without rescanning history.
+ */
+public class IndicatorState {
+
+    public static final int SMA_SHORT = 20;
+    public static final int SMA_MEDIUM = 50;
+    public static final int SMA_LONG = 200;
+    public static final int EMA_FAST = 12;
+    public static final int EMA_SLOW = 26;
+    public static final int MACD_SIGNAL = 9;
+    public static final int RSI_PERIOD = 14;
+    public static final int STOCHASTIC_PERIOD = 14;
+    public static final int STOCHASTIC_SMOOTHING = 3;
+    public static final int BOLLINGER_PERIOD = 20;
+    public static final double BOLLINGER_WIDTH = 2.0;
+    public static final int ATR_PERIOD = 14;
+    public static final int VOLUME_PERIOD = 20;
+    public static final int SUPPORT_RESISTANCE_PERIOD = 20;
+
+    private static final long DAY_SECONDS = 86400L;
+
+    private final String symbol;
+    private final long barSeconds;
+
+    // Windows over completed closes/volumes (sized period - 1)
+    private final RollingWindow smaShort = new RollingWindow(SMA_SHORT - 1);
+    private final RollingWindow smaMedium = new RollingWindow(SMA_MEDIUM - 1);
+    private final RollingWindow smaLong = new RollingWindow(SMA_LONG - 1);
+    private final RollingWindow bollinger = new RollingWindow(BOLLINGER_PERIOD - 1);
+    private final RollingWindow volumeWindow = new RollingWindow(VOLUME_PERIOD - 1);
+    private final RollingWindow stochasticK = new RollingWindow(STOCHASTIC_SMOOTHING - 1);
+
+    // Windowed extremes over completed highs/lows
+    private final ExtremaWindow stochasticHigh = new ExtremaWindow(STOCHASTIC_PERIOD - 1, true);
+    private final ExtremaWindow stochasticLow = new ExtremaWindow(STOCHASTIC_PERIOD - 1, false);
+    private final ExtremaWindow resistanceWindow = new ExtremaWindow(SUPPORT_RESISTANCE_PERIOD - 1, true);
+    private final ExtremaWindow supportWindow = new ExtremaWindow(SUPPORT_RESISTANCE_PERIOD - 1, false);
+
+    // Exponential and Wilder smoothing
+    private final SmoothedAverage emaFast = SmoothedAverage.ema(EMA_FAST);
+    private final SmoothedAverage emaSlow = SmoothedAverage.ema(EMA_SLOW);
+    private final SmoothedAverage macdSignal = SmoothedAverage.ema(MACD_SIGNAL);
+    private final SmoothedAverage avgGain = SmoothedAverage.wilder(RSI_PERIOD);
+    private final SmoothedAverage avgLoss = SmoothedAverage.wilder(RSI_PERIOD);
+    private final SmoothedAverage atr = SmoothedAverage.wilder(ATR_PERIOD);
+
+    private double obv;
+    private double lastClose = Double.NaN;
+    private long committedBars;
+
+    // Bar that is still forming (the latest bar seen)
+    private boolean hasForming;
+    private long formingTimestamp;
+    private double formingOpen;
+    private double formingHigh;
+    private double formingLow;
+    private double formingClose;
+    private double formingVolume;
+
+    public IndicatorState(String symbol) {
+        this(symbol, DAY_SECONDS);
+    }
+
+    public IndicatorState(String symbol, long barSeconds) {
+        this.symbol = symbol;
+        this.barSeconds = barSeconds;
+    }
+
+    /**
+     * Build state from a historical series in a single linear pass
+     */
+    public static IndicatorState fromSeries(BarSeries series) {
+        IndicatorState state = new IndicatorState(series.getSymbol());
+        for (int i = 0; i < series.size(); i++) {
+            state.update(series.getTimestamp(i), series.getOpen(i), series.getHigh(i),
+                    series.getLow(i), series.getClose(i), series.getVolume(i));
+        }
+        return state;
+    }
+
+    /**
+     * Apply a bar or an intraday revision of the current bar.
+     * An update in the same bar period revises the forming bar, a later period
+     * completes it and starts a new one, and out-of-order updates are ignored.
+     */
+    public synchronized void update(long timestamp, double open, double high, double low, double close, double volume) {
+        if (!hasForming) {
+            startBar(timestamp, open, high, low, close, volume);
+            return;
+        }
+
+        long bucket = Math.floorDiv(timestamp, barSeconds);
+        long formingBucket = Math.floorDiv(formingTimestamp, barSeconds);
+
+        if (bucket == formingBucket) {
+            formingHigh = Math.max(formingHigh, high);
+            formingLow = Math.min(formingLow, low);
+            formingClose = close;
+            formingVolume = volume;
+            formingTimestamp = Math.max(formingTimestamp, timestamp);
+        } else if (bucket > formingBucket) {
+            commitForming();
+            startBar(timestamp, open, high, low, close, volume);
+        }
+    }
+
+    /**
+     * Apply a last-trade price to the forming bar
+     */
+    public synchronized void tick(long timestamp, double price, double cumulativeVolume) {
+        if (hasForming && Math.floorDiv(timestamp, barSeconds) == Math.floorDiv(formingTimestamp, barSeconds)) {
+            update(timestamp, formingOpen, price, price, price,
+                    cumulativeVolume > 0 ? cumulativeVolume : formingVolume);
+        } else {
+            update(timestamp, price, price, price, price, Math.max(cumulativeVolume, 0));
+        }
+    }
+
+    private void startBar(long timestamp, double open, double high, double low, double close, double volume) {
+        hasForming = true;
+        formingTimestamp = timestamp;
+        formingOpen = open;
+        formingHigh = Math.max(high, Math.max(open, close));
+        formingLow = Math.min(low, Math.min(open, close));
+        formingClose = close;
+        formingVolume = volume;
+    }
+
+    private void commitForming() {
+        double close = formingClose;
+
+        // Values that chain off earlier smoothing state must be read before it advances
+        double macd = macdLine(close);
+        double k = stochasticK(formingHigh, formingLow, close);
+
+        emaFast.commit(close);
+        emaSlow.commit(close);
+        if (!Double.isNaN(macd)) {
+            macdSignal.commit(macd);
+        }
+        if (!Double.isNaN(k)) {
+            stochasticK.push(k);
+        }
+
+        if (!Double.isNaN(lastClose)) {
+            double change = close - lastClose;
+            avgGain.commit(Math.max(change, 0));
+            avgLoss.commit(Math.max(-change, 0));
+            atr.commit(trueRange(formingHigh, formingLow));
+            obv += Math.signum(change) * formingVolume;
+        }
+
+        smaShort.push(close);
+        smaMedium.push(close);
+        smaLong.push(close);
+        bollinger.push(close);
+        volumeWindow.push(formingVolume);
+        stochasticHigh.push(formingHigh);
+        stochasticLow.push(formingLow);
+        resistanceWindow.push(formingHigh);
+        supportWindow.push(formingLow);
+
+        lastClose = close;
+        committedBars++;
+    }
+
+    // Indicator values for the forming bar
+
+    private double macdLine(double close) {
+        return emaFast.peek(close) - emaSlow.peek(close);
+    }
+
+    private double stochasticK(double high, double low, double close) {
+        double highest = stochasticHigh.peek(high);
+        double lowest = stochasticLow.peek(low);
+        if (Double.isNaN(highest) || Double.isNaN(lowest)) return Double.NaN;
+        if (highest == lowest) return 50.0;
+        return (close - lowest) / (highest - lowest) * 100;
+    }
+
+    private double trueRange(double high, double low) {
+        if (Double.isNaN(lastClose)) return high - low;
+        return Math.max(high - low, Math.max(Math.abs(high - lastClose), Math.abs(low - lastClose)));
+    }
+
+    private double rsi(double close) {
+        if (Double.isNaN(lastClose)) return Double.NaN;
+        double change = close - lastClose;
+        double gain = avgGain.peek(Math.max(change, 0));
+        double loss = avgLoss.peek(Math.max(-change, 0));
+        if (Double.isNaN(gain) || Double.isNaN(loss)) return Double.NaN;
+        if (loss == 0) return 100.0;
+        return 100 - (100 / (1 + gain / loss));
+    }
+
+    /**
+     * Snapshot of every indicator as of the latest bar, or null before the first bar
+     */
+    public synchronized TechnicalIndicators snapshot() {
+        if (!hasForming) return null;
+
+        double close = formingClose;
+        TechnicalIndicators indicators = new TechnicalIndicators(symbol);
+
+        indicators.setSma20(value(smaShort.mean(close)));
+        indicators.setSma50(value(smaMedium.mean(close)));
+        indicators.setSma200(value(smaLong.mean(close)));
+        indicators.setEma12(value(emaFast.peek(close)));
+        indicators.setEma26(value(emaSlow.peek(close)));
+
+        indicators.setRsi(value(rsi(close)));
+
+        double macd = macdLine(close);
+        double signal = Double.isNaN(macd) ? Double.NaN : macdSignal.peek(macd);
+        indicators.setMacd(value(macd));
+        indicators.setMacdSignal(value(signal));
+        indicators.setMacdHistogram(value(macd - signal));
+
+        double k = stochasticK(formingHigh, formingLow, close);
+        indicators.setStochasticK(value(k));
+        indicators.setStochasticD(value(Double.isNaN(k) ? Double.NaN : stochasticK.mean(k)));
+
+        double middle = bollinger.mean(close);
+        double deviation = bollinger.standardDeviation(close);
+        indicators.setBollingerMiddle(value(middle));
+        indicators.setBollingerUpper(value(middle + BOLLINGER_WIDTH * deviation));
+        indicators.setBollingerLower(value(middle - BOLLINGER_WIDTH * deviation));
+
+        indicators.setAtr(value(Double.isNaN(lastClose) ? Double.NaN : atr.peek(trueRange(formingHigh, formingLow))));
+        indicators.setVolumeMA(value(volumeWindow.mean(formingVolume)));
+        indicators.setObv(Double.isNaN(lastClose) ? 0.0 : obv + Math.signum(close - lastClose) * formingVolume);
+
+        indicators.setSupport(value(supportWindow.peek(formingLow)));
+        indicators.setResistance(value(resistanceWindow.peek(formingHigh)));
+        return indicators;
+    }
+
+    public String getSymbol() { return symbol; }
+
+    /**
+     * Number of bars seen, including the one still forming
+     */
+    public synchronized long getBarCount() { return committedBars + (hasForming ? 1 : 0); }
+
+    public synchronized long getLastTimestamp() { return hasForming ? formingTimestamp : 0L; }
+
+    private static Double value(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? null : v;
+    }
+
+    /**
+     * EMA or Wilder moving average seeded with the simple average of its first period inputs.
+     * peek() evaluates the average including a provisional input without consuming it.
+     */
+    static final class SmoothedAverage {
+        private final int period;
+        private final double alpha;
+        private long count;
+        private double seedSum;
+        private double value = Double.NaN;
+
+        private SmoothedAverage(int period, double alpha) {
+            this.period = period;
+            this.alpha = alpha;
+        }
+
+        static SmoothedAverage ema(int period) {
+            return new SmoothedAverage(period, 2.0 / (period + 1));
+        }
+
+        static SmoothedAverage wilder(int period) {
+            return new SmoothedAverage(period, 1.0 / period);
+        }
+
+        double peek(double x) {
+            if (count + 1 < period) return Double.NaN;
+            if (count + 1 == period) return (seedSum + x) / period;
+            return x * alpha + value * (1 - alpha);
+        }
+
+        void commit(double x) {
+            double next = peek(x);
+            if (count + 1 < period) {
+                seedSum += x;
+            } else {
+                value = next;
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Fixed-capacity ring buffer with running sum and sum of squares.
+     * The sums are periodically rebuilt from the buffer to bound floating-point drift.
+     */
+    static final class RollingWindow {
+        private static final int RESYNC_INTERVAL = 4096;
+
+        private final double[] values;
+        private int head;
+        private int size;
+        private double sum;
+        private double sumSquares;
+        private int pushesSinceResync;
+
+        RollingWindow(int capacity) {
+            this.values = new double[Math.max(capacity, 0)];
+        }
+
+        void push(double value) {
+            if (values.length == 0) return;
+
+            if (size == values.length) {
+                double evicted = values[head];
+                sum -= evicted;
+                sumSquares -= evicted * evicted;
+                values[head] = value;
+                head = (head + 1) % values.length;
+            } else {
+                values[(head + size) % values.length] = value;
+                size++;
+            }
+            sum += value;
+            sumSquares += value * value;
+
+            if (++pushesSinceResync >= RESYNC_INTERVAL) {
+                resync();
+            }
+        }
+
+        private void resync() {
+            double s = 0;
+            double sq = 0;
+            for (int i = 0; i < size; i++) {
+                double v = values[(head + i) % values.length];
+                s += v;
+                sq += v * v;
+            }
+            sum = s;
+            sumSquares = sq;
+            pushesSinceResync = 0;
+        }
+
+        /**
+         * Mean of the full window plus one provisional value, NaN until the window is full
+         */
+        double mean(double provisional) {
+            if (size < values.length) return Double.NaN;
+            return (sum + provisional) / (values.length + 1);
+        }
+
+        /**
+         * Population standard deviation of the full window plus one provisional value
+         */
+        double standardDeviation(double provisional) {
+            if (size < values.length) return Double.NaN;
+            int n = values.length + 1;
+            double mean = (sum + provisional) / n;
+            double variance = (sumSquares + provisional * provisional) / n - mean * mean;
+            return Math.sqrt(Math.max(variance, 0));
+        }
+    }
+
+    /**
+     * Sliding-window maximum or minimum using a monotonic deque (amortised O(1) per push)
+     */
+    static final class ExtremaWindow {
+        private final int capacity;
+        private final boolean maximum;
+        private final long[] sequence;
+        private final double[] values;
+        private int head;
+        private int size;
+        private long pushed;
+
+        ExtremaWindow(int capacity, boolean maximum) {
+            this.capacity = Math.max(capacity, 0);
+            this.maximum = maximum;
+            this.sequence = new long[Math.max(capacity, 1)];
+            this.values = new double[Math.max(capacity, 1)];
+        }
+
+        void push(double value) {
+            if (capacity == 0) return;
+
+            // Drop the element that falls out of the window once this one is added
+            if (size > 0 && sequence[head] <= pushed - capacity) {
+                head = (head + 1) % values.length;
+                size--;
+            }
+            // Drop elements from the back that can never be the extreme again
+            while (size > 0) {
+                int tail = (head + size - 1) % values.length;
+                boolean dominated = maximum ? values[tail] <= value : values[tail] >= value;
+                if (!dominated) break;
+                size--;
+            }
+            int slot = (head + size) % values.length;
+            sequence[slot] = pushed;
+            values[slot] = value;
+            size++;
+            pushed++;
+        }
+
+        /**
+         * Extreme of the full window and one provisional value, NaN until the window is full
+         */
+        double peek(double provisional) {
+            if (pushed < capacity) return Double.NaN;
+            if (capacity == 0) return provisional;
+            return maximum ? Math.max(values[head], provisional) : Math.min(values[head], provisional);
+        }
+    }
+}
@@ -18,12 +18,19 @@ public class IntelligentAgentCommunicationHub {
     @Autowired
     private LocalLLMService localLLMService;
 
+    @Autowired
+    private ConversationHistory conversationHistory;
+
+    @Autowired
+    private AgentRouter agentRouter;
+
     // Dynamic agent registry - no hardcoded relationships
     private final Map<String, AgentCapability> agentRegistry = new ConcurrentHashMap<>();
-    private final Map<String, List<AgentMessage>> conversationHistory = new ConcurrentHashMap<>();
 
     public void registerAgent(String agentId, AgentCapability capability) {
         agentRegistry.put(agentId, capability);
+        agentRouter.register(capability);
+        conversationHistory.open(agentId);
         logger.info("Registered agent: {} with capabilities: {}", agentId, capability.getCapabilities());
     }
 
@@ -33,7 +40,19 @@ public class IntelligentAgentCommunicationHub {
             .thenApply(this::synthesizeResults);
     }
 
+    /**
+     * Agents for a task; the LLM is only asked when the keyword index is not confident and
+     * no earlier decision for an equivalent task is cached
+     */
     public CompletableFuture<List<String>> findBestAgentsForTask(String task, Map<String, Object> context) {
+        return agentRouter.route(task, context, () -> findBestAgentsWithLLM(task, context));
+    }
+
+    /**
+     * The LLM's choice of agents; fails, so the router neither caches nor trusts it, when the
+     * response is an error or names no registered agent
+     */
+    private CompletableFuture<List<String>> findBestAgentsWithLLM(String task, Map<String, Object> context) {
         String routingPrompt = buildAgentRoutingPrompt(task, context, agentRegistry);
 
         return localLLMService.generateResponse(routingPrompt, 512, 0.3f)
@@ -43,7 +62,7 @@ public class IntelligentAgentCommunicationHub {
     public CompletableFuture<AgentCollaboration> facilitateAgentCollaboration(String initiatingAgent, String task, List<String> involvedAgents) {
         String collaborationPrompt = buildCollaborationPrompt(initiatingAgent, task, involvedAgents);
 
-        return localLLMService.generateResponse(collaborationPrompt, 768, 0.4f)
+        return localLLMService.generateResponse(collaborationPrompt, 768, 0.4f, LLMDispatcher.Lane.BACKGROUND)
             .thenApply(response -> createCollaborationPlan(response, involvedAgents));
     }
 
@@ -148,27 +167,17 @@ public class IntelligentAgentCommunicationHub {
         result.put("output", "Processed: " + message.getTask());
         result.put("timestamp", new Date());
 
-        // Store conversation history
-        storeConversationHistory(agentId, message);
+        // Store conversation history; the ring keeps the most recent messages per agent
+        conversationHistory.append(agentId, message);
 
         return result;
     }
 
-    private void storeConversationHistory(String agentId, AgentMessage message) {
-        conversationHistory.computeIfAbsent(agentId, k -> new ArrayList<>()).add(message);
-
-        // Keep only last 100 messages per agent
-        List<AgentMessage> history = conversationHistory.get(agentId);
-        if (history.size() > 100) {
-            history.subList(0, history.size() - 100).clear();
-        }
-    }
-
     private List<String> parseAgentSelection(String llmResponse) {
         List<String> selectedAgents = new ArrayList<>();
 
         // Simple parsing - in production, use proper JSON parsing
-        if (llmResponse.contains("\"primaryAgents\":")) {
+        if (llmResponse != null && llmResponse.contains("\"primaryAgents\":")) {
             // Extract agent names from the LLM response
             for (String agentId : agentRegistry.keySet()) {
                 if (llmResponse.toLowerCase().contains(agentId.toLowerCase())) {
@@ -177,9 +186,11 @@ public class IntelligentAgentCommunicationHub {
             }
         }
 
-        // Fallback: if no agents found, return all available agents
+        // Failures come back as text; the router falls back without caching them
         if (selectedAgents.isEmpty()) {
-            selectedAgents.addAll(agentRegistry.keySet());
+            String excerpt = llmResponse == null ? "no response"
+                : llmResponse.substring(0, Math.min(120, llmResponse.length()));
+            throw new IllegalStateException("LLM routing named no registered agent: " + excerpt);
         }
 
         return selectedAgents;
@@ -241,9 +252,24 @@ public class IntelligentAgentCommunicationHub {
 
     public Map<String, List<AgentMessage>> getConversationHistory(String agentId) {
         if (agentId != null) {
-            return Map.of(agentId, conversationHistory.getOrDefault(agentId, new ArrayList<>()));
+            return Map.of(agentId, conversationHistory.getMessages(agentId));
         }
-        return new HashMap<>(conversationHistory);
+        return conversationHistory.getAllMessages();
+    }
+
+    /**
+     * Page through an agent's history, newest first, optionally within a time window
+     */
+    public ConversationHistory.Page getConversationHistory(String agentId, Long from, Long to, Long before, int limit) {
+        return conversationHistory.query(agentId, from, to, before, limit);
+    }
+
+    public Map<String, Object> getRoutingStats() {
+        return agentRouter.getStats();
+    }
+
+    public Map<String, Object> getConversationHistoryStats() {
+        return conversationHistory.getStats();
     }
 
     private String formatContext(Map<String, Object> context) {
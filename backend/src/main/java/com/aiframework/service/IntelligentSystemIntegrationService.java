@@ -179,7 +179,7 @@ public class IntelligentSystemIntegrationService {
             - News-related events = varies based on impact
             """, symbol, eventType, eventData.toString());
 
-        return localLLMService.generateResponse(urgencyPrompt, 50, 0.1f)
+        return localLLMService.generateResponse(urgencyPrompt, 50, 0.1f, LLMDispatcher.Lane.BACKGROUND)
             .thenApply(response -> {
                 String urgency = String.valueOf(response).trim().toUpperCase();
                 return Arrays.asList("LOW", "MEDIUM", "HIGH").contains(urgency) ? urgency : "MEDIUM";
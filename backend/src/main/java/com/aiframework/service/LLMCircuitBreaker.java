@@ -0,0 +1,127 @@
+package com.aiframework.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker for calls to the local model server.
+ *
+ * Closed, calls go through and consecutive failures are counted; at the threshold the
+ * breaker opens and calls fail immediately instead of each waiting out the request timeout.
+ * After the open interval, or as soon as a health probe succeeds, it turns half-open and
+ * lets a single trial call through: success closes it, failure opens it again.
+ */
+class LLMCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(LLMCircuitBreaker.class);
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // All guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long rejected;
+    private long opened;
+
+    LLMCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openMillis = Math.max(openMillis, 0);
+    }
+
+    /**
+     * Whether a call may go ahead; a permitted call must end in exactly one of onSuccess,
+     * onFailure or release
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            trip();
+        }
+    }
+
+    /**
+     * A permitted call ended without saying anything about the server, e.g. it was cancelled
+     */
+    synchronized void release() {
+        trialInFlight = false;
+    }
+
+    /**
+     * The health probe reached the server: let a trial call through rather than waiting
+     */
+    synchronized void onProbeSuccess() {
+        if (state == State.OPEN) {
+            transition(State.HALF_OPEN);
+        }
+    }
+
+    /**
+     * The health probe could not reach the server: fail calls fast until it can
+     */
+    synchronized void onProbeFailure() {
+        if (state != State.OPEN) {
+            trip();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("failureThreshold", failureThreshold);
+        stats.put("openMs", openMillis);
+        stats.put("timesOpened", opened);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    private void trip() {
+        openedAt = System.currentTimeMillis();
+        opened++;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            logger.info("LLM circuit breaker {} -> {}", state, next);
+        }
+        state = next;
+    }
+}
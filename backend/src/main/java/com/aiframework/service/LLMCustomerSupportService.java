@@ -23,35 +23,35 @@ public class LLMCustomerSupportService {
     public CompletableFuture<SupportResponse> handleStockAlert(String symbol, String alertType, Map<String, Object> marketData) {
         String alertPrompt = buildStockAlertPrompt(symbol, alertType, marketData);
 
-        return localLLMService.generateResponse(alertPrompt, 768, 0.4f)
+        return localLLMService.generateResponse(alertPrompt, 768, 0.4f, LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> createSupportResponse(response, "STOCK_ALERT", symbol));
     }
 
     public CompletableFuture<SupportResponse> explainTechnicalIndicator(String indicator, String symbol, Map<String, Object> context) {
         String explanationPrompt = buildIndicatorExplanationPrompt(indicator, symbol, context);
 
-        return localLLMService.generateResponse(explanationPrompt, 512, 0.3f)
+        return localLLMService.generateResponse(explanationPrompt, 512, 0.3f, LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> createSupportResponse(response, "INDICATOR_EXPLANATION", symbol));
     }
 
     public CompletableFuture<SupportResponse> provideRiskWarning(String symbol, String riskType, Map<String, Object> riskData) {
         String warningPrompt = buildRiskWarningPrompt(symbol, riskType, riskData);
 
-        return localLLMService.generateResponse(warningPrompt, 640, 0.2f)
+        return localLLMService.generateResponse(warningPrompt, 640, 0.2f, LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> createSupportResponse(response, "RISK_WARNING", symbol));
     }
 
     public CompletableFuture<SupportResponse> suggestActionPlan(String symbol, String situation, Map<String, Object> portfolio) {
         String actionPrompt = buildActionPlanPrompt(symbol, situation, portfolio);
 
-        return localLLMService.generateResponse(actionPrompt, 896, 0.4f)
+        return localLLMService.generateResponse(actionPrompt, 896, 0.4f, LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> createSupportResponse(response, "ACTION_PLAN", symbol));
     }
 
     public CompletableFuture<SupportResponse> handleGeneralInquiry(String question, Map<String, Object> userContext) {
         String inquiryPrompt = buildGeneralInquiryPrompt(question, userContext);
 
-        return localLLMService.generateResponse(inquiryPrompt, 512, 0.5f)
+        return localLLMService.generateResponse(inquiryPrompt, 512, 0.5f, LLMDispatcher.Lane.INTERACTIVE)
             .thenApply(response -> createSupportResponse(response, "GENERAL_INQUIRY", "N/A"));
     }
 
@@ -6,6 +6,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import reactor.core.publisher.Flux;
+
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -45,6 +47,22 @@ public class LLMDecisionEngine {
             .thenApply(response -> parseDecisionResponse(response, "MARKET_SENTIMENT"));
     }
 
+    /**
+     * Stream the investment decision text as it is generated; parse the complete text with
+     * {@link #parseDecision}
+     */
+    public Flux<String> streamInvestmentDecision(String symbol, Map<String, Object> marketData) {
+        return localLLMService.streamResponse(buildInvestmentDecisionPrompt(symbol, marketData), 512, 0.3f);
+    }
+
+    public Flux<String> streamRiskAssessment(String symbol, Map<String, Object> indicators) {
+        return localLLMService.streamResponse(buildRiskAssessmentPrompt(symbol, indicators), 384, 0.2f);
+    }
+
+    public DecisionResult parseDecision(String response, String decisionType) {
+        return parseDecisionResponse(response, decisionType);
+    }
+
     private String buildInvestmentDecisionPrompt(String symbol, Map<String, Object> marketData) {
         return String.format("""
             As an AI investment advisor, analyze the following data for %s and provide a clear investment decision:
@@ -0,0 +1,304 @@
+package com.aiframework.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for requests to the local model server.
+ *
+ * At most max-concurrency requests run at once, matched to what the server can actually
+ * process in parallel; the rest wait in priority lanes and are started, highest lane first,
+ * as running requests finish. Nothing blocks a thread while waiting. A request whose caller
+ * cancels, or which waits longer than the queue timeout, is dropped from its lane without
+ * ever reaching the server. Once the lanes are too deep new requests are shed immediately,
+ * background ones first.
+ */
+@Component
+public class LLMDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(LLMDispatcher.class);
+
+    /** Lanes in dispatch order */
+    public enum Lane {
+        INTERACTIVE, STANDARD, BACKGROUND
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final int maxConcurrency;
+    private final int maxQueueDepth;
+    private final long queueTimeoutMs;
+
+    // All guarded by this
+    private final List<ArrayDeque<Ticket>> lanes = new ArrayList<>();
+    private int running;
+    private int queued;
+    private final long[] admitted = new long[LANES.length];
+    private final long[] shed = new long[LANES.length];
+    private final long[] abandoned = new long[LANES.length];
+    private final long[] expired = new long[LANES.length];
+    private final long[] totalWaitNanos = new long[LANES.length];
+    private final long[] maxWaitNanos = new long[LANES.length];
+
+    /** The right to run one request; released exactly once when the request ends */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                finished();
+            }
+        }
+    }
+
+    private static final class Ticket {
+        final Lane lane;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Permit> admission = new CompletableFuture<>();
+
+        Ticket(Lane lane) {
+            this.lane = lane;
+        }
+    }
+
+    public LLMDispatcher(@Value("${llm.dispatcher.max-concurrency:1}") int maxConcurrency,
+                         @Value("${llm.dispatcher.max-queue-depth:32}") int maxQueueDepth,
+                         @Value("${llm.dispatcher.queue-timeout-ms:30000}") long queueTimeoutMs) {
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+        this.maxQueueDepth = Math.max(maxQueueDepth, 1);
+        this.queueTimeoutMs = Math.max(queueTimeoutMs, 1);
+        for (int i = 0; i < LANES.length; i++) {
+            lanes.add(new ArrayDeque<>());
+        }
+        logger.info("LLM dispatcher running {} request(s) at a time, queueing up to {}", this.maxConcurrency,
+            this.maxQueueDepth);
+    }
+
+    /**
+     * Run a request once admitted. Cancelling the returned future withdraws the request if
+     * it is still queued and cancels it if it is running.
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<Permit> admission = acquire(lane);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                admission.cancel(false);
+            }
+        });
+
+        admission.whenComplete((permit, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                permit.release();
+                return;
+            }
+            CompletableFuture<T> call;
+            try {
+                call = request.get();
+            } catch (RuntimeException e) {
+                permit.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            call.whenComplete((value, failure) -> {
+                permit.release();
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, failure) -> {
+                if (result.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Subscribe to a streaming request once admitted; the permit is held until the stream
+     * ends or its subscriber cancels
+     */
+    public <T> Flux<T> submitStream(Lane lane, Supplier<Flux<T>> request) {
+        return Flux.defer(() -> {
+            CompletableFuture<Permit> admission = acquire(lane);
+            return Mono.fromFuture(admission)
+                .flatMapMany(permit -> request.get().doFinally(signal -> permit.release()))
+                .doOnCancel(() -> {
+                    // Withdraw if still queued, or give back a permit granted as we cancelled
+                    if (!admission.cancel(false)) {
+                        admission.thenAccept(Permit::release);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Queue for a permit. The future fails with RejectedExecutionException when the request
+     * is shed or waits longer than the queue timeout; by then its caller has most likely
+     * given up on it.
+     */
+    public CompletableFuture<Permit> acquire(Lane lane) {
+        Ticket ticket = new Ticket(lane);
+        Permit granted = null;
+        synchronized (this) {
+            int index = lane.ordinal();
+            if (running < maxConcurrency && queued == 0) {
+                running++;
+                admitted[index]++;
+                granted = new Permit();
+            } else if (queued >= sheddingDepth(lane)) {
+                shed[index]++;
+                ticket.admission.completeExceptionally(new RejectedExecutionException(
+                    "LLM queue is full (" + queued + " waiting)"));
+                return ticket.admission;
+            } else {
+                lanes.get(index).addLast(ticket);
+                queued++;
+            }
+        }
+        if (granted != null) {
+            ticket.admission.complete(granted);
+            return ticket.admission;
+        }
+
+        CompletableFuture.delayedExecutor(queueTimeoutMs, TimeUnit.MILLISECONDS).execute(() ->
+            ticket.admission.completeExceptionally(new RejectedExecutionException(
+                "Waited more than " + queueTimeoutMs + " ms in the LLM queue")));
+        ticket.admission.whenComplete((permit, error) -> {
+            if (error != null) {
+                withdraw(ticket, error);
+            }
+        });
+        return ticket.admission;
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxConcurrency", maxConcurrency);
+        metrics.put("running", running);
+        metrics.put("queued", queued);
+        metrics.put("maxQueueDepth", maxQueueDepth);
+        metrics.put("queueTimeoutMs", queueTimeoutMs);
+
+        Map<String, Object> byLane = new LinkedHashMap<>();
+        for (Lane lane : LANES) {
+            int index = lane.ordinal();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", lanes.get(index).size());
+            stats.put("admitted", admitted[index]);
+            stats.put("shed", shed[index]);
+            stats.put("cancelled", abandoned[index]);
+            stats.put("expired", expired[index]);
+            stats.put("sheddingDepth", sheddingDepth(lane));
+            stats.put("averageWaitMs", admitted[index] == 0 ? 0.0
+                : totalWaitNanos[index] / 1_000_000.0 / admitted[index]);
+            stats.put("maxWaitMs", maxWaitNanos[index] / 1_000_000.0);
+            byLane.put(lane.name(), stats);
+        }
+        metrics.put("lanes", byLane);
+        return metrics;
+    }
+
+    /**
+     * Queue depth at which a lane's new requests are shed: lower lanes give way first, so
+     * a backlog of background work cannot crowd out interactive requests
+     */
+    private int sheddingDepth(Lane lane) {
+        return switch (lane) {
+            case INTERACTIVE -> maxQueueDepth;
+            case STANDARD -> Math.max(1, maxQueueDepth * 3 / 4);
+            case BACKGROUND -> Math.max(1, maxQueueDepth / 2);
+        };
+    }
+
+    private void withdraw(Ticket ticket, Throwable error) {
+        synchronized (this) {
+            if (!lanes.get(ticket.lane.ordinal()).remove(ticket)) {
+                // Already taken by finished(), which counts it
+                return;
+            }
+            queued--;
+            recordDropped(ticket);
+        }
+        if (!ticket.admission.isCancelled()) {
+            logger.warn("{} LLM request dropped after waiting {} ms in the queue", ticket.lane, queueTimeoutMs);
+        }
+    }
+
+    /** Count a ticket that left the queue without running; caller holds the lock */
+    private void recordDropped(Ticket ticket) {
+        if (ticket.admission.isCancelled()) {
+            abandoned[ticket.lane.ordinal()]++;
+        } else {
+            expired[ticket.lane.ordinal()]++;
+        }
+    }
+
+    private void finished() {
+        List<Ticket> admittedTickets = new ArrayList<>();
+        synchronized (this) {
+            running--;
+            long now = System.nanoTime();
+            while (running < maxConcurrency && queued > 0) {
+                Ticket ticket = poll();
+                // Completed already means cancelled or expired
+                if (ticket.admission.isDone()) {
+                    recordDropped(ticket);
+                    continue;
+                }
+                int index = ticket.lane.ordinal();
+                long waited = now - ticket.enqueuedAt;
+                admitted[index]++;
+                totalWaitNanos[index] += waited;
+                maxWaitNanos[index] = Math.max(maxWaitNanos[index], waited);
+                running++;
+                admittedTickets.add(ticket);
+            }
+        }
+        // Started outside the lock, since admission runs the caller's request
+        for (Ticket ticket : admittedTickets) {
+            Permit permit = new Permit();
+            if (!ticket.admission.complete(permit)) {
+                // Cancelled or expired in between
+                synchronized (this) {
+                    admitted[ticket.lane.ordinal()]--;
+                    recordDropped(ticket);
+                }
+                permit.release();
+            }
+        }
+    }
+
+    /** Next ticket from the highest non-empty lane; caller holds the lock */
+    private Ticket poll() {
+        for (ArrayDeque<Ticket> lane : lanes) {
+            Ticket ticket = lane.pollFirst();
+            if (ticket != null) {
+                queued--;
+                return ticket;
+            }
+        }
+        throw new IllegalStateException("Queue count out of step with lanes");
+    }
+}
@@ -0,0 +1,34 @@
+package com.aiframework.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator health of the local model server, as "llm" under /actuator/health. Reads the
+ * state kept by the background probe and circuit breaker, so it never calls the server.
+ * An unreachable server is DEGRADED rather than DOWN: everything but LLM features keeps
+ * working, so the aggregate health should not fail (see management.endpoint.health.status).
+ */
+@Component("llmHealthIndicator")
+public class LLMHealthIndicator implements HealthIndicator {
+
+    static final Status DEGRADED = new Status("DEGRADED", "Local model server unavailable");
+
+    private final LocalLLMService localLLMService;
+
+    public LLMHealthIndicator(LocalLLMService localLLMService) {
+        this.localLLMService = localLLMService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (localLLMService.getModelStatus()) {
+            case "READY", "RECOVERING" -> Health.up();
+            case "DISABLED", "LOADING" -> Health.unknown();
+            default -> Health.status(DEGRADED);
+        };
+        return builder.withDetails(localLLMService.getHealth()).build();
+    }
+}
@@ -1,22 +1,51 @@
 package com.aiframework.service;
 
+import com.aiframework.cache.BoundedCache;
+import com.aiframework.cache.MappedFileCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class LocalLLMService {
     private static final Logger logger = LoggerFactory.getLogger(LocalLLMService.class);
 
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> CHUNK_EVENT =
+        new ParameterizedTypeReference<>() { };
+
     @Value("${llm.local.api.url:http://localhost:4891/v1}")
     private String apiUrl;
 
@@ -32,11 +61,146 @@ public class LocalLLMService {
     @Value("${llm.local.api.timeout:30000}")
     private int timeoutMs;
 
+    @Value("${llm.model:gpt4all}")
+    private String model;
+
+    @Value("${llm.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${llm.cache.max-temperature:0.5}")
+    private float cacheMaxTemperature;
+
+    @Value("${llm.cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    @Value("${llm.cache.memory.max-bytes:16777216}")
+    private long cacheMemoryMaxBytes;
+
+    @Value("${llm.cache.disk.enabled:false}")
+    private boolean diskCacheEnabled;
+
+    @Value("${llm.cache.disk.path:data/llm-cache.bin}")
+    private String diskCachePath;
+
+    @Value("${llm.cache.disk.max-bytes:67108864}")
+    private long diskCacheMaxBytes;
+
+    @Value("${llm.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    @Value("${llm.health.probe-timeout-ms:5000}")
+    private long probeTimeoutMs;
+
+    @Value("${llm.circuit.failure-threshold:3}")
+    private int circuitFailureThreshold;
+
+    @Value("${llm.circuit.open-ms:30000}")
+    private long circuitOpenMs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LLMDispatcher dispatcher;
+
     private WebClient webClient;
-    private boolean isApiAvailable = false;
+    // Maintained by the background health probe
+    private volatile boolean isApiAvailable = false;
+    private volatile boolean probed = false;
+    private volatile long lastProbeAt;
+    private volatile String lastProbeError;
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private LLMCircuitBreaker circuitBreaker;
+
+    // Exact-match response caches; null when caching is disabled
+    private BoundedCache<String, String> responseCache;
+    private MappedFileCache diskCache;
+    private final LongAdder cacheBypassed = new LongAdder();
+
+    // Generations in progress, shared by identical concurrent requests
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder generationRequests = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+
+    /** The API answered without any content */
+    private static final class EmptyResponseException extends RuntimeException {
+        EmptyResponseException() {
+            super("No response generated");
+        }
+    }
+
+    /** The circuit breaker is failing calls fast */
+    private static final class CircuitOpenException extends RuntimeException {
+        CircuitOpenException() {
+            super("LLM circuit breaker is open, the model server has been failing");
+        }
+    }
+
+    /**
+     * One generation in progress and the callers waiting on it. It is cancelled only once
+     * every caller has given up, and only when cancellable, i.e. not also loading the cache.
+     */
+    private final class Flight {
+        private final String key;
+        private final CompletableFuture<String> upstream;
+        private final CompletableFuture<String> response;
+        private final boolean cancellable;
+        private int waiters; // guarded by this
+        private boolean finished; // guarded by this
+
+        Flight(String key, CompletableFuture<String> upstream, boolean cancellable) {
+            this.key = key;
+            this.upstream = upstream;
+            this.cancellable = cancellable;
+            // Mapped once, so a shared failure is logged once
+            this.response = upstream.exceptionally(LocalLLMService.this::describeFailure);
+        }
+
+        /**
+         * A future of this flight's response for one more caller; null once it has finished
+         */
+        CompletableFuture<String> follow() {
+            synchronized (this) {
+                if (finished) {
+                    return null;
+                }
+                waiters++;
+            }
+            CompletableFuture<String> own = response.thenApply(content -> content);
+            own.whenComplete((content, error) -> {
+                if (own.isCancelled()) {
+                    leave();
+                }
+            });
+            return own;
+        }
+
+        private void leave() {
+            synchronized (this) {
+                if (--waiters > 0 || finished || !cancellable) {
+                    return;
+                }
+                finished = true;
+            }
+            inFlight.remove(key, this);
+            upstream.cancel(true);
+        }
+
+        private void finish() {
+            synchronized (this) {
+                finished = true;
+            }
+            inFlight.remove(key, this);
+        }
+    }
 
     @PostConstruct
     public void init() {
+        circuitBreaker = new LLMCircuitBreaker(circuitFailureThreshold, circuitOpenMs);
+        if (cacheEnabled) {
+            initCache();
+        }
+
         if (!enabled) {
             logger.info("Local LLM API service is disabled");
             return;
@@ -47,25 +211,72 @@ public class LocalLLMService {
             .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
             .build();
 
-        // Test API availability
-        checkApiAvailability();
+        // Availability is established by the first scheduled probe, without holding up startup
     }
 
-    private void checkApiAvailability() {
-        try {
-            webClient.get()
-                .uri("/models")
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(Duration.ofMillis(5000))
-                .block();
+    @PreDestroy
+    public void shutdown() {
+        if (diskCache != null) {
+            try {
+                diskCache.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close LLM response cache {}: {}", diskCachePath, e.getMessage());
+            }
+        }
+    }
 
-            isApiAvailable = true;
+    private void initCache() {
+        responseCache = new BoundedCache<>("llm-responses", cacheMemoryMaxBytes, Duration.ofMinutes(cacheTtlMinutes),
+            response -> 64 + 2L * response.length());
+        if (diskCacheEnabled) {
+            try {
+                diskCache = new MappedFileCache(Path.of(diskCachePath), diskCacheMaxBytes);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("LLM response disk cache not available at {} - {}", diskCachePath, e.getMessage());
+            }
+        }
+        logger.info("LLM response cache enabled for temperatures up to {}{}", cacheMaxTemperature,
+            diskCache != null ? ", persisted to " + diskCachePath : "");
+    }
+
+    /**
+     * Check whether the model server is reachable, without blocking; the result updates
+     * availability and the circuit breaker. Skipped while the previous probe is still running.
+     */
+    @Scheduled(fixedDelayString = "${llm.health.probe-interval-ms:15000}")
+    public void probeHealth() {
+        if (!enabled || webClient == null || !probing.compareAndSet(false, true)) {
+            return;
+        }
+        webClient.get()
+            .uri("/models")
+            .retrieve()
+            .toBodilessEntity()
+            .timeout(Duration.ofMillis(probeTimeoutMs))
+            .doFinally(signal -> probing.set(false))
+            .subscribe(response -> probeSucceeded(), this::probeFailed);
+    }
+
+    private void probeSucceeded() {
+        lastProbeAt = System.currentTimeMillis();
+        lastProbeError = null;
+        if (!isApiAvailable) {
             logger.info("GPT4All local API is available at: {}", apiUrl);
-        } catch (Exception e) {
-            logger.warn("GPT4All local API not available at: {} - {}", apiUrl, e.getMessage());
-            isApiAvailable = false;
         }
+        isApiAvailable = true;
+        probed = true;
+        circuitBreaker.onProbeSuccess();
+    }
+
+    private void probeFailed(Throwable error) {
+        lastProbeAt = System.currentTimeMillis();
+        lastProbeError = error.getMessage();
+        if (isApiAvailable || !probed) {
+            logger.warn("GPT4All local API not available at: {} - {}", apiUrl, error.getMessage());
+        }
+        isApiAvailable = false;
+        probed = true;
+        circuitBreaker.onProbeFailure();
     }
 
     public CompletableFuture<String> generateResponse(String prompt) {
@@ -73,54 +284,276 @@ public class LocalLLMService {
     }
 
     public CompletableFuture<String> generateResponse(String prompt, int tokens, float temp) {
+        return generateResponse(prompt, tokens, temp, LLMDispatcher.Lane.STANDARD);
+    }
+
+    /**
+     * Generate a completion. Identical requests at or below the cache temperature threshold
+     * are answered from the response cache, and identical requests made while one is being
+     * generated share its result; the rest queue in the given dispatcher lane. Failures,
+     * including being shed by the dispatcher, are returned as text and never cached.
+     */
+    public CompletableFuture<String> generateResponse(String prompt, int tokens, float temp, LLMDispatcher.Lane lane) {
         if (!enabled || !isApiAvailable) {
             return CompletableFuture.completedFuture("Local GPT4All API not available. Please ensure GPT4All is running locally.");
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.debug("Generating response for prompt: {}", prompt.substring(0, Math.min(50, prompt.length())));
-
-                Map<String, Object> requestBody = Map.of(
-                    "model", "gpt4all",
-                    "messages", new Object[]{
-                        Map.of("role", "user", "content", prompt)
-                    },
-                    "max_tokens", tokens,
-                    "temperature", temp,
-                    "stream", false
-                );
-
-                Map<String, Object> response = webClient.post()
-                    .uri("/chat/completions")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(Duration.ofMillis(timeoutMs))
-                    .block();
-
-                if (response != null && response.containsKey("choices")) {
-                    List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-                    if (!choices.isEmpty()) {
-                        Map<String, Object> choice = choices.get(0);
-                        Map<String, Object> message = (Map<String, Object>) choice.get("message");
-                        String content = (String) message.get("content");
-
-                        logger.debug("Generated response length: {} characters", content.length());
-                        return content.trim();
-                    }
+        boolean cacheable = responseCache != null && temp <= cacheMaxTemperature;
+        if (!cacheable) {
+            // Sampling at higher temperatures is meant to vary, so those responses are not reused
+            cacheBypassed.increment();
+        }
+        String key = cacheKey(prompt, tokens, temp);
+        generationRequests.increment();
+
+        while (true) {
+            Flight current = inFlight.get(key);
+            if (current != null) {
+                CompletableFuture<String> shared = current.follow();
+                if (shared != null) {
+                    deduplicated.increment();
+                    return shared;
+                }
+                // Finished as we looked; start another
+                inFlight.remove(key, current);
+                continue;
+            }
+
+            CompletableFuture<String> claim = new CompletableFuture<>();
+            Flight flight = new Flight(key, claim, !cacheable);
+            if (dedupEnabled && inFlight.putIfAbsent(key, flight) != null) {
+                continue;
+            }
+            CompletableFuture<String> own = flight.follow();
+            // A cache load is shared with the cache itself, so it is not cancelled with its callers
+            CompletableFuture<String> upstream = cacheable
+                ? responseCache.get(key, k -> loadResponse(k, prompt, tokens, temp, lane))
+                : callModel(prompt, tokens, temp, lane);
+            claim.whenComplete((content, error) -> {
+                if (claim.isCancelled()) {
+                    upstream.cancel(true);
                 }
+            });
+            upstream.whenComplete((content, error) -> {
+                flight.finish();
+                if (error != null) {
+                    claim.completeExceptionally(error);
+                } else {
+                    claim.complete(content);
+                }
+            });
+            return own;
+        }
+    }
 
-                return "No response generated";
+    public Flux<String> streamResponse(String prompt, int tokens, float temp) {
+        return streamResponse(prompt, tokens, temp, LLMDispatcher.Lane.INTERACTIVE);
+    }
 
-            } catch (WebClientException e) {
-                logger.error("Error calling GPT4All API: {}", e.getMessage());
-                return "Error generating response: " + e.getMessage();
-            } catch (Exception e) {
-                logger.error("Unexpected error generating LLM response: {}", e.getMessage());
-                return "Error generating response: " + e.getMessage();
+    /**
+     * Stream a completion as the model produces it, one text fragment per element. A cached
+     * response is emitted whole; a streamed one is cached once it completes. Cancelling the
+     * subscription withdraws or cancels the request.
+     */
+    public Flux<String> streamResponse(String prompt, int tokens, float temp, LLMDispatcher.Lane lane) {
+        if (!enabled || !isApiAvailable) {
+            return Flux.just("Local GPT4All API not available. Please ensure GPT4All is running locally.");
+        }
+
+        boolean cacheable = responseCache != null && temp <= cacheMaxTemperature;
+        String key = cacheable ? cacheKey(prompt, tokens, temp) : null;
+        if (cacheable) {
+            String cached = responseCache.getIfPresent(key);
+            if (cached == null && diskCache != null) {
+                cached = diskCache.get(key);
+            }
+            if (cached != null) {
+                return Flux.just(cached);
             }
+        } else {
+            cacheBypassed.increment();
+        }
+
+        Map<String, Object> requestBody = Map.of(
+            "model", model,
+            "messages", new Object[]{
+                Map.of("role", "user", "content", prompt)
+            },
+            "max_tokens", tokens,
+            "temperature", temp,
+            "stream", true
+        );
+
+        Flux<String> fragments = dispatcher.submitStream(lane, () -> {
+            StringBuilder text = new StringBuilder();
+            return webClient.post()
+                .uri("/chat/completions")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(CHUNK_EVENT)
+                // The timeout applies between fragments, not to the whole completion
+                .timeout(Duration.ofMillis(timeoutMs))
+                .takeWhile(event -> !"[DONE]".equals(event.data()))
+                .map(event -> deltaContent(event.data()))
+                .filter(fragment -> !fragment.isEmpty())
+                .doOnNext(text::append)
+                .doOnComplete(() -> {
+                    String content = text.toString().trim();
+                    if (cacheable && !content.isEmpty()) {
+                        responseCache.put(key, content);
+                        if (diskCache != null) {
+                            diskCache.put(key, content, Duration.ofMinutes(cacheTtlMinutes).toMillis());
+                        }
+                    }
+                })
+                .switchIfEmpty(Flux.just("No response generated"));
         });
+
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Flux.<String>error(new CircuitOpenException());
+            }
+            return fragments
+                .doOnComplete(circuitBreaker::onSuccess)
+                .doOnError(this::recordOutcome)
+                .doOnCancel(circuitBreaker::release);
+        }).doOnError(this::describeFailure);
+    }
+
+    /**
+     * Text carried by one chunk of a streamed completion
+     */
+    private String deltaContent(String chunk) {
+        if (chunk == null || chunk.isBlank()) {
+            return "";
+        }
+        try {
+            JsonNode content = objectMapper.readTree(chunk).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : "";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed completion chunk: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private CompletableFuture<String> loadResponse(String key, String prompt, int tokens, float temp,
+                                                   LLMDispatcher.Lane lane) {
+        if (diskCache == null) {
+            return callModel(prompt, tokens, temp, lane);
+        }
+        String stored = diskCache.get(key);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(stored);
+        }
+        return callModel(prompt, tokens, temp, lane).thenApply(content -> {
+            diskCache.put(key, content, Duration.ofMinutes(cacheTtlMinutes).toMillis());
+            return content;
+        });
+    }
+
+    /**
+     * One completion through the circuit breaker and the dispatcher; fails fast while the
+     * breaker is open
+     */
+    private CompletableFuture<String> callModel(String prompt, int tokens, float temp, LLMDispatcher.Lane lane) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException());
+        }
+        CompletableFuture<String> call = dispatcher.submit(lane, () -> requestCompletion(prompt, tokens, temp));
+        call.whenComplete((content, error) -> recordOutcome(error));
+        return call;
+    }
+
+    /**
+     * Report a call's outcome to the circuit breaker; shed or cancelled calls say nothing
+     * about the server's health
+     */
+    private void recordOutcome(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null || cause instanceof EmptyResponseException) {
+            circuitBreaker.onSuccess();
+        } else if (cause instanceof RejectedExecutionException || cause instanceof CancellationException) {
+            circuitBreaker.release();
+        } else {
+            circuitBreaker.onFailure();
+        }
+    }
+
+    /**
+     * One non-streaming completion; runs on the WebClient's event loop without holding a thread
+     */
+    private CompletableFuture<String> requestCompletion(String prompt, int tokens, float temp) {
+        logger.debug("Generating response for prompt: {}", prompt.substring(0, Math.min(50, prompt.length())));
+
+        Map<String, Object> requestBody = Map.of(
+            "model", model,
+            "messages", new Object[]{
+                Map.of("role", "user", "content", prompt)
+            },
+            "max_tokens", tokens,
+            "temperature", temp,
+            "stream", false
+        );
+
+        return webClient.post()
+            .uri("/chat/completions")
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToMono(Map.class)
+            .timeout(Duration.ofMillis(timeoutMs))
+            .map(this::completionContent)
+            .switchIfEmpty(Mono.error(EmptyResponseException::new))
+            .toFuture();
+    }
+
+    /**
+     * Text of the first choice; a missing or blank one is an EmptyResponseException, so it is
+     * neither cached nor mistaken for an answer
+     */
+    private String completionContent(Map<?, ?> response) {
+        if (response.get("choices") instanceof List<?> choices && !choices.isEmpty()
+                && choices.get(0) instanceof Map<?, ?> choice
+                && choice.get("message") instanceof Map<?, ?> message
+                && message.get("content") instanceof String content && !content.isBlank()) {
+            logger.debug("Generated response length: {} characters", content.length());
+            return content.trim();
+        }
+        throw new EmptyResponseException();
+    }
+
+    private String describeFailure(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause() : throwable;
+        if (cause instanceof EmptyResponseException) {
+            return cause.getMessage();
+        }
+        if (cause instanceof CancellationException) {
+            return "Request cancelled";
+        }
+        if (cause instanceof CircuitOpenException) {
+            logger.debug("LLM request failed fast: {}", cause.getMessage());
+        } else if (cause instanceof RejectedExecutionException) {
+            logger.warn("LLM request not run: {}", cause.getMessage());
+        } else if (cause instanceof WebClientException) {
+            logger.error("Error calling GPT4All API: {}", cause.getMessage());
+        } else {
+            logger.error("Unexpected error generating LLM response: {}", cause.getMessage());
+        }
+        return "Error generating response: " + cause.getMessage();
+    }
+
+    /**
+     * SHA-256 of everything that determines the completion
+     */
+    private String cacheKey(String prompt, int tokens, float temp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + '\0' + tokens + '\0' + Float.floatToIntBits(temp) + '\0')
+                .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(prompt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     public CompletableFuture<String> analyzeStockData(String symbol, String marketData, String technicalIndicators) {
@@ -128,6 +561,11 @@ public class LocalLLMService {
         return generateResponse(prompt, 512, 0.3f); // Lower temperature for more consistent analysis
     }
 
+    public Flux<String> streamStockAnalysis(String symbol, String marketData, String technicalIndicators) {
+        String prompt = buildStockAnalysisPrompt(symbol, marketData, technicalIndicators);
+        return streamResponse(prompt, 512, 0.3f);
+    }
+
     public CompletableFuture<String> generateTradingInsight(String symbol, String priceData, String signals) {
         String prompt = buildTradingInsightPrompt(symbol, priceData, signals);
         return generateResponse(prompt, 256, 0.5f);
@@ -190,12 +628,77 @@ public class LocalLLMService {
     }
 
     public boolean isAvailable() {
-        return enabled && isApiAvailable;
+        return enabled && isApiAvailable && circuitBreaker.getState() != LLMCircuitBreaker.State.OPEN;
     }
 
     public String getModelStatus() {
         if (!enabled) return "DISABLED";
-        if (!isApiAvailable) return "LOADING";
-        return "READY";
+        if (!probed) return "LOADING";
+        if (!isApiAvailable) return "UNAVAILABLE";
+        return switch (circuitBreaker.getState()) {
+            case OPEN -> "CIRCUIT_OPEN";
+            case HALF_OPEN -> "RECOVERING";
+            case CLOSED -> "READY";
+        };
+    }
+
+    /**
+     * Status with the last probe and circuit breaker details, for /api/llm/status and
+     * actuator health
+     */
+    public Map<String, Object> getHealth() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", getModelStatus());
+        health.put("available", isAvailable());
+        health.put("url", apiUrl);
+        health.put("configuredModel", model);
+        health.put("lastProbeAt", lastProbeAt == 0 ? null : lastProbeAt);
+        if (lastProbeError != null) {
+            health.put("lastProbeError", lastProbeError);
+        }
+        health.put("circuitBreaker", circuitBreaker.getStats());
+        return health;
+    }
+
+    /**
+     * How many generation requests joined one already in progress instead of starting their own
+     */
+    public Map<String, Object> getDedupStats() {
+        long requests = generationRequests.sum();
+        long shared = deduplicated.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", dedupEnabled);
+        stats.put("requests", requests);
+        stats.put("deduplicated", shared);
+        stats.put("dedupRatio", requests == 0 ? 0.0 : (double) shared / requests);
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", responseCache != null);
+        stats.put("maxTemperature", cacheMaxTemperature);
+        stats.put("bypassed", cacheBypassed.sum());
+        if (responseCache != null) {
+            stats.put("memory", responseCache.getStats());
+        }
+        stats.put("diskEnabled", diskCache != null);
+        if (diskCache != null) {
+            stats.put("disk", diskCache.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Drop every cached response, in memory and on disk
+     */
+    public void clearCache() {
+        if (responseCache != null) {
+            responseCache.invalidateAll();
+        }
+        if (diskCache != null) {
+            diskCache.invalidateAll();
+        }
     }
 }
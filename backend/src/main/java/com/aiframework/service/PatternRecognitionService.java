@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import org.springframework.stereotype.Service;
 import java.util.*;
 
@@ -7,6 +8,10 @@ import java.util.*;
 public class PatternRecognitionService {
 
     public Map<String, Object> detectPatterns(List<Map<String, Object>> historicalData) {
+        return detectPatterns(BarSeries.fromMaps(null, historicalData));
+    }
+
+    public Map<String, Object> detectPatterns(BarSeries historicalData) {
         Map<String, Object> patterns = new HashMap<>();
         
         if (historicalData.size() < 20) {
@@ -23,18 +28,11 @@ public class PatternRecognitionService {
         return patterns;
     }
 
-    private Map<String, Object> findSupportResistance(List<Map<String, Object>> data) {
+    private Map<String, Object> findSupportResistance(BarSeries data) {
         Map<String, Object> levels = new HashMap<>();
-        List<Double> highs = new ArrayList<>();
-        List<Double> lows = new ArrayList<>();
-        
-        for (Map<String, Object> day : data) {
-            highs.add((Double) day.get("high"));
-            lows.add((Double) day.get("low"));
-        }
         
-        double resistance = highs.stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
-        double support = lows.stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
+        double resistance = maxHigh(data);
+        double support = minLow(data);
         
         levels.put("resistance", resistance);
         levels.put("support", support);
@@ -43,12 +41,12 @@ public class PatternRecognitionService {
         return levels;
     }
 
-    private Map<String, Object> detectTrendLines(List<Map<String, Object>> data) {
+    private Map<String, Object> detectTrendLines(BarSeries data) {
         Map<String, Object> trendLines = new HashMap<>();
         
         // Simple trend line detection
-        double firstPrice = (Double) data.get(0).get("close");
-        double lastPrice = (Double) data.get(data.size() - 1).get("close");
+        double firstPrice = data.getClose(0);
+        double lastPrice = data.getClose(data.size() - 1);
         double slope = (lastPrice - firstPrice) / data.size();
         
         trendLines.put("trend", slope > 0 ? "UPTREND" : slope < 0 ? "DOWNTREND" : "SIDEWAYS");
@@ -59,7 +57,7 @@ public class PatternRecognitionService {
         return trendLines;
     }
 
-    private List<Map<String, Object>> detectChartPatterns(List<Map<String, Object>> data) {
+    private List<Map<String, Object>> detectChartPatterns(BarSeries data) {
         List<Map<String, Object>> patterns = new ArrayList<>();
         
         // Head and Shoulders pattern detection
@@ -95,15 +93,12 @@ public class PatternRecognitionService {
         return patterns;
     }
 
-    private List<Map<String, Object>> detectCandlestickPatterns(List<Map<String, Object>> data) {
+    private List<Map<String, Object>> detectCandlestickPatterns(BarSeries data) {
         List<Map<String, Object>> patterns = new ArrayList<>();
         
         for (int i = 1; i < data.size(); i++) {
-            Map<String, Object> current = data.get(i);
-            Map<String, Object> previous = data.get(i - 1);
-            
             // Doji pattern
-            if (isDoji(current)) {
+            if (isDoji(data, i)) {
                 Map<String, Object> pattern = new HashMap<>();
                 pattern.put("name", "Doji");
                 pattern.put("signal", "INDECISION");
@@ -112,7 +107,7 @@ public class PatternRecognitionService {
             }
             
             // Hammer pattern
-            if (isHammer(current)) {
+            if (isHammer(data, i)) {
                 Map<String, Object> pattern = new HashMap<>();
                 pattern.put("name", "Hammer");
                 pattern.put("signal", "BULLISH");
@@ -121,7 +116,7 @@ public class PatternRecognitionService {
             }
             
             // Engulfing pattern
-            if (isEngulfing(previous, current)) {
+            if (isEngulfing(data, i - 1, i)) {
                 Map<String, Object> pattern = new HashMap<>();
                 pattern.put("name", "Engulfing");
                 pattern.put("signal", "REVERSAL");
@@ -133,11 +128,11 @@ public class PatternRecognitionService {
         return patterns;
     }
 
-    private Map<String, Object> calculateFibonacciLevels(List<Map<String, Object>> data) {
+    private Map<String, Object> calculateFibonacciLevels(BarSeries data) {
         Map<String, Object> fibonacci = new HashMap<>();
         
-        double high = data.stream().mapToDouble(d -> (Double) d.get("high")).max().orElse(0.0);
-        double low = data.stream().mapToDouble(d -> (Double) d.get("low")).min().orElse(0.0);
+        double high = maxHigh(data);
+        double low = minLow(data);
         double range = high - low;
         
         Map<String, Double> levels = new HashMap<>();
@@ -156,13 +151,13 @@ public class PatternRecognitionService {
     }
 
     // Helper methods for pattern detection
-    private double calculateLevelStrength(List<Map<String, Object>> data, double resistance, double support) {
+    private double calculateLevelStrength(BarSeries data, double resistance, double support) {
         int touchCount = 0;
         double tolerance = (resistance - support) * 0.02; // 2% tolerance
         
-        for (Map<String, Object> day : data) {
-            double high = (Double) day.get("high");
-            double low = (Double) day.get("low");
+        for (int i = 0; i < data.size(); i++) {
+            double high = data.getHigh(i);
+            double low = data.getLow(i);
             
             if (Math.abs(high - resistance) <= tolerance || Math.abs(low - support) <= tolerance) {
                 touchCount++;
@@ -172,49 +167,48 @@ public class PatternRecognitionService {
         return Math.min(touchCount / 10.0, 1.0); // Normalize to 0-1
     }
 
-    private boolean detectHeadAndShoulders(List<Map<String, Object>> data) {
+    private boolean detectHeadAndShoulders(BarSeries data) {
         if (data.size() < 10) return false;
         
         // Simplified head and shoulders detection
         int midPoint = data.size() / 2;
-        double headHigh = (Double) data.get(midPoint).get("high");
-        double leftShoulderHigh = (Double) data.get(midPoint - 3).get("high");
-        double rightShoulderHigh = (Double) data.get(midPoint + 3).get("high");
+        double headHigh = data.getHigh(midPoint);
+        double leftShoulderHigh = data.getHigh(midPoint - 3);
+        double rightShoulderHigh = data.getHigh(midPoint + 3);
         
         return headHigh > leftShoulderHigh && headHigh > rightShoulderHigh &&
                Math.abs(leftShoulderHigh - rightShoulderHigh) / headHigh < 0.05;
     }
 
-    private boolean detectDoubleTop(List<Map<String, Object>> data) {
+    private boolean detectDoubleTop(BarSeries data) {
         if (data.size() < 10) return false;
         
-        double maxHigh = data.stream().mapToDouble(d -> (Double) d.get("high")).max().orElse(0.0);
-        long peakCount = data.stream()
-            .mapToDouble(d -> (Double) d.get("high"))
-            .filter(h -> Math.abs(h - maxHigh) / maxHigh < 0.02)
-            .count();
+        double maxHigh = maxHigh(data);
+        int peakCount = 0;
+        for (int i = 0; i < data.size(); i++) {
+            if (Math.abs(data.getHigh(i) - maxHigh) / maxHigh < 0.02) {
+                peakCount++;
+            }
+        }
         
         return peakCount >= 2;
     }
 
-    private boolean detectTriangle(List<Map<String, Object>> data) {
+    private boolean detectTriangle(BarSeries data) {
         if (data.size() < 15) return false;
         
         // Check if highs are decreasing and lows are increasing (converging)
-        List<Double> highs = data.stream().map(d -> (Double) d.get("high")).toList();
-        List<Double> lows = data.stream().map(d -> (Double) d.get("low")).toList();
-        
-        double highSlope = calculateSlope(highs);
-        double lowSlope = calculateSlope(lows);
+        double highSlope = calculateSlope(data, true);
+        double lowSlope = calculateSlope(data, false);
         
         return highSlope < 0 && lowSlope > 0; // Converging lines
     }
 
-    private boolean isDoji(Map<String, Object> candle) {
-        double open = (Double) candle.get("open");
-        double close = (Double) candle.get("close");
-        double high = (Double) candle.get("high");
-        double low = (Double) candle.get("low");
+    private boolean isDoji(BarSeries data, int i) {
+        double open = data.getOpen(i);
+        double close = data.getClose(i);
+        double high = data.getHigh(i);
+        double low = data.getLow(i);
         
         double bodySize = Math.abs(close - open);
         double totalRange = high - low;
@@ -222,11 +216,11 @@ public class PatternRecognitionService {
         return bodySize / totalRange < 0.1; // Body is less than 10% of total range
     }
 
-    private boolean isHammer(Map<String, Object> candle) {
-        double open = (Double) candle.get("open");
-        double close = (Double) candle.get("close");
-        double high = (Double) candle.get("high");
-        double low = (Double) candle.get("low");
+    private boolean isHammer(BarSeries data, int i) {
+        double open = data.getOpen(i);
+        double close = data.getClose(i);
+        double high = data.getHigh(i);
+        double low = data.getLow(i);
         
         double bodySize = Math.abs(close - open);
         double lowerShadow = Math.min(open, close) - low;
@@ -235,11 +229,11 @@ public class PatternRecognitionService {
         return lowerShadow > bodySize * 2 && upperShadow < bodySize * 0.5;
     }
 
-    private boolean isEngulfing(Map<String, Object> previous, Map<String, Object> current) {
-        double prevOpen = (Double) previous.get("open");
-        double prevClose = (Double) previous.get("close");
-        double currOpen = (Double) current.get("open");
-        double currClose = (Double) current.get("close");
+    private boolean isEngulfing(BarSeries data, int previous, int current) {
+        double prevOpen = data.getOpen(previous);
+        double prevClose = data.getClose(previous);
+        double currOpen = data.getOpen(current);
+        double currClose = data.getClose(current);
         
         boolean prevBearish = prevClose < prevOpen;
         boolean currBullish = currClose > currOpen;
@@ -248,19 +242,38 @@ public class PatternRecognitionService {
                currOpen < prevClose && currClose > prevOpen;
     }
 
-    private double calculateSlope(List<Double> values) {
-        if (values.size() < 2) return 0;
+    private double calculateSlope(BarSeries data, boolean highs) {
+        if (data.size() < 2) return 0;
         
         double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-        int n = values.size();
+        int n = data.size();
         
         for (int i = 0; i < n; i++) {
+            double value = highs ? data.getHigh(i) : data.getLow(i);
             sumX += i;
-            sumY += values.get(i);
-            sumXY += i * values.get(i);
+            sumY += value;
+            sumXY += i * value;
             sumX2 += i * i;
         }
         
         return (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
     }
+
+    private double maxHigh(BarSeries data) {
+        if (data.isEmpty()) return 0.0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < data.size(); i++) {
+            max = Math.max(max, data.getHigh(i));
+        }
+        return max;
+    }
+
+    private double minLow(BarSeries data) {
+        if (data.isEmpty()) return 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < data.size(); i++) {
+            min = Math.min(min, data.getLow(i));
+        }
+        return min;
+    }
 }
\ No newline at end of file
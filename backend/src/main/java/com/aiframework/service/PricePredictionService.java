@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import com.aiframework.dto.StockQuote;
 import com.aiframework.dto.TechnicalIndicators;
 import org.springframework.stereotype.Service;
@@ -109,6 +110,12 @@ public class PricePredictionService {
 
     public PricePrediction predictPrice(String symbol, StockQuote quote, TechnicalIndicators indicators,
                                       List<Map<String, Object>> historicalData) {
+        BarSeries series = historicalData != null ? BarSeries.fromMaps(symbol, historicalData) : null;
+        return predictPrice(symbol, quote, indicators, series);
+    }
+
+    public PricePrediction predictPrice(String symbol, StockQuote quote, TechnicalIndicators indicators,
+                                      BarSeries historicalData) {
         PricePrediction prediction = new PricePrediction(symbol, quote.getPrice());
 
         // Calculate trend and strength
@@ -129,7 +136,7 @@ public class PricePredictionService {
         return prediction;
     }
 
-    private void calculateTrend(PricePrediction prediction, List<Map<String, Object>> historicalData,
+    private void calculateTrend(PricePrediction prediction, BarSeries historicalData,
                                TechnicalIndicators indicators) {
         if (historicalData == null || historicalData.size() < 10) {
             prediction.setTrend("SIDEWAYS");
@@ -138,11 +145,7 @@ public class PricePredictionService {
         }
 
         // Calculate price trend using linear regression
-        List<Double> prices = historicalData.stream()
-                .map(d -> Double.parseDouble(d.get("close").toString()))
-                .toList();
-
-        double slope = calculatePriceSlope(prices);
+        double slope = calculatePriceSlope(historicalData);
 
         if (slope > 0.02) {
             prediction.setTrend("BULLISH");
@@ -162,7 +165,7 @@ public class PricePredictionService {
     }
 
     private void generatePricePredictions(PricePrediction prediction, StockQuote quote,
-                                        TechnicalIndicators indicators, List<Map<String, Object>> historicalData) {
+                                        TechnicalIndicators indicators, BarSeries historicalData) {
         double currentPrice = prediction.getCurrentPrice();
 
         // Simple prediction model based on trend and technical indicators
@@ -337,17 +340,17 @@ public class PricePredictionService {
     }
 
     // Helper methods
-    private double calculatePriceSlope(List<Double> prices) {
+    private double calculatePriceSlope(BarSeries prices) {
         if (prices.size() < 2) return 0;
 
         double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
         int n = Math.min(prices.size(), 20); // Use last 20 data points
 
         for (int i = 0; i < n; i++) {
-            int index = prices.size() - n + i;
+            double price = prices.getClose(prices.size() - n + i);
             sumX += i;
-            sumY += prices.get(index);
-            sumXY += i * prices.get(index);
+            sumY += price;
+            sumXY += i * price;
             sumXX += i * i;
         }
 
@@ -378,17 +381,10 @@ public class PricePredictionService {
         }
     }
 
-    private double getVolatilityAdjustment(List<Map<String, Object>> historicalData) {
+    private double getVolatilityAdjustment(BarSeries historicalData) {
         if (historicalData == null || historicalData.size() < 10) return 0.02;
 
-        List<Double> returns = new ArrayList<>();
-        for (int i = 1; i < historicalData.size(); i++) {
-            double current = Double.parseDouble(historicalData.get(i).get("close").toString());
-            double previous = Double.parseDouble(historicalData.get(i-1).get("close").toString());
-            returns.add((current - previous) / previous);
-        }
-
-        return calculateStandardDeviation(returns);
+        return historicalData.getReturnStandardDeviation();
     }
 
     private void adjustPredictionsWithIndicators(PricePrediction prediction, TechnicalIndicators indicators) {
@@ -427,15 +423,4 @@ public class PricePredictionService {
         double alignment = Math.abs(bullishSignals - bearishSignals) / (double) totalSignals;
         return alignment;
     }
-
-    private double calculateStandardDeviation(List<Double> values) {
-        if (values.isEmpty()) return 0.0;
-
-        double mean = values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double variance = values.stream()
-            .mapToDouble(v -> Math.pow(v - mean, 2))
-            .average().orElse(0.0);
-
-        return Math.sqrt(variance);
-    }
 }
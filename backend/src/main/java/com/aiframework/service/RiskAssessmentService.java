@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import com.aiframework.dto.StockQuote;
 import com.aiframework.dto.TechnicalIndicators;
 import com.aiframework.dto.TradingSignal;
@@ -117,6 +118,12 @@ public class RiskAssessmentService {
 
     public RiskMetrics assessRisk(String symbol, StockQuote quote, TechnicalIndicators indicators,
                                   List<Map<String, Object>> historicalData, TradingSignal signal) {
+        BarSeries series = historicalData != null ? BarSeries.fromMaps(symbol, historicalData) : null;
+        return assessRisk(symbol, quote, indicators, series, signal);
+    }
+
+    public RiskMetrics assessRisk(String symbol, StockQuote quote, TechnicalIndicators indicators,
+                                  BarSeries historicalData, TradingSignal signal) {
         RiskMetrics risk = new RiskMetrics(symbol);
 
         // Calculate volatility risk
@@ -149,18 +156,10 @@ public class RiskAssessmentService {
         return risk;
     }
 
-    private double calculateVolatilityRisk(List<Map<String, Object>> historicalData) {
+    private double calculateVolatilityRisk(BarSeries historicalData) {
         if (historicalData == null || historicalData.size() < 20) return 0.5;
 
-        List<Double> returns = new ArrayList<>();
-        for (int i = 1; i < historicalData.size(); i++) {
-            double currentPrice = Double.parseDouble(historicalData.get(i).get("close").toString());
-            double previousPrice = Double.parseDouble(historicalData.get(i-1).get("close").toString());
-            double dailyReturn = (currentPrice - previousPrice) / previousPrice;
-            returns.add(dailyReturn);
-        }
-
-        double volatility = calculateStandardDeviation(returns) * Math.sqrt(252); // Annualized
+        double volatility = historicalData.getReturnStandardDeviation() * Math.sqrt(252); // Annualized
 
         // Normalize volatility to 0-1 scale (0.3 = high volatility)
         return Math.min(volatility / 0.3, 1.0);
@@ -369,15 +368,4 @@ public class RiskAssessmentService {
             }
         }
     }
-
-    private double calculateStandardDeviation(List<Double> values) {
-        if (values.isEmpty()) return 0.0;
-
-        double mean = values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double variance = values.stream()
-            .mapToDouble(v -> Math.pow(v - mean, 2))
-            .average().orElse(0.0);
-
-        return Math.sqrt(variance);
-    }
 }
@@ -0,0 +1,173 @@
+package com.aiframework.service;
+
+import com.aiframework.dto.BarSeries;
+import com.aiframework.dto.StockQuote;
+import com.aiframework.dto.TechnicalIndicators;
+import com.aiframework.dto.TradingSignal;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builds per-request stock analyses as a graph of memoized stages.
+ *
+ * quote and history are the only upstream calls and start independently; every other
+ * stage is derived from them:
+ *
+ *   quote ──────────────┬──────────────┬──► signal ──► risk
+ *   history ─► indicators ──┬─► patterns │
+ *                           ├─► prediction
+ *                           └─► alerts
+ *
+ * Each stage is created on first use and shared afterwards, so within one Analysis
+ * nothing is fetched or computed twice regardless of which results are requested.
+ */
+@Service
+public class StockAnalysisPipeline {
+
+    private final AdvancedStockAnalysisService analysisService;
+    private final TechnicalPatternService patternService;
+    private final RiskAssessmentService riskService;
+    private final PricePredictionService predictionService;
+
+    public StockAnalysisPipeline(AdvancedStockAnalysisService analysisService,
+                                 TechnicalPatternService patternService,
+                                 RiskAssessmentService riskService,
+                                 PricePredictionService predictionService) {
+        this.analysisService = analysisService;
+        this.patternService = patternService;
+        this.riskService = riskService;
+        this.predictionService = predictionService;
+    }
+
+    /**
+     * Start a new analysis for one symbol. Stages run only when requested.
+     */
+    public Analysis analyze(String symbol) {
+        return new Analysis(symbol);
+    }
+
+    /** Memoized analysis stages for a single symbol within a single request */
+    public class Analysis {
+        private final String symbol;
+
+        private CompletableFuture<StockQuote> quote;
+        private CompletableFuture<BarSeries> history;
+        private CompletableFuture<TechnicalIndicators> indicators;
+        private CompletableFuture<TradingSignal> signal;
+        private CompletableFuture<List<TechnicalPatternService.Pattern>> patterns;
+        private CompletableFuture<RiskAssessmentService.RiskMetrics> risk;
+        private CompletableFuture<PricePredictionService.PricePrediction> prediction;
+        private CompletableFuture<List<String>> alerts;
+
+        private Analysis(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() { return symbol; }
+
+        public synchronized CompletableFuture<StockQuote> quote() {
+            if (quote == null) {
+                quote = analysisService.getRealTimeQuote(symbol);
+            }
+            return quote;
+        }
+
+        public synchronized CompletableFuture<BarSeries> history() {
+            if (history == null) {
+                history = analysisService.getHistoricalBars(symbol, "daily", "compact");
+            }
+            return history;
+        }
+
+        public synchronized CompletableFuture<TechnicalIndicators> indicators() {
+            if (indicators == null) {
+                indicators = history()
+                        .handle((bars, error) -> analysisService.calculateTechnicalIndicators(symbol, bars));
+            }
+            return indicators;
+        }
+
+        public synchronized CompletableFuture<TradingSignal> signal() {
+            if (signal == null) {
+                signal = quote().thenCombine(indicators(),
+                        (q, i) -> analysisService.generateTradingSignal(symbol, q, i));
+            }
+            return signal;
+        }
+
+        public synchronized CompletableFuture<List<TechnicalPatternService.Pattern>> patterns() {
+            if (patterns == null) {
+                patterns = history().thenCombineAsync(indicators(), patternService::detectPatterns);
+            }
+            return patterns;
+        }
+
+        public synchronized CompletableFuture<RiskAssessmentService.RiskMetrics> risk() {
+            if (risk == null) {
+                risk = CompletableFuture.allOf(quote(), indicators(), history(), signal())
+                        .thenApplyAsync(v -> riskService.assessRisk(symbol, quote().join(),
+                                indicators().join(), history().join(), signal().join()));
+            }
+            return risk;
+        }
+
+        public synchronized CompletableFuture<PricePredictionService.PricePrediction> prediction() {
+            if (prediction == null) {
+                prediction = CompletableFuture.allOf(quote(), indicators(), history())
+                        .thenApplyAsync(v -> predictionService.predictPrice(symbol, quote().join(),
+                                indicators().join(), history().join()));
+            }
+            return prediction;
+        }
+
+        public synchronized CompletableFuture<List<String>> alerts() {
+            if (alerts == null) {
+                alerts = quote().thenCombine(indicators(),
+                        (q, i) -> predictionService.checkAlerts(symbol, q, i));
+            }
+            return alerts;
+        }
+
+        /**
+         * Every stage, in the response shape of the complete-analysis endpoint
+         */
+        public CompletableFuture<Map<String, Object>> complete() {
+            return CompletableFuture.allOf(signal(), patterns(), risk(), prediction(), alerts())
+                    .thenApply(v -> {
+                        Map<String, Object> analysis = new HashMap<>();
+
+                        // Core data
+                        analysis.put("quote", quote().join());
+                        analysis.put("technicalIndicators", indicators().join());
+                        analysis.put("tradingSignal", signal().join());
+
+                        // Advanced analysis
+                        analysis.put("patterns", patterns().join());
+                        analysis.put("riskMetrics", risk().join());
+                        analysis.put("pricePrediction", prediction().join());
+                        analysis.put("alerts", alerts().join());
+
+                        analysis.put("timestamp", System.currentTimeMillis());
+                        return analysis;
+                    });
+        }
+
+        /**
+         * Quote, indicators, signal and risk, as used for benchmark comparisons
+         */
+        public CompletableFuture<Map<String, Object>> summary() {
+            return risk().thenApply(riskMetrics -> {
+                Map<String, Object> data = new HashMap<>();
+                data.put("quote", quote().join());
+                data.put("indicators", indicators().join());
+                data.put("signal", signal().join());
+                data.put("risk", riskMetrics);
+                return data;
+            });
+        }
+    }
+}
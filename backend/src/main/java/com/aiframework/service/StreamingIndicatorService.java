@@ -0,0 +1,90 @@
+package com.aiframework.service;
+
+import com.aiframework.dto.BarSeries;
+import com.aiframework.dto.StockQuote;
+import com.aiframework.dto.TechnicalIndicators;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming technical indicator engine.
+ *
+ * Each symbol is seeded once from its price history and afterwards kept current by
+ * applying live quotes as revisions of the latest daily bar, so every tick costs O(1)
+ * instead of a rescan of the full history.
+ */
+@Service
+public class StreamingIndicatorService {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingIndicatorService.class);
+
+    private final Map<String, IndicatorState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Replace the state of a symbol with one rebuilt from its history
+     */
+    public void seed(BarSeries series) {
+        if (series == null || series.getSymbol() == null) return;
+
+        states.put(series.getSymbol(), IndicatorState.fromSeries(series));
+        logger.debug("Seeded streaming indicators for {} with {} bars", series.getSymbol(), series.size());
+    }
+
+    public boolean isSeeded(String symbol) {
+        return states.containsKey(symbol);
+    }
+
+    /**
+     * Apply a live quote to a seeded symbol and return the updated indicators.
+     * Returns null when the symbol has not been seeded yet.
+     */
+    public TechnicalIndicators onQuote(StockQuote quote) {
+        if (quote == null || quote.getSymbol() == null || quote.getPrice() <= 0) return null;
+
+        IndicatorState state = states.get(quote.getSymbol());
+        if (state == null) return null;
+
+        long timestamp = quote.getTimestamp() != null
+                ? quote.getTimestamp().toEpochSecond(ZoneOffset.UTC)
+                : System.currentTimeMillis() / 1000;
+        double price = quote.getPrice();
+        double volume = quote.getVolume();
+
+        // Global quotes carry the session open/high/low; bare price ticks do not
+        if (quote.getOpen() > 0 && quote.getHigh() > 0 && quote.getLow() > 0) {
+            state.update(timestamp, quote.getOpen(),
+                    Math.max(quote.getHigh(), price), Math.min(quote.getLow(), price), price, volume);
+        } else {
+            state.tick(timestamp, price, volume);
+        }
+        return state.snapshot();
+    }
+
+    /**
+     * Apply a completed or revised bar to a seeded symbol
+     */
+    public TechnicalIndicators onBar(String symbol, long timestamp, double open, double high,
+                                     double low, double close, double volume) {
+        IndicatorState state = states.get(symbol);
+        if (state == null) return null;
+
+        state.update(timestamp, open, high, low, close, volume);
+        return state.snapshot();
+    }
+
+    /**
+     * Current indicators for a symbol, or null when it has not been seeded
+     */
+    public TechnicalIndicators getIndicators(String symbol) {
+        IndicatorState state = states.get(symbol);
+        return state != null ? state.snapshot() : null;
+    }
+
+    public void remove(String symbol) {
+        states.remove(symbol);
+    }
+}
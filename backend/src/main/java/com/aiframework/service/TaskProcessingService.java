@@ -1,6 +1,8 @@
 package com.aiframework.service;
 
 import com.aiframework.core.*;
+import com.aiframework.orchestrator.BatchOptions;
+import com.aiframework.orchestrator.BatchResult;
 import com.aiframework.orchestrator.OrchestratorService;
 import com.aiframework.communication.ModelContextProtocol;
 import org.slf4j.Logger;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * High-level service for processing tasks
@@ -61,6 +64,34 @@ public class TaskProcessingService {
         return orchestratorService.processTasks(tasks, context);
     }
 
+    /**
+     * Process multiple tasks with explicit batch limits, reporting results as they complete
+     */
+    public BatchResult processTasks(List<Task> tasks, String userId, BatchOptions options,
+                                    Consumer<AgentResult> listener) {
+        String sessionId = UUID.randomUUID().toString();
+        AgentContext context = modelContextProtocol.createContext(sessionId, userId);
+
+        logger.info("Processing batch of {} tasks for user {} in session {}",
+            tasks.size(), userId, sessionId);
+
+        return orchestratorService.processTasks(tasks, context, options, listener);
+    }
+
+    /**
+     * Run a bounded batch in the background, reporting results as they complete
+     */
+    public CompletableFuture<BatchResult> processTasksAsync(List<Task> tasks, String userId, BatchOptions options,
+                                                            Consumer<AgentResult> listener) {
+        String sessionId = UUID.randomUUID().toString();
+        AgentContext context = modelContextProtocol.createContext(sessionId, userId);
+
+        logger.info("Streaming batch of {} tasks for user {} in session {}",
+            tasks.size(), userId, sessionId);
+
+        return orchestratorService.processTasksAsync(tasks, context, options, listener);
+    }
+
     /**
      * Process a task asynchronously
      */
@@ -74,6 +105,14 @@ public class TaskProcessingService {
         return orchestratorService.processTaskAsync(task, context);
     }
 
+    /**
+     * Process a task asynchronously with existing context
+     */
+    public CompletableFuture<AgentResult> processTaskAsync(Task task, String sessionId, String userId) {
+        AgentContext context = modelContextProtocol.createContext(sessionId, userId);
+        return orchestratorService.processTaskAsync(task, context);
+    }
+
     /**
      * Process multiple tasks asynchronously
      */
@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import org.springframework.stereotype.Service;
 import java.util.*;
 
@@ -11,64 +12,71 @@ public class TechnicalIndicatorService {
     }
 
     public Map<String, Object> calculateIndicators(List<Map<String, Object>> historicalData, String indicators) {
+        return calculateIndicators(BarSeries.fromMaps(null, historicalData), indicators);
+    }
+
+    public Map<String, Object> calculateIndicators(BarSeries series, String indicators) {
         Map<String, Object> results = new HashMap<>();
         
         if (indicators.contains("sma")) {
-            results.put("sma_20", calculateSMA(historicalData, 20));
-            results.put("sma_50", calculateSMA(historicalData, 50));
+            results.put("sma_20", calculateSMA(series, series.size(), 20));
+            results.put("sma_50", calculateSMA(series, series.size(), 50));
         }
         
         if (indicators.contains("ema")) {
-            results.put("ema_12", calculateEMA(historicalData, 12));
-            results.put("ema_26", calculateEMA(historicalData, 26));
+            results.put("ema_12", calculateEMA(series, 12));
+            results.put("ema_26", calculateEMA(series, 26));
         }
         
         if (indicators.contains("rsi")) {
-            results.put("rsi", calculateRSI(historicalData, 14));
+            results.put("rsi", calculateRSI(series, 14));
         }
         
         if (indicators.contains("macd")) {
-            results.putAll(calculateMACD(historicalData));
+            results.putAll(calculateMACD(series));
         }
         
         if (indicators.contains("bollinger")) {
-            results.putAll(calculateBollingerBands(historicalData, 20, 2));
+            results.putAll(calculateBollingerBands(series, 20, 2));
         }
         
         return results;
     }
 
-    private double calculateSMA(List<Map<String, Object>> data, int period) {
-        if (data.size() < period) return 0.0;
+    /**
+     * SMA of the {@code period} closes ending just before index {@code end}
+     */
+    private double calculateSMA(BarSeries data, int end, int period) {
+        if (end < period) return 0.0;
         
         double sum = 0;
-        for (int i = data.size() - period; i < data.size(); i++) {
-            sum += (Double) data.get(i).get("close");
+        for (int i = end - period; i < end; i++) {
+            sum += data.getClose(i);
         }
         return sum / period;
     }
 
-    private double calculateEMA(List<Map<String, Object>> data, int period) {
+    private double calculateEMA(BarSeries data, int period) {
         if (data.size() < period) return 0.0;
         
         double multiplier = 2.0 / (period + 1);
-        double ema = calculateSMA(data.subList(0, period), period);
+        double ema = calculateSMA(data, period, period);
         
         for (int i = period; i < data.size(); i++) {
-            double close = (Double) data.get(i).get("close");
+            double close = data.getClose(i);
             ema = (close * multiplier) + (ema * (1 - multiplier));
         }
         return ema;
     }
 
-    private double calculateRSI(List<Map<String, Object>> data, int period) {
+    private double calculateRSI(BarSeries data, int period) {
         if (data.size() < period + 1) return 50.0;
         
         double avgGain = 0, avgLoss = 0;
         
         // Calculate initial average gain and loss
         for (int i = 1; i <= period; i++) {
-            double change = (Double) data.get(i).get("close") - (Double) data.get(i-1).get("close");
+            double change = data.getClose(i) - data.getClose(i - 1);
             if (change > 0) avgGain += change;
             else avgLoss += Math.abs(change);
         }
@@ -77,7 +85,7 @@ public class TechnicalIndicatorService {
         
         // Calculate RSI for the latest period
         for (int i = period + 1; i < data.size(); i++) {
-            double change = (Double) data.get(i).get("close") - (Double) data.get(i-1).get("close");
+            double change = data.getClose(i) - data.getClose(i - 1);
             if (change > 0) {
                 avgGain = (avgGain * (period - 1) + change) / period;
                 avgLoss = (avgLoss * (period - 1)) / period;
@@ -92,7 +100,7 @@ public class TechnicalIndicatorService {
         return 100 - (100 / (1 + rs));
     }
 
-    private Map<String, Object> calculateMACD(List<Map<String, Object>> data) {
+    private Map<String, Object> calculateMACD(BarSeries data) {
         double ema12 = calculateEMA(data, 12);
         double ema26 = calculateEMA(data, 26);
         double macdLine = ema12 - ema26;
@@ -105,12 +113,13 @@ public class TechnicalIndicatorService {
         return macd;
     }
 
-    private Map<String, Object> calculateBollingerBands(List<Map<String, Object>> data, int period, double stdDev) {
-        double sma = calculateSMA(data, period);
+    private Map<String, Object> calculateBollingerBands(BarSeries data, int period, double stdDev) {
+        int end = data.size();
+        double sma = calculateSMA(data, end, period);
         double variance = 0;
         
-        for (int i = data.size() - period; i < data.size(); i++) {
-            double close = (Double) data.get(i).get("close");
+        for (int i = Math.max(0, end - period); i < end; i++) {
+            double close = data.getClose(i);
             variance += Math.pow(close - sma, 2);
         }
         double standardDeviation = Math.sqrt(variance / period);
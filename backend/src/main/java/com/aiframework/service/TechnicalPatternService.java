@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import com.aiframework.dto.TechnicalIndicators;
 import org.springframework.stereotype.Service;
 import java.util.*;
@@ -46,6 +47,10 @@ public class TechnicalPatternService {
     }
 
     public List<Pattern> detectPatterns(List<Map<String, Object>> historicalData, TechnicalIndicators indicators) {
+        return detectPatterns(historicalData != null ? BarSeries.fromMaps(null, historicalData) : null, indicators);
+    }
+
+    public List<Pattern> detectPatterns(BarSeries historicalData, TechnicalIndicators indicators) {
         List<Pattern> patterns = new ArrayList<>();
 
         if (historicalData == null || historicalData.size() < 10) {
@@ -64,24 +69,22 @@ public class TechnicalPatternService {
         return patterns;
     }
 
-    private List<Pattern> detectCandlestickPatterns(List<Map<String, Object>> data) {
+    private List<Pattern> detectCandlestickPatterns(BarSeries data) {
         List<Pattern> patterns = new ArrayList<>();
 
         if (data.size() < 2) return patterns;
 
         // Get last two candles for pattern detection
-        Map<String, Object> current = data.get(data.size() - 1);
-        Map<String, Object> previous = data.get(data.size() - 2);
+        int current = data.size() - 1;
+        int previous = data.size() - 2;
 
-        double currentOpen = Double.parseDouble(current.get("open").toString());
-        double currentClose = Double.parseDouble(current.get("close").toString());
-        double currentHigh = Double.parseDouble(current.get("high").toString());
-        double currentLow = Double.parseDouble(current.get("low").toString());
+        double currentOpen = data.getOpen(current);
+        double currentClose = data.getClose(current);
+        double currentHigh = data.getHigh(current);
+        double currentLow = data.getLow(current);
 
-        double prevOpen = Double.parseDouble(previous.get("open").toString());
-        double prevClose = Double.parseDouble(previous.get("close").toString());
-        double prevHigh = Double.parseDouble(previous.get("high").toString());
-        double prevLow = Double.parseDouble(previous.get("low").toString());
+        double prevOpen = data.getOpen(previous);
+        double prevClose = data.getClose(previous);
 
         // Bullish Engulfing Pattern
         if (prevClose < prevOpen && // Previous candle is bearish
@@ -134,27 +137,15 @@ public class TechnicalPatternService {
         return patterns;
     }
 
-    private List<Pattern> detectChartPatterns(List<Map<String, Object>> data) {
+    private List<Pattern> detectChartPatterns(BarSeries data) {
         List<Pattern> patterns = new ArrayList<>();
 
         if (data.size() < 20) return patterns;
 
-        List<Double> closes = data.stream()
-                .map(d -> Double.parseDouble(d.get("close").toString()))
-                .toList();
-
-        List<Double> highs = data.stream()
-                .map(d -> Double.parseDouble(d.get("high").toString()))
-                .toList();
-
-        List<Double> lows = data.stream()
-                .map(d -> Double.parseDouble(d.get("low").toString()))
-                .toList();
-
         // Support and Resistance Detection
-        double currentPrice = closes.get(closes.size() - 1);
-        double resistance = findResistanceLevel(highs);
-        double support = findSupportLevel(lows);
+        double currentPrice = data.getLastClose();
+        double resistance = findResistanceLevel(data);
+        double support = findSupportLevel(data);
 
         if (Math.abs(currentPrice - resistance) / currentPrice < 0.02) {
             Pattern pattern = new Pattern(PatternType.SUPPORT_RESISTANCE,
@@ -173,7 +164,7 @@ public class TechnicalPatternService {
         }
 
         // Triangle Pattern Detection
-        if (detectTrianglePattern(highs, lows)) {
+        if (detectTrianglePattern(data)) {
             Pattern pattern = new Pattern(PatternType.TRIANGLE,
                 "Triangle consolidation pattern", 0.65, "NEUTRAL");
             pattern.getImplications().add("Price consolidating in triangle");
@@ -233,42 +224,47 @@ public class TechnicalPatternService {
         return patterns;
     }
 
-    private double findResistanceLevel(List<Double> highs) {
+    private double findResistanceLevel(BarSeries data) {
         // Simple resistance detection - find the highest high in recent period
-        return highs.subList(Math.max(0, highs.size() - 20), highs.size())
-                .stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
+        double resistance = Double.NEGATIVE_INFINITY;
+        for (int i = Math.max(0, data.size() - 20); i < data.size(); i++) {
+            resistance = Math.max(resistance, data.getHigh(i));
+        }
+        return data.isEmpty() ? 0.0 : resistance;
     }
 
-    private double findSupportLevel(List<Double> lows) {
+    private double findSupportLevel(BarSeries data) {
         // Simple support detection - find the lowest low in recent period
-        return lows.subList(Math.max(0, lows.size() - 20), lows.size())
-                .stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
+        double support = Double.POSITIVE_INFINITY;
+        for (int i = Math.max(0, data.size() - 20); i < data.size(); i++) {
+            support = Math.min(support, data.getLow(i));
+        }
+        return data.isEmpty() ? 0.0 : support;
     }
 
-    private boolean detectTrianglePattern(List<Double> highs, List<Double> lows) {
-        if (highs.size() < 10) return false;
+    private boolean detectTrianglePattern(BarSeries data) {
+        if (data.size() < 10) return false;
 
         // Simple triangle detection - check if highs are declining and lows are rising
-        List<Double> recentHighs = highs.subList(highs.size() - 10, highs.size());
-        List<Double> recentLows = lows.subList(lows.size() - 10, lows.size());
-
-        double highSlope = calculateSlope(recentHighs);
-        double lowSlope = calculateSlope(recentLows);
+        int start = data.size() - 10;
+        double highSlope = calculateSlope(data, start, true);
+        double lowSlope = calculateSlope(data, start, false);
 
         // Triangle if highs are declining and lows are rising (converging)
         return highSlope < -0.001 && lowSlope > 0.001;
     }
 
-    private double calculateSlope(List<Double> values) {
-        if (values.size() < 2) return 0;
+    private double calculateSlope(BarSeries data, int start, boolean highs) {
+        int n = data.size() - start;
+        if (n < 2) return 0;
 
         double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
-        int n = values.size();
 
         for (int i = 0; i < n; i++) {
+            double value = highs ? data.getHigh(start + i) : data.getLow(start + i);
             sumX += i;
-            sumY += values.get(i);
-            sumXY += i * values.get(i);
+            sumY += value;
+            sumXY += i * value;
             sumXX += i * i;
         }
 
@@ -1,5 +1,6 @@
 package com.aiframework.service;
 
+import com.aiframework.dto.BarSeries;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -101,6 +102,10 @@ public class YahooFinanceService {
     }
 
     public List<Map<String, Object>> getHistoricalData(String symbol, String period) {
+        return getHistoricalBars(symbol, period).toMaps();
+    }
+
+    public BarSeries getHistoricalBars(String symbol, String period) {
         try {
             long period2 = System.currentTimeMillis() / 1000;
             long period1 = period2 - getPeriodSeconds(period);
@@ -119,17 +124,20 @@ public class YahooFinanceService {
             JsonNode timestamps = result.path("timestamp");
             JsonNode indicators = result.path("indicators").path("quote").get(0);
             
-            List<Map<String, Object>> history = new ArrayList<>();
+            JsonNode opens = indicators.path("open");
+            JsonNode highs = indicators.path("high");
+            JsonNode lows = indicators.path("low");
+            JsonNode closes = indicators.path("close");
+            JsonNode volumes = indicators.path("volume");
+
+            BarSeries history = new BarSeries(symbol, timestamps.size());
             for (int i = 0; i < timestamps.size(); i++) {
-                Map<String, Object> day = new HashMap<>();
-                day.put("timestamp", timestamps.get(i).asLong());
-                day.put("date", new Date(timestamps.get(i).asLong() * 1000).toString());
-                day.put("open", indicators.path("open").get(i).asDouble());
-                day.put("high", indicators.path("high").get(i).asDouble());
-                day.put("low", indicators.path("low").get(i).asDouble());
-                day.put("close", indicators.path("close").get(i).asDouble());
-                day.put("volume", indicators.path("volume").get(i).asLong());
-                history.add(day);
+                history.add(timestamps.get(i).asLong(),
+                        opens.get(i).asDouble(),
+                        highs.get(i).asDouble(),
+                        lows.get(i).asDouble(),
+                        closes.get(i).asDouble(),
+                        volumes.get(i).asLong());
             }
             
             return history;
@@ -139,29 +147,27 @@ public class YahooFinanceService {
         }
     }
     
-    private List<Map<String, Object>> getMockHistoricalData(String symbol, String period) {
-        List<Map<String, Object>> history = new ArrayList<>();
+    private BarSeries getMockHistoricalData(String symbol, String period) {
         double basePrice = getBasePriceForSymbol(symbol);
-        long days = getPeriodSeconds(period) / 86400;
+        long days = Math.min(getPeriodSeconds(period) / 86400, 365);
+        long now = System.currentTimeMillis() / 1000;
+        BarSeries history = new BarSeries(symbol, (int) days);
         
-        for (int i = 0; i < Math.min(days, 365); i++) {
+        for (int i = 0; i < days; i++) {
             double dailyChange = (Math.random() - 0.5) * 0.1; // 10% daily volatility
             double price = basePrice * (1 + dailyChange);
             
-            Map<String, Object> day = new HashMap<>();
-            day.put("timestamp", (System.currentTimeMillis() / 1000) - (i * 86400));
-            day.put("date", new Date(System.currentTimeMillis() - (i * 86400000L)).toString());
-            day.put("open", price * 0.99);
-            day.put("high", price * 1.02);
-            day.put("low", price * 0.98);
-            day.put("close", price);
-            day.put("volume", (long)(40000000 + Math.random() * 20000000));
-            history.add(day);
+            history.add(now - (i * 86400L),
+                    price * 0.99,
+                    price * 1.02,
+                    price * 0.98,
+                    price,
+                    (long)(40000000 + Math.random() * 20000000));
             
             basePrice = price; // Use previous close as next base
         }
         
-        Collections.reverse(history); // Oldest first
+        history.sortByTime(); // Oldest first
         return history;
     }
 